@@ -217,4 +217,15 @@ public class AnnotationClassRef extends ScanResultObject {
         /* prefix + */
         buf.append(getTypeSignature().toString(useSimpleNames)).append(".class");
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the type descriptor string.
+     *
+     * @return the type descriptor string
+     */
+    String getTypeDescriptorStr() {
+        return typeDescriptorStr;
+    }
+}
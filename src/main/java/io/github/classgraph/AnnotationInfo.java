@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.IncompleteAnnotationException;
 import java.lang.annotation.Inherited;
@@ -136,6 +137,7 @@ public class AnnotationInfo extends ScanResultObject implements Comparable<Annot
             return annotationParamValues == null ? AnnotationParameterValueList.EMPTY_LIST : annotationParamValues;
         }
         if (annotationParamValuesWithDefaults == null) {
+            classInfo.materializeMembers();
             if (classInfo.annotationDefaultParamValues != null
                     && !classInfo.annotationDefaultParamValuesHasBeenConvertedToPrimitive) {
                 classInfo.annotationDefaultParamValues.convertWrapperArraysToPrimitiveArrays(classInfo);
@@ -560,4 +562,32 @@ public class AnnotationInfo extends ScanResultObject implements Comparable<Annot
             buf.append(')');
         }
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        out.writeString(name);
+        out.writeAnnotationParameterValues(annotationParamValues);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        name = in.readString();
+        annotationParamValues = in.readAnnotationParameterValueList();
+    }
 }
@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.Map;
 import java.util.Objects;
@@ -302,4 +303,32 @@ public class AnnotationParameterValue extends ScanResultObject
         toStringParamValueOnly(false, buf);
         return buf.toString();
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        out.writeString(name);
+        out.writeObjectTypedValue(value);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        name = in.readString();
+        value = in.readObjectTypedValue();
+    }
 }
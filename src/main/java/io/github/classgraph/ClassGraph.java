@@ -36,6 +36,7 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
@@ -49,6 +50,7 @@ import java.util.regex.Pattern;
 import nonapi.io.github.classgraph.classpath.SystemJarFinder;
 import nonapi.io.github.classgraph.concurrency.AutoCloseableExecutorService;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.concurrency.VirtualThreadFactory;
 import nonapi.io.github.classgraph.reflection.ReflectionUtils;
 import nonapi.io.github.classgraph.scanspec.AcceptReject;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
@@ -82,6 +84,12 @@ public class ClassGraph {
                             Runtime.getRuntime().availableProcessors() * 1.25) //
     );
 
+    /**
+     * The maximum number of concurrent tasks used for the I/O-bound phases of a scan (opening classpath elements
+     * and walking directories), when scanning with {@link #useVirtualThreads()}.
+     */
+    static final int NUM_VIRTUAL_IO_THREADS = 64;
+
     /**
      * Method to use to attempt to circumvent encapsulation in JDK 16+, in order to get access to a classloader's
      * private classpath.
@@ -127,12 +135,22 @@ public class ClassGraph {
      */
     public static CircumventEncapsulationMethod CIRCUMVENT_ENCAPSULATION = CircumventEncapsulationMethod.NONE;
 
+    /**
+     * The maximum estimated size in bytes of the JVM-wide cache of parsed jarfile central directories used by scans
+     * that call {@link #enableSharedJarMetadataCache()}. Once the cache exceeds this size, the least recently used
+     * central directories that are not in use by an open scan are evicted. Default: 64MB.
+     */
+    public static long SHARED_JAR_METADATA_CACHE_MAX_SIZE = 64L * 1024L * 1024L;
+
     private final ReflectionUtils reflectionUtils;
 
     /**
      * If non-null, log while scanning.
      */
-    private LogNode topLevelLog;
+    LogNode topLevelLog;
+
+    /** The parsed classfiles of the previous scan, set by {@link ScanResult#rescanChanged()}. */
+    ClassfileSnapshot previousClassfileSnapshot;
 
     // -------------------------------------------------------------------------------------------------------------
 
@@ -1420,6 +1438,28 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Hold deflated inner jars and downloaded jars that are no larger than the limit set by
+     * {@link #setMaxBufferedJarRAMSize(int)} in direct {@link ByteBuffer}s allocated off-heap, rather than in
+     * {@code byte[]} arrays, which can cause garbage collection pressure and (with G1) humongous allocations for
+     * large jars. {@link Resource#read()} also inflates deflated resources larger than 64kB into off-heap buffers,
+     * which are returned to the pool when the {@link Resource} is closed. Buffers are pooled for reuse within a
+     * scan, and are freed as soon as the {@link ScanResult} is closed, rather than when they are garbage collected.
+     *
+     * <p>
+     * Once the total size of the off-heap buffers reaches the given limit, further inner jars and downloaded jars
+     * are spilled to temporary files, and further resources are read into on-heap arrays.
+     *
+     * @param maxOffHeapBufferSize
+     *            The maximum total size of the off-heap buffers, in bytes. This is the limit for the whole scan,
+     *            not per jar.
+     * @return this (for method chaining).
+     */
+    public ClassGraph setMaxOffHeapBufferSize(final long maxOffHeapBufferSize) {
+        scanSpec.maxOffHeapBufferSize = maxOffHeapBufferSize;
+        return this;
+    }
+
     /**
      * If true, use a {@link MappedByteBuffer} rather than the {@link FileChannel} API to open files, which may be
      * faster for large classpaths consisting of many large jarfiles, but uses up virtual memory space.
@@ -1431,6 +1471,140 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Decide for each jarfile whether to use a {@link MappedByteBuffer} or the {@link FileChannel} API, rather than
+     * using the same access method for all files. Small jarfiles are read using the {@link FileChannel} API, since
+     * mapping thousands of small files wastes virtual memory areas and time spent unmapping. Large jarfiles are
+     * memory mapped as soon as they are opened, since reading them through the {@link FileChannel} API requires
+     * many system calls. Jarfiles in between are read using the {@link FileChannel} API until they have been
+     * accessed enough times that mapping them is likely to be worthwhile. The access method used for each file is
+     * logged when the scan is complete, if logging is enabled. Has no effect if {@link #enableMemoryMapping()} is
+     * called, in which case all files are memory mapped.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableAdaptiveMemoryMapping() {
+        scanSpec.enableAdaptiveMemoryMapping = true;
+        return this;
+    }
+
+    /**
+     * Share the parsed central directories of jarfiles (the list of entries and the manifest values) between all
+     * scans in the JVM that call this method, so that concurrent and back-to-back scans of overlapping classpaths
+     * only read and parse the central directory of each jarfile once. Central directories are cached by canonical
+     * path, size and last modified time of the jarfile, so modified jarfiles are reparsed. The cache is limited
+     * to {@link #SHARED_JAR_METADATA_CACHE_MAX_SIZE} bytes; central directories that are in use by a scan whose
+     * {@link ScanResult} is still open are not evicted.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableSharedJarMetadataCache() {
+        scanSpec.enableSharedJarMetadataCache = true;
+        return this;
+    }
+
+    /**
+     * Read deflated nested jarfiles that are larger than the limit set by {@link #setMaxBufferedJarRAMSize(int)} (or
+     * whose uncompressed size is unknown) without extracting them to temporary files. Instead, the deflated jarfile
+     * is decoded once to record a checkpoint roughly every megabyte of inflated content, and the central directory
+     * and entries of the nested jarfile are then read by resuming inflation from the nearest checkpoint. This avoids
+     * writing very large temporary files for deflated "fat jars", at the cost of 32kB of RAM per checkpoint, and of
+     * re-inflating up to a megabyte of content for each non-sequential read.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableInflateCheckpoints() {
+        scanSpec.enableInflateCheckpoints = true;
+        return this;
+    }
+
+    /**
+     * Cache deflated nested jarfiles that are larger than the limit set by {@link #setMaxBufferedJarRAMSize(int)}
+     * in the given directory once they have been extracted, rather than extracting them to temporary files that
+     * are deleted when the scan is closed, so that later scans (including scans in other processes) can skip
+     * inflating them. Extracted jarfiles are keyed by the path of the outer jarfile, the path of the nested jarfile
+     * within it, and the CRC-32 and size of the nested jarfile. When the total size of the cached jarfiles exceeds
+     * the given maximum, the least recently used jarfiles are deleted. The cache directory may be shared by
+     * concurrent scans in different processes. Takes precedence over {@link #enableInflateCheckpoints()}.
+     *
+     * @param cacheDir
+     *            The cache directory. It is created if it does not exist.
+     * @param maxSize
+     *            The maximum total size of the cached jarfiles, in bytes.
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableNestedJarExtractionCache(final Path cacheDir, final long maxSize) {
+        scanSpec.nestedJarExtractionCacheDir = cacheDir;
+        scanSpec.nestedJarExtractionCacheMaxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * Parse the central directory of jarfiles with a very large number of entries (tens of thousands or more) using
+     * the worker threads of the scan. The record boundaries of the central directory are first located in a single
+     * pass, then chunks of records are decoded in parallel. The order of the entries, and the handling of Zip64 and
+     * multi-release jarfiles, are the same as for sequential parsing.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableParallelCentralDirectoryParsing() {
+        scanSpec.enableParallelCentralDirectoryParsing = true;
+        return this;
+    }
+
+    /**
+     * Find jarfiles that occur more than once on the classpath under different paths (e.g. a library that is
+     * present in both {@code WEB-INF/lib} and a shared lib directory), and only scan the first copy. Jarfiles are
+     * considered identical if they have the same size, and the same names, sizes and CRC-32 values for all entries
+     * in their central directory. The paths of later copies are not scanned; instead, their resources read the zip
+     * entries of the first copy. Later copies are still listed as classpath elements, and their resources are still
+     * returned by {@link ScanResult#getResourcesWithPath(String)} etc. Has no effect if classpath elements are
+     * accepted or rejected based on the resource paths they contain.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableJarDeduplication() {
+        scanSpec.enableJarDeduplication = true;
+        return this;
+    }
+
+    /**
+     * Read jarfiles at http(s) URLs using HTTP {@code Range} requests, rather than downloading the whole jarfile
+     * before scanning it. The end of central directory record and the central directory are fetched first, and
+     * then only the local headers and data of the zip entries that are actually read. The jarfile is fetched in
+     * 64kB blocks, and recently used blocks are cached in RAM. If the server does not support range requests, the
+     * whole jarfile is downloaded, as usual. Has no effect unless scanning of http(s) URLs has been enabled using
+     * {@link #enableRemoteJarScanning()} or {@link #enableURLScheme(String)}.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableHttpRangeRequests() {
+        scanSpec.enableHttpRangeRequests = true;
+        return this;
+    }
+
+    /**
+     * Cache jarfiles downloaded from http(s) URLs in the given directory, along with the {@code ETag} and
+     * {@code Last-Modified} response headers they were served with, so that later scans (including scans in other
+     * processes) only need to send a conditional request for each jarfile, and can reuse the cached copy if the
+     * server responds with {@code 304 Not Modified}. Jarfiles served without either header are not cached. When
+     * the total size of the cached jarfiles exceeds the given maximum, the least recently used jarfiles are deleted.
+     * The cache directory may be shared by concurrent scans in different processes. Takes precedence over
+     * {@link #enableHttpRangeRequests()}. Has no effect unless scanning of http(s) URLs has been enabled using
+     * {@link #enableRemoteJarScanning()} or {@link #enableURLScheme(String)}.
+     *
+     * @param cacheDir
+     *            The cache directory. It is created if it does not exist.
+     * @param maxSize
+     *            The maximum total size of the cached jarfiles, in bytes.
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableRemoteJarCache(final Path cacheDir, final long maxSize) {
+        scanSpec.remoteJarCacheDir = cacheDir;
+        scanSpec.remoteJarCacheMaxSize = maxSize;
+        return this;
+    }
+
     /**
      * If true, provide all versions of a multi-release resource using their multi-release path prefix, instead of
      * just the one the running JVM would select. Implicitly disables {@link #enableClassInfo()} and all features
@@ -1456,6 +1630,83 @@ public class ClassGraph {
         return this;
     }
 
+    /**
+     * Link scanned classfiles into {@link ClassInfo} objects using the worker threads, rather than from a single
+     * thread. Classfiles are sharded by class name across workers, and cross-references between classes (e.g.
+     * from a superclass to its subclasses) are merged into each {@link ClassInfo} object by the worker that owns
+     * the class. The resulting {@link ScanResult} is the same as with serial linking, but linking may be much
+     * faster for classpaths containing a large number of classes, if multiple worker threads are available.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableConcurrentLinking() {
+        scanSpec.enableConcurrentLinking = true;
+        return this;
+    }
+
+    /**
+     * Cache the parsed classfiles of each jarfile on the classpath in the given directory, so that subsequent
+     * scans with the same scan configuration do not need to parse the classfiles of any jarfile whose size and
+     * last modified time have not changed. Directory and module classpath elements are always scanned. Jarfiles
+     * containing classes with type annotations are not cached, since type annotations cannot be serialized.
+     *
+     * @param cacheDir
+     *            The cache directory. It is created if it does not exist, and may be shared between concurrent
+     *            scans.
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableScanCache(final Path cacheDir) {
+        scanSpec.scanCacheDir = cacheDir;
+        return this;
+    }
+
+    /**
+     * Keep the parsed classfiles of each directory and jarfile classpath element in memory after the scan, so that
+     * {@link ScanResult#rescanChanged()} only needs to parse classfiles that have been added or modified since
+     * the scan. Without this option, {@link ScanResult#rescanChanged()} rescans all classfiles.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableIncrementalRescan() {
+        scanSpec.enableIncrementalRescan = true;
+        return this;
+    }
+
+    /**
+     * Schedule classfiles for scanning in the order in which they are stored in each jarfile, rather than in
+     * classpath resource order, so that each worker thread reads a contiguous range of each jarfile. This reduces
+     * random access to large jarfiles, which can make a large difference to scanning time on spinning disks and
+     * network block storage when the jarfiles are not already in the filesystem cache.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph enableSequentialJarReads() {
+        scanSpec.enableSequentialJarReads = true;
+        return this;
+    }
+
+    /**
+     * Run the scan on virtual threads, if the JDK supports them (JDK 21+). Virtual threads are detected via reflection,
+     * so this option is ignored on earlier JDKs, and platform threads are used instead.
+     * 
+     * <p>
+     * When virtual threads are used, opening classpath elements (including reading jarfile central directories and
+     * extracting nested jars) and walking directory classpath elements are performed with up to 64 concurrent tasks,
+     * since these phases mostly block on I/O. Classfile parsing and linking are CPU-bound, so they are still limited to
+     * the number of worker threads requested in {@link #scan(int)} or {@link #scanStreaming(int, ClassfileVisitor)}.
+     * 
+     * <p>
+     * Only applies to scans started with {@link #scan()}, {@link #scan(int)}, {@link #scanStreaming(ClassfileVisitor)}
+     * or {@link #scanStreaming(int, ClassfileVisitor)}. If you pass your own {@link ExecutorService} to
+     * {@link #scan(ExecutorService, int)}, pass an {@link ExecutorService} that creates virtual threads instead.
+     *
+     * @return this (for method chaining).
+     */
+    public ClassGraph useVirtualThreads() {
+        scanSpec.useVirtualThreads = true;
+        return this;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -1532,7 +1783,8 @@ public class ClassGraph {
                 try {
                     // Call scanner, but ignore the returned ScanResult
                     new Scanner(/* performScan = */ true, scanSpec, executorService, numParallelTasks,
-                            scanResultProcessor, failureHandler, reflectionUtils, topLevelLog).call();
+                            scanResultProcessor, failureHandler, reflectionUtils, topLevelLog,
+                            previousClassfileSnapshot, /* classfileVisitor = */ null).call();
                 } catch (final InterruptedException | CancellationException | ExecutionException e) {
                     // Call failure handler
                     failureHandler.onFailure(e);
@@ -1560,7 +1812,8 @@ public class ClassGraph {
             final int numParallelTasks) {
         try {
             return executorService.submit(new Scanner(performScan, scanSpec, executorService, numParallelTasks,
-                    /* scanResultProcessor = */ null, /* failureHandler = */ null, reflectionUtils, topLevelLog));
+                    /* scanResultProcessor = */ null, /* failureHandler = */ null, reflectionUtils, topLevelLog,
+                    previousClassfileSnapshot, /* classfileVisitor = */ null));
         } catch (final InterruptedException e) {
             // Interrupted during the Scanner constructor's execution (specifically, by getModuleOrder(),
             // which is unlikely to ever actually be interrupted -- but this exception needs to be caught).
@@ -1650,11 +1903,28 @@ public class ClassGraph {
      *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
      */
     public ScanResult scan(final int numThreads) {
-        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(numThreads)) {
+        try (AutoCloseableExecutorService executorService = newExecutorService(numThreads)) {
             return scan(executorService, numThreads);
         }
     }
 
+    /**
+     * Create an {@link ExecutorService} for scanning. If {@link #useVirtualThreads()} was called and virtual
+     * threads are available, the executor has enough virtual threads for the I/O-bound scanning phases, otherwise
+     * it has the requested number of platform threads.
+     *
+     * @param numThreads
+     *            The number of worker threads for the CPU-bound scanning phases.
+     * @return the {@link AutoCloseableExecutorService}.
+     */
+    private AutoCloseableExecutorService newExecutorService(final int numThreads) {
+        if (scanSpec.useVirtualThreads && VirtualThreadFactory.isAvailable()) {
+            return new AutoCloseableExecutorService(Math.max(numThreads, NUM_VIRTUAL_IO_THREADS),
+                    /* useVirtualThreads = */ true);
+        }
+        return new AutoCloseableExecutorService(numThreads);
+    }
+
     /**
      * Scans the classpath, blocking until the scan is complete. You should assign the returned {@link ScanResult}
      * in a try-with-resources statement, or manually close it when you are finished with it.
@@ -1669,6 +1939,72 @@ public class ClassGraph {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /** A visitor that is passed each classfile as it is parsed by {@link #scanStreaming(ClassfileVisitor)}. */
+    @FunctionalInterface
+    public interface ClassfileVisitor {
+        /**
+         * Visit a classfile. Called from the worker threads as soon as each classfile has been parsed, so must be
+         * threadsafe.
+         *
+         * @param classfile
+         *            the parsed classfile. This should not be retained after the method returns, or memory usage
+         *            will no longer be bounded.
+         */
+        void visitClassfile(ParsedClassfile classfile);
+    }
+
+    /**
+     * Scans the classpath with the requested number of threads, passing each classfile to a
+     * {@link ClassfileVisitor} as soon as it has been parsed, and blocking until the scan is complete.
+     *
+     * <p>
+     * Unlike {@link #scan()}, classfiles are not retained and linked into a class graph, so memory usage does not
+     * grow with the size of the classpath. Classfiles are visited in no particular order, and superclasses,
+     * interfaces and annotations are only available by name. Calls {@link #enableClassInfo()}. Classfiles are
+     * not written to the scan cache, if enabled by {@link #enableScanCache(Path)}.
+     *
+     * @param numThreads
+     *            The number of worker threads to start up.
+     * @param classfileVisitor
+     *            The {@link ClassfileVisitor} to pass each parsed classfile to.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including an exception thrown by the
+     *             {@link ClassfileVisitor}), or the scan was interrupted.
+     */
+    public void scanStreaming(final int numThreads, final ClassfileVisitor classfileVisitor) {
+        if (classfileVisitor == null) {
+            throw new IllegalArgumentException("classfileVisitor cannot be null");
+        }
+        enableClassInfo();
+        try (AutoCloseableExecutorService executorService = newExecutorService(numThreads)) {
+            final ScanResult scanResult = executorService.submit(new Scanner(/* performScan = */ true, scanSpec,
+                    executorService, numThreads, /* scanResultProcessor = */ null, /* failureHandler = */ null,
+                    reflectionUtils, topLevelLog, /* previousClassfileSnapshot = */ null, classfileVisitor)).get();
+            // The ScanResult contains no classes, so just close it to free resources
+            scanResult.close();
+        } catch (final InterruptedException | CancellationException e) {
+            throw new ClassGraphException("Scan interrupted", e);
+        } catch (final ExecutionException e) {
+            throw new ClassGraphException("Uncaught exception during scan", InterruptionChecker.getCause(e));
+        }
+    }
+
+    /**
+     * Scans the classpath, passing each classfile to a {@link ClassfileVisitor} as soon as it has been parsed, and
+     * blocking until the scan is complete. See {@link #scanStreaming(int, ClassfileVisitor)}.
+     *
+     * @param classfileVisitor
+     *            The {@link ClassfileVisitor} to pass each parsed classfile to.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception (including an exception thrown by the
+     *             {@link ClassfileVisitor}), or the scan was interrupted.
+     */
+    public void scanStreaming(final ClassfileVisitor classfileVisitor) {
+        scanStreaming(DEFAULT_NUM_WORKER_THREADS, classfileVisitor);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Get a {@link ScanResult} that can be used for determining the classpath.
      *
@@ -29,6 +29,7 @@
 package io.github.classgraph;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Repeatable;
@@ -48,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import io.github.classgraph.Classfile.ClassContainment;
 import io.github.classgraph.Classfile.ClassTypeAnnotationDecorator;
@@ -144,6 +146,12 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     /** For annotations, the default values of parameters. */
     AnnotationParameterValueList annotationDefaultParamValues;
 
+    /**
+     * The position of the serialized fields, methods and annotation parameter defaults of this class, if this class
+     * was deserialized and they have not yet been read, otherwise null.
+     */
+    private transient volatile ScanResultReader.MemberBlob memberBlob;
+
     /** The type annotation decorators for the {@link ClassTypeSignature} instance. */
     transient List<ClassTypeAnnotationDecorator> typeAnnotationDecorators;
 
@@ -341,11 +349,31 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         return classInfoSet.add(classInfo);
     }
 
+    /**
+     * Add a class with a given relationship type, or if linking concurrently, defer adding the class until the
+     * shard that owns this {@link ClassInfo} object applies its deferred links.
+     *
+     * @param relType
+     *            the {@link RelType}
+     * @param classInfo
+     *            the {@link ClassInfo}
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
+     */
+    private void addRelatedClass(final RelType relType, final ClassInfo classInfo,
+            final ConcurrentLinker concurrentLinker) {
+        if (concurrentLinker == null) {
+            addRelatedClass(relType, classInfo);
+        } else {
+            concurrentLinker.addRelatedClass(this, relType, classInfo);
+        }
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
-     * Get a ClassInfo object, or create it if it doesn't exist. N.B. not threadsafe, so ClassInfo objects should
-     * only ever be constructed by a single thread.
+     * Get a ClassInfo object, or create it if it doesn't exist. Only threadsafe if classNameToClassInfo is a
+     * {@link ConcurrentMap}.
      *
      * @param className
      *            the class name
@@ -407,7 +435,16 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
                 classInfo = new ArrayClassInfo(
                         new ArrayTypeSignature(elementTypeSignature, numArrayDims, arrayTypeSigStrBuf.toString()));
             }
-            classNameToClassInfo.put(className, classInfo);
+            if (classNameToClassInfo instanceof ConcurrentMap) {
+                // Another thread may have created the ClassInfo object concurrently, if linking concurrently
+                final ClassInfo existingClassInfo = ((ConcurrentMap<String, ClassInfo>) classNameToClassInfo)
+                        .putIfAbsent(className, classInfo);
+                if (existingClassInfo != null) {
+                    classInfo = existingClassInfo;
+                }
+            } else {
+                classNameToClassInfo.put(className, classInfo);
+            }
         }
         return classInfo;
     }
@@ -435,6 +472,23 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         this.modifiers |= modifiers;
     }
 
+    /**
+     * Set class modifiers, or if linking concurrently, defer setting the modifiers until the shard that owns this
+     * {@link ClassInfo} object applies its deferred links.
+     *
+     * @param modifiers
+     *            the class modifiers
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
+     */
+    private void setModifiers(final int modifiers, final ConcurrentLinker concurrentLinker) {
+        if (concurrentLinker == null) {
+            setModifiers(modifiers);
+        } else {
+            concurrentLinker.setModifiers(this, modifiers);
+        }
+    }
+
     /**
      * Set isInterface status.
      *
@@ -503,12 +557,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the superclass name
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
-    void addSuperclass(final String superclassName, final Map<String, ClassInfo> classNameToClassInfo) {
+    void addSuperclass(final String superclassName, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
         if (superclassName != null && !superclassName.equals("java.lang.Object")) {
             final ClassInfo superclassClassInfo = getOrCreateClassInfo(superclassName, classNameToClassInfo);
             this.addRelatedClass(RelType.SUPERCLASSES, superclassClassInfo);
-            superclassClassInfo.addRelatedClass(RelType.SUBCLASSES, this);
+            superclassClassInfo.addRelatedClass(RelType.SUBCLASSES, this, concurrentLinker);
         }
     }
 
@@ -519,12 +576,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the interface name
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
-    void addImplementedInterface(final String interfaceName, final Map<String, ClassInfo> classNameToClassInfo) {
+    void addImplementedInterface(final String interfaceName, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
         final ClassInfo interfaceClassInfo = getOrCreateClassInfo(interfaceName, classNameToClassInfo);
-        interfaceClassInfo.setIsInterface(true);
+        interfaceClassInfo.setModifiers(Modifier.INTERFACE, concurrentLinker);
         this.addRelatedClass(RelType.IMPLEMENTED_INTERFACES, interfaceClassInfo);
-        interfaceClassInfo.addRelatedClass(RelType.CLASSES_IMPLEMENTING, this);
+        interfaceClassInfo.addRelatedClass(RelType.CLASSES_IMPLEMENTING, this, concurrentLinker);
     }
 
     /**
@@ -534,17 +594,20 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the class containment entries
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
     static void addClassContainment(final List<ClassContainment> classContainmentEntries,
-            final Map<String, ClassInfo> classNameToClassInfo) {
+            final Map<String, ClassInfo> classNameToClassInfo, final ConcurrentLinker concurrentLinker) {
         for (final ClassContainment classContainment : classContainmentEntries) {
             final ClassInfo innerClassInfo = ClassInfo.getOrCreateClassInfo(classContainment.innerClassName,
                     classNameToClassInfo);
-            innerClassInfo.setModifiers(classContainment.innerClassModifierBits);
+            innerClassInfo.setModifiers(classContainment.innerClassModifierBits, concurrentLinker);
             final ClassInfo outerClassInfo = ClassInfo.getOrCreateClassInfo(classContainment.outerClassName,
                     classNameToClassInfo);
-            innerClassInfo.addRelatedClass(RelType.CONTAINED_WITHIN_OUTER_CLASS, outerClassInfo);
-            outerClassInfo.addRelatedClass(RelType.CONTAINS_INNER_CLASS, innerClassInfo);
+            innerClassInfo.addRelatedClass(RelType.CONTAINED_WITHIN_OUTER_CLASS, outerClassInfo,
+                    concurrentLinker);
+            outerClassInfo.addRelatedClass(RelType.CONTAINS_INNER_CLASS, innerClassInfo, concurrentLinker);
         }
     }
 
@@ -565,19 +628,21 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the class annotation info
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
     void addClassAnnotation(final AnnotationInfo classAnnotationInfo,
-            final Map<String, ClassInfo> classNameToClassInfo) {
+            final Map<String, ClassInfo> classNameToClassInfo, final ConcurrentLinker concurrentLinker) {
         final ClassInfo annotationClassInfo = getOrCreateClassInfo(classAnnotationInfo.getName(),
                 classNameToClassInfo);
-        annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER);
+        annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER, concurrentLinker);
         if (this.annotationInfo == null) {
             this.annotationInfo = new AnnotationInfoList(2);
         }
         this.annotationInfo.add(classAnnotationInfo);
 
         this.addRelatedClass(RelType.CLASS_ANNOTATIONS, annotationClassInfo);
-        annotationClassInfo.addRelatedClass(RelType.CLASSES_WITH_ANNOTATION, this);
+        annotationClassInfo.addRelatedClass(RelType.CLASSES_WITH_ANNOTATION, this, concurrentLinker);
 
         // Record use of @Inherited meta-annotation
         if (classAnnotationInfo.getName().equals(Inherited.class.getName())) {
@@ -596,24 +661,27 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the field or method modifiers
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
     private void addFieldOrMethodAnnotationInfo(final AnnotationInfoList annotationInfoList, final boolean isField,
-            final int modifiers, final Map<String, ClassInfo> classNameToClassInfo) {
+            final int modifiers, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
         if (annotationInfoList != null) {
             for (final AnnotationInfo fieldAnnotationInfo : annotationInfoList) {
                 final ClassInfo annotationClassInfo = getOrCreateClassInfo(fieldAnnotationInfo.getName(),
                         classNameToClassInfo);
-                annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER);
+                annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER, concurrentLinker);
                 // Mark this class as having a field or method with this annotation
                 this.addRelatedClass(isField ? RelType.FIELD_ANNOTATIONS : RelType.METHOD_ANNOTATIONS,
                         annotationClassInfo);
                 annotationClassInfo.addRelatedClass(
                         isField ? RelType.CLASSES_WITH_FIELD_ANNOTATION : RelType.CLASSES_WITH_METHOD_ANNOTATION,
-                        this);
+                        this, concurrentLinker);
                 // For non-private methods/fields, also add to nonprivate (inherited) mapping
                 if (!Modifier.isPrivate(modifiers)) {
                     annotationClassInfo.addRelatedClass(isField ? RelType.CLASSES_WITH_NONPRIVATE_FIELD_ANNOTATION
-                            : RelType.CLASSES_WITH_NONPRIVATE_METHOD_ANNOTATION, this);
+                            : RelType.CLASSES_WITH_NONPRIVATE_METHOD_ANNOTATION, this, concurrentLinker);
                 }
             }
         }
@@ -626,12 +694,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the field info list
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
-    void addFieldInfo(final FieldInfoList fieldInfoList, final Map<String, ClassInfo> classNameToClassInfo) {
+    void addFieldInfo(final FieldInfoList fieldInfoList, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
         for (final FieldInfo fi : fieldInfoList) {
             // Index field annotations
             addFieldOrMethodAnnotationInfo(fi.annotationInfo, /* isField = */ true, fi.getModifiers(),
-                    classNameToClassInfo);
+                    classNameToClassInfo, concurrentLinker);
         }
         if (this.fieldInfo == null) {
             this.fieldInfo = fieldInfoList;
@@ -647,12 +718,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
      *            the method info list
      * @param classNameToClassInfo
      *            the map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker}, or null if linking from a single thread
      */
-    void addMethodInfo(final MethodInfoList methodInfoList, final Map<String, ClassInfo> classNameToClassInfo) {
+    void addMethodInfo(final MethodInfoList methodInfoList, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
         for (final MethodInfo mi : methodInfoList) {
             // Index method annotations
             addFieldOrMethodAnnotationInfo(mi.annotationInfo, /* isField = */ false, mi.getModifiers(),
-                    classNameToClassInfo);
+                    classNameToClassInfo, concurrentLinker);
 
             // Index method parameter annotations
             if (mi.parameterAnnotationInfo != null) {
@@ -662,14 +736,15 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
                         for (final AnnotationInfo methodParamAnnotationInfo : paramAnnotationInfoArr) {
                             final ClassInfo annotationClassInfo = getOrCreateClassInfo(
                                     methodParamAnnotationInfo.getName(), classNameToClassInfo);
-                            annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER);
+                            annotationClassInfo.setModifiers(ANNOTATION_CLASS_MODIFIER, concurrentLinker);
                             this.addRelatedClass(RelType.METHOD_PARAMETER_ANNOTATIONS, annotationClassInfo);
                             annotationClassInfo.addRelatedClass(RelType.CLASSES_WITH_METHOD_PARAMETER_ANNOTATION,
-                                    this);
+                                    this, concurrentLinker);
                             // For non-private methods/fields, also add to nonprivate (inherited) mapping
                             if (!Modifier.isPrivate(mi.getModifiers())) {
                                 annotationClassInfo.addRelatedClass(
-                                        RelType.CLASSES_WITH_NONPRIVATE_METHOD_PARAMETER_ANNOTATION, this);
+                                        RelType.CLASSES_WITH_NONPRIVATE_METHOD_PARAMETER_ANNOTATION, this,
+                                        concurrentLinker);
                             }
                         }
                     }
@@ -713,7 +788,9 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
 
     /**
      * Add a class that has just been scanned (as opposed to just referenced by a scanned class). Not threadsafe,
-     * should be run in single threaded context.
+     * should be run in single threaded context (unless only distinct class names are added to a
+     * {@link ConcurrentMap} before any placeholder {@link ClassInfo} objects are created, as done by
+     * {@link ConcurrentLinker}).
      *
      * @param className
      *            the class name
@@ -2194,6 +2271,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!isAnnotation()) {
             throw new IllegalArgumentException("Class is not an annotation: " + getName());
         }
+        materializeMembers();
         synchronized (this) {
             if (annotationDefaultParamValues == null) {
                 return AnnotationParameterValueList.EMPTY_LIST;
@@ -2270,6 +2348,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableMethodInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableMethodInfo() before #scan()");
         }
+        materializeMembers();
         if (methodInfo == null) {
             return MethodInfoList.EMPTY_LIST;
         }
@@ -2752,6 +2831,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        materializeMembers();
         return fieldInfo == null ? FieldInfoList.EMPTY_LIST : fieldInfo;
     }
 
@@ -2860,6 +2940,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
         if (!scanResult.scanSpec.enableFieldInfo) {
             throw new IllegalArgumentException("Please call ClassGraph#enableFieldInfo() before #scan()");
         }
+        materializeMembers();
         if (fieldInfo == null) {
             return null;
         }
@@ -3246,6 +3327,17 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
                 ai.setScanResult(scanResult);
             }
         }
+        setMembersScanResult(scanResult);
+    }
+
+    /**
+     * Set the {@link ScanResult} backreference in the fields, methods and annotation parameter defaults of this
+     * class.
+     *
+     * @param scanResult
+     *            the scan result
+     */
+    private void setMembersScanResult(final ScanResult scanResult) {
         if (fieldInfo != null) {
             for (final FieldInfo fi : fieldInfo) {
                 fi.setScanResult(scanResult);
@@ -3318,6 +3410,7 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
     @Override
     protected void findReferencedClassInfo(final Map<String, ClassInfo> classNameToClassInfo,
             final Set<ClassInfo> refdClassInfo, final LogNode log) {
+        materializeMembers();
         // Add this class to the set of references
         super.findReferencedClassInfo(classNameToClassInfo, refdClassInfo, log);
         if (this.referencedClassNames != null) {
@@ -3499,4 +3592,159 @@ public class ClassInfo extends ScanResultObject implements Comparable<ClassInfo>
             }
         }
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        materializeMembers();
+        out.writeVarInt(modifiers);
+        out.writeBoolean(isRecord);
+        out.writeBoolean(isInherited);
+        out.writeVarInt(classfileMinorVersion);
+        out.writeVarInt(classfileMajorVersion);
+        out.writeString(typeSignatureStr);
+        out.writeString(sourceFile);
+        out.writeString(fullyQualifiedDefiningMethodName);
+        out.writeBoolean(isExternalClass);
+        out.writeBoolean(isScannedClass);
+        out.writeModuleInfoRef(moduleInfo);
+        out.writePackageInfoRef(packageInfo);
+        out.writeAnnotationInfos(annotationInfo);
+        out.writeMemberBlob(this);
+        out.writeStrings(referencedClassNames);
+        out.writeClassInfoRefs(referencedClasses);
+        // Write relationship edges as the RelType ordinal followed by indices of the related classes
+        out.writeSize(relatedClasses == null ? -1 : relatedClasses.size());
+        if (relatedClasses != null) {
+            for (final Entry<RelType, Set<ClassInfo>> ent : relatedClasses.entrySet()) {
+                out.writeVarInt(ent.getKey().ordinal());
+                out.writeClassInfoRefs(ent.getValue());
+            }
+        }
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        modifiers = in.readVarInt();
+        isRecord = in.readBoolean();
+        isInherited = in.readBoolean();
+        classfileMinorVersion = in.readVarInt();
+        classfileMajorVersion = in.readVarInt();
+        typeSignatureStr = in.readString();
+        sourceFile = in.readString();
+        fullyQualifiedDefiningMethodName = in.readString();
+        isExternalClass = in.readBoolean();
+        isScannedClass = in.readBoolean();
+        moduleInfo = in.readModuleInfoRef();
+        packageInfo = in.readPackageInfoRef();
+        annotationInfo = in.readAnnotationInfoList();
+        memberBlob = in.readMemberBlob();
+        referencedClassNames = in.readStrings(new HashSet<String>());
+        referencedClasses = in.readClassInfoRefs(new ClassInfoList());
+        final int numRelTypes = in.readSize();
+        if (numRelTypes >= 0) {
+            relatedClasses = new EnumMap<>(RelType.class);
+            final RelType[] relTypes = RelType.values();
+            for (int i = 0; i < numRelTypes; i++) {
+                final int relTypeOrdinal = in.readVarInt();
+                if (relTypeOrdinal >= relTypes.length) {
+                    throw new IOException("Bad RelType ordinal");
+                }
+                relatedClasses.put(relTypes[relTypeOrdinal], in.readClassInfoRefs(new LinkedHashSet<ClassInfo>()));
+            }
+        }
+    }
+
+    /**
+     * Write the fields, methods and annotation parameter defaults of this class in the binary serialization
+     * format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeMembersTo(final ScanResultWriter out) throws IOException {
+        out.writeSize(fieldInfo == null ? -1 : fieldInfo.size());
+        if (fieldInfo != null) {
+            for (final FieldInfo fi : fieldInfo) {
+                fi.writeTo(out);
+            }
+        }
+        out.writeSize(methodInfo == null ? -1 : methodInfo.size());
+        if (methodInfo != null) {
+            for (final MethodInfo mi : methodInfo) {
+                mi.writeTo(out);
+            }
+        }
+        out.writeAnnotationParameterValues(annotationDefaultParamValues);
+    }
+
+    /**
+     * Read the fields, methods and annotation parameter defaults of this class from the binary serialization
+     * format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readMembersFrom(final ScanResultReader in) throws IOException {
+        final int numFields = in.readSize();
+        if (numFields >= 0) {
+            fieldInfo = new FieldInfoList(numFields);
+            for (int i = 0; i < numFields; i++) {
+                final FieldInfo fi = new FieldInfo();
+                fi.readFrom(in);
+                fieldInfo.add(fi);
+            }
+        }
+        final int numMethods = in.readSize();
+        if (numMethods >= 0) {
+            methodInfo = new MethodInfoList(numMethods);
+            for (int i = 0; i < numMethods; i++) {
+                final MethodInfo mi = new MethodInfo();
+                mi.readFrom(in);
+                methodInfo.add(mi);
+            }
+        }
+        annotationDefaultParamValues = in.readAnnotationParameterValueList();
+    }
+
+    /**
+     * Read the fields, methods and annotation parameter defaults of this class, if this class was deserialized by
+     * {@link ScanResult#readFrom(java.io.InputStream)} and they have not yet been read.
+     */
+    void materializeMembers() {
+        if (memberBlob != null) {
+            synchronized (this) {
+                if (memberBlob != null) {
+                    try {
+                        memberBlob.readMembers(this);
+                    } catch (final IOException e) {
+                        throw new IllegalArgumentException("Could not read members of class " + name, e);
+                    }
+                    if (scanResult != null) {
+                        setMembersScanResult(scanResult);
+                    }
+                    memberBlob = null;
+                }
+            }
+        }
+    }
 }
@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.Modifier;
@@ -378,4 +379,40 @@ public abstract class ClassMemberInfo extends ScanResultObject implements HasNam
     public boolean hasAnnotation(final String annotationName) {
         return getAnnotationInfo().containsName(annotationName);
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        out.writeString(declaringClassName);
+        out.writeString(name);
+        out.writeVarInt(modifiers);
+        out.writeString(typeDescriptorStr);
+        out.writeString(typeSignatureStr);
+        out.writeAnnotationInfos(annotationInfo);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        declaringClassName = in.readString();
+        name = in.readString();
+        modifiers = in.readVarInt();
+        typeDescriptorStr = in.readString();
+        typeSignatureStr = in.readString();
+        annotationInfo = in.readAnnotationInfoList();
+    }
 }
@@ -137,6 +137,12 @@ class Classfile {
     /** The type annotation decorators for the {@link ClassTypeSignature} instance. */
     private List<ClassTypeAnnotationDecorator> classTypeAnnotationDecorators;
 
+    /**
+     * True if any type annotation decorators were created for the class, its fields or its methods (these cannot
+     * be serialized, so the classfile cannot be stored in a {@link ScanCache}).
+     */
+    private boolean hasTypeAnnotationDecorators;
+
     /** The names of accepted classes found in the classpath while scanning paths within classpath elements. */
     private final Set<String> acceptedClassNamesFound;
 
@@ -206,6 +212,82 @@ class Classfile {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * The parsed contents of a classfile, in a form that can be serialized to JSON by a {@link ScanCache}. (Final
+     * fields are not serialized, so class containment entries are stored as parallel lists.)
+     */
+    static class CachedClassfile {
+        /** The relative path to the classfile. */
+        public String relativePath;
+
+        /** The name of the class. */
+        public String className;
+
+        /** The minor version of the classfile format. */
+        public int minorVersion;
+
+        /** The major version of the classfile format. */
+        public int majorVersion;
+
+        /** The class modifiers. */
+        public int classModifiers;
+
+        /** Whether this class is an interface. */
+        public boolean isInterface;
+
+        /** Whether this class is a record. */
+        public boolean isRecord;
+
+        /** Whether this class is an annotation. */
+        public boolean isAnnotation;
+
+        /** The superclass name. */
+        public String superclassName;
+
+        /** The implemented interfaces. */
+        public List<String> implementedInterfaces;
+
+        /** The class annotations. */
+        public AnnotationInfoList classAnnotations;
+
+        /** The fully qualified name of the defining method. */
+        public String fullyQualifiedDefiningMethodName;
+
+        /** The inner class names of the class containment entries. */
+        public List<String> containmentInnerClassNames;
+
+        /** The inner class modifier bits of the class containment entries. */
+        public List<Integer> containmentInnerClassModifierBits;
+
+        /** The outer class names of the class containment entries. */
+        public List<String> containmentOuterClassNames;
+
+        /** Annotation default parameter values. */
+        public AnnotationParameterValueList annotationParamDefaultValues;
+
+        /** Referenced class names. */
+        public Set<String> refdClassNames;
+
+        /** The field info list. */
+        public FieldInfoList fieldInfoList;
+
+        /** The method info list. */
+        public MethodInfoList methodInfoList;
+
+        /** The type signature. */
+        public String typeSignatureStr;
+
+        /** The source file. */
+        public String sourceFile;
+
+        /** Constructor for deserialization. */
+        public CachedClassfile() {
+            // Empty
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /** Thrown when a classfile's contents are not in the correct format. */
     static class ClassfileFormatException extends IOException {
         /** serialVersionUID. */
@@ -472,63 +554,261 @@ class Classfile {
     void link(final Map<String, ClassInfo> classNameToClassInfo,
             final Map<String, PackageInfo> packageNameToPackageInfo,
             final Map<String, ModuleInfo> moduleNameToModuleInfo) {
-        boolean isModuleDescriptor = false;
-        boolean isPackageDescriptor = false;
-        ClassInfo classInfo = null;
-        if (className.equals("module-info")) {
-            isModuleDescriptor = true;
+        final ClassInfo classInfo = addScannedClass(classNameToClassInfo);
+        if (classInfo != null) {
+            linkClassInfo(classInfo, classNameToClassInfo, /* concurrentLinker = */ null);
+        }
+        linkPackageAndModule(classInfo, packageNameToPackageInfo, moduleNameToModuleInfo);
+    }
 
-        } else if (className.equals("package-info") || className.endsWith(".package-info")) {
-            isPackageDescriptor = true;
+    /**
+     * Get the name of the class.
+     *
+     * @return the class name
+     */
+    String getClassName() {
+        return className;
+    }
 
-        } else {
-            // Handle regular classfile
-            classInfo = ClassInfo.addScannedClass(className, classModifiers, isExternalClass, classNameToClassInfo,
-                    classpathElement, classfileResource);
-            classInfo.setClassfileVersion(minorVersion, majorVersion);
-            classInfo.setModifiers(classModifiers);
-            classInfo.setIsInterface(isInterface);
-            classInfo.setIsAnnotation(isAnnotation);
-            classInfo.setIsRecord(isRecord);
-            classInfo.setSourceFile(sourceFile);
-            if (superclassName != null) {
-                classInfo.addSuperclass(superclassName, classNameToClassInfo);
-            }
-            if (implementedInterfaces != null) {
-                for (final String interfaceName : implementedInterfaces) {
-                    classInfo.addImplementedInterface(interfaceName, classNameToClassInfo);
-                }
-            }
-            if (classAnnotations != null) {
-                for (final AnnotationInfo classAnnotation : classAnnotations) {
-                    classInfo.addClassAnnotation(classAnnotation, classNameToClassInfo);
-                }
-            }
-            if (classContainmentEntries != null) {
-                ClassInfo.addClassContainment(classContainmentEntries, classNameToClassInfo);
-            }
-            if (annotationParamDefaultValues != null) {
-                classInfo.addAnnotationParamDefaultValues(annotationParamDefaultValues);
-            }
-            if (fullyQualifiedDefiningMethodName != null) {
-                classInfo.addFullyQualifiedDefiningMethodName(fullyQualifiedDefiningMethodName);
-            }
-            if (fieldInfoList != null) {
-                classInfo.addFieldInfo(fieldInfoList, classNameToClassInfo);
-            }
-            if (methodInfoList != null) {
-                classInfo.addMethodInfo(methodInfoList, classNameToClassInfo);
-            }
-            if (typeSignatureStr != null) {
-                classInfo.setTypeSignature(typeSignatureStr);
+    /**
+     * Get the relative path of this classfile within its classpath element.
+     *
+     * @return the relative path
+     */
+    String getRelativePath() {
+        return relativePath;
+    }
+
+    /**
+     * Get the classpath element that contains this classfile.
+     *
+     * @return the classpath element
+     */
+    ClasspathElement getClasspathElement() {
+        return classpathElement;
+    }
+
+    /**
+     * Check whether this is an external class.
+     *
+     * @return true if this is an external class
+     */
+    boolean isExternalClass() {
+        return isExternalClass;
+    }
+
+    /**
+     * Get the class modifiers.
+     *
+     * @return the class modifiers
+     */
+    int getClassModifiers() {
+        return classModifiers;
+    }
+
+    /**
+     * Check whether this classfile is an interface.
+     *
+     * @return true if this classfile is an interface
+     */
+    boolean isInterface() {
+        return isInterface;
+    }
+
+    /**
+     * Check whether this classfile is an annotation.
+     *
+     * @return true if this classfile is an annotation
+     */
+    boolean isAnnotation() {
+        return isAnnotation;
+    }
+
+    /**
+     * Get the name of the superclass.
+     *
+     * @return the superclass name, or null if none
+     */
+    String getSuperclassName() {
+        return superclassName;
+    }
+
+    /**
+     * Get the names of the interfaces implemented by this class.
+     *
+     * @return the implemented interface names, or null if none
+     */
+    List<String> getImplementedInterfaces() {
+        return implementedInterfaces;
+    }
+
+    /**
+     * Get the annotations on this class.
+     *
+     * @return the class annotations, or null if none
+     */
+    AnnotationInfoList getClassAnnotations() {
+        return classAnnotations;
+    }
+
+    /**
+     * Get the classfile resource.
+     *
+     * @return the classfile resource
+     */
+    Resource getClassfileResource() {
+        return classfileResource;
+    }
+
+    /**
+     * Get the parsed contents of this classfile in serializable form.
+     *
+     * @return the {@link CachedClassfile}, or null if the classfile contains type annotations, which cannot be
+     *         serialized.
+     */
+    CachedClassfile toCachedClassfile() {
+        if (hasTypeAnnotationDecorators) {
+            return null;
+        }
+        final CachedClassfile cachedClassfile = new CachedClassfile();
+        cachedClassfile.relativePath = relativePath;
+        cachedClassfile.className = className;
+        cachedClassfile.minorVersion = minorVersion;
+        cachedClassfile.majorVersion = majorVersion;
+        cachedClassfile.classModifiers = classModifiers;
+        cachedClassfile.isInterface = isInterface;
+        cachedClassfile.isRecord = isRecord;
+        cachedClassfile.isAnnotation = isAnnotation;
+        cachedClassfile.superclassName = superclassName;
+        cachedClassfile.implementedInterfaces = implementedInterfaces;
+        cachedClassfile.classAnnotations = classAnnotations;
+        cachedClassfile.fullyQualifiedDefiningMethodName = fullyQualifiedDefiningMethodName;
+        if (classContainmentEntries != null) {
+            cachedClassfile.containmentInnerClassNames = new ArrayList<>(classContainmentEntries.size());
+            cachedClassfile.containmentInnerClassModifierBits = new ArrayList<>(classContainmentEntries.size());
+            cachedClassfile.containmentOuterClassNames = new ArrayList<>(classContainmentEntries.size());
+            for (final ClassContainment classContainment : classContainmentEntries) {
+                cachedClassfile.containmentInnerClassNames.add(classContainment.innerClassName);
+                cachedClassfile.containmentInnerClassModifierBits.add(classContainment.innerClassModifierBits);
+                cachedClassfile.containmentOuterClassNames.add(classContainment.outerClassName);
             }
-            if (refdClassNames != null) {
-                classInfo.addReferencedClassNames(refdClassNames);
+        }
+        cachedClassfile.annotationParamDefaultValues = annotationParamDefaultValues;
+        cachedClassfile.refdClassNames = refdClassNames;
+        cachedClassfile.fieldInfoList = fieldInfoList;
+        cachedClassfile.methodInfoList = methodInfoList;
+        cachedClassfile.typeSignatureStr = typeSignatureStr;
+        cachedClassfile.sourceFile = sourceFile;
+        return cachedClassfile;
+    }
+
+    /**
+     * Check whether this classfile is a module descriptor.
+     *
+     * @return true if this is a module descriptor
+     */
+    private boolean isModuleDescriptor() {
+        return className.equals("module-info");
+    }
+
+    /**
+     * Check whether this classfile is a package descriptor.
+     *
+     * @return true if this is a package descriptor
+     */
+    private boolean isPackageDescriptor() {
+        return className.equals("package-info") || className.endsWith(".package-info");
+    }
+
+    /**
+     * Create the {@link ClassInfo} object for this classfile, or merge this classfile into a placeholder
+     * {@link ClassInfo} object if the class was previously referenced by another class. Only mutates the
+     * {@link ClassInfo} object for this class.
+     *
+     * @param classNameToClassInfo
+     *            map from class name to class info
+     * @return the {@link ClassInfo} object, or null if this is a module descriptor or package descriptor.
+     */
+    ClassInfo addScannedClass(final Map<String, ClassInfo> classNameToClassInfo) {
+        if (isModuleDescriptor() || isPackageDescriptor()) {
+            return null;
+        }
+        return ClassInfo.addScannedClass(className, classModifiers, isExternalClass, classNameToClassInfo,
+                classpathElement, classfileResource);
+    }
+
+    /**
+     * Link the {@link ClassInfo} object for this classfile to the classes it refers to.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object returned by {@link #addScannedClass(Map)}
+     * @param classNameToClassInfo
+     *            map from class name to class info
+     * @param concurrentLinker
+     *            the {@link ConcurrentLinker} to defer mutations of other {@link ClassInfo} objects to, or null if
+     *            linking from a single thread
+     */
+    void linkClassInfo(final ClassInfo classInfo, final Map<String, ClassInfo> classNameToClassInfo,
+            final ConcurrentLinker concurrentLinker) {
+        classInfo.setClassfileVersion(minorVersion, majorVersion);
+        classInfo.setModifiers(classModifiers);
+        classInfo.setIsInterface(isInterface);
+        classInfo.setIsAnnotation(isAnnotation);
+        classInfo.setIsRecord(isRecord);
+        classInfo.setSourceFile(sourceFile);
+        if (superclassName != null) {
+            classInfo.addSuperclass(superclassName, classNameToClassInfo, concurrentLinker);
+        }
+        if (implementedInterfaces != null) {
+            for (final String interfaceName : implementedInterfaces) {
+                classInfo.addImplementedInterface(interfaceName, classNameToClassInfo, concurrentLinker);
             }
-            if (classTypeAnnotationDecorators != null) {
-                classInfo.addTypeDecorators(classTypeAnnotationDecorators);
+        }
+        if (classAnnotations != null) {
+            for (final AnnotationInfo classAnnotation : classAnnotations) {
+                classInfo.addClassAnnotation(classAnnotation, classNameToClassInfo, concurrentLinker);
             }
         }
+        if (classContainmentEntries != null) {
+            ClassInfo.addClassContainment(classContainmentEntries, classNameToClassInfo, concurrentLinker);
+        }
+        if (annotationParamDefaultValues != null) {
+            classInfo.addAnnotationParamDefaultValues(annotationParamDefaultValues);
+        }
+        if (fullyQualifiedDefiningMethodName != null) {
+            classInfo.addFullyQualifiedDefiningMethodName(fullyQualifiedDefiningMethodName);
+        }
+        if (fieldInfoList != null) {
+            classInfo.addFieldInfo(fieldInfoList, classNameToClassInfo, concurrentLinker);
+        }
+        if (methodInfoList != null) {
+            classInfo.addMethodInfo(methodInfoList, classNameToClassInfo, concurrentLinker);
+        }
+        if (typeSignatureStr != null) {
+            classInfo.setTypeSignature(typeSignatureStr);
+        }
+        if (refdClassNames != null) {
+            classInfo.addReferencedClassNames(refdClassNames);
+        }
+        if (classTypeAnnotationDecorators != null) {
+            classInfo.addTypeDecorators(classTypeAnnotationDecorators);
+        }
+    }
+
+    /**
+     * Link this classfile to its package and module. Not threadsafe, should be run in a single-threaded context.
+     *
+     * @param classInfo
+     *            the {@link ClassInfo} object returned by {@link #addScannedClass(Map)}, or null if this is a
+     *            module descriptor or package descriptor
+     * @param packageNameToPackageInfo
+     *            map from package name to package info
+     * @param moduleNameToModuleInfo
+     *            map from module name to module info
+     */
+    void linkPackageAndModule(final ClassInfo classInfo, final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo) {
+        final boolean isModuleDescriptor = isModuleDescriptor();
 
         // Get or create PackageInfo, if this is not a module descriptor (the module descriptor's package is "")
         PackageInfo packageInfo = null;
@@ -536,7 +816,7 @@ class Classfile {
             // Get package for this class or package descriptor
             final String packageName = PackageInfo.getParentPackageName(className);
             packageInfo = PackageInfo.getOrCreatePackage(packageName, packageNameToPackageInfo, scanSpec);
-            if (isPackageDescriptor) {
+            if (isPackageDescriptor()) {
                 // Add any class annotations on the package-info.class file to the ModuleInfo
                 packageInfo.addAnnotations(classAnnotations);
             } else if (classInfo != null) {
@@ -820,15 +1100,7 @@ class Classfile {
         if (cpStrLen != asciiStrLen) {
             return false;
         }
-        final int cpStrStart = cpStrOffset + 2;
-        reader.bufferTo(cpStrStart + cpStrLen);
-        final byte[] buf = reader.buf();
-        for (int i = 0; i < cpStrLen; i++) {
-            if ((char) (buf[cpStrStart + i] & 0xff) != asciiStr.charAt(i)) {
-                return false;
-            }
-        }
-        return true;
+        return reader.bytesEqualASCII(cpStrOffset + 2, asciiStr);
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -1396,6 +1668,7 @@ class Classfile {
                         final int annotationCount = reader.readUnsignedShort();
                         if (annotationCount > 0) {
                             fieldTypeAnnotationDecorators = new ArrayList<>();
+                            hasTypeAnnotationDecorators = true;
                             for (int m = 0; m < annotationCount; m++) {
                                 final int targetType = reader.readUnsignedByte();
                                 if (targetType != 0x13) {
@@ -1542,6 +1815,7 @@ class Classfile {
                         final int annotationCount = reader.readUnsignedShort();
                         if (annotationCount > 0) {
                             methodTypeAnnotationDecorators = new ArrayList<>(annotationCount);
+                            hasTypeAnnotationDecorators = true;
                             for (int m = 0; m < annotationCount; m++) {
                                 final int targetType = reader.readUnsignedByte();
                                 final int typeParameterIndex;
@@ -1808,6 +2082,7 @@ class Classfile {
                 final int annotationCount = reader.readUnsignedShort();
                 if (annotationCount > 0) {
                     classTypeAnnotationDecorators = new ArrayList<>(annotationCount);
+                    hasTypeAnnotationDecorators = true;
                     for (int m = 0; m < annotationCount; m++) {
                         final int targetType = reader.readUnsignedByte();
                         final int typeParameterIndex;
@@ -2109,4 +2384,83 @@ class Classfile {
             }
         }
     }
+
+    /**
+     * Restore an accepted (non-external) classfile from the parsed contents previously stored in a
+     * {@link ScanCache}, rather than by reading the classfile.
+     *
+     * @param cachedClassfile
+     *            the cached contents of the classfile
+     * @param classpathElement
+     *            the classpath element
+     * @param classpathOrder
+     *            the classpath order
+     * @param acceptedClassNamesFound
+     *            the names of accepted classes found in the classpath while scanning paths within classpath
+     *            elements.
+     * @param classNamesScheduledForExtendedScanning
+     *            the names of external (non-accepted) classes scheduled for extended scanning (where scanning is
+     *            extended upwards to superclasses, interfaces and annotations).
+     * @param classfileResource
+     *            the classfile resource
+     * @param stringInternMap
+     *            the string intern map
+     * @param additionalWorkUnitsOut
+     *            on exit, any work units added for external classes that need to be scanned
+     * @param scanSpec
+     *            the scan spec
+     * @param log
+     *            the log
+     */
+    Classfile(final CachedClassfile cachedClassfile, final ClasspathElement classpathElement,
+            final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
+            final Set<String> classNamesScheduledForExtendedScanning, final Resource classfileResource,
+            final ConcurrentHashMap<String, String> stringInternMap,
+            final List<ClassfileScanWorkUnit> additionalWorkUnitsOut, final ScanSpec scanSpec, final LogNode log) {
+        this.classpathElement = classpathElement;
+        this.classpathOrder = classpathOrder;
+        this.relativePath = cachedClassfile.relativePath;
+        this.acceptedClassNamesFound = acceptedClassNamesFound;
+        this.classNamesScheduledForExtendedScanning = classNamesScheduledForExtendedScanning;
+        this.classfileResource = classfileResource;
+        this.isExternalClass = false;
+        this.stringInternMap = stringInternMap;
+        this.scanSpec = scanSpec;
+
+        this.className = intern(cachedClassfile.className);
+        this.minorVersion = cachedClassfile.minorVersion;
+        this.majorVersion = cachedClassfile.majorVersion;
+        this.classModifiers = cachedClassfile.classModifiers;
+        this.isInterface = cachedClassfile.isInterface;
+        this.isRecord = cachedClassfile.isRecord;
+        this.isAnnotation = cachedClassfile.isAnnotation;
+        this.superclassName = intern(cachedClassfile.superclassName);
+        this.implementedInterfaces = cachedClassfile.implementedInterfaces;
+        this.classAnnotations = cachedClassfile.classAnnotations;
+        this.fullyQualifiedDefiningMethodName = cachedClassfile.fullyQualifiedDefiningMethodName;
+        if (cachedClassfile.containmentInnerClassNames != null) {
+            this.classContainmentEntries = new ArrayList<>(cachedClassfile.containmentInnerClassNames.size());
+            for (int i = 0; i < cachedClassfile.containmentInnerClassNames.size(); i++) {
+                classContainmentEntries.add(new ClassContainment(
+                        intern(cachedClassfile.containmentInnerClassNames.get(i)),
+                        cachedClassfile.containmentInnerClassModifierBits.get(i),
+                        intern(cachedClassfile.containmentOuterClassNames.get(i))));
+            }
+        }
+        this.annotationParamDefaultValues = cachedClassfile.annotationParamDefaultValues;
+        this.refdClassNames = cachedClassfile.refdClassNames;
+        this.fieldInfoList = cachedClassfile.fieldInfoList;
+        this.methodInfoList = cachedClassfile.methodInfoList;
+        this.typeSignatureStr = cachedClassfile.typeSignatureStr;
+        this.sourceFile = cachedClassfile.sourceFile;
+
+        // Schedule any external superclasses, interfaces or annotations for scanning, as if the classfile had
+        // just been read
+        if (scanSpec.extendScanningUpwardsToExternalClasses) {
+            extendScanningUpwards(log);
+            if (additionalWorkUnits != null) {
+                additionalWorkUnitsOut.addAll(additionalWorkUnits);
+            }
+        }
+    }
 }
@@ -0,0 +1,174 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.classgraph.Classfile.CachedClassfile;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * The parsed accepted classfiles of a scan, kept in memory so that {@link ScanResult#rescanChanged()} only has to
+ * parse the classfiles that have changed. Classfiles in jarfiles are reused if the size and last modified time of
+ * the outermost jarfile have not changed, and classfiles in directories are reused if the last modified time of
+ * the classfile has not changed. Module classpath elements are always rescanned.
+ */
+class ClassfileSnapshot {
+    /** Map from the URI of each classpath element to the snapshot of that classpath element. */
+    private final Map<String, ClasspathElementSnapshot> classpathEltURIToSnapshot = new HashMap<>();
+
+    /** A snapshot of the parsed classfiles of one classpath element. */
+    private static class ClasspathElementSnapshot {
+        /** True if the classpath element is a jarfile. */
+        boolean isJar;
+
+        /** For jarfiles, the size of the outermost jarfile. */
+        long fileSize;
+
+        /** For jarfiles, the last modified time of the outermost jarfile, at the time it was opened. */
+        long fileLastModified;
+
+        /**
+         * Map from relative path to parsed classfile, or to null, if the classfile was skipped when it was parsed.
+         */
+        final Map<String, CachedClassfile> relativePathToCachedClassfile = new HashMap<>();
+
+        /** For directories, map from relative path to the last modified time of the classfile. */
+        final Map<String, Long> relativePathToLastModified = new HashMap<>();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param classpathOrder
+     *            the classpath order
+     * @param scannedClassfiles
+     *            the classfiles that were parsed or restored during the scan
+     */
+    ClassfileSnapshot(final List<ClasspathElement> classpathOrder, final Collection<Classfile> scannedClassfiles) {
+        final Map<ClasspathElement, ClasspathElementSnapshot> classpathEltToSnapshot = new HashMap<>();
+        for (final ClasspathElement classpathElement : classpathOrder) {
+            final boolean isJar = classpathElement instanceof ClasspathElementZip;
+            if (!isJar && !(classpathElement instanceof ClasspathElementDir)) {
+                continue;
+            }
+            final String uri;
+            try {
+                uri = classpathElement.getURI().toString();
+            } catch (final IllegalArgumentException e) {
+                continue;
+            }
+            final ClasspathElementSnapshot snapshot = new ClasspathElementSnapshot();
+            snapshot.isJar = isJar;
+            if (isJar) {
+                final File file = classpathElement.getFile();
+                final Long lastModified = file == null ? null : classpathElement.fileToLastModified.get(file);
+                if (lastModified == null || !file.isFile()) {
+                    continue;
+                }
+                snapshot.fileSize = file.length();
+                snapshot.fileLastModified = lastModified;
+            }
+            // Classfiles that were not parsed were skipped
+            for (final Resource resource : classpathElement.acceptedClassfileResources) {
+                snapshot.relativePathToCachedClassfile.put(resource.getPath(), null);
+                if (!isJar) {
+                    snapshot.relativePathToLastModified.put(resource.getPath(), resource.getLastModified());
+                }
+            }
+            classpathEltToSnapshot.put(classpathElement, snapshot);
+            classpathEltURIToSnapshot.put(uri, snapshot);
+        }
+        for (final Classfile classfile : scannedClassfiles) {
+            if (!classfile.isExternalClass()) {
+                final ClasspathElementSnapshot snapshot = classpathEltToSnapshot.get(classfile.getClasspathElement());
+                if (snapshot != null) {
+                    final CachedClassfile cachedClassfile = classfile.toCachedClassfile();
+                    if (cachedClassfile == null) {
+                        // Type annotations cannot be reused, so the classfile has to be parsed again
+                        snapshot.relativePathToCachedClassfile.remove(classfile.getRelativePath());
+                    } else {
+                        snapshot.relativePathToCachedClassfile.put(cachedClassfile.relativePath, cachedClassfile);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the unchanged parsed classfiles of a classpath element.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @param log
+     *            the log
+     * @return a map from relative path to {@link CachedClassfile} (or to null, if the classfile was skipped when
+     *         it was parsed) for each classfile that has not changed since the snapshot was taken, or null if no
+     *         classfiles of the classpath element can be reused.
+     */
+    Map<String, CachedClassfile> load(final ClasspathElement classpathElement, final LogNode log) {
+        final ClasspathElementSnapshot snapshot;
+        try {
+            snapshot = classpathEltURIToSnapshot.get(classpathElement.getURI().toString());
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+        if (snapshot == null || snapshot.isJar != classpathElement instanceof ClasspathElementZip) {
+            return null;
+        }
+        if (snapshot.isJar) {
+            final File file = classpathElement.getFile();
+            if (file == null || file.length() != snapshot.fileSize
+                    || file.lastModified() != snapshot.fileLastModified) {
+                if (log != null) {
+                    log.log("Jarfile has changed since the previous scan: " + classpathElement);
+                }
+                return null;
+            }
+            return snapshot.relativePathToCachedClassfile;
+        } else {
+            final Map<String, CachedClassfile> unchanged = new HashMap<>();
+            for (final Resource resource : classpathElement.acceptedClassfileResources) {
+                final String relativePath = resource.getPath();
+                final Long lastModified = snapshot.relativePathToLastModified.get(relativePath);
+                if (lastModified != null && lastModified == resource.getLastModified()
+                        && snapshot.relativePathToCachedClassfile.containsKey(relativePath)) {
+                    unchanged.put(relativePath, snapshot.relativePathToCachedClassfile.get(relativePath));
+                } else if (log != null) {
+                    log.log("Classfile has changed since the previous scan: " + relativePath);
+                }
+            }
+            return unchanged;
+        }
+    }
+}
@@ -42,12 +42,16 @@ import java.nio.file.attribute.PosixFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.github.classgraph.Scanner.ClasspathEntryWorkUnit;
 import nonapi.io.github.classgraph.classloaderhandler.ClassLoaderHandlerRegistry;
@@ -68,8 +72,12 @@ class ClasspathElementDir extends ClasspathElement {
     /** The directory at the root of the classpath element. */
     private final Path classpathEltPath;
 
-    /** Used to ensure that recursive scanning doesn't get into an infinite loop due to a link cycle. */
-    private final Set<Path> scannedCanonicalPaths = new HashSet<>();
+    /**
+     * The keys of the directories scanned by completed calls to {@link DirTreeScanner#scan(DirScanTask)} (see
+     * {@link #getDirKey(Path, BasicFileAttributes)}), used to ensure that recursive scanning doesn't get into an
+     * infinite loop due to a link cycle, and that a directory reached through a symlink is not scanned again.
+     */
+    private final Set<Object> scannedDirKeys = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
 
     /** The nested jar handler. */
     private final NestedJarHandler nestedJarHandler;
@@ -163,6 +171,8 @@ class ClasspathElementDir extends ClasspathElement {
      *
      * @param resourcePath
      *            the {@link Path} for the resource
+     * @param attributes
+     *            the attributes of the resource, or null if they have not been read
      * @return the resource
      */
     private Resource newResource(final Path resourcePath, final BasicFileAttributes attributes) {
@@ -313,193 +323,567 @@ class ClasspathElementDir extends ClasspathElement {
     }
 
     /**
-     * Recursively scan a {@link Path} for sub-path patterns matching the scan spec.
+     * Get a key that uniquely identifies a directory, for detecting link cycles. This is the file key (e.g. the
+     * device and inode number) if the filesystem provides one, since it is obtained from the attributes that are
+     * already read while listing the parent directory. Otherwise it is the canonical path of the directory, which
+     * costs several system calls to obtain.
      *
-     * @param path
-     *            the {@link Path}
-     * @param log
-     *            the log
+     * @param dirPath
+     *            the directory
+     * @param dirAttributes
+     *            the attributes of the directory, obtained by following symlinks
+     * @return the key of the directory
+     * @throws IOException
+     *             if the directory could not be canonicalized
      */
-    private void scanPathRecursively(final Path path, final LogNode log) {
-        // See if this canonical path has been scanned before, so that recursive scanning doesn't get stuck in an
-        // infinite loop due to symlinks
-        Path canonicalPath;
+    private static Object getDirKey(final Path dirPath, final BasicFileAttributes dirAttributes)
+            throws IOException {
+        Object fileKey = null;
         try {
-            canonicalPath = path.toRealPath();
-            if (!scannedCanonicalPaths.add(canonicalPath)) {
+            fileKey = dirAttributes.fileKey();
+        } catch (final UnsupportedOperationException e) {
+            // Attributes could not be read (see FileUtils#readAttributes(Path))
+        }
+        return fileKey != null ? fileKey : dirPath.toRealPath();
+    }
+
+    /** An accepted resource found by a {@link DirScanTask}, to be added to the classpath element in order. */
+    private static class FoundResource {
+        /** The resource. */
+        final Resource resource;
+
+        /** The match status of the directory containing the resource. */
+        final ScanSpecPathMatch parentMatchStatus;
+
+        /** If true, only add the resource to the list of classfile resources. */
+        final boolean isClassfileOnly;
+
+        /** The log. */
+        final LogNode log;
+
+        /**
+         * Constructor.
+         *
+         * @param resource
+         *            the resource
+         * @param parentMatchStatus
+         *            the match status of the directory containing the resource
+         * @param isClassfileOnly
+         *            if true, only add the resource to the list of classfile resources
+         * @param log
+         *            the log
+         */
+        FoundResource(final Resource resource, final ScanSpecPathMatch parentMatchStatus,
+                final boolean isClassfileOnly, final LogNode log) {
+            this.resource = resource;
+            this.parentMatchStatus = parentMatchStatus;
+            this.isClassfileOnly = isClassfileOnly;
+            this.log = log;
+        }
+    }
+
+    /**
+     * Scan a directory for sub-path patterns matching the scan spec, adding a task to the {@link DirTreeScanner}
+     * for each subdirectory. Accepted resources are collected in each task, rather than being added directly to
+     * the classpath element, so that they can be added in the same deterministic (preorder, sorted) order as a
+     * serial scan, by {@link #addFoundResources(DirScanTask)}.
+     * 
+     * <p>
+     * Subdirectories that are reached through a symlink may alias another directory. These are not scanned in
+     * parallel, but are deferred until all the directories that are reached without following symlinks have been
+     * scanned, and are then scanned in preorder by {@link #scanDirTree(DirScanTask, DirTreeScanner)}, so that which
+     * alias of a directory gets scanned does not depend on thread scheduling.
+     *
+     * <p>
+     * Directories that are scanned in parallel are only compared with their ancestors and with the directories
+     * scanned before the current parallel scan started, never with each other. Two directories with the same file
+     * key that are both reached without following symlinks (e.g. two bind mounts of the same directory) are
+     * therefore both scanned, as they were when directories were identified by their canonical path.
+     */
+    private class DirScanTask {
+        /** The directory. */
+        private final Path path;
+
+        /** The task for the parent directory, or null if this is the root of the classpath element. */
+        private final DirScanTask parent;
+
+        /** The key of the directory (see {@link ClasspathElementDir#getDirKey(Path, BasicFileAttributes)}). */
+        private final Object dirKey;
+
+        /** The log. */
+        private final LogNode log;
+
+        /** True if this directory was reached through a symlink, and has not been scanned yet. */
+        private boolean isDeferred;
+
+        /** Accepted resources found in this directory, in sorted order. */
+        private final List<FoundResource> foundResources = new ArrayList<>();
+
+        /** Tasks for subdirectories of this directory, in sorted order. */
+        private final List<DirScanTask> subdirTasks = new ArrayList<>();
+
+        /**
+         * Constructor.
+         *
+         * @param path
+         *            the directory
+         * @param parent
+         *            the task for the parent directory, or null if this is the root of the classpath element
+         * @param dirKey
+         *            the key of the directory
+         * @param isDeferred
+         *            true if the directory was reached through a symlink
+         * @param log
+         *            the log
+         */
+        DirScanTask(final Path path, final DirScanTask parent, final Object dirKey, final boolean isDeferred,
+                final LogNode log) {
+            this.path = path;
+            this.parent = parent;
+            this.dirKey = dirKey;
+            this.isDeferred = isDeferred;
+            this.log = log;
+        }
+
+        /**
+         * Add an accepted resource found in this directory.
+         *
+         * @param resource
+         *            the resource
+         * @param parentMatchStatus
+         *            the parent match status
+         * @param isClassfileOnly
+         *            if true, only add the resource to the list of classfile resources
+         * @param subLog
+         *            the log
+         */
+        private void addFoundResource(final Resource resource, final ScanSpecPathMatch parentMatchStatus,
+                final boolean isClassfileOnly, final LogNode subLog) {
+            foundResources.add(new FoundResource(resource, parentMatchStatus, isClassfileOnly, subLog));
+        }
+
+        /**
+         * Check whether an ancestor of this directory has the given key.
+         *
+         * @param key
+         *            the directory key
+         * @return true if an ancestor of this directory has the given key
+         */
+        private boolean isAncestorDirKey(final Object key) {
+            for (DirScanTask ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+                if (ancestor.dirKey.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Scan the directory, then add tasks for the subdirectories that were not reached through a symlink, so
+         * that they can be scanned in parallel.
+         *
+         * @param dirTreeScanner
+         *            the {@link DirTreeScanner} to add subdirectory tasks to
+         */
+        void scan(final DirTreeScanner dirTreeScanner) {
+            // See if this directory has been scanned before, so that recursive scanning doesn't get stuck in an
+            // infinite loop due to symlinks
+            if (scannedDirKeys.contains(dirKey) || isAncestorDirKey(dirKey)) {
                 if (log != null) {
                     log.log("Reached symlink cycle, stopping recursion: " + path);
                 }
                 return;
             }
-        } catch (final IOException | SecurityException e) {
-            if (log != null) {
-                log.log("Could not canonicalize path: " + path, e);
-            }
-            return;
-        }
 
-        String dirRelativePathStr = FastPathResolver.resolve(classpathEltPath.relativize(path).toString());
-        while (dirRelativePathStr.startsWith("/")) {
-            dirRelativePathStr = dirRelativePathStr.substring(1);
-        }
-        if (!dirRelativePathStr.endsWith("/")) {
-            dirRelativePathStr += "/";
-        }
-        final boolean isDefaultPackage = dirRelativePathStr.equals("/");
+            String dirRelativePathStr = FastPathResolver.resolve(classpathEltPath.relativize(path).toString());
+            while (dirRelativePathStr.startsWith("/")) {
+                dirRelativePathStr = dirRelativePathStr.substring(1);
+            }
+            if (!dirRelativePathStr.endsWith("/")) {
+                dirRelativePathStr += "/";
+            }
+            final boolean isDefaultPackage = dirRelativePathStr.equals("/");
 
-        if (nestedClasspathRootPrefixes != null && nestedClasspathRootPrefixes.contains(dirRelativePathStr)) {
-            if (log != null) {
-                log.log("Reached nested classpath root, stopping recursion to avoid duplicate scanning: "
-                        + dirRelativePathStr);
+            if (nestedClasspathRootPrefixes != null && nestedClasspathRootPrefixes.contains(dirRelativePathStr)) {
+                if (log != null) {
+                    log.log("Reached nested classpath root, stopping recursion to avoid duplicate scanning: "
+                            + dirRelativePathStr);
+                }
+                return;
             }
-            return;
-        }
 
-        // Ignore versioned sections in exploded jars -- they are only supposed to be used in jars.
-        // TODO: is it necessary to support multi-versioned exploded jars anyway? If so, all the paths in a
-        // directory classpath entry will have to be pre-scanned and masked, as happens in ClasspathElementZip.
-        if (!scanSpec.enableMultiReleaseVersions
-                && dirRelativePathStr.startsWith(LogicalZipFile.MULTI_RELEASE_PATH_PREFIX)) {
-            if (log != null) {
-                log.log("Found unexpected nested versioned entry in directory classpath element -- skipping: "
-                        + dirRelativePathStr);
+            // Ignore versioned sections in exploded jars -- they are only supposed to be used in jars.
+            // TODO: is it necessary to support multi-versioned exploded jars anyway? If so, all the paths in a
+            // directory classpath entry will have to be pre-scanned and masked, as happens in ClasspathElementZip.
+            if (!scanSpec.enableMultiReleaseVersions
+                    && dirRelativePathStr.startsWith(LogicalZipFile.MULTI_RELEASE_PATH_PREFIX)) {
+                if (log != null) {
+                    log.log("Found unexpected nested versioned entry in directory classpath element -- skipping: "
+                            + dirRelativePathStr);
+                }
+                return;
             }
-            return;
-        }
 
-        // Accept/reject classpath elements based on dir resource paths
-        if (!checkResourcePathAcceptReject(dirRelativePathStr, log)) {
-            return;
-        }
+            // Accept/reject classpath elements based on dir resource paths
+            if (!checkResourcePathAcceptReject(dirRelativePathStr, log)) {
+                return;
+            }
 
-        final ScanSpecPathMatch parentMatchStatus = scanSpec.dirAcceptMatchStatus(dirRelativePathStr);
-        if (parentMatchStatus == ScanSpecPathMatch.HAS_REJECTED_PATH_PREFIX) {
-            // Reached a non-accepted or rejected path -- stop the recursive scan
-            if (log != null) {
-                log.log("Reached rejected directory, stopping recursive scan: " + dirRelativePathStr);
+            final ScanSpecPathMatch parentMatchStatus = scanSpec.dirAcceptMatchStatus(dirRelativePathStr);
+            if (parentMatchStatus == ScanSpecPathMatch.HAS_REJECTED_PATH_PREFIX) {
+                // Reached a non-accepted or rejected path -- stop the recursive scan
+                if (log != null) {
+                    log.log("Reached rejected directory, stopping recursive scan: " + dirRelativePathStr);
+                }
+                return;
+            }
+            if (parentMatchStatus == ScanSpecPathMatch.NOT_WITHIN_ACCEPTED_PATH) {
+                // Reached a non-accepted and non-rejected path -- stop the recursive scan
+                return;
             }
-            return;
-        }
-        if (parentMatchStatus == ScanSpecPathMatch.NOT_WITHIN_ACCEPTED_PATH) {
-            // Reached a non-accepted and non-rejected path -- stop the recursive scan
-            return;
-        }
 
-        final LogNode subLog = log == null ? null
-                // Log dirs after files (addAcceptedResources() precedes log entry with "0:")
-                : log.log("1:" + canonicalPath,
-                        "Scanning Path: " + FastPathResolver.resolve(path.toString()) + (path.equals(canonicalPath)
-                                ? ""
-                                : " ; canonical path: " + FastPathResolver.resolve(canonicalPath.toString())));
-
-        final List<Path> pathsInDir = new ArrayList<>();
-        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
-            for (final Path subPath : stream) {
-                pathsInDir.add(subPath);
-            }
-        } catch (IOException | SecurityException e) {
-            if (log != null) {
-                log.log("Could not read directory " + path + " : " + e.getMessage());
+            final LogNode subLog = log == null ? null
+                    // Log dirs after files (addAcceptedResources() precedes log entry with "0:")
+                    : log.log("1:" + path, "Scanning Path: " + FastPathResolver.resolve(path.toString()));
+
+            final List<Path> pathsInDir = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (final Path subPath : stream) {
+                    pathsInDir.add(subPath);
+                }
+            } catch (IOException | SecurityException e) {
+                if (log != null) {
+                    log.log("Could not read directory " + path + " : " + e.getMessage());
+                }
+                return;
             }
-            return;
-        }
-        Collections.sort(pathsInDir);
-        final FileUtils.FileAttributesGetter getFileAttributes = FileUtils.createCachedAttributesGetter();
-
-        // Determine whether this is a modular jar running under JRE 9+
-        final boolean isModularJar = VersionFinder.JAVA_MAJOR_VERSION >= 9 && getModuleName() != null;
-
-        // Only scan files in directory if directory is not only an ancestor of an accepted path
-        if (parentMatchStatus != ScanSpecPathMatch.ANCESTOR_OF_ACCEPTED_PATH) {
-            // Do preorder traversal (files in dir, then subdirs), to reduce filesystem cache misses
-            final Iterator<Path> pathsIterator = pathsInDir.iterator();
-            while (pathsIterator.hasNext()) {
-                final Path subPath = pathsIterator.next();
-                // Process files in dir before recursing
-                final BasicFileAttributes fileAttributes = getFileAttributes.get(subPath);
-                if (fileAttributes.isRegularFile()) {
-                    pathsIterator.remove();
-                    final Path subPathRelative = classpathEltPath.relativize(subPath);
-                    final String subPathRelativeStr = FastPathResolver.resolve(subPathRelative.toString());
-                    // If this is a modular jar, ignore all classfiles other than "module-info.class" in the
-                    // default package, since these are disallowed.
-                    if (isModularJar && isDefaultPackage && subPathRelativeStr.endsWith(".class")
-                            && !subPathRelativeStr.equals("module-info.class")) {
-                        continue;
-                    }
+            Collections.sort(pathsInDir);
+            final FileUtils.FileAttributesGetter getFileAttributes = FileUtils.createCachedAttributesGetter();
+
+            // Determine whether this is a modular jar running under JRE 9+
+            final boolean isModularJar = VersionFinder.JAVA_MAJOR_VERSION >= 9 && getModuleName() != null;
+
+            // Only scan files in directory if directory is not only an ancestor of an accepted path
+            if (parentMatchStatus != ScanSpecPathMatch.ANCESTOR_OF_ACCEPTED_PATH) {
+                // Do preorder traversal (files in dir, then subdirs), to reduce filesystem cache misses
+                final Iterator<Path> pathsIterator = pathsInDir.iterator();
+                while (pathsIterator.hasNext()) {
+                    final Path subPath = pathsIterator.next();
+                    // Process files in dir before recursing
+                    final BasicFileAttributes fileAttributes = getFileAttributes.get(subPath);
+                    if (fileAttributes.isRegularFile()) {
+                        pathsIterator.remove();
+                        final Path subPathRelative = classpathEltPath.relativize(subPath);
+                        final String subPathRelativeStr = FastPathResolver.resolve(subPathRelative.toString());
+                        // If this is a modular jar, ignore all classfiles other than "module-info.class" in the
+                        // default package, since these are disallowed.
+                        if (isModularJar && isDefaultPackage && subPathRelativeStr.endsWith(".class")
+                                && !subPathRelativeStr.equals("module-info.class")) {
+                            continue;
+                        }
 
-                    // Accept/reject classpath elements based on file resource paths
-                    if (!checkResourcePathAcceptReject(subPathRelativeStr, subLog)) {
-                        return;
-                    }
+                        // Accept/reject classpath elements based on file resource paths
+                        if (!checkResourcePathAcceptReject(subPathRelativeStr, subLog)) {
+                            return;
+                        }
 
-                    // If relative path is accepted
-                    if (parentMatchStatus == ScanSpecPathMatch.HAS_ACCEPTED_PATH_PREFIX
-                            || parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_PATH
-                            || (parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_CLASS_PACKAGE
-                                    && scanSpec.classfileIsSpecificallyAccepted(subPathRelativeStr))) {
-                        // Resource is accepted
-                        final Resource resource = newResource(subPath, fileAttributes);
-                        addAcceptedResource(resource, parentMatchStatus, /* isClassfileOnly = */ false, subLog);
-
-                        // Save last modified time
-                        try {
-                            fileToLastModified.put(subPath.toFile(), fileAttributes.lastModifiedTime().toMillis());
-                        } catch (final UnsupportedOperationException e) {
-                            // Ignore
+                        // If relative path is accepted
+                        if (parentMatchStatus == ScanSpecPathMatch.HAS_ACCEPTED_PATH_PREFIX
+                                || parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_PATH
+                                || (parentMatchStatus == ScanSpecPathMatch.AT_ACCEPTED_CLASS_PACKAGE
+                                        && scanSpec.classfileIsSpecificallyAccepted(subPathRelativeStr))) {
+                            // Resource is accepted
+                            final Resource resource = newResource(subPath, fileAttributes);
+                            addFoundResource(resource, parentMatchStatus, /* isClassfileOnly = */ false, subLog);
+
+                            // Save last modified time
+                            try {
+                                fileToLastModified.put(subPath.toFile(),
+                                        fileAttributes.lastModifiedTime().toMillis());
+                            } catch (final UnsupportedOperationException e) {
+                                // Ignore
+                            }
+                        } else {
+                            if (subLog != null) {
+                                subLog.log("Skipping non-accepted file: " + subPathRelative);
+                            }
                         }
-                    } else {
-                        if (subLog != null) {
-                            subLog.log("Skipping non-accepted file: " + subPathRelative);
+                    }
+                }
+            } else if (scanSpec.enableClassInfo && dirRelativePathStr.equals("/")) {
+                // Always check for module descriptor in package root, even if package root isn't in accept
+                final Iterator<Path> pathsIterator = pathsInDir.iterator();
+                while (pathsIterator.hasNext()) {
+                    final Path subPath = pathsIterator.next();
+                    if (subPath.getFileName().toString().equals("module-info.class")) {
+                        final BasicFileAttributes fileAttributes = getFileAttributes.get(subPath);
+                        if (fileAttributes.isRegularFile()) {
+                            pathsIterator.remove();
+                            final Resource resource = newResource(subPath, fileAttributes);
+                            addFoundResource(resource, parentMatchStatus, /* isClassfileOnly = */ true, subLog);
+                            try {
+                                fileToLastModified.put(subPath.toFile(),
+                                        fileAttributes.lastModifiedTime().toMillis());
+                            } catch (final UnsupportedOperationException e) {
+                                // Ignore
+                            }
+                            break;
                         }
                     }
                 }
             }
-        } else if (scanSpec.enableClassInfo && dirRelativePathStr.equals("/")) {
-            // Always check for module descriptor in package root, even if package root isn't in accept
-            final Iterator<Path> pathsIterator = pathsInDir.iterator();
-            while (pathsIterator.hasNext()) {
-                final Path subPath = pathsIterator.next();
-                if (subPath.getFileName().toString().equals("module-info.class")) {
+
+            // Create a task for each subdirectory
+            final List<DirScanTask> parallelTasks = new ArrayList<>(pathsInDir.size());
+            for (final Path subPath : pathsInDir) {
+                try {
                     final BasicFileAttributes fileAttributes = getFileAttributes.get(subPath);
-                    if (fileAttributes.isRegularFile()) {
-                        pathsIterator.remove();
-                        final Resource resource = newResource(subPath, fileAttributes);
-                        addAcceptedResource(resource, parentMatchStatus, /* isClassfileOnly = */ true, subLog);
-                        try {
-                            fileToLastModified.put(subPath.toFile(), fileAttributes.lastModifiedTime().toMillis());
-                        } catch (final UnsupportedOperationException e) {
-                            // Ignore
+                    if (fileAttributes.isDirectory()) {
+                        final boolean viaSymlink = Files.isSymbolicLink(subPath);
+                        final DirScanTask subdirTask = new DirScanTask(subPath, this,
+                                getDirKey(subPath, fileAttributes), viaSymlink, subLog);
+                        subdirTasks.add(subdirTask);
+                        if (!viaSymlink) {
+                            parallelTasks.add(subdirTask);
                         }
-                        break;
+                    }
+                } catch (final IOException e) {
+                    if (subLog != null) {
+                        subLog.log("Could not canonicalize path: " + subPath, e);
+                    }
+                } catch (final SecurityException e) {
+                    if (subLog != null) {
+                        subLog.log("Could not read sub-directory " + subPath + " : " + e.getMessage());
                     }
                 }
             }
-        }
-        // Recurse into subdirectories
-        for (final Path subPath : pathsInDir) {
+
+            // Recurse into subdirectories in parallel
+            dirTreeScanner.addTasks(parallelTasks);
+
+            if (subLog != null) {
+                subLog.addElapsedTime();
+            }
+
+            // Save the last modified time of the directory
             try {
-                if (getFileAttributes.get(subPath).isDirectory()) {
-                    scanPathRecursively(subPath, subLog);
+                final File file = path.toFile();
+                fileToLastModified.put(file, file.lastModified());
+            } catch (final UnsupportedOperationException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Runs {@link DirScanTask} objects on the current thread, and on idle workers of the work queue that is
+     * scanning classpath elements (if the current thread is one of its workers), so that no threads are created
+     * beyond the threads of the scan. Tasks are taken from a shared deque, so the current thread keeps scanning
+     * directories itself, and only waits when the remaining directories are all being scanned by other threads.
+     */
+    private class DirTreeScanner {
+        /** Tasks that have not been started yet. */
+        private final ConcurrentLinkedDeque<DirScanTask> pendingTasks = new ConcurrentLinkedDeque<>();
+
+        /** The number of tasks that have been added but have not completed yet. */
+        private final AtomicInteger numIncompleteTasks = new AtomicInteger();
+
+        /** The number of helper tasks that have been submitted and have not finished yet. */
+        private final AtomicInteger numActiveHelpers = new AtomicInteger();
+
+        /** The first exception or error thrown by a task. */
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /** The executor to run helper tasks on, or null if directories are only scanned by the current thread. */
+        private final Executor helperExecutor;
+
+        /** The maximum number of helper tasks to run at once. */
+        private final int maxHelpers;
+
+        /** The maximum time to wait for other threads before checking the state of the scan again. */
+        private static final long MAX_WAIT_MILLIS = 100L;
+
+        /** Helper task, which scans pending directories until there are none left. */
+        private final Runnable helper = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runPendingTasks();
+                } finally {
+                    numActiveHelpers.decrementAndGet();
                 }
-            } catch (final SecurityException e) {
-                if (subLog != null) {
-                    subLog.log("Could not read sub-directory " + subPath + " : " + e.getMessage());
+                // Tasks may have been added after this helper found the deque empty, but before it finished
+                startHelpers();
+            }
+        };
+
+        /**
+         * Constructor.
+         *
+         * @param helperExecutor
+         *            the executor to run helper tasks on, or null if directories are only scanned by the current
+         *            thread.
+         * @param maxHelpers
+         *            the maximum number of helper tasks to run at once.
+         */
+        DirTreeScanner(final Executor helperExecutor, final int maxHelpers) {
+            this.helperExecutor = helperExecutor;
+            this.maxHelpers = helperExecutor == null ? 0 : maxHelpers;
+        }
+
+        /**
+         * Add tasks to be scanned, and start helper tasks to scan them, if fewer than the maximum are running.
+         *
+         * @param tasks
+         *            the tasks, in preorder
+         */
+        void addTasks(final List<DirScanTask> tasks) {
+            if (tasks.isEmpty()) {
+                return;
+            }
+            numIncompleteTasks.addAndGet(tasks.size());
+            // Add to the head of the deque in reverse order, so that directories are scanned depth-first
+            for (int i = tasks.size() - 1; i >= 0; i--) {
+                pendingTasks.addFirst(tasks.get(i));
+            }
+            startHelpers();
+            // Wake up the thread that called scan(DirScanTask), if it is waiting
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /** Start helper tasks while there are pending tasks and fewer than the maximum helpers are running. */
+        private void startHelpers() {
+            while (!pendingTasks.isEmpty()) {
+                final int numHelpers = numActiveHelpers.get();
+                if (numHelpers >= maxHelpers) {
+                    break;
+                }
+                if (numActiveHelpers.compareAndSet(numHelpers, numHelpers + 1)) {
+                    helperExecutor.execute(helper);
                 }
             }
         }
 
-        if (subLog != null) {
-            subLog.addElapsedTime();
+        /** Run pending tasks until there are none left (other threads may still be running tasks). */
+        private void runPendingTasks() {
+            for (DirScanTask task; failure.get() == null && (task = pendingTasks.pollFirst()) != null;) {
+                try {
+                    task.scan(this);
+                } catch (RuntimeException | Error e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    if (numIncompleteTasks.decrementAndGet() == 0) {
+                        synchronized (this) {
+                            notifyAll();
+                        }
+                    }
+                }
+            }
         }
 
-        // Save the last modified time of the directory
-        try {
-            final File file = path.toFile();
-            fileToLastModified.put(file, file.lastModified());
-        } catch (final UnsupportedOperationException e) {
-            // Ignore
+        /**
+         * Scan a directory tree, returning when all of its directories have been scanned.
+         *
+         * @param rootTask
+         *            the task for the root of the directory tree
+         * @throws InterruptedException
+         *             if the thread was interrupted while waiting for other threads to finish scanning
+         */
+        void scan(final DirScanTask rootTask) throws InterruptedException {
+            addTasks(Collections.singletonList(rootTask));
+            while (numIncompleteTasks.get() > 0) {
+                runPendingTasks();
+                synchronized (this) {
+                    // Wait until other threads add tasks, or finish scanning the remaining directories
+                    if (numIncompleteTasks.get() > 0 && pendingTasks.isEmpty()) {
+                        wait(MAX_WAIT_MILLIS);
+                    }
+                }
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+            final Throwable t = failure.get();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            }
+        }
+    }
+
+    /**
+     * Scan a directory tree using a {@link DirScanTask}, then scan any subdirectories that were reached through a
+     * symlink, in preorder.
+     *
+     * @param dirScanTask
+     *            the {@link DirScanTask} for the root of the directory tree
+     * @param dirTreeScanner
+     *            the {@link DirTreeScanner} to scan with
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting for the scan to complete
+     */
+    private void scanDirTree(final DirScanTask dirScanTask, final DirTreeScanner dirTreeScanner)
+            throws InterruptedException {
+        dirTreeScanner.scan(dirScanTask);
+        addScannedDirKeys(dirScanTask);
+        final List<DirScanTask> deferredTasks = new ArrayList<>();
+        findDeferredTasks(dirScanTask, deferredTasks);
+        for (final DirScanTask deferredTask : deferredTasks) {
+            deferredTask.isDeferred = false;
+            scanDirTree(deferredTask, dirTreeScanner);
+        }
+    }
+
+    /**
+     * Record the keys of the directories in a tree of completed tasks, other than deferred tasks.
+     *
+     * @param dirScanTask
+     *            the {@link DirScanTask}
+     */
+    private void addScannedDirKeys(final DirScanTask dirScanTask) {
+        scannedDirKeys.add(dirScanTask.dirKey);
+        for (final DirScanTask subdirTask : dirScanTask.subdirTasks) {
+            if (!subdirTask.isDeferred) {
+                addScannedDirKeys(subdirTask);
+            }
+        }
+    }
+
+    /**
+     * Find deferred {@link DirScanTask} objects in a tree of completed tasks, in preorder.
+     *
+     * @param dirScanTask
+     *            the {@link DirScanTask}
+     * @param deferredTasks
+     *            the deferred tasks found
+     */
+    private static void findDeferredTasks(final DirScanTask dirScanTask, final List<DirScanTask> deferredTasks) {
+        for (final DirScanTask subdirTask : dirScanTask.subdirTasks) {
+            if (subdirTask.isDeferred) {
+                deferredTasks.add(subdirTask);
+            } else {
+                findDeferredTasks(subdirTask, deferredTasks);
+            }
+        }
+    }
+
+    /**
+     * Add the accepted resources found by a tree of {@link DirScanTask} objects, in preorder (files in a directory,
+     * then subdirectories).
+     *
+     * @param dirScanTask
+     *            the {@link DirScanTask}
+     */
+    private void addFoundResources(final DirScanTask dirScanTask) {
+        for (final FoundResource foundResource : dirScanTask.foundResources) {
+            addAcceptedResource(foundResource.resource, foundResource.parentMatchStatus,
+                    foundResource.isClassfileOnly, foundResource.log);
+        }
+        for (final DirScanTask subdirTask : dirScanTask.subdirTasks) {
+            addFoundResources(subdirTask);
         }
     }
 
@@ -525,7 +909,29 @@ class ClasspathElementDir extends ClasspathElement {
         final LogNode subLog = log == null ? null
                 : log(classpathElementIdx, "Scanning Path classpath element " + getURI(), log);
 
-        scanPathRecursively(classpathEltPath, subLog);
+        Object dirKey = null;
+        try {
+            dirKey = getDirKey(classpathEltPath, FileUtils.readAttributes(classpathEltPath));
+        } catch (final IOException | SecurityException e) {
+            if (subLog != null) {
+                subLog.log("Could not canonicalize path: " + classpathEltPath, e);
+            }
+        }
+        if (dirKey != null) {
+            // Scan subdirectories in parallel, using idle workers of the work queue that is scanning classpath
+            // elements (walking a directory tree is I/O-bound, so use the I/O parallelism of the scan)
+            final DirScanTask rootTask = new DirScanTask(classpathEltPath, /* parent = */ null, dirKey,
+                    /* isDeferred = */ false, subLog);
+            try {
+                scanDirTree(rootTask, new DirTreeScanner(WorkQueue.getHelperExecutor(),
+                        nestedJarHandler.getNumIOParallelTasks() - 1));
+            } catch (final InterruptedException e) {
+                // Leave the interrupt status set, so that the scan is interrupted
+                Thread.currentThread().interrupt();
+                return;
+            }
+            addFoundResources(rootTask);
+        }
 
         finishScanPaths(subLog);
     }
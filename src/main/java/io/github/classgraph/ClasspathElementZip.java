@@ -41,7 +41,9 @@ import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -56,6 +58,7 @@ import nonapi.io.github.classgraph.fastzipfilereader.FastZipEntry;
 import nonapi.io.github.classgraph.fastzipfilereader.LogicalZipFile;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.fastzipfilereader.ZipFileSlice;
+import nonapi.io.github.classgraph.fileslice.Slice;
 import nonapi.io.github.classgraph.fileslice.reader.ClassfileReader;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.scanspec.ScanSpec.ScanSpecPathMatch;
@@ -90,6 +93,16 @@ class ClasspathElementZip extends ClasspathElement {
     String moduleNameFromManifestFile;
     /** The automatic module name, derived from the jarfile filename. */
     private String derivedAutomaticModuleName;
+    /**
+     * An earlier classpath element with the same content, whose resources are shared by this classpath element
+     * rather than scanning this classpath element's paths, or null if this classpath element is scanned.
+     */
+    ClasspathElementZip duplicateOf;
+    /**
+     * True if the entries of the jarfile were not scanned, because the package index of the jarfile showed that
+     * none of them could be accepted.
+     */
+    private boolean entriesNotScanned;
 
     /**
      * A jarfile classpath element.
@@ -309,6 +322,9 @@ class ClasspathElementZip extends ClasspathElement {
             /** True if the resource is open. */
             private final AtomicBoolean isOpen = new AtomicBoolean();
 
+            /** True if {@link #byteBuffer} is a pooled off-heap buffer that must be released on close. */
+            private boolean byteBufferIsOffHeap;
+
             /**
              * Path with package root prefix and/or any Spring Boot prefix ("BOOT-INF/classes/" or
              * "WEB-INF/classes/") removed.
@@ -387,7 +403,22 @@ class ClasspathElementZip extends ClasspathElement {
 
             @Override
             ClassfileReader openClassfile() throws IOException {
-                return new ClassfileReader(open(), this);
+                // Read from the slice rather than from an InputStream, so that stored entries of in-memory or
+                // memory mapped jars can be parsed in place, without copying
+                checkCanOpen();
+                try {
+                    final ClassfileReader classfileReader = new ClassfileReader(zipEntry.getSlice(), this);
+                    length = zipEntry.uncompressedSize;
+                    return classfileReader;
+                } catch (final IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+
+            @Override
+            FastZipEntry getZipEntry() {
+                return zipEntry;
             }
 
             @Override
@@ -408,7 +439,13 @@ class ClasspathElementZip extends ClasspathElement {
             public ByteBuffer read() throws IOException {
                 checkCanOpen();
                 try {
-                    byteBuffer = zipEntry.getSlice().read();
+                    final Slice slice = zipEntry.getSlice();
+                    // Inflate large deflated resources off-heap, if enabled
+                    byteBuffer = nestedJarHandler.inflateToOffHeapBuffer(slice);
+                    byteBufferIsOffHeap = byteBuffer != null;
+                    if (byteBuffer == null) {
+                        byteBuffer = slice.read();
+                    }
                     length = byteBuffer.remaining();
                     return byteBuffer;
                 } catch (final IOException e) {
@@ -431,8 +468,12 @@ class ClasspathElementZip extends ClasspathElement {
             public void close() {
                 if (isOpen.getAndSet(false)) {
                     if (byteBuffer != null) {
-                        // ByteBuffer should be a duplicate or slice, or should wrap an array, so it doesn't
-                        // need to be unmapped
+                        if (byteBufferIsOffHeap) {
+                            nestedJarHandler.releaseOffHeapBuffer(byteBuffer);
+                            byteBufferIsOffHeap = false;
+                        }
+                        // Otherwise ByteBuffer should be a duplicate or slice, or should wrap an array, so it
+                        // doesn't need to be unmapped
                         byteBuffer = null;
                     }
 
@@ -453,7 +494,87 @@ class ClasspathElementZip extends ClasspathElement {
      */
     @Override
     Resource getResource(final String relativePath) {
-        return relativePathToResource.get(relativePath);
+        final Resource resource = relativePathToResource.get(relativePath);
+        if (resource == null && logicalZipFile != null
+                && (entriesNotScanned || logicalZipFile.getNumDeferredEntries() > 0) && scanned.get()) {
+            return getDeferredResource(relativePath);
+        }
+        return resource;
+    }
+
+    /**
+     * Get the {@link Resource} for a relative path whose zip entry was not read from the central directory, or
+     * was not scanned, because it could not match any accepted path (e.g. when scanning is extended upwards to a
+     * superclass in a non-accepted package). Applies the same checks as {@link #scanPaths(LogNode)} to the relative
+     * path. (Entries are always read if there are classpath element resource path accept or reject criteria.)
+     *
+     * @param relativePath
+     *            The relative path of the {@link Resource} to return.
+     * @return The {@link Resource} for the given relative path, or null if relativePath does not exist in this
+     *         classpath element.
+     */
+    private Resource getDeferredResource(final String relativePath) {
+        if (isModularJar() && relativePath.indexOf('/') < 0 && relativePath.endsWith(".class")
+                && !relativePath.equals("module-info.class")) {
+            return null;
+        }
+        final int lastSlashIdx = relativePath.lastIndexOf('/');
+        final String parentRelativePath = lastSlashIdx < 0 ? "/" : relativePath.substring(0, lastSlashIdx + 1);
+        if (scanSpec.dirAcceptMatchStatus(parentRelativePath) == ScanSpecPathMatch.HAS_REJECTED_PATH_PREFIX) {
+            return null;
+        }
+        // Find the zip entry, trying the same package root prefixes that scanPaths strips from entry names
+        final List<String> entryNames = new ArrayList<>();
+        if (!packageRootPrefix.isEmpty()) {
+            entryNames.add(packageRootPrefix + relativePath);
+        } else {
+            entryNames.add(relativePath);
+            for (final String packageRoot : ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES) {
+                entryNames.add(packageRoot + relativePath);
+            }
+        }
+        for (final String entryName : entryNames) {
+            if (nestedClasspathRootPrefixes != null) {
+                boolean reachedNestedRoot = false;
+                for (final String nestedClasspathRoot : nestedClasspathRootPrefixes) {
+                    if (entryName.startsWith(nestedClasspathRoot)) {
+                        reachedNestedRoot = true;
+                        break;
+                    }
+                }
+                if (reachedNestedRoot) {
+                    continue;
+                }
+            }
+            if (!logicalZipFile.containsPackageOf(entryName)) {
+                // Avoid an O(N) entry lookup if there are no entries in the package
+                continue;
+            }
+            final FastZipEntry zipEntry = entriesNotScanned ? logicalZipFile.getEntry(entryName)
+                    : logicalZipFile.getDeferredEntry(entryName);
+            if (zipEntry != null) {
+                final Resource resource = newResource(zipEntry, relativePath);
+                final Resource existingResource = relativePathToResource.putIfAbsent(relativePath, resource);
+                return existingResource != null ? existingResource : resource;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check whether this is a modular jar running under JRE 9+.
+     *
+     * @return true if this is a modular jar running under JRE 9+.
+     */
+    private boolean isModularJar() {
+        if (VersionFinder.JAVA_MAJOR_VERSION >= 9) {
+            String moduleName = moduleNameFromModuleDescriptor;
+            if (moduleName == null || moduleName.isEmpty()) {
+                moduleName = moduleNameFromManifestFile;
+            }
+            return moduleName != null && !moduleName.isEmpty();
+        }
+        return false;
     }
 
     /**
@@ -481,25 +602,19 @@ class ClasspathElementZip extends ClasspathElement {
         final LogNode subLog = log == null ? null
                 : log(classpathElementIdx, "Scanning jarfile classpath element " + getZipFilePath(), log);
 
-        boolean isModularJar = false;
-        if (VersionFinder.JAVA_MAJOR_VERSION >= 9) {
-            // Determine whether this is a modular jar running under JRE 9+
-            String moduleName = moduleNameFromModuleDescriptor;
-            if (moduleName == null || moduleName.isEmpty()) {
-                moduleName = moduleNameFromManifestFile;
-            }
-            if (moduleName != null && moduleName.isEmpty()) {
-                moduleName = null;
-            }
-            if (moduleName != null) {
-                isModularJar = true;
-            }
+        final boolean isModularJar = isModularJar();
+
+        // Skip per-entry work if no package of the jarfile can contain accepted resources
+        entriesNotScanned = !hasAcceptedPackage();
+        if (entriesNotScanned && subLog != null) {
+            subLog.log("Jarfile does not contain any accepted packages");
         }
 
         Set<String> loggedNestedClasspathRootPrefixes = null;
         String prevParentRelativePath = null;
         ScanSpecPathMatch prevParentMatchStatus = null;
-        for (final FastZipEntry zipEntry : logicalZipFile.entries) {
+        for (final FastZipEntry zipEntry : entriesNotScanned ? Collections.<FastZipEntry> emptyList()
+                : logicalZipFile.entries) {
             String relativePath = zipEntry.entryNameUnversioned;
 
             // Paths should never start with "META-INF/versions/{version}/", because either this is a versioned
@@ -621,6 +736,128 @@ class ClasspathElementZip extends ClasspathElement {
             }
         }
 
+        // Record any automatic package root prefixes of entries that were not read from the central directory, or
+        // were not scanned
+        if (packageRootPrefix.isEmpty() && (entriesNotScanned || logicalZipFile.getNumDeferredEntries() > 0)) {
+            for (final String packageRoot : ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES) {
+                final String packageRootWithoutFinalSlash = packageRoot.endsWith("/")
+                        ? packageRoot.substring(0, packageRoot.length() - 1)
+                        : packageRoot;
+                if (!strippedAutomaticPackageRootPrefixes.contains(packageRootWithoutFinalSlash)
+                        && logicalZipFile.hasEntryWithPrefix(packageRoot)) {
+                    strippedAutomaticPackageRootPrefixes.add(packageRootWithoutFinalSlash);
+                }
+            }
+        }
+
+        // Save the last modified time for the zipfile
+        final File zipfile = getFile();
+        if (zipfile != null) {
+            fileToLastModified.put(zipfile, zipfile.lastModified());
+        }
+
+        finishScanPaths(subLog);
+    }
+
+    /**
+     * Check whether any package path of the jarfile may contain resources or classfiles that are accepted by the
+     * scan (after stripping the package root prefix), using the package index of the jarfile, so that the entries
+     * of jarfiles that cannot contain any accepted resources do not need to be scanned.
+     *
+     * @return true if the jarfile may contain accepted resources or classfiles.
+     */
+    private boolean hasAcceptedPackage() {
+        if (!scanSpec.classpathElementResourcePathAcceptReject.acceptAndRejectAreEmpty()) {
+            // Every entry path needs to be checked against the classpath element resource path accept/reject
+            return true;
+        }
+        boolean hasVersionedPackage = false;
+        for (final String packagePath : logicalZipFile.getPackagePaths()) {
+            if (packagePath.startsWith(LogicalZipFile.MULTI_RELEASE_PATH_PREFIX)) {
+                hasVersionedPackage = true;
+                break;
+            }
+        }
+        for (final String packagePath : logicalZipFile.getPackagePaths()) {
+            String relativePath = packagePath.isEmpty() ? "" : packagePath + "/";
+            if (!packageRootPrefix.isEmpty()) {
+                if (!relativePath.startsWith(packageRootPrefix)) {
+                    continue;
+                }
+                relativePath = relativePath.substring(packageRootPrefix.length());
+            } else {
+                for (final String packageRoot : ClassLoaderHandlerRegistry.AUTOMATIC_PACKAGE_ROOT_PREFIXES) {
+                    if (relativePath.startsWith(packageRoot)) {
+                        relativePath = relativePath.substring(packageRoot.length());
+                    }
+                }
+            }
+            if (relativePath.isEmpty()) {
+                relativePath = "/";
+                // Module descriptors are scanned even if the root package is not accepted (and may be versioned)
+                if (scanSpec.enableClassInfo && (logicalZipFile.getEntry(
+                        packagePath.isEmpty() ? "module-info.class" : packagePath + "/module-info.class") != null
+                        || hasVersionedPackage)) {
+                    return true;
+                }
+            }
+            final ScanSpecPathMatch matchStatus = scanSpec.dirAcceptMatchStatus(relativePath);
+            if (matchStatus == ScanSpecPathMatch.HAS_ACCEPTED_PATH_PREFIX
+                    || matchStatus == ScanSpecPathMatch.AT_ACCEPTED_PATH
+                    || matchStatus == ScanSpecPathMatch.AT_ACCEPTED_CLASS_PACKAGE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get a fingerprint of the content of this classpath element, for finding jarfiles with the same content.
+     *
+     * @return the fingerprint, or null if this classpath element cannot share the resources of another classpath
+     *         element with the same fingerprint.
+     */
+    String getContentFingerprint() {
+        if (logicalZipFile == null || skipClasspathElement || nestedClasspathRootPrefixes != null) {
+            return null;
+        }
+        return packageRootPrefix + "\n" + logicalZipFile.getContentFingerprint();
+    }
+
+    /**
+     * Instead of scanning the paths within this jarfile, create a {@link Resource} for each resource found by
+     * {@link #scanPaths(LogNode)} in {@link #duplicateOf}, which has the same content. The resources of this
+     * classpath element read the zip entries of {@link #duplicateOf}.
+     *
+     * @param log
+     *            the log
+     */
+    void scanPathsOfDuplicate(final LogNode log) {
+        if (scanned.getAndSet(true)) {
+            // Should not happen
+            throw new IllegalArgumentException("Already scanned classpath element " + getZipFilePath());
+        }
+
+        final LogNode subLog = log == null ? null
+                : log(classpathElementIdx, "Sharing resources of identical jarfile " + duplicateOf.getZipFilePath()
+                        + " with jarfile classpath element " + getZipFilePath(), log);
+
+        // Keep the same resource order as the other classpath element
+        final Map<Resource, Resource> sharedResources = new IdentityHashMap<>();
+        for (final Entry<String, Resource> ent : duplicateOf.relativePathToResource.entrySet()) {
+            final Resource resource = newResource(ent.getValue().getZipEntry(), ent.getKey());
+            relativePathToResource.put(ent.getKey(), resource);
+            sharedResources.put(ent.getValue(), resource);
+        }
+        for (final Resource resource : duplicateOf.acceptedResources) {
+            acceptedResources.add(sharedResources.get(resource));
+        }
+        for (final Resource resource : duplicateOf.acceptedClassfileResources) {
+            acceptedClassfileResources.add(sharedResources.get(resource));
+        }
+        strippedAutomaticPackageRootPrefixes.addAll(duplicateOf.strippedAutomaticPackageRootPrefixes);
+        entriesNotScanned = duplicateOf.entriesNotScanned;
+
         // Save the last modified time for the zipfile
         final File zipfile = getFile();
         if (zipfile != null) {
@@ -0,0 +1,238 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import io.github.classgraph.ClassInfo.RelType;
+
+/**
+ * Shards the linking of {@link Classfile} objects into {@link ClassInfo} objects by class name, so that linking
+ * can be performed by multiple threads without locking.
+ *
+ * <p>
+ * Linking proceeds in phases, each of which is run in parallel across all shards, with a barrier between phases:
+ * (1) {@link #addScannedClasses(Shard, Map)} creates a {@link ClassInfo} object for each scanned class; (2)
+ * {@link #linkClassInfo(Shard, Map)} links each scanned class to the classes it refers to, which only mutates
+ * the {@link ClassInfo} object of the scanned class itself, and defers any mutation of another {@link ClassInfo}
+ * object (e.g. adding a subclass to a superclass) to the shard that owns the other class; (3)
+ * {@link #applyDeferredLinks(Shard)} merges the deferred cross-references into the {@link ClassInfo} objects
+ * owned by each shard. Package and module linking is then completed from a single thread.
+ */
+final class ConcurrentLinker {
+    /** The shards. */
+    final List<Shard> shards;
+
+    /** A shard of classfiles and {@link ClassInfo} objects, partitioned by class name. */
+    static final class Shard {
+        /** The scanned classfiles whose class name hashes to this shard. */
+        final List<Classfile> classfiles = new ArrayList<>();
+
+        /**
+         * The {@link ClassInfo} object created for each classfile in {@link #classfiles} (or null for module and
+         * package descriptors).
+         */
+        final List<ClassInfo> classInfos = new ArrayList<>();
+
+        /** Cross-references to {@link ClassInfo} objects owned by this shard, deferred until phase (3). */
+        final Queue<DeferredLink> deferredLinks = new ConcurrentLinkedQueue<>();
+    }
+
+    /** A deferred mutation of a {@link ClassInfo} object. */
+    private static final class DeferredLink {
+        /** The {@link ClassInfo} object to mutate. */
+        final ClassInfo target;
+
+        /** The relationship type, or null if only modifiers are to be added. */
+        final RelType relType;
+
+        /** The related class. */
+        final ClassInfo relatedClassInfo;
+
+        /** The modifiers to add. */
+        final int modifiers;
+
+        /**
+         * Constructor.
+         *
+         * @param target
+         *            the {@link ClassInfo} object to mutate
+         * @param relType
+         *            the relationship type, or null if only modifiers are to be added
+         * @param relatedClassInfo
+         *            the related class
+         * @param modifiers
+         *            the modifiers to add
+         */
+        DeferredLink(final ClassInfo target, final RelType relType, final ClassInfo relatedClassInfo,
+                final int modifiers) {
+            this.target = target;
+            this.relType = relType;
+            this.relatedClassInfo = relatedClassInfo;
+            this.modifiers = modifiers;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Constructor.
+     *
+     * @param scannedClassfiles
+     *            the classfiles to link
+     * @param numShards
+     *            the number of shards to partition the classfiles into
+     */
+    ConcurrentLinker(final Collection<Classfile> scannedClassfiles, final int numShards) {
+        this.shards = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            shards.add(new Shard());
+        }
+        for (final Classfile classfile : scannedClassfiles) {
+            getShard(classfile.getClassName()).classfiles.add(classfile);
+        }
+    }
+
+    /**
+     * Get the shard that owns the named class.
+     *
+     * @param className
+     *            the class name
+     * @return the shard
+     */
+    private Shard getShard(final String className) {
+        return shards.get((className.hashCode() & 0x7fffffff) % shards.size());
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Defer adding a related class to a {@link ClassInfo} object until the shard that owns the object applies its
+     * deferred links.
+     *
+     * @param target
+     *            the {@link ClassInfo} object to add the related class to
+     * @param relType
+     *            the relationship type
+     * @param relatedClassInfo
+     *            the related class
+     */
+    void addRelatedClass(final ClassInfo target, final RelType relType, final ClassInfo relatedClassInfo) {
+        getShard(target.getName()).deferredLinks.add(new DeferredLink(target, relType, relatedClassInfo, 0));
+    }
+
+    /**
+     * Defer adding modifier bits to a {@link ClassInfo} object until the shard that owns the object applies its
+     * deferred links.
+     *
+     * @param target
+     *            the {@link ClassInfo} object to add the modifiers to
+     * @param modifiers
+     *            the modifiers to add
+     */
+    void setModifiers(final ClassInfo target, final int modifiers) {
+        getShard(target.getName()).deferredLinks.add(new DeferredLink(target, null, null, modifiers));
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Phase (1): create a {@link ClassInfo} object for each scanned class in the shard. Scanned class names are
+     * unique after classpath masking, so shards can run this phase concurrently, as long as the map is a
+     * concurrent map.
+     *
+     * @param shard
+     *            the shard
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     */
+    void addScannedClasses(final Shard shard, final Map<String, ClassInfo> classNameToClassInfo) {
+        for (final Classfile classfile : shard.classfiles) {
+            shard.classInfos.add(classfile.addScannedClass(classNameToClassInfo));
+        }
+    }
+
+    /**
+     * Phase (2): link the {@link ClassInfo} object of each scanned class in the shard to the classes it refers
+     * to, deferring the reverse links.
+     *
+     * @param shard
+     *            the shard
+     * @param classNameToClassInfo
+     *            the map from class name to class info
+     */
+    void linkClassInfo(final Shard shard, final Map<String, ClassInfo> classNameToClassInfo) {
+        for (int i = 0; i < shard.classfiles.size(); i++) {
+            final ClassInfo classInfo = shard.classInfos.get(i);
+            if (classInfo != null) {
+                shard.classfiles.get(i).linkClassInfo(classInfo, classNameToClassInfo, this);
+            }
+        }
+    }
+
+    /**
+     * Phase (3): apply the deferred links to the {@link ClassInfo} objects owned by the shard.
+     *
+     * @param shard
+     *            the shard
+     */
+    static void applyDeferredLinks(final Shard shard) {
+        for (DeferredLink deferredLink; (deferredLink = shard.deferredLinks.poll()) != null;) {
+            if (deferredLink.relType == null) {
+                deferredLink.target.setModifiers(deferredLink.modifiers);
+            } else {
+                deferredLink.target.addRelatedClass(deferredLink.relType, deferredLink.relatedClassInfo);
+            }
+        }
+    }
+
+    /**
+     * Link packages and modules for all shards. Not threadsafe, should be run in a single-threaded context after
+     * all other phases have completed.
+     *
+     * @param packageNameToPackageInfo
+     *            map from package name to package info
+     * @param moduleNameToModuleInfo
+     *            map from module name to module info
+     */
+    void linkPackagesAndModules(final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo) {
+        for (final Shard shard : shards) {
+            for (int i = 0; i < shard.classfiles.size(); i++) {
+                shard.classfiles.get(i).linkPackageAndModule(shard.classInfos.get(i), packageNameToPackageInfo,
+                        moduleNameToModuleInfo);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
@@ -442,4 +443,34 @@ public class FieldInfo extends ClassMemberInfo implements Comparable<FieldInfo>
     protected void toString(final boolean useSimpleNames, final StringBuilder buf) {
         toString(true, useSimpleNames, buf);
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    @Override
+    void writeTo(final ScanResultWriter out) throws IOException {
+        super.writeTo(out);
+        out.writeObjectTypedValue(constantInitializerValue);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    @Override
+    void readFrom(final ScanResultReader in) throws IOException {
+        super.readFrom(in);
+        constantInitializerValue = in.readObjectTypedValue();
+    }
 }
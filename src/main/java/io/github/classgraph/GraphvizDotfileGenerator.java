@@ -264,6 +264,7 @@ final class GraphvizDotfileGenerator {
                 Integer.toString(b >> 4, 16), Integer.toString(b & 0xf, 16));
 
         // Class annotations
+        ci.materializeMembers();
         final AnnotationInfoList annotationInfo = ci.annotationInfo;
         if (annotationInfo != null && !annotationInfo.isEmpty()) {
             buf.append("<tr><td colspan='3' bgcolor='").append(darkerColor)
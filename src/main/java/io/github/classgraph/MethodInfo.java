@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Repeatable;
 import java.lang.reflect.Constructor;
@@ -1088,4 +1089,57 @@ public class MethodInfo extends ClassMemberInfo implements Comparable<MethodInfo
             }
         }
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    @Override
+    void writeTo(final ScanResultWriter out) throws IOException {
+        super.writeTo(out);
+        out.writeStringArray(parameterNames);
+        out.writeIntArray(parameterModifiers);
+        out.writeSize(parameterAnnotationInfo == null ? -1 : parameterAnnotationInfo.length);
+        if (parameterAnnotationInfo != null) {
+            for (final AnnotationInfo[] paramAnnotationInfo : parameterAnnotationInfo) {
+                out.writeAnnotationInfoArray(paramAnnotationInfo);
+            }
+        }
+        out.writeBoolean(hasBody);
+        out.writeSignedVarInt(minLineNum);
+        out.writeSignedVarInt(maxLineNum);
+        out.writeStringArray(thrownExceptionNames);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    @Override
+    void readFrom(final ScanResultReader in) throws IOException {
+        super.readFrom(in);
+        parameterNames = in.readStringArray();
+        parameterModifiers = in.readIntArray();
+        final int numParams = in.readSize();
+        if (numParams >= 0) {
+            parameterAnnotationInfo = new AnnotationInfo[numParams][];
+            for (int i = 0; i < numParams; i++) {
+                parameterAnnotationInfo[i] = in.readAnnotationInfoArray();
+            }
+        }
+        hasBody = in.readBoolean();
+        minLineNum = in.readSignedVarInt();
+        maxLineNum = in.readSignedVarInt();
+        thrownExceptionNames = in.readStringArray();
+    }
 }
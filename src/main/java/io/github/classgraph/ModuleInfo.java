@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.net.URI;
 import java.util.HashSet;
@@ -73,6 +74,16 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
         // Empty
     }
 
+    /**
+     * Construct a named ModuleInfo object, used for deserialization.
+     *
+     * @param name
+     *            the module name
+     */
+    ModuleInfo(final String name) {
+        this.name = name;
+    }
+
     /**
      * Construct a ModuleInfo object.
      *
@@ -345,4 +356,36 @@ public class ModuleInfo implements Comparable<ModuleInfo>, HasName {
     public String toString() {
         return name;
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        out.writeAnnotationInfos(annotationInfoSet);
+        out.writeAnnotationInfos(annotationInfo);
+        out.writePackageInfoRefs(packageInfoSet);
+        out.writeClassInfoRefs(classInfoSet);
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        annotationInfoSet = in.readAnnotationInfos(new LinkedHashSet<AnnotationInfo>());
+        annotationInfo = in.readAnnotationInfoList();
+        packageInfoSet = in.readPackageInfoRefs(new HashSet<PackageInfo>());
+        classInfoSet = in.readClassInfoRefs(new HashSet<ClassInfo>());
+    }
 }
@@ -28,6 +28,7 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Map;
@@ -291,6 +292,9 @@ class ObjectTypedValueWrapper extends ScanResultObject {
     private Object getArrayValueClassOrName(final ClassInfo annotationClassInfo, final String paramName,
             final boolean getClass) {
         // Find the method in the annotation class with the same name as the annotation parameter.
+        if (annotationClassInfo != null) {
+            annotationClassInfo.materializeMembers();
+        }
         final MethodInfoList annotationMethodList = annotationClassInfo == null
                 || annotationClassInfo.methodInfo == null ? null : annotationClassInfo.methodInfo.get(paramName);
         if (annotationClassInfo != null && annotationMethodList != null && !annotationMethodList.isEmpty()) {
@@ -668,4 +672,227 @@ class ObjectTypedValueWrapper extends ScanResultObject {
             buf.append(Arrays.toString(objectArrayValue));
         }
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** Type tags for the binary serialization format, in field order. */
+    private static final int TAG_NONE = 0, TAG_ENUM = 1, TAG_CLASS_REF = 2, TAG_ANNOTATION = 3, TAG_STRING = 4,
+            TAG_INTEGER = 5, TAG_LONG = 6, TAG_SHORT = 7, TAG_BOOLEAN = 8, TAG_CHARACTER = 9, TAG_FLOAT = 10,
+            TAG_DOUBLE = 11, TAG_BYTE = 12, TAG_STRING_ARRAY = 13, TAG_INT_ARRAY = 14, TAG_LONG_ARRAY = 15,
+            TAG_SHORT_ARRAY = 16, TAG_BOOLEAN_ARRAY = 17, TAG_CHAR_ARRAY = 18, TAG_FLOAT_ARRAY = 19,
+            TAG_DOUBLE_ARRAY = 20, TAG_BYTE_ARRAY = 21, TAG_OBJECT_ARRAY = 22;
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        if (annotationEnumValue != null) {
+            out.writeByte(TAG_ENUM);
+            out.writeString(annotationEnumValue.getClassName());
+            out.writeString(annotationEnumValue.getValueName());
+        } else if (annotationClassRef != null) {
+            out.writeByte(TAG_CLASS_REF);
+            out.writeString(annotationClassRef.getTypeDescriptorStr());
+        } else if (annotationInfo != null) {
+            out.writeByte(TAG_ANNOTATION);
+            annotationInfo.writeTo(out);
+        } else if (stringValue != null) {
+            out.writeByte(TAG_STRING);
+            out.writeString(stringValue);
+        } else if (integerValue != null) {
+            out.writeByte(TAG_INTEGER);
+            out.writeSignedVarInt(integerValue);
+        } else if (longValue != null) {
+            out.writeByte(TAG_LONG);
+            out.writeSignedVarLong(longValue);
+        } else if (shortValue != null) {
+            out.writeByte(TAG_SHORT);
+            out.writeSignedVarInt(shortValue);
+        } else if (booleanValue != null) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean(booleanValue);
+        } else if (characterValue != null) {
+            out.writeByte(TAG_CHARACTER);
+            out.writeVarInt(characterValue);
+        } else if (floatValue != null) {
+            out.writeByte(TAG_FLOAT);
+            out.writeFloat(floatValue);
+        } else if (doubleValue != null) {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble(doubleValue);
+        } else if (byteValue != null) {
+            out.writeByte(TAG_BYTE);
+            out.writeByte(byteValue);
+        } else if (stringArrayValue != null) {
+            out.writeByte(TAG_STRING_ARRAY);
+            out.writeStringArray(stringArrayValue);
+        } else if (intArrayValue != null) {
+            out.writeByte(TAG_INT_ARRAY);
+            out.writeIntArray(intArrayValue);
+        } else if (longArrayValue != null) {
+            out.writeByte(TAG_LONG_ARRAY);
+            out.writeVarInt(longArrayValue.length);
+            for (final long val : longArrayValue) {
+                out.writeSignedVarLong(val);
+            }
+        } else if (shortArrayValue != null) {
+            out.writeByte(TAG_SHORT_ARRAY);
+            out.writeVarInt(shortArrayValue.length);
+            for (final short val : shortArrayValue) {
+                out.writeSignedVarInt(val);
+            }
+        } else if (booleanArrayValue != null) {
+            out.writeByte(TAG_BOOLEAN_ARRAY);
+            out.writeVarInt(booleanArrayValue.length);
+            for (final boolean val : booleanArrayValue) {
+                out.writeBoolean(val);
+            }
+        } else if (charArrayValue != null) {
+            out.writeByte(TAG_CHAR_ARRAY);
+            out.writeVarInt(charArrayValue.length);
+            for (final char val : charArrayValue) {
+                out.writeVarInt(val);
+            }
+        } else if (floatArrayValue != null) {
+            out.writeByte(TAG_FLOAT_ARRAY);
+            out.writeVarInt(floatArrayValue.length);
+            for (final float val : floatArrayValue) {
+                out.writeFloat(val);
+            }
+        } else if (doubleArrayValue != null) {
+            out.writeByte(TAG_DOUBLE_ARRAY);
+            out.writeVarInt(doubleArrayValue.length);
+            for (final double val : doubleArrayValue) {
+                out.writeDouble(val);
+            }
+        } else if (byteArrayValue != null) {
+            out.writeByte(TAG_BYTE_ARRAY);
+            out.writeVarInt(byteArrayValue.length);
+            for (final byte val : byteArrayValue) {
+                out.writeByte(val);
+            }
+        } else if (objectArrayValue != null) {
+            out.writeByte(TAG_OBJECT_ARRAY);
+            out.writeVarInt(objectArrayValue.length);
+            for (final ObjectTypedValueWrapper val : objectArrayValue) {
+                out.writeObjectTypedValue(val);
+            }
+        } else {
+            out.writeByte(TAG_NONE);
+        }
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        final int tag = in.readByte();
+        switch (tag) {
+        case TAG_NONE:
+            break;
+        case TAG_ENUM:
+            annotationEnumValue = new AnnotationEnumValue(in.readString(), in.readString());
+            break;
+        case TAG_CLASS_REF:
+            annotationClassRef = new AnnotationClassRef(in.readString());
+            break;
+        case TAG_ANNOTATION:
+            annotationInfo = new AnnotationInfo();
+            annotationInfo.readFrom(in);
+            break;
+        case TAG_STRING:
+            stringValue = in.readString();
+            break;
+        case TAG_INTEGER:
+            integerValue = in.readSignedVarInt();
+            break;
+        case TAG_LONG:
+            longValue = in.readSignedVarLong();
+            break;
+        case TAG_SHORT:
+            shortValue = (short) in.readSignedVarInt();
+            break;
+        case TAG_BOOLEAN:
+            booleanValue = in.readBoolean();
+            break;
+        case TAG_CHARACTER:
+            characterValue = (char) in.readVarInt();
+            break;
+        case TAG_FLOAT:
+            floatValue = in.readFloat();
+            break;
+        case TAG_DOUBLE:
+            doubleValue = in.readDouble();
+            break;
+        case TAG_BYTE:
+            byteValue = in.readByte();
+            break;
+        case TAG_STRING_ARRAY:
+            stringArrayValue = in.readStringArray();
+            break;
+        case TAG_INT_ARRAY:
+            intArrayValue = in.readIntArray();
+            break;
+        case TAG_LONG_ARRAY:
+            longArrayValue = new long[in.readVarInt()];
+            for (int i = 0; i < longArrayValue.length; i++) {
+                longArrayValue[i] = in.readSignedVarLong();
+            }
+            break;
+        case TAG_SHORT_ARRAY:
+            shortArrayValue = new short[in.readVarInt()];
+            for (int i = 0; i < shortArrayValue.length; i++) {
+                shortArrayValue[i] = (short) in.readSignedVarInt();
+            }
+            break;
+        case TAG_BOOLEAN_ARRAY:
+            booleanArrayValue = new boolean[in.readVarInt()];
+            for (int i = 0; i < booleanArrayValue.length; i++) {
+                booleanArrayValue[i] = in.readBoolean();
+            }
+            break;
+        case TAG_CHAR_ARRAY:
+            charArrayValue = new char[in.readVarInt()];
+            for (int i = 0; i < charArrayValue.length; i++) {
+                charArrayValue[i] = (char) in.readVarInt();
+            }
+            break;
+        case TAG_FLOAT_ARRAY:
+            floatArrayValue = new float[in.readVarInt()];
+            for (int i = 0; i < floatArrayValue.length; i++) {
+                floatArrayValue[i] = in.readFloat();
+            }
+            break;
+        case TAG_DOUBLE_ARRAY:
+            doubleArrayValue = new double[in.readVarInt()];
+            for (int i = 0; i < doubleArrayValue.length; i++) {
+                doubleArrayValue[i] = in.readDouble();
+            }
+            break;
+        case TAG_BYTE_ARRAY:
+            byteArrayValue = new byte[in.readVarInt()];
+            for (int i = 0; i < byteArrayValue.length; i++) {
+                byteArrayValue[i] = in.readByte();
+            }
+            break;
+        case TAG_OBJECT_ARRAY:
+            objectArrayValue = new ObjectTypedValueWrapper[in.readVarInt()];
+            for (int i = 0; i < objectArrayValue.length; i++) {
+                objectArrayValue[i] = in.readObjectTypedValue();
+            }
+            break;
+        default:
+            throw new IOException("Unknown value type tag: " + tag);
+        }
+    }
+}
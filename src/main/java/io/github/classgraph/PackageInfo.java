@@ -28,11 +28,14 @@
  */
 package io.github.classgraph;
 
+import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -376,4 +379,44 @@ public class PackageInfo implements Comparable<PackageInfo>, HasName {
     public String toString() {
         return name;
     }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write this object in the binary serialization format.
+     *
+     * @param out
+     *            the {@link ScanResultWriter}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeTo(final ScanResultWriter out) throws IOException {
+        out.writeAnnotationInfos(annotationInfoSet);
+        out.writeAnnotationInfos(annotationInfo);
+        out.writePackageInfoRef(parent);
+        out.writePackageInfoRefs(children);
+        out.writeClassInfoRefs(memberClassNameToClassInfo == null ? null : memberClassNameToClassInfo.values());
+    }
+
+    /**
+     * Read the contents of this object from the binary serialization format.
+     *
+     * @param in
+     *            the {@link ScanResultReader}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void readFrom(final ScanResultReader in) throws IOException {
+        annotationInfoSet = in.readAnnotationInfos(new LinkedHashSet<AnnotationInfo>());
+        annotationInfo = in.readAnnotationInfoList();
+        parent = in.readPackageInfoRef();
+        children = in.readPackageInfoRefs(new HashSet<PackageInfo>());
+        final List<ClassInfo> memberClassInfos = in.readClassInfoRefs(new ArrayList<ClassInfo>());
+        if (memberClassInfos != null) {
+            memberClassNameToClassInfo = new HashMap<>();
+            for (final ClassInfo classInfo : memberClassInfos) {
+                memberClassNameToClassInfo.put(classInfo.getName(), classInfo);
+            }
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The contents of a classfile, as parsed by {@link ClassGraph#scanStreaming(ClassGraph.ClassfileVisitor)}. Unlike
+ * {@link ClassInfo}, a {@link ParsedClassfile} is not linked to the other classes found during the scan, so
+ * superclasses, interfaces and annotations are only available by name.
+ */
+public class ParsedClassfile {
+    /** The classfile. */
+    private final Classfile classfile;
+
+    /**
+     * Constructor.
+     *
+     * @param classfile
+     *            the classfile
+     */
+    ParsedClassfile(final Classfile classfile) {
+        this.classfile = classfile;
+    }
+
+    /**
+     * Get the name of the class.
+     *
+     * @return The name of the class.
+     */
+    public String getName() {
+        return classfile.getClassName();
+    }
+
+    /**
+     * Get the name of the superclass.
+     *
+     * @return The name of the superclass, or null if this class has no superclass (e.g. {@link Object}, or an
+     *         interface).
+     */
+    public String getSuperclassName() {
+        return classfile.getSuperclassName();
+    }
+
+    /**
+     * Get the names of the interfaces that this class directly implements, or that this interface directly
+     * extends.
+     *
+     * @return The names of the directly-implemented interfaces, or the empty list if none.
+     */
+    public List<String> getInterfaceNames() {
+        final List<String> implementedInterfaces = classfile.getImplementedInterfaces();
+        return implementedInterfaces == null ? Collections.<String> emptyList()
+                : Collections.unmodifiableList(implementedInterfaces);
+    }
+
+    /**
+     * Get the class modifier bits.
+     *
+     * @return The class modifier bits, as defined in {@link java.lang.reflect.Modifier}.
+     */
+    public int getModifiers() {
+        return classfile.getClassModifiers();
+    }
+
+    /**
+     * Check whether this classfile is an interface (including annotations).
+     *
+     * @return true if this classfile is an interface.
+     */
+    public boolean isInterface() {
+        return classfile.isInterface();
+    }
+
+    /**
+     * Check whether this classfile is an annotation.
+     *
+     * @return true if this classfile is an annotation.
+     */
+    public boolean isAnnotation() {
+        return classfile.isAnnotation();
+    }
+
+    /**
+     * Check whether this classfile is an external class, i.e. a class outside the accepted packages that was
+     * scanned because it is a superclass, interface or annotation of an accepted class, and
+     * {@link ClassGraph#enableExternalClasses()} was called.
+     *
+     * @return true if this classfile is an external class.
+     */
+    public boolean isExternalClass() {
+        return classfile.isExternalClass();
+    }
+
+    /**
+     * Get the annotations on this class. Annotation parameter values are available, but default parameter values
+     * are not, since the annotation classes are not linked.
+     *
+     * @return The annotations on this class, or the empty list if none.
+     */
+    public AnnotationInfoList getAnnotationInfo() {
+        final AnnotationInfoList classAnnotations = classfile.getClassAnnotations();
+        return classAnnotations == null ? AnnotationInfoList.EMPTY_LIST : classAnnotations;
+    }
+
+    /**
+     * Get the {@link Resource} for the classfile.
+     *
+     * @return The {@link Resource} for the classfile.
+     */
+    public Resource getResource() {
+        return classfile.getClassfileResource();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -42,6 +42,7 @@ import java.nio.file.attribute.PosixFilePermission;
 import java.util.Set;
 import java.util.zip.ZipEntry;
 
+import nonapi.io.github.classgraph.fastzipfilereader.FastZipEntry;
 import nonapi.io.github.classgraph.fileslice.reader.ClassfileReader;
 import nonapi.io.github.classgraph.utils.LogNode;
 import nonapi.io.github.classgraph.utils.URLPathEncoder;
@@ -307,6 +308,15 @@ public abstract class Resource implements Closeable, Comparable<Resource> {
      */
     abstract ClassfileReader openClassfile() throws IOException;
 
+    /**
+     * Get the zip entry for this resource.
+     *
+     * @return the zip entry for this resource, or null if this resource is not a zip entry.
+     */
+    FastZipEntry getZipEntry() {
+        return null;
+    }
+
     /**
      * Get the length of the resource.
      *
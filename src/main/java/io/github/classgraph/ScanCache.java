@@ -0,0 +1,296 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.classgraph.Classfile.CachedClassfile;
+import nonapi.io.github.classgraph.json.JSONDeserializer;
+import nonapi.io.github.classgraph.json.JSONSerializer;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A persistent on-disk cache of the parsed classfiles of jarfile classpath elements, enabled by
+ * {@link ClassGraph#enableScanCache(Path)}. Each cache entry is keyed by the path of the jarfile (including any
+ * nested jar path and package root prefix) and a hash of the {@link ScanSpec}, and is only used if the size and
+ * last modified time of the outermost jarfile have not changed since the entry was written.
+ *
+ * <p>
+ * Directory and module classpath elements are not cached, since determining whether they have changed requires a
+ * traversal of the directory or module. Accepted resource paths are not cached either, since the central
+ * directory of each jarfile has to be read anyway to create {@link Resource} objects. Any errors while reading or
+ * writing the cache are logged, and cause the classpath element to be scanned normally.
+ */
+class ScanCache {
+    /** The cache directory. */
+    private final Path cacheDir;
+
+    /** The hash of the {@link ScanSpec}. */
+    private final String scanSpecHash;
+
+    /** The current cache format. */
+    private static final String CURRENT_CACHE_FORMAT = "1";
+
+    /** The cache file extension. */
+    private static final String CACHE_FILE_EXTENSION = ".json";
+
+    /** The cached contents of a classpath element. */
+    private static class CachedClasspathElement {
+        /** The cache format. */
+        public String format;
+
+        /** The hash of the {@link ScanSpec}. */
+        public String scanSpecHash;
+
+        /** The path of the classpath element. */
+        public String classpathElementPath;
+
+        /** The size of the outermost jarfile. */
+        public long fileSize;
+
+        /** The last modified time of the outermost jarfile. */
+        public long lastModified;
+
+        /** The parsed accepted classfiles. */
+        public List<CachedClassfile> classfiles;
+
+        /** The paths of accepted classfiles that were skipped while parsing. */
+        public List<String> skippedClassfilePaths;
+
+        /**
+         * Constructor.
+         */
+        @SuppressWarnings("unused")
+        public CachedClasspathElement() {
+            // Empty
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param scanSpec
+     *            the scan spec
+     */
+    ScanCache(final Path cacheDir, final ScanSpec scanSpec) {
+        this.cacheDir = cacheDir;
+        this.scanSpecHash = sha256(JSONSerializer.serializeObject(scanSpec));
+    }
+
+    /**
+     * Get the SHA-256 hash of a string, as a hex string.
+     *
+     * @param str
+     *            the string
+     * @return the hash
+     */
+    private static String sha256(final String str) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder buf = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+                buf.append(Character.forDigit(b & 0xf, 16));
+            }
+            return buf.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // Every JRE is required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Check whether a classpath element can be cached.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @return true if the classpath element is a jarfile (or nested jarfile) backed by a regular file
+     */
+    static boolean isCacheable(final ClasspathElement classpathElement) {
+        if (!(classpathElement instanceof ClasspathElementZip)) {
+            return false;
+        }
+        final File file = classpathElement.getFile();
+        return file != null && file.isFile();
+    }
+
+    /**
+     * Get the path of the cache file for a classpath element.
+     *
+     * @param classpathElement
+     *            the classpath element
+     * @return the cache file path
+     */
+    private Path getCacheFile(final ClasspathElementZip classpathElement) {
+        return cacheDir.resolve(sha256(classpathElement.getZipFilePath() + "\n" + scanSpecHash) //
+                + CACHE_FILE_EXTENSION);
+    }
+
+    /**
+     * Load the cached classfiles for a classpath element.
+     *
+     * @param classpathElement
+     *            the classpath element, which must be cacheable
+     * @param log
+     *            the log
+     * @return a map from the relative path of each accepted classfile resource of the classpath element to the
+     *         corresponding {@link CachedClassfile} (or to null, if the classfile was skipped when it was parsed),
+     *         or null if there is no valid cache entry for the classpath element.
+     */
+    Map<String, CachedClassfile> load(final ClasspathElement classpathElement, final LogNode log) {
+        final ClasspathElementZip classpathElementZip = (ClasspathElementZip) classpathElement;
+        final Path cacheFile = getCacheFile(classpathElementZip);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try {
+            final CachedClasspathElement cached = JSONDeserializer.deserializeObject(CachedClasspathElement.class,
+                    new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8));
+            final File file = classpathElement.getFile();
+            if (cached == null || !CURRENT_CACHE_FORMAT.equals(cached.format)
+                    || !scanSpecHash.equals(cached.scanSpecHash)
+                    || !classpathElementZip.getZipFilePath().equals(cached.classpathElementPath)
+                    || cached.fileSize != file.length() || cached.lastModified != file.lastModified()) {
+                if (log != null) {
+                    log.log("Scan cache entry is stale for " + classpathElement);
+                }
+                return null;
+            }
+            final Map<String, CachedClassfile> relativePathToCachedClassfile = new HashMap<>();
+            if (cached.classfiles != null) {
+                for (final CachedClassfile cachedClassfile : cached.classfiles) {
+                    relativePathToCachedClassfile.put(cachedClassfile.relativePath, cachedClassfile);
+                }
+            }
+            if (cached.skippedClassfilePaths != null) {
+                for (final String skippedClassfilePath : cached.skippedClassfilePaths) {
+                    relativePathToCachedClassfile.put(skippedClassfilePath, null);
+                }
+            }
+            // Classfile masking may differ between scans, but every classfile that is still to be scanned must
+            // have been scanned when the cache entry was written
+            for (final Resource resource : classpathElement.acceptedClassfileResources) {
+                if (!relativePathToCachedClassfile.containsKey(resource.getPath())) {
+                    if (log != null) {
+                        log.log("Scan cache entry is incomplete for " + classpathElement);
+                    }
+                    return null;
+                }
+            }
+            if (log != null) {
+                log.log("Using scan cache entry for " + classpathElement);
+            }
+            return relativePathToCachedClassfile;
+        } catch (final IOException | IllegalArgumentException e) {
+            if (log != null) {
+                log.log("Could not read scan cache entry for " + classpathElement + " : " + e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Save the parsed classfiles for a classpath element to the cache.
+     *
+     * @param classpathElement
+     *            the classpath element, which must be cacheable
+     * @param classfiles
+     *            the accepted (non-external) classfiles that were parsed from the classpath element
+     * @param log
+     *            the log
+     */
+    void save(final ClasspathElement classpathElement, final List<Classfile> classfiles, final LogNode log) {
+        final ClasspathElementZip classpathElementZip = (ClasspathElementZip) classpathElement;
+        final File file = classpathElement.getFile();
+        final CachedClasspathElement cached = new CachedClasspathElement();
+        cached.format = CURRENT_CACHE_FORMAT;
+        cached.scanSpecHash = scanSpecHash;
+        cached.classpathElementPath = classpathElementZip.getZipFilePath();
+        cached.fileSize = file.length();
+        cached.lastModified = file.lastModified();
+        cached.classfiles = new ArrayList<>(classfiles.size());
+        final Set<String> relativePathsParsed = new HashSet<>();
+        for (final Classfile classfile : classfiles) {
+            final CachedClassfile cachedClassfile = classfile.toCachedClassfile();
+            if (cachedClassfile == null) {
+                if (log != null) {
+                    log.log("Not caching " + classpathElement + " since it contains type annotations");
+                }
+                return;
+            }
+            cached.classfiles.add(cachedClassfile);
+            relativePathsParsed.add(cachedClassfile.relativePath);
+        }
+        cached.skippedClassfilePaths = new ArrayList<>();
+        for (final Resource resource : classpathElement.acceptedClassfileResources) {
+            if (!relativePathsParsed.contains(resource.getPath())) {
+                cached.skippedClassfilePaths.add(resource.getPath());
+            }
+        }
+        Path tempFile = null;
+        try {
+            Files.createDirectories(cacheDir);
+            final Path cacheFile = getCacheFile(classpathElementZip);
+            // Write to a temporary file then move it into place, so that concurrent scans never see a
+            // partially-written cache file
+            tempFile = Files.createTempFile(cacheDir, "scan", ".tmp");
+            Files.write(tempFile, JSONSerializer.serializeObject(cached).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+        } catch (final IOException | IllegalArgumentException e) {
+            if (log != null) {
+                log.log("Could not write scan cache entry for " + classpathElement + " : " + e);
+            }
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (final IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
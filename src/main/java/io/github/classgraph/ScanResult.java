@@ -30,13 +30,20 @@ package io.github.classgraph;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.ref.WeakReference;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -46,6 +53,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
@@ -124,6 +132,21 @@ public final class ScanResult implements Closeable {
     /** The scan spec. */
     ScanSpec scanSpec;
 
+    /**
+     * The parsed classfiles, kept for {@link #rescanChanged()} if {@link ClassGraph#enableIncrementalRescan()} was
+     * called, otherwise null.
+     */
+    ClassfileSnapshot classfileSnapshot;
+
+    /**
+     * The {@link ExecutorService} used for the scan, reused by {@link #rescanChanged()} unless it has been shut
+     * down (e.g. because it was created by {@link ClassGraph#scan(int)}).
+     */
+    ExecutorService executorService;
+
+    /** The number of parallel tasks used for the scan, reused by {@link #rescanChanged()}. */
+    int numParallelTasks = ClassGraph.DEFAULT_NUM_WORKER_THREADS;
+
     /** If true, this ScanResult has already been closed. */
     private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -1412,6 +1435,40 @@ public final class ScanResult implements Closeable {
         return maxLastModifiedTime;
     }
 
+    /**
+     * Rescan the classpath with the same scan configuration, and return a new {@link ScanResult}. The rescan uses
+     * the same {@link ExecutorService} (if it was passed to {@link ClassGraph#scan(ExecutorService, int)} or
+     * {@link ClassGraph#scanAsync(ExecutorService, int)}, and has not been shut down) or the same number of
+     * threads, and logs to the same log if {@link ClassGraph#verbose()} was called. Classpath
+     * elements are reopened and their paths are rescanned, so added and removed classes and classpath elements
+     * are found. If {@link ClassGraph#enableIncrementalRescan()} was called before the original scan, then only
+     * classfiles in jarfiles that have changed, and classfiles in directories that have changed, are parsed. The
+     * parsed contents of all other classfiles are reused, and the class graph is relinked, so that the new
+     * {@link ScanResult} is the same as the result of a full rescan.
+     *
+     * <p>
+     * The new {@link ScanResult} may share {@link FieldInfo}, {@link MethodInfo} and {@link AnnotationInfo}
+     * objects with this {@link ScanResult}, so this {@link ScanResult} should be closed, and objects obtained from
+     * it should not be used, once the new {@link ScanResult} has been obtained.
+     *
+     * @return a new {@link ScanResult}, reflecting the current contents of the classpath.
+     * @throws ClassGraphException
+     *             if any of the worker threads throws an uncaught exception, or the scan was interrupted.
+     */
+    public ScanResult rescanChanged() {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        final ClassGraph classGraph = new ClassGraph();
+        classGraph.scanSpec = scanSpec;
+        classGraph.topLevelLog = topLevelLog;
+        classGraph.previousClassfileSnapshot = classfileSnapshot;
+        final ExecutorService scanExecutorService = executorService;
+        return scanExecutorService != null && !scanExecutorService.isShutdown()
+                ? classGraph.scan(scanExecutorService, numParallelTasks)
+                : classGraph.scan(numParallelTasks);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
     // Classloading
 
@@ -1559,38 +1616,60 @@ public final class ScanResult implements Closeable {
             throw new IllegalArgumentException("JSON was serialized by newer version of ClassGraph");
         }
 
+        return fromDeserializedFields(deserialized.scanSpec, deserialized.classpath, deserialized.classInfo,
+                deserialized.packageInfo, deserialized.moduleInfo);
+    }
+
+    /**
+     * Create a {@link ScanResult} from the deserialized fields of a previously-serialized {@link ScanResult}.
+     *
+     * @param scanSpec
+     *            the deserialized scan spec
+     * @param classpath
+     *            the deserialized classpath
+     * @param classInfos
+     *            the deserialized {@link ClassInfo} objects
+     * @param packageInfos
+     *            the deserialized {@link PackageInfo} objects
+     * @param moduleInfos
+     *            the deserialized {@link ModuleInfo} objects
+     * @return the {@link ScanResult}
+     */
+    private static ScanResult fromDeserializedFields(final ScanSpec scanSpec, final List<String> classpath,
+            final Collection<ClassInfo> classInfos, final Collection<PackageInfo> packageInfos,
+            final Collection<ModuleInfo> moduleInfos) {
         // Perform a new "scan" with performScan set to false, which resolves all the
         // ClasspathElement objects
         // and scans classpath element paths (needed for classloading), but does not
         // scan the actual classfiles
         final ClassGraph classGraph = new ClassGraph();
-        classGraph.scanSpec = deserialized.scanSpec;
+        classGraph.scanSpec = scanSpec;
         final ScanResult scanResult;
         try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(
                 ClassGraph.DEFAULT_NUM_WORKER_THREADS)) {
             scanResult = classGraph.getClasspathScanResult(executorService);
         }
-        scanResult.rawClasspathEltOrderStrs = deserialized.classpath;
+        scanResult.rawClasspathEltOrderStrs = classpath;
 
         // Set the fields related to ClassInfo in the new ScanResult, based on the
-        // deserialized JSON
-        scanResult.scanSpec = deserialized.scanSpec;
+        // deserialized fields
+        scanResult.scanSpec = scanSpec;
         scanResult.classNameToClassInfo = new HashMap<>();
-        if (deserialized.classInfo != null) {
-            for (final ClassInfo ci : deserialized.classInfo) {
+        if (classInfos != null) {
+            for (final ClassInfo ci : classInfos) {
                 scanResult.classNameToClassInfo.put(ci.getName(), ci);
                 ci.setScanResult(scanResult);
             }
         }
         scanResult.moduleNameToModuleInfo = new HashMap<>();
-        if (deserialized.moduleInfo != null) {
-            for (final ModuleInfo mi : deserialized.moduleInfo) {
+        if (moduleInfos != null) {
+            for (final ModuleInfo mi : moduleInfos) {
                 scanResult.moduleNameToModuleInfo.put(mi.getName(), mi);
             }
         }
         scanResult.packageNameToPackageInfo = new HashMap<>();
-        if (deserialized.packageInfo != null) {
-            for (final PackageInfo pi : deserialized.packageInfo) {
+        if (packageInfos != null) {
+            for (final PackageInfo pi : packageInfos) {
                 scanResult.packageNameToPackageInfo.put(pi.getName(), pi);
             }
         }
@@ -1618,6 +1697,10 @@ public final class ScanResult implements Closeable {
         }
         final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
         CollectionUtils.sortIfNotEmpty(allClassInfo);
+        for (final ClassInfo classInfo : allClassInfo) {
+            // Read any members of classes that were lazily deserialized, since the serializer reads fields directly
+            classInfo.materializeMembers();
+        }
         final List<PackageInfo> allPackageInfo = new ArrayList<>(packageNameToPackageInfo.values());
         CollectionUtils.sortIfNotEmpty(allPackageInfo);
         final List<ModuleInfo> allModuleInfo = new ArrayList<>(moduleNameToModuleInfo.values());
@@ -1636,8 +1719,101 @@ public final class ScanResult implements Closeable {
     }
 
     /**
-     * Checks if this {@link ScanResult} was obtained from JSON by deserialization, by calling
-     * {@link #fromJSON(String)}.
+     * Serialize a ScanResult to a compact binary format, which is faster to write and read, and smaller, than JSON.
+     * The binary format can only be read by the same version of ClassGraph. The output stream is flushed but not
+     * closed.
+     *
+     * @param outputStream
+     *            The {@link OutputStream} to write the serialized {@link ScanResult} to.
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    public void writeTo(final OutputStream outputStream) throws IOException {
+        if (closed.get()) {
+            throw new IllegalArgumentException("Cannot use a ScanResult after it has been closed");
+        }
+        if (!scanSpec.enableClassInfo) {
+            throw new IllegalArgumentException("Please call ClassGraph#enableClassInfo() before #scan()");
+        }
+        final List<ClassInfo> allClassInfo = new ArrayList<>(classNameToClassInfo.values());
+        CollectionUtils.sortIfNotEmpty(allClassInfo);
+        final List<PackageInfo> allPackageInfo = new ArrayList<>(packageNameToPackageInfo.values());
+        CollectionUtils.sortIfNotEmpty(allPackageInfo);
+        final List<ModuleInfo> allModuleInfo = new ArrayList<>(moduleNameToModuleInfo.values());
+        CollectionUtils.sortIfNotEmpty(allModuleInfo);
+        new ScanResultWriter(outputStream).write(scanSpec, rawClasspathEltOrderStrs, allClassInfo, allPackageInfo,
+                allModuleInfo);
+    }
+
+    /**
+     * Deserialize a ScanResult that was previously serialized by {@link #writeTo(OutputStream)}. The input stream
+     * is read in a single pass, and is not closed (bytes after the end of the serialized {@link ScanResult} may be
+     * consumed).
+     *
+     * <p>
+     * As with {@link #readFrom(Path)}, the fields, methods and annotation parameter defaults of each class are only
+     * decoded the first time they are queried. The class graph itself (class names, modifiers, class annotations,
+     * and the relationships between classes, packages and modules) is read eagerly.
+     *
+     * @param inputStream
+     *            The {@link InputStream} to read the serialized {@link ScanResult} from.
+     * @return The deserialized {@link ScanResult}.
+     * @throws IOException
+     *             If an I/O exception occurs, or the input was not serialized by the current version of
+     *             ClassGraph.
+     */
+    public static ScanResult readFrom(final InputStream inputStream) throws IOException {
+        return readFrom(new ScanResultReader(inputStream));
+    }
+
+    /**
+     * Deserialize a ScanResult from a file that was previously written by {@link #writeTo(OutputStream)}, e.g. an
+     * index of the classpath that was built at build time.
+     *
+     * <p>
+     * The file is memory-mapped, and the fields, methods and annotation parameter defaults of each class are only
+     * read from the mapped file the first time they are queried, so that opening a large index is fast, and
+     * queries that only need the class graph (e.g. {@link #getClassesWithAnnotation(String)}) do not read the
+     * whole file. The file must not be modified while the returned {@link ScanResult} is in use. The mapping is
+     * released when the {@link ScanResult} is garbage collected.
+     *
+     * @param path
+     *            The path of the file to read the serialized {@link ScanResult} from.
+     * @return The deserialized {@link ScanResult}.
+     * @throws IOException
+     *             If an I/O exception occurs, or the file was not serialized by the current version of
+     *             ClassGraph.
+     */
+    public static ScanResult readFrom(final Path path) throws IOException {
+        final ByteBuffer mappedBuf;
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (fileChannel.size() > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("File is too large to memory-map: " + path);
+            }
+            mappedBuf = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0L, fileChannel.size());
+        }
+        return readFrom(new ScanResultReader(mappedBuf));
+    }
+
+    /**
+     * Deserialize a ScanResult using a {@link ScanResultReader}.
+     *
+     * @param reader
+     *            The reader.
+     * @return The deserialized {@link ScanResult}.
+     * @throws IOException
+     *             If an I/O exception occurs, or the input does not contain a {@link ScanResult} serialized by the
+     *             current version of ClassGraph.
+     */
+    private static ScanResult readFrom(final ScanResultReader reader) throws IOException {
+        reader.read();
+        return fromDeserializedFields(reader.scanSpec, reader.classpath, Arrays.asList(reader.classInfos),
+                Arrays.asList(reader.packageInfos), Arrays.asList(reader.moduleInfos));
+    }
+
+    /**
+     * Checks if this {@link ScanResult} was obtained by deserialization, by calling {@link #fromJSON(String)},
+     * {@link #readFrom(InputStream)} or {@link #readFrom(Path)}.
      *
      * @return True if this {@link ScanResult} was obtained from JSON by deserialization.
      */
@@ -1661,6 +1837,7 @@ public final class ScanResult implements Closeable {
                 classpathOrder.clear();
                 classpathOrder = null;
             }
+            executorService = null;
             if (allAcceptedResourcesCached != null) {
                 for (final Resource classpathResource : allAcceptedResourcesCached) {
                     classpathResource.close();
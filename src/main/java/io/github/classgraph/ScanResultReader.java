@@ -0,0 +1,680 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import nonapi.io.github.classgraph.json.JSONDeserializer;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * Reads a {@link ScanResult} in the compact binary format written by {@link ScanResultWriter}.
+ *
+ * <p>
+ * The fields, methods and annotation parameter defaults of each class are not read until they are first needed:
+ * {@link #read()} only records the location of each class' member blob, and {@link ClassInfo#materializeMembers()}
+ * reads the blob on demand. When reading from a buffer that is a memory-mapped file, only the pages containing the
+ * parts of the index touched by queries are read from disk. When reading from an {@link InputStream}, the input
+ * is read in a single streaming pass, and each member blob is copied into its own small buffer, so that the
+ * members are still only decoded when they are queried.
+ */
+class ScanResultReader {
+    /** The buffer to read from, or null if reading from {@link #in}. */
+    private final ByteBuffer buf;
+
+    /** The input stream to read from, or null if reading from {@link #buf}. */
+    private final DataInputStream in;
+
+    /** The string table. */
+    private final List<String> strings = new ArrayList<>();
+
+    /** The scan spec. */
+    ScanSpec scanSpec;
+
+    /** The classpath, as a list of URL strings. */
+    List<String> classpath;
+
+    /** The class table. */
+    ClassInfo[] classInfos;
+
+    /** The package table. */
+    PackageInfo[] packageInfos;
+
+    /** The module table. */
+    ModuleInfo[] moduleInfos;
+
+    /**
+     * Constructor.
+     *
+     * @param buf
+     *            the buffer to read from, positioned at the start of the serialized {@link ScanResult}.
+     */
+    ScanResultReader(final ByteBuffer buf) {
+        this.buf = buf;
+        this.in = null;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param inputStream
+     *            the input stream to read from, positioned at the start of the serialized {@link ScanResult}.
+     */
+    ScanResultReader(final InputStream inputStream) {
+        this.buf = null;
+        this.in = new DataInputStream(new BufferedInputStream(inputStream));
+    }
+
+    /**
+     * Constructor for a reader of a class member blob, which has its own string table, but shares the object
+     * tables of the parent reader.
+     *
+     * @param buf
+     *            the buffer, positioned at the start of the member blob, and limited to its end.
+     * @param parent
+     *            the parent reader
+     */
+    private ScanResultReader(final ByteBuffer buf, final ScanResultReader parent) {
+        this.buf = buf;
+        this.in = null;
+        this.scanSpec = parent.scanSpec;
+        this.classInfos = parent.classInfos;
+        this.packageInfos = parent.packageInfos;
+        this.moduleInfos = parent.moduleInfos;
+    }
+
+    /**
+     * Read a {@link ScanResult} into the fields of this reader.
+     *
+     * @throws IOException
+     *             if an I/O exception occurs, or the input is not in the correct format.
+     */
+    void read() throws IOException {
+        try {
+            readObjects();
+        } catch (final BufferUnderflowException | EOFException e) {
+            throw new IOException("Serialized ScanResult is truncated", e);
+        }
+    }
+
+    /**
+     * Read the header and the object tables.
+     *
+     * @throws IOException
+     *             if an I/O exception occurs, or the input is not in the correct format.
+     */
+    private void readObjects() throws IOException {
+        if (buf != null && buf.remaining() < 4 || readInt() != ScanResultWriter.MAGIC) {
+            throw new IOException("Input is not a serialized ScanResult");
+        }
+        final int formatVersion = readVarInt();
+        if (formatVersion != ScanResultWriter.CURRENT_FORMAT_VERSION) {
+            throw new IOException("ScanResult was serialized in a different format (" + formatVersion
+                    + ") from the format used by the current version of ClassGraph ("
+                    + ScanResultWriter.CURRENT_FORMAT_VERSION + ") -- please serialize and deserialize your "
+                    + "ScanResult using the same version of ClassGraph");
+        }
+        try {
+            scanSpec = JSONDeserializer.deserializeObject(ScanSpec.class, readString());
+        } catch (final IllegalArgumentException e) {
+            throw new IOException("Could not deserialize ScanSpec", e);
+        }
+        classpath = readStrings();
+
+        // Create the named objects, so that references can be resolved while reading their contents
+        classInfos = new ClassInfo[readVarInt()];
+        for (int i = 0; i < classInfos.length; i++) {
+            classInfos[i] = new ClassInfo(readString(), /* classModifiers = */ 0, /* classfileResource = */ null);
+        }
+        packageInfos = new PackageInfo[readVarInt()];
+        for (int i = 0; i < packageInfos.length; i++) {
+            packageInfos[i] = new PackageInfo(readString());
+        }
+        moduleInfos = new ModuleInfo[readVarInt()];
+        for (int i = 0; i < moduleInfos.length; i++) {
+            moduleInfos[i] = new ModuleInfo(readString());
+        }
+
+        // Read the contents of each object
+        for (final ClassInfo classInfo : classInfos) {
+            classInfo.readFrom(this);
+        }
+        for (final PackageInfo packageInfo : packageInfos) {
+            packageInfo.readFrom(this);
+        }
+        for (final ModuleInfo moduleInfo : moduleInfos) {
+            moduleInfo.readFrom(this);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Read a big-endian int.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    private int readInt() throws IOException {
+        return in != null ? in.readInt() : buf.getInt();
+    }
+
+    /**
+     * Read bytes into an array.
+     *
+     * @param bytes
+     *            the array to fill
+     * @throws IOException
+     *             if an I/O exception occurs, or the input is truncated.
+     */
+    private void readFully(final byte[] bytes) throws IOException {
+        if (in != null) {
+            in.readFully(bytes);
+        } else {
+            if (bytes.length > buf.remaining()) {
+                throw new IOException("Serialized ScanResult is truncated");
+            }
+            buf.get(bytes);
+        }
+    }
+
+    /**
+     * Read an unsigned varint.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    int readVarInt() throws IOException {
+        int val = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = readByte() & 0xff;
+            val |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return val;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Read a signed varint, using zigzag encoding.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    int readSignedVarInt() throws IOException {
+        final int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Read a signed varlong, using zigzag encoding.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    long readSignedVarLong() throws IOException {
+        long v = 0L;
+        for (int shift = 0;; shift += 7) {
+            if (shift >= 70) {
+                throw new IOException("Malformed varlong");
+            }
+            final int b = readByte() & 0xff;
+            v |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Read a boolean.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    /**
+     * Read a byte.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    byte readByte() throws IOException {
+        return in != null ? in.readByte() : buf.get();
+    }
+
+    /**
+     * Read a float.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    float readFloat() throws IOException {
+        return in != null ? in.readFloat() : buf.getFloat();
+    }
+
+    /**
+     * Read a double.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    double readDouble() throws IOException {
+        return in != null ? in.readDouble() : buf.getDouble();
+    }
+
+    /**
+     * Read a possibly-null string, either in full or as an index into the string table.
+     *
+     * @return the string
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    String readString() throws IOException {
+        final int v = readVarInt();
+        if (v == 0) {
+            return null;
+        } else if (v == 1) {
+            final byte[] bytes = new byte[readVarInt()];
+            readFully(bytes);
+            final String str = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(str);
+            return str;
+        } else {
+            final int idx = (v >>> 1) - 1;
+            if ((v & 1) != 0 || idx >= strings.size()) {
+                throw new IOException("Bad string table index");
+            }
+            return strings.get(idx);
+        }
+    }
+
+    /**
+     * Read the size of a possibly-null collection or array.
+     *
+     * @return the size, or -1 for null
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    int readSize() throws IOException {
+        return readVarInt() - 1;
+    }
+
+    /**
+     * Read a possibly-null list of strings.
+     *
+     * @return the strings
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    List<String> readStrings() throws IOException {
+        final String[] strs = readStringArray();
+        return strs == null ? null : new ArrayList<>(Arrays.asList(strs));
+    }
+
+    /**
+     * Read strings into a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the strings to
+     * @return the collection, or null if a null collection was written
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    <C extends Collection<String>> C readStrings(final C collection) throws IOException {
+        final String[] strs = readStringArray();
+        if (strs == null) {
+            return null;
+        }
+        collection.addAll(Arrays.asList(strs));
+        return collection;
+    }
+
+    /**
+     * Read a possibly-null array of strings.
+     *
+     * @return the strings
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    String[] readStringArray() throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        final String[] strs = new String[size];
+        for (int i = 0; i < size; i++) {
+            strs[i] = readString();
+        }
+        return strs;
+    }
+
+    /**
+     * Read a possibly-null array of ints.
+     *
+     * @return the values
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    int[] readIntArray() throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        final int[] vals = new int[size];
+        for (int i = 0; i < size; i++) {
+            vals[i] = readSignedVarInt();
+        }
+        return vals;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Look up an entry of a table, given a varint index.
+     *
+     * @param <T>
+     *            the table element type
+     * @param table
+     *            the table
+     * @param idx
+     *            the index
+     * @return the table entry
+     * @throws IOException
+     *             if the index is out of range.
+     */
+    private static <T> T lookup(final T[] table, final int idx) throws IOException {
+        if (idx < 0 || idx >= table.length) {
+            throw new IOException("Bad table index");
+        }
+        return table[idx];
+    }
+
+    /**
+     * Read a possibly-null reference to a {@link ClassInfo} object.
+     *
+     * @return the class info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    ClassInfo readClassInfoRef() throws IOException {
+        final int v = readVarInt();
+        return v == 0 ? null : lookup(classInfos, v - 1);
+    }
+
+    /**
+     * Read references to {@link ClassInfo} objects into a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the references to
+     * @return the collection, or null if a null collection was written
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    <C extends Collection<ClassInfo>> C readClassInfoRefs(final C collection) throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            collection.add(lookup(classInfos, readVarInt()));
+        }
+        return collection;
+    }
+
+    /**
+     * Read a possibly-null reference to a {@link PackageInfo} object.
+     *
+     * @return the package info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    PackageInfo readPackageInfoRef() throws IOException {
+        final int v = readVarInt();
+        return v == 0 ? null : lookup(packageInfos, v - 1);
+    }
+
+    /**
+     * Read references to {@link PackageInfo} objects into a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the references to
+     * @return the collection, or null if a null collection was written
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    <C extends Collection<PackageInfo>> C readPackageInfoRefs(final C collection) throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        for (int i = 0; i < size; i++) {
+            collection.add(readPackageInfoRef());
+        }
+        return collection;
+    }
+
+    /**
+     * Read a possibly-null reference to a {@link ModuleInfo} object.
+     *
+     * @return the module info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    ModuleInfo readModuleInfoRef() throws IOException {
+        final int v = readVarInt();
+        return v == 0 ? null : lookup(moduleInfos, v - 1);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Read {@link AnnotationInfo} objects into a collection.
+     *
+     * @param <C>
+     *            the collection type
+     * @param collection
+     *            the collection to add the annotation infos to
+     * @return the collection, or null if a null collection was written
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    <C extends Collection<AnnotationInfo>> C readAnnotationInfos(final C collection) throws IOException {
+        final AnnotationInfo[] annotationInfos = readAnnotationInfoArray();
+        if (annotationInfos == null) {
+            return null;
+        }
+        collection.addAll(Arrays.asList(annotationInfos));
+        return collection;
+    }
+
+    /**
+     * Read a possibly-null {@link AnnotationInfoList}.
+     *
+     * @return the annotation info list
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    AnnotationInfoList readAnnotationInfoList() throws IOException {
+        return readAnnotationInfos(new AnnotationInfoList());
+    }
+
+    /**
+     * Read a possibly-null array of {@link AnnotationInfo} objects.
+     *
+     * @return the annotation infos
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    AnnotationInfo[] readAnnotationInfoArray() throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        final AnnotationInfo[] annotationInfos = new AnnotationInfo[size];
+        for (int i = 0; i < size; i++) {
+            annotationInfos[i] = new AnnotationInfo();
+            annotationInfos[i].readFrom(this);
+        }
+        return annotationInfos;
+    }
+
+    /**
+     * Read a possibly-null {@link AnnotationParameterValueList}.
+     *
+     * @return the annotation parameter value list
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    AnnotationParameterValueList readAnnotationParameterValueList() throws IOException {
+        final int size = readSize();
+        if (size < 0) {
+            return null;
+        }
+        final AnnotationParameterValueList annotationParamValues = new AnnotationParameterValueList(size);
+        for (int i = 0; i < size; i++) {
+            final AnnotationParameterValue annotationParamValue = new AnnotationParameterValue();
+            annotationParamValue.readFrom(this);
+            annotationParamValues.add(annotationParamValue);
+        }
+        return annotationParamValues;
+    }
+
+    /**
+     * Read a possibly-null {@link ObjectTypedValueWrapper}.
+     *
+     * @return the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    ObjectTypedValueWrapper readObjectTypedValue() throws IOException {
+        if (!readBoolean()) {
+            return null;
+        }
+        final ObjectTypedValueWrapper value = new ObjectTypedValueWrapper();
+        value.readFrom(this);
+        return value;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** The serialized members of a class, which are read on demand. */
+    static class MemberBlob {
+        /** The reader that the blob was found by. */
+        private final ScanResultReader reader;
+
+        /** The blob, from its position to its limit. */
+        private final ByteBuffer blob;
+
+        /**
+         * Constructor.
+         *
+         * @param reader
+         *            the reader that the blob was found by
+         * @param blob
+         *            the blob, from its position to its limit
+         */
+        private MemberBlob(final ScanResultReader reader, final ByteBuffer blob) {
+            this.reader = reader;
+            this.blob = blob;
+        }
+
+        /**
+         * Read the members of a class from the blob.
+         *
+         * @param classInfo
+         *            the class to read the members of
+         * @throws IOException
+         *             if an I/O exception occurs, or the blob is not in the correct format.
+         */
+        void readMembers(final ClassInfo classInfo) throws IOException {
+            try {
+                // Use a duplicate of the blob, so that blobs can be read concurrently
+                classInfo.readMembersFrom(new ScanResultReader(blob.duplicate(), reader));
+            } catch (final BufferUnderflowException e) {
+                throw new IOException("Serialized class members are truncated", e);
+            }
+        }
+    }
+
+    /**
+     * Skip over the serialized members of a class, recording their location so that they can be read on demand.
+     * When reading from an {@link InputStream}, the serialized members are copied into a new buffer.
+     *
+     * @return the {@link MemberBlob}
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    MemberBlob readMemberBlob() throws IOException {
+        final int length = readVarInt();
+        if (in != null) {
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new MemberBlob(this, ByteBuffer.wrap(bytes));
+        }
+        if (length > buf.remaining()) {
+            throw new IOException("Serialized ScanResult is truncated");
+        }
+        final ByteBuffer blob = buf.duplicate();
+        ((Buffer) blob).limit(buf.position() + length);
+        ((Buffer) buf).position(buf.position() + length);
+        return new MemberBlob(this, blob);
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.classgraph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import nonapi.io.github.classgraph.json.JSONSerializer;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * Writes a {@link ScanResult} in the compact binary format read by {@link ScanResultReader}.
+ *
+ * <p>
+ * Integers are written as varints. Each distinct string is written in full the first time it is encountered,
+ * and as a varint index into a shared string table after that. The names of all {@link ClassInfo},
+ * {@link PackageInfo} and {@link ModuleInfo} objects are written before the contents of the objects, so that
+ * references between them (e.g. {@link ClassInfo.RelType} edges) can be written as varint indices.
+ */
+class ScanResultWriter {
+    /** The output stream. */
+    private final DataOutputStream out;
+
+    /** Map from string to its index in the string table. */
+    private final Map<String, Integer> stringToIndex = new HashMap<>();
+
+    /** Map from {@link ClassInfo} to its index in the class table. */
+    private final Map<ClassInfo, Integer> classInfoToIndex;
+
+    /** Map from {@link PackageInfo} to its index in the package table. */
+    private final Map<PackageInfo, Integer> packageInfoToIndex;
+
+    /** Map from {@link ModuleInfo} to its index in the module table. */
+    private final Map<ModuleInfo, Integer> moduleInfoToIndex;
+
+    /** The buffer used for writing class member blobs. */
+    private ByteArrayOutputStream memberBlobBuf;
+
+    /** The magic number at the start of the binary format. */
+    static final int MAGIC = 0x43475352;
+
+    /** The current binary format version. */
+    static final int CURRENT_FORMAT_VERSION = 2;
+
+    /**
+     * Constructor.
+     *
+     * @param outputStream
+     *            the output stream
+     */
+    ScanResultWriter(final OutputStream outputStream) {
+        this.out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        this.classInfoToIndex = new IdentityHashMap<>();
+        this.packageInfoToIndex = new IdentityHashMap<>();
+        this.moduleInfoToIndex = new IdentityHashMap<>();
+    }
+
+    /**
+     * Constructor for a writer of a class member blob, which has its own string table (so that the blob can be
+     * read independently of the rest of the serialized {@link ScanResult}), but shares the object tables of the
+     * parent writer.
+     *
+     * @param outputStream
+     *            the output stream
+     * @param parent
+     *            the parent writer
+     */
+    private ScanResultWriter(final OutputStream outputStream, final ScanResultWriter parent) {
+        this.out = new DataOutputStream(outputStream);
+        this.classInfoToIndex = parent.classInfoToIndex;
+        this.packageInfoToIndex = parent.packageInfoToIndex;
+        this.moduleInfoToIndex = parent.moduleInfoToIndex;
+    }
+
+    /**
+     * Write a {@link ScanResult}, then flush the output stream.
+     *
+     * @param scanSpec
+     *            the scan spec
+     * @param classpath
+     *            the classpath, as a list of URL strings
+     * @param classInfos
+     *            the {@link ClassInfo} objects (array classes are skipped, since they are created on demand)
+     * @param packageInfos
+     *            the {@link PackageInfo} objects
+     * @param moduleInfos
+     *            the {@link ModuleInfo} objects
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void write(final ScanSpec scanSpec, final List<String> classpath, final Collection<ClassInfo> classInfos,
+            final Collection<PackageInfo> packageInfos, final Collection<ModuleInfo> moduleInfos)
+            throws IOException {
+        out.writeInt(MAGIC);
+        writeVarInt(CURRENT_FORMAT_VERSION);
+        writeString(JSONSerializer.serializeObject(scanSpec));
+        writeStrings(classpath);
+
+        // Write the names in each object table, so that references can be written as indices
+        for (final ClassInfo classInfo : classInfos) {
+            if (!(classInfo instanceof ArrayClassInfo)) {
+                classInfoToIndex.put(classInfo, classInfoToIndex.size());
+            }
+        }
+        writeVarInt(classInfoToIndex.size());
+        for (final ClassInfo classInfo : classInfos) {
+            if (!(classInfo instanceof ArrayClassInfo)) {
+                writeString(classInfo.getName());
+            }
+        }
+        writeVarInt(packageInfos.size());
+        for (final PackageInfo packageInfo : packageInfos) {
+            packageInfoToIndex.put(packageInfo, packageInfoToIndex.size());
+            writeString(packageInfo.getName());
+        }
+        writeVarInt(moduleInfos.size());
+        for (final ModuleInfo moduleInfo : moduleInfos) {
+            moduleInfoToIndex.put(moduleInfo, moduleInfoToIndex.size());
+            writeString(moduleInfo.getName());
+        }
+
+        // Write the contents of each object
+        for (final ClassInfo classInfo : classInfos) {
+            if (!(classInfo instanceof ArrayClassInfo)) {
+                classInfo.writeTo(this);
+            }
+        }
+        for (final PackageInfo packageInfo : packageInfos) {
+            packageInfo.writeTo(this);
+        }
+        for (final ModuleInfo moduleInfo : moduleInfos) {
+            moduleInfo.writeTo(this);
+        }
+        out.flush();
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write an unsigned varint.
+     *
+     * @param val
+     *            the value (treated as unsigned)
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeVarInt(final int val) throws IOException {
+        int v = val;
+        while ((v & ~0x7f) != 0) {
+            out.writeByte((v & 0x7f) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Write a signed varint, using zigzag encoding.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeSignedVarInt(final int val) throws IOException {
+        writeVarInt((val << 1) ^ (val >> 31));
+    }
+
+    /**
+     * Write a signed varlong, using zigzag encoding.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeSignedVarLong(final long val) throws IOException {
+        long v = (val << 1) ^ (val >> 63);
+        while ((v & ~0x7fL) != 0) {
+            out.writeByte((int) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    /**
+     * Write a boolean.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeBoolean(final boolean val) throws IOException {
+        out.writeBoolean(val);
+    }
+
+    /**
+     * Write a byte.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeByte(final int val) throws IOException {
+        out.writeByte(val);
+    }
+
+    /**
+     * Write a float.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeFloat(final float val) throws IOException {
+        out.writeFloat(val);
+    }
+
+    /**
+     * Write a double.
+     *
+     * @param val
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeDouble(final double val) throws IOException {
+        out.writeDouble(val);
+    }
+
+    /**
+     * Write a possibly-null string. The first occurrence of each string is written in full and added to the
+     * string table; later occurrences are written as an index into the string table.
+     *
+     * @param str
+     *            the string
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeString(final String str) throws IOException {
+        if (str == null) {
+            writeVarInt(0);
+            return;
+        }
+        final Integer idx = stringToIndex.get(str);
+        if (idx != null) {
+            writeVarInt((idx + 1) << 1);
+        } else {
+            stringToIndex.put(str, stringToIndex.size());
+            final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(1);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Write the size of a possibly-null collection or array.
+     *
+     * @param size
+     *            the size, or -1 for null
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeSize(final int size) throws IOException {
+        writeVarInt(size + 1);
+    }
+
+    /**
+     * Write a possibly-null collection of strings.
+     *
+     * @param strs
+     *            the strings
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeStrings(final Collection<String> strs) throws IOException {
+        writeSize(strs == null ? -1 : strs.size());
+        if (strs != null) {
+            for (final String str : strs) {
+                writeString(str);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null array of strings.
+     *
+     * @param strs
+     *            the strings
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeStringArray(final String[] strs) throws IOException {
+        writeSize(strs == null ? -1 : strs.length);
+        if (strs != null) {
+            for (final String str : strs) {
+                writeString(str);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null array of ints.
+     *
+     * @param vals
+     *            the values
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeIntArray(final int[] vals) throws IOException {
+        writeSize(vals == null ? -1 : vals.length);
+        if (vals != null) {
+            for (final int val : vals) {
+                writeSignedVarInt(val);
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a possibly-null reference to a {@link ClassInfo} object, as an index into the class table. References
+     * to classes that are not in the class table (i.e. array classes) are written as null.
+     *
+     * @param classInfo
+     *            the class info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeClassInfoRef(final ClassInfo classInfo) throws IOException {
+        final Integer idx = classInfo == null ? null : classInfoToIndex.get(classInfo);
+        writeVarInt(idx == null ? 0 : idx + 1);
+    }
+
+    /**
+     * Write a possibly-null collection of references to {@link ClassInfo} objects. References to classes that are
+     * not in the class table are skipped.
+     *
+     * @param classInfos
+     *            the class infos
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeClassInfoRefs(final Collection<ClassInfo> classInfos) throws IOException {
+        if (classInfos == null) {
+            writeSize(-1);
+            return;
+        }
+        int numRefs = 0;
+        for (final ClassInfo classInfo : classInfos) {
+            if (classInfoToIndex.containsKey(classInfo)) {
+                numRefs++;
+            }
+        }
+        writeSize(numRefs);
+        for (final ClassInfo classInfo : classInfos) {
+            final Integer idx = classInfoToIndex.get(classInfo);
+            if (idx != null) {
+                writeVarInt(idx);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null reference to a {@link PackageInfo} object, as an index into the package table.
+     *
+     * @param packageInfo
+     *            the package info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writePackageInfoRef(final PackageInfo packageInfo) throws IOException {
+        final Integer idx = packageInfo == null ? null : packageInfoToIndex.get(packageInfo);
+        writeVarInt(idx == null ? 0 : idx + 1);
+    }
+
+    /**
+     * Write a possibly-null collection of references to {@link PackageInfo} objects.
+     *
+     * @param packageInfos
+     *            the package infos
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writePackageInfoRefs(final Collection<PackageInfo> packageInfos) throws IOException {
+        writeSize(packageInfos == null ? -1 : packageInfos.size());
+        if (packageInfos != null) {
+            for (final PackageInfo packageInfo : packageInfos) {
+                writePackageInfoRef(packageInfo);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null reference to a {@link ModuleInfo} object, as an index into the module table.
+     *
+     * @param moduleInfo
+     *            the module info
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeModuleInfoRef(final ModuleInfo moduleInfo) throws IOException {
+        final Integer idx = moduleInfo == null ? null : moduleInfoToIndex.get(moduleInfo);
+        writeVarInt(idx == null ? 0 : idx + 1);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write a possibly-null collection of {@link AnnotationInfo} objects.
+     *
+     * @param annotationInfos
+     *            the annotation infos
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeAnnotationInfos(final Collection<AnnotationInfo> annotationInfos) throws IOException {
+        writeSize(annotationInfos == null ? -1 : annotationInfos.size());
+        if (annotationInfos != null) {
+            for (final AnnotationInfo annotationInfo : annotationInfos) {
+                annotationInfo.writeTo(this);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null array of {@link AnnotationInfo} objects.
+     *
+     * @param annotationInfos
+     *            the annotation infos
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeAnnotationInfoArray(final AnnotationInfo[] annotationInfos) throws IOException {
+        writeSize(annotationInfos == null ? -1 : annotationInfos.length);
+        if (annotationInfos != null) {
+            for (final AnnotationInfo annotationInfo : annotationInfos) {
+                annotationInfo.writeTo(this);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null collection of {@link AnnotationParameterValue} objects.
+     *
+     * @param annotationParamValues
+     *            the annotation parameter values
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeAnnotationParameterValues(final Collection<AnnotationParameterValue> annotationParamValues)
+            throws IOException {
+        writeSize(annotationParamValues == null ? -1 : annotationParamValues.size());
+        if (annotationParamValues != null) {
+            for (final AnnotationParameterValue annotationParamValue : annotationParamValues) {
+                annotationParamValue.writeTo(this);
+            }
+        }
+    }
+
+    /**
+     * Write a possibly-null {@link ObjectTypedValueWrapper}.
+     *
+     * @param value
+     *            the value
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeObjectTypedValue(final ObjectTypedValueWrapper value) throws IOException {
+        writeBoolean(value != null);
+        if (value != null) {
+            value.writeTo(this);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write the fields, methods and annotation parameter defaults of a class as a length-prefixed blob, so that
+     * they can be skipped over by {@link ScanResultReader}, and read on demand.
+     *
+     * @param classInfo
+     *            the class
+     * @throws IOException
+     *             if an I/O exception occurs.
+     */
+    void writeMemberBlob(final ClassInfo classInfo) throws IOException {
+        if (memberBlobBuf == null) {
+            memberBlobBuf = new ByteArrayOutputStream();
+        } else {
+            memberBlobBuf.reset();
+        }
+        final ScanResultWriter blobWriter = new ScanResultWriter(memberBlobBuf, this);
+        classInfo.writeMembersTo(blobWriter);
+        blobWriter.out.flush();
+        writeVarInt(memberBlobBuf.size());
+        memberBlobBuf.writeTo(out);
+    }
+}
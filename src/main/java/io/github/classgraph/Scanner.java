@@ -47,8 +47,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -58,10 +60,13 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 
+import io.github.classgraph.ClassGraph.ClassfileVisitor;
 import io.github.classgraph.ClassGraph.FailureHandler;
 import io.github.classgraph.ClassGraph.ScanResultProcessor;
+import io.github.classgraph.Classfile.CachedClassfile;
 import io.github.classgraph.Classfile.ClassfileFormatException;
 import io.github.classgraph.Classfile.SkipClassException;
+import io.github.classgraph.ConcurrentLinker.Shard;
 import nonapi.io.github.classgraph.classpath.ClasspathFinder;
 import nonapi.io.github.classgraph.classpath.ClasspathOrder.ClasspathEntry;
 import nonapi.io.github.classgraph.classpath.ModuleFinder;
@@ -71,6 +76,7 @@ import nonapi.io.github.classgraph.concurrency.SingletonMap;
 import nonapi.io.github.classgraph.concurrency.SingletonMap.NewInstanceFactory;
 import nonapi.io.github.classgraph.concurrency.WorkQueue;
 import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
+import nonapi.io.github.classgraph.fastzipfilereader.FastZipEntry;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.reflection.ReflectionUtils;
 import nonapi.io.github.classgraph.scanspec.ScanSpec;
@@ -101,6 +107,12 @@ class Scanner implements Callable<ScanResult> {
     /** The number of parallel tasks. */
     private final int numParallelTasks;
 
+    /**
+     * The number of parallel tasks for the I/O-bound scanning phases (opening classpath elements and scanning their
+     * paths). This is higher than {@link #numParallelTasks} if the worker threads are virtual threads.
+     */
+    private final int numIOParallelTasks;
+
     /** The scan result processor. */
     private final ScanResultProcessor scanResultProcessor;
 
@@ -116,6 +128,12 @@ class Scanner implements Callable<ScanResult> {
     /** The module order. */
     private final List<ClasspathElementModule> moduleOrder;
 
+    /** The parsed classfiles of the previous scan, if this is a rescan, otherwise null. */
+    private final ClassfileSnapshot previousClassfileSnapshot;
+
+    /** The classfile visitor, if this is a streaming scan, otherwise null. */
+    private final ClassfileVisitor classfileVisitor;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -135,15 +153,22 @@ class Scanner implements Callable<ScanResult> {
      *            the failure handler
      * @param topLevelLog
      *            the log
+     * @param previousClassfileSnapshot
+     *            the parsed classfiles of the previous scan, if this is a rescan, otherwise null
+     * @param classfileVisitor
+     *            the classfile visitor, if this is a streaming scan, otherwise null
      *
      * @throws InterruptedException
      *             if interrupted
      */
     Scanner(final boolean performScan, final ScanSpec scanSpec, final ExecutorService executorService,
             final int numParallelTasks, final ScanResultProcessor scanResultProcessor,
-            final FailureHandler failureHandler, final ReflectionUtils reflectionUtils, final LogNode topLevelLog)
+            final FailureHandler failureHandler, final ReflectionUtils reflectionUtils, final LogNode topLevelLog,
+            final ClassfileSnapshot previousClassfileSnapshot, final ClassfileVisitor classfileVisitor)
             throws InterruptedException {
         this.scanSpec = scanSpec;
+        this.previousClassfileSnapshot = previousClassfileSnapshot;
+        this.classfileVisitor = classfileVisitor;
         this.performScan = performScan;
         scanSpec.sortPrefixes();
         scanSpec.log(topLevelLog);
@@ -161,7 +186,20 @@ class Scanner implements Callable<ScanResult> {
                 ? ((AutoCloseableExecutorService) executorService).interruptionChecker
                 : new InterruptionChecker();
         this.nestedJarHandler = new NestedJarHandler(scanSpec, interruptionChecker, reflectionUtils);
+        this.nestedJarHandler.setExecutorService(executorService, numParallelTasks);
         this.numParallelTasks = numParallelTasks;
+        if (executorService instanceof AutoCloseableExecutorService
+                && ((AutoCloseableExecutorService) executorService).usesVirtualThreads()) {
+            // Virtual threads are cheap to block, so I/O-bound phases can use all threads in the executor
+            this.numIOParallelTasks = Math.max(numParallelTasks,
+                    ((AutoCloseableExecutorService) executorService).getMaximumPoolSize());
+            this.nestedJarHandler.setNumIOParallelTasks(numIOParallelTasks);
+            if (topLevelLog != null) {
+                topLevelLog.log("Using virtual threads, with " + numIOParallelTasks + " I/O tasks");
+            }
+        } else {
+            this.numIOParallelTasks = numParallelTasks;
+        }
         this.scanResultProcessor = scanResultProcessor;
         this.failureHandler = failureHandler;
         this.topLevelLog = topLevelLog;
@@ -315,8 +353,30 @@ class Scanner implements Callable<ScanResult> {
      */
     private <W> void processWorkUnits(final Collection<W> workUnits, final LogNode log,
             final WorkUnitProcessor<W> workUnitProcessor) throws InterruptedException, ExecutionException {
-        WorkQueue.runWorkQueue(workUnits, executorService, interruptionChecker, numParallelTasks, log,
-                workUnitProcessor);
+        processWorkUnits(workUnits, numParallelTasks, log, workUnitProcessor);
+    }
+
+    /**
+     * Process work units, with the given number of parallel tasks.
+     *
+     * @param <W>
+     *            the work unit type
+     * @param workUnits
+     *            the work units
+     * @param numTasks
+     *            the number of parallel tasks
+     * @param log
+     *            the log entry text to group work units under
+     * @param workUnitProcessor
+     *            the work unit processor
+     * @throws InterruptedException
+     *             if a worker was interrupted.
+     * @throws ExecutionException
+     *             If a worker threw an uncaught exception.
+     */
+    private <W> void processWorkUnits(final Collection<W> workUnits, final int numTasks, final LogNode log,
+            final WorkUnitProcessor<W> workUnitProcessor) throws InterruptedException, ExecutionException {
+        WorkQueue.runWorkQueue(workUnits, executorService, interruptionChecker, numTasks, log, workUnitProcessor);
         if (log != null) {
             log.addElapsedTime();
         }
@@ -653,6 +713,45 @@ class Scanner implements Callable<ScanResult> {
         }
     }
 
+    /**
+     * Order classfile scan work units so that work units for classfiles in the same physical jarfile are contiguous
+     * and are sorted by the offset of the classfile within the jarfile. Since the work queue splits the initial
+     * work units into contiguous batches, one per worker, each worker then reads a contiguous range of each
+     * jarfile. Jarfiles are ordered by the position of their first work unit, and work units for classfiles that
+     * are not in a jarfile keep their relative order, grouped at the position of the first of them.
+     *
+     * @param classfileScanWorkItems
+     *            the classfile scan work units
+     */
+    private static void orderByJarfileOffset(final List<ClassfileScanWorkUnit> classfileScanWorkItems) {
+        final Map<Object, List<ClassfileScanWorkUnit>> physicalZipFileToWorkUnits = new LinkedHashMap<>();
+        final Object notInJarfile = new Object();
+        for (final ClassfileScanWorkUnit workUnit : classfileScanWorkItems) {
+            final FastZipEntry zipEntry = workUnit.classfileResource.getZipEntry();
+            final Object key = zipEntry == null ? notInJarfile : zipEntry.getPhysicalZipFileKey();
+            List<ClassfileScanWorkUnit> workUnits = physicalZipFileToWorkUnits.get(key);
+            if (workUnits == null) {
+                physicalZipFileToWorkUnits.put(key, workUnits = new ArrayList<>());
+            }
+            workUnits.add(workUnit);
+        }
+        classfileScanWorkItems.clear();
+        for (final Entry<Object, List<ClassfileScanWorkUnit>> ent : physicalZipFileToWorkUnits.entrySet()) {
+            final List<ClassfileScanWorkUnit> workUnits = ent.getValue();
+            if (ent.getKey() != notInJarfile) {
+                CollectionUtils.sortIfNotEmpty(workUnits, new Comparator<ClassfileScanWorkUnit>() {
+                    @Override
+                    public int compare(final ClassfileScanWorkUnit o1, final ClassfileScanWorkUnit o2) {
+                        final long pos1 = o1.classfileResource.getZipEntry().getPhysicalLocHeaderPos();
+                        final long pos2 = o2.classfileResource.getZipEntry().getPhysicalLocHeaderPos();
+                        return pos1 < pos2 ? -1 : pos1 > pos2 ? 1 : 0;
+                    }
+                });
+            }
+            classfileScanWorkItems.addAll(workUnits);
+        }
+    }
+
     /** WorkUnitProcessor for scanning classfiles. */
     private static class ClassfileScannerWorkUnitProcessor implements WorkUnitProcessor<ClassfileScanWorkUnit> {
         /** The scan spec. */
@@ -676,9 +775,19 @@ class Scanner implements Callable<ScanResult> {
         /** The valid {@link Classfile} objects created by scanning classfiles. */
         private final Queue<Classfile> scannedClassfiles;
 
+        /**
+         * The classfile visitor, if this is a streaming scan (in which case classfiles are passed to the visitor
+         * rather than being added to {@link #scannedClassfiles}), otherwise null.
+         */
+        private final ClassfileVisitor classfileVisitor;
+
         /** The string intern map. */
         private final ConcurrentHashMap<String, String> stringInternMap = new ConcurrentHashMap<>();
 
+        /** The classpath elements containing classfiles that could not be read, which should not be cached. */
+        private final Set<ClasspathElement> classpathEltsWithReadErrors = Collections
+                .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
+
         /**
          * Constructor.
          *
@@ -691,14 +800,40 @@ class Scanner implements Callable<ScanResult> {
          *            elements.
          * @param scannedClassfiles
          *            the {@link Classfile} objects created by scanning classfiles
+         * @param classfileVisitor
+         *            the classfile visitor, if this is a streaming scan, otherwise null
          */
         public ClassfileScannerWorkUnitProcessor(final ScanSpec scanSpec,
                 final List<ClasspathElement> classpathOrder, final Set<String> acceptedClassNamesFound,
-                final Queue<Classfile> scannedClassfiles) {
+                final Queue<Classfile> scannedClassfiles, final ClassfileVisitor classfileVisitor) {
             this.scanSpec = scanSpec;
             this.classpathOrder = classpathOrder;
             this.acceptedClassNamesFound = acceptedClassNamesFound;
             this.scannedClassfiles = scannedClassfiles;
+            this.classfileVisitor = classfileVisitor;
+        }
+
+        /**
+         * Enqueue a classfile for linking, or if this is a streaming scan, pass it to the classfile visitor, so
+         * that it can be garbage collected as soon as it has been visited.
+         *
+         * @param classfile
+         *            the classfile
+         */
+        private void acceptClassfile(final Classfile classfile) {
+            if (classfileVisitor == null) {
+                scannedClassfiles.add(classfile);
+            } else {
+                // Only visit classes that would be returned by ScanResult#getAllClasses() (external superclasses,
+                // interfaces and annotations are scanned by extended scanning, but are only visited if external
+                // classes are enabled)
+                final String className = classfile.getClassName();
+                if ((!classfile.isExternalClass() || scanSpec.enableExternalClasses)
+                        && !className.equals("module-info") && !className.equals("package-info")
+                        && !className.endsWith(".package-info")) {
+                    classfileVisitor.visitClassfile(new ParsedClassfile(classfile));
+                }
+            }
         }
 
         /**
@@ -728,15 +863,13 @@ class Scanner implements Callable<ScanResult> {
                     : workUnit.classfileResource.scanLog.log(workUnit.classfileResource.getPath(),
                             "Parsing classfile");
 
+            Classfile classfile = null;
             try {
                 // Parse classfile binary format, creating a Classfile object
-                final Classfile classfile = new Classfile(workUnit.classpathElement, classpathOrder,
-                        acceptedClassNamesFound, classNamesScheduledForExtendedScanning,
-                        workUnit.classfileResource.getPath(), workUnit.classfileResource, workUnit.isExternalClass,
-                        stringInternMap, workQueue, scanSpec, subLog);
-
-                // Enqueue the classfile for linking
-                scannedClassfiles.add(classfile);
+                classfile = new Classfile(workUnit.classpathElement, classpathOrder, acceptedClassNamesFound,
+                        classNamesScheduledForExtendedScanning, workUnit.classfileResource.getPath(),
+                        workUnit.classfileResource, workUnit.isExternalClass, stringInternMap, workQueue, scanSpec,
+                        subLog);
 
                 if (subLog != null) {
                     subLog.addElapsedTime();
@@ -752,16 +885,45 @@ class Scanner implements Callable<ScanResult> {
                     subLog.addElapsedTime();
                 }
             } catch (final IOException e) {
+                classpathEltsWithReadErrors.add(workUnit.classpathElement);
                 if (subLog != null) {
                     subLog.log(workUnit.classfileResource.getPath(), "Could not read classfile: " + e);
                     subLog.addElapsedTime();
                 }
             } catch (final Exception e) {
+                classpathEltsWithReadErrors.add(workUnit.classpathElement);
                 if (subLog != null) {
                     subLog.log(workUnit.classfileResource.getPath(), "Could not read classfile", e);
                     subLog.addElapsedTime();
                 }
             }
+            if (classfile != null) {
+                // Enqueue the classfile for linking, or visit it. (This is done outside the try block, so that an
+                // exception thrown by a classfile visitor is not mistaken for a classfile read error.)
+                acceptClassfile(classfile);
+            }
+        }
+
+        /**
+         * Restore an accepted classfile from the scan cache, rather than parsing it.
+         *
+         * @param classpathElement
+         *            the classpath element
+         * @param classfileResource
+         *            the classfile resource
+         * @param cachedClassfile
+         *            the cached contents of the classfile
+         * @param additionalWorkUnitsOut
+         *            on exit, any work units added for external classes that need to be scanned
+         */
+        void restoreClassfile(final ClasspathElement classpathElement, final Resource classfileResource,
+                final CachedClassfile cachedClassfile, final List<ClassfileScanWorkUnit> additionalWorkUnitsOut) {
+            final LogNode subLog = classfileResource.scanLog == null ? null
+                    : classfileResource.scanLog.log(classfileResource.getPath(),
+                            "Restoring classfile from scan cache");
+            acceptClassfile(new Classfile(cachedClassfile, classpathElement, classpathOrder,
+                    acceptedClassNamesFound, classNamesScheduledForExtendedScanning, classfileResource,
+                    stringInternMap, additionalWorkUnitsOut, scanSpec, subLog));
         }
     }
 
@@ -887,6 +1049,66 @@ class Scanner implements Callable<ScanResult> {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Find jarfiles that have the same content as an earlier jarfile in the classpath order, and mark them as
+     * duplicates of the earlier jarfile, so that their paths are not scanned.
+     *
+     * @param classpathElts
+     *            the classpath elements, in classpath order
+     * @param log
+     *            the log
+     * @return the duplicate jarfiles
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     * @throws ExecutionException
+     *             if a worker threw an uncaught exception
+     */
+    private List<ClasspathElementZip> findDuplicateJarfiles(final List<ClasspathElement> classpathElts,
+            final LogNode log) throws InterruptedException, ExecutionException {
+        final List<ClasspathElementZip> zipClasspathElts = new ArrayList<>();
+        for (final ClasspathElement classpathElt : classpathElts) {
+            if (classpathElt instanceof ClasspathElementZip) {
+                zipClasspathElts.add((ClasspathElementZip) classpathElt);
+            }
+        }
+
+        // In parallel, fingerprint the content of each jarfile
+        final Map<ClasspathElementZip, String> fingerprints = new ConcurrentHashMap<>();
+        processWorkUnits(zipClasspathElts, numParallelTasks, /* log = */ null,
+                new WorkUnitProcessor<ClasspathElementZip>() {
+                    @Override
+                    public void processWorkUnit(final ClasspathElementZip classpathElt,
+                            final WorkQueue<ClasspathElementZip> workQueueIgnored, final LogNode logIgnored) {
+                        final String fingerprint = classpathElt.getContentFingerprint();
+                        if (fingerprint != null) {
+                            fingerprints.put(classpathElt, fingerprint);
+                        }
+                    }
+                });
+
+        // Mark all but the first jarfile with each fingerprint as duplicates
+        final Map<String, ClasspathElementZip> fingerprintToClasspathElt = new HashMap<>();
+        final List<ClasspathElementZip> duplicateClasspathElts = new ArrayList<>();
+        for (final ClasspathElementZip classpathElt : zipClasspathElts) {
+            final String fingerprint = fingerprints.get(classpathElt);
+            if (fingerprint != null) {
+                final ClasspathElementZip firstClasspathElt = fingerprintToClasspathElt.get(fingerprint);
+                if (firstClasspathElt == null) {
+                    fingerprintToClasspathElt.put(fingerprint, classpathElt);
+                } else {
+                    classpathElt.duplicateOf = firstClasspathElt;
+                    duplicateClasspathElts.add(classpathElt);
+                    if (log != null) {
+                        log.log(classpathElt + " has the same content as " + firstClasspathElt);
+                    }
+                }
+            }
+        }
+        return duplicateClasspathElts;
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
     /**
      * Perform classpath masking of classfiles. If the same relative classfile path occurs multiple times in the
      * classpath, causes the second and subsequent occurrences to be ignored (removed).
@@ -909,6 +1131,110 @@ class Scanner implements Callable<ScanResult> {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Link the {@link Classfile} objects to produce {@link ClassInfo} objects, using the worker threads. The
+     * classfiles are sharded by class name, and each phase of {@link ConcurrentLinker} is run across all shards
+     * before the next phase is started.
+     *
+     * @param scannedClassfiles
+     *            the {@link Classfile} objects to link
+     * @param classNameToClassInfo
+     *            map from class name to class info (must be a {@link ConcurrentHashMap})
+     * @param packageNameToPackageInfo
+     *            map from package name to package info
+     * @param moduleNameToModuleInfo
+     *            map from module name to module info
+     * @throws InterruptedException
+     *             if a worker was interrupted.
+     * @throws ExecutionException
+     *             If a worker threw an uncaught exception.
+     */
+    private void linkClassfilesConcurrently(final Collection<Classfile> scannedClassfiles,
+            final Map<String, ClassInfo> classNameToClassInfo,
+            final Map<String, PackageInfo> packageNameToPackageInfo,
+            final Map<String, ModuleInfo> moduleNameToModuleInfo) throws InterruptedException, ExecutionException {
+        // Use several shards per worker, so that uneven shard sizes are balanced across workers
+        final ConcurrentLinker concurrentLinker = new ConcurrentLinker(scannedClassfiles, numParallelTasks * 4);
+
+        // Create a ClassInfo object for each scanned class
+        processWorkUnits(concurrentLinker.shards, /* log = */ null, new WorkUnitProcessor<Shard>() {
+            @Override
+            public void processWorkUnit(final Shard shard,
+                    final WorkQueue<Shard> workQueueIgnored, final LogNode logIgnored) {
+                concurrentLinker.addScannedClasses(shard, classNameToClassInfo);
+            }
+        });
+
+        // Link each scanned class to the classes it refers to, deferring links that point back to the class
+        processWorkUnits(concurrentLinker.shards, /* log = */ null, new WorkUnitProcessor<Shard>() {
+            @Override
+            public void processWorkUnit(final Shard shard,
+                    final WorkQueue<Shard> workQueueIgnored, final LogNode logIgnored) {
+                concurrentLinker.linkClassInfo(shard, classNameToClassInfo);
+            }
+        });
+
+        // Merge the deferred links into the ClassInfo objects owned by each shard
+        processWorkUnits(concurrentLinker.shards, /* log = */ null, new WorkUnitProcessor<Shard>() {
+            @Override
+            public void processWorkUnit(final Shard shard,
+                    final WorkQueue<Shard> workQueueIgnored, final LogNode logIgnored) {
+                ConcurrentLinker.applyDeferredLinks(shard);
+            }
+        });
+
+        // Package and module linking is cheap, and is performed from a single thread
+        concurrentLinker.linkPackagesAndModules(packageNameToPackageInfo, moduleNameToModuleInfo);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Write the accepted classfiles parsed from each of the given classpath elements to the scan cache.
+     *
+     * @param scanCache
+     *            the scan cache
+     * @param classpathElts
+     *            the classpath elements to write to the cache
+     * @param scannedClassfiles
+     *            the classfiles that were parsed
+     * @param classpathEltsWithReadErrors
+     *            classpath elements containing classfiles that could not be read, which should not be cached
+     * @param log
+     *            the log
+     * @throws InterruptedException
+     *             if the scan was interrupted
+     * @throws ExecutionException
+     *             if a worker threw an uncaught exception
+     */
+    private void saveToScanCache(final ScanCache scanCache, final List<ClasspathElement> classpathElts,
+            final Queue<Classfile> scannedClassfiles, final Set<ClasspathElement> classpathEltsWithReadErrors,
+            final LogNode log) throws InterruptedException, ExecutionException {
+        final Map<ClasspathElement, List<Classfile>> classpathEltToClassfiles = new HashMap<>();
+        for (final ClasspathElement classpathElement : classpathElts) {
+            if (!classpathEltsWithReadErrors.contains(classpathElement)) {
+                classpathEltToClassfiles.put(classpathElement, new ArrayList<Classfile>());
+            }
+        }
+        for (final Classfile classfile : scannedClassfiles) {
+            if (!classfile.isExternalClass()) {
+                final List<Classfile> classfiles = classpathEltToClassfiles.get(classfile.getClasspathElement());
+                if (classfiles != null) {
+                    classfiles.add(classfile);
+                }
+            }
+        }
+        processWorkUnits(classpathEltToClassfiles.entrySet(), log,
+                new WorkUnitProcessor<Entry<ClasspathElement, List<Classfile>>>() {
+                    @Override
+                    public void processWorkUnit(final Entry<ClasspathElement, List<Classfile>> ent,
+                            final WorkQueue<Entry<ClasspathElement, List<Classfile>>> workQueue,
+                            final LogNode log) throws InterruptedException {
+                        scanCache.save(ent.getKey(), ent.getValue(), log);
+                    }
+                });
+    }
+
     /**
      * Scan the classpath and/or visible modules.
      *
@@ -946,11 +1272,36 @@ class Scanner implements Callable<ScanResult> {
         final Map<String, ClassInfo> classNameToClassInfo = new ConcurrentHashMap<>();
         final Map<String, PackageInfo> packageNameToPackageInfo = new HashMap<>();
         final Map<String, ModuleInfo> moduleNameToModuleInfo = new HashMap<>();
+        ClassfileSnapshot classfileSnapshot = null;
         if (scanSpec.enableClassInfo) {
             // Get accepted classfile order
             final List<ClassfileScanWorkUnit> classfileScanWorkItems = new ArrayList<>();
             final Set<String> acceptedClassNamesFound = new HashSet<>();
+            final ScanCache scanCache = scanSpec.scanCacheDir == null ? null
+                    : new ScanCache(scanSpec.scanCacheDir, scanSpec);
+            final LogNode scanCacheLog = scanCache == null || topLevelLog == null ? null
+                    : topLevelLog.log("Checking scan cache");
+            final Map<ClasspathElement, Map<String, CachedClassfile>> cachedClasspathElts = new HashMap<>();
+            final List<ClasspathElement> uncachedClasspathElts = new ArrayList<>();
+            final LogNode snapshotLog = previousClassfileSnapshot == null || topLevelLog == null ? null
+                    : topLevelLog.log("Finding classfiles that have not changed since the previous scan");
             for (final ClasspathElement classpathElement : finalClasspathEltOrder) {
+                // Look up the unchanged classfiles of the classpath element in the previous scan, if this is a
+                // rescan, otherwise in the scan cache
+                Map<String, CachedClassfile> relativePathToCachedClassfile = null;
+                if (previousClassfileSnapshot != null) {
+                    relativePathToCachedClassfile = previousClassfileSnapshot.load(classpathElement, snapshotLog);
+                }
+                if (relativePathToCachedClassfile == null && scanCache != null
+                        && ScanCache.isCacheable(classpathElement)) {
+                    relativePathToCachedClassfile = scanCache.load(classpathElement, scanCacheLog);
+                    if (relativePathToCachedClassfile == null) {
+                        uncachedClasspathElts.add(classpathElement);
+                    }
+                }
+                if (relativePathToCachedClassfile != null) {
+                    cachedClasspathElts.put(classpathElement, relativePathToCachedClassfile);
+                }
                 // Get classfile scan order across all classpath elements
                 for (final Resource resource : classpathElement.acceptedClassfileResources) {
                     // Create a set of names of all accepted classes found in classpath element paths,
@@ -965,26 +1316,69 @@ class Scanner implements Callable<ScanResult> {
                                 + " masking -- please report this bug at:"
                                 + " https://github.com/classgraph/classgraph/issues");
                     }
-                    // Schedule class for scanning
-                    classfileScanWorkItems
-                            .add(new ClassfileScanWorkUnit(classpathElement, resource, /* isExternal = */ false));
+                    // Schedule class for scanning, unless it is unchanged since the previous scan, or it was
+                    // found in the scan cache
+                    if (relativePathToCachedClassfile == null
+                            || !relativePathToCachedClassfile.containsKey(resource.getPath())) {
+                        classfileScanWorkItems.add(
+                                new ClassfileScanWorkUnit(classpathElement, resource, /* isExternal = */ false));
+                    }
                 }
             }
 
-            // Scan classfiles in parallel
+            // Restore any cached classfiles (this has to be done after acceptedClassNamesFound is complete,
+            // so that external superclasses, interfaces and annotations can be scheduled for scanning)
             final Queue<Classfile> scannedClassfiles = new ConcurrentLinkedQueue<>();
             final ClassfileScannerWorkUnitProcessor classfileWorkUnitProcessor = //
                     new ClassfileScannerWorkUnitProcessor(scanSpec, finalClasspathEltOrder,
-                            Collections.unmodifiableSet(acceptedClassNamesFound), scannedClassfiles);
+                            Collections.unmodifiableSet(acceptedClassNamesFound), scannedClassfiles,
+                            classfileVisitor);
+            for (final Entry<ClasspathElement, Map<String, CachedClassfile>> ent : cachedClasspathElts
+                    .entrySet()) {
+                final ClasspathElement classpathElement = ent.getKey();
+                for (final Resource resource : classpathElement.acceptedClassfileResources) {
+                    // Classfiles that are mapped to null were skipped when they were previously parsed
+                    final CachedClassfile cachedClassfile = ent.getValue().get(resource.getPath());
+                    if (cachedClassfile != null) {
+                        classfileWorkUnitProcessor.restoreClassfile(classpathElement, resource, cachedClassfile,
+                                classfileScanWorkItems);
+                    }
+                }
+            }
+
+            // Order classfiles by their offset within each jarfile, if requested
+            if (scanSpec.enableSequentialJarReads) {
+                orderByJarfileOffset(classfileScanWorkItems);
+            }
+
+            // Scan classfiles in parallel
             processWorkUnits(classfileScanWorkItems,
                     topLevelLog == null ? null : topLevelLog.log("Scanning classfiles"),
                     classfileWorkUnitProcessor);
 
-            // Link the Classfile objects to produce ClassInfo objects. This needs to be done from a single thread.
+            // Write any uncached classpath elements to the scan cache (classfiles are not retained in a streaming
+            // scan, so cannot be cached)
+            if (scanCache != null && !uncachedClasspathElts.isEmpty() && classfileVisitor == null) {
+                saveToScanCache(scanCache, uncachedClasspathElts, scannedClassfiles,
+                        classfileWorkUnitProcessor.classpathEltsWithReadErrors, scanCacheLog);
+            }
+
+            // Keep the parsed classfiles for ScanResult#rescanChanged(), if incremental rescanning is enabled
+            if (scanSpec.enableIncrementalRescan && classfileVisitor == null) {
+                classfileSnapshot = new ClassfileSnapshot(finalClasspathEltOrder, scannedClassfiles);
+            }
+
+            // Link the Classfile objects to produce ClassInfo objects
             final LogNode linkLog = topLevelLog == null ? null : topLevelLog.log("Linking related classfiles");
-            while (!scannedClassfiles.isEmpty()) {
-                final Classfile c = scannedClassfiles.remove();
-                c.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo);
+            if (scanSpec.enableConcurrentLinking && numParallelTasks > 1) {
+                linkClassfilesConcurrently(scannedClassfiles, classNameToClassInfo, packageNameToPackageInfo,
+                        moduleNameToModuleInfo);
+            } else {
+                // Serial linking needs to be done from a single thread
+                while (!scannedClassfiles.isEmpty()) {
+                    final Classfile c = scannedClassfiles.remove();
+                    c.link(classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo);
+                }
             }
 
             // Uncomment the following code to create placeholder external classes for any classes
@@ -1022,6 +1416,9 @@ class Scanner implements Callable<ScanResult> {
         final ScanResult scanResult = new ScanResult(scanSpec, finalClasspathEltOrder, finalClasspathEltOrderStrs,
                 classpathFinder, classNameToClassInfo, packageNameToPackageInfo, moduleNameToModuleInfo,
                 fileToLastModified, nestedJarHandler, topLevelLog);
+        scanResult.classfileSnapshot = classfileSnapshot;
+        scanResult.executorService = executorService;
+        scanResult.numParallelTasks = numParallelTasks;
 
         // Set the ScanResult in each classpath element, so that the classpath elements can determine when the
         // ScanResult is closed
@@ -1065,7 +1462,7 @@ class Scanner implements Callable<ScanResult> {
                 .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
         final Set<ClasspathElement> toplevelClasspathElts = Collections
                 .newSetFromMap(new ConcurrentHashMap<ClasspathElement, Boolean>());
-        processWorkUnits(rawClasspathEntryWorkUnits,
+        processWorkUnits(rawClasspathEntryWorkUnits, numIOParallelTasks,
                 topLevelLog == null ? null : topLevelLog.log("Opening classpath elements"),
                 newClasspathEntryWorkUnitProcessor(allClasspathElts, toplevelClasspathElts));
 
@@ -1103,18 +1500,31 @@ class Scanner implements Callable<ScanResult> {
             }
         }
 
+        // Find jarfiles with the same content as an earlier jarfile, if requested
+        final List<ClasspathElementZip> duplicateClasspathElts = scanSpec.enableJarDeduplication
+                && scanSpec.classpathElementResourcePathAcceptReject.acceptAndRejectAreEmpty()
+                        ? findDuplicateJarfiles(finalClasspathEltOrder,
+                                topLevelLog == null ? null : topLevelLog.log("Finding identical jarfiles"))
+                        : Collections.<ClasspathElementZip> emptyList();
+
         // In parallel, scan paths within each classpath element, comparing them against accept/reject
-        processWorkUnits(finalClasspathEltOrder,
-                topLevelLog == null ? null : topLevelLog.log("Scanning classpath elements"),
+        final LogNode scanPathsLog = topLevelLog == null ? null : topLevelLog.log("Scanning classpath elements");
+        processWorkUnits(finalClasspathEltOrder, numIOParallelTasks, scanPathsLog,
                 new WorkUnitProcessor<ClasspathElement>() {
                     @Override
                     public void processWorkUnit(final ClasspathElement classpathElement,
                             final WorkQueue<ClasspathElement> workQueueIgnored, final LogNode pathScanLog)
                             throws InterruptedException {
-                        // Scan the paths within the classpath element
-                        classpathElement.scanPaths(pathScanLog);
+                        // Scan the paths within the classpath element, unless it is a duplicate of another
+                        if (!(classpathElement instanceof ClasspathElementZip)
+                                || ((ClasspathElementZip) classpathElement).duplicateOf == null) {
+                            classpathElement.scanPaths(pathScanLog);
+                        }
                     }
                 });
+        for (final ClasspathElementZip classpathElement : duplicateClasspathElts) {
+            classpathElement.scanPathsOfDuplicate(scanPathsLog);
+        }
 
         // Filter out classpath elements that do not contain required accepted paths.
         List<ClasspathElement> finalClasspathEltOrderFiltered = finalClasspathEltOrder;
@@ -32,6 +32,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -47,8 +48,47 @@ public class AutoCloseableExecutorService extends ThreadPoolExecutor implements
      *            The number of threads to allocate.
      */
     public AutoCloseableExecutorService(final int numThreads) {
+        this(numThreads, /* useVirtualThreads = */ false);
+    }
+
+    /**
+     * A ThreadPoolExecutor that can be used in a try-with-resources block, optionally using virtual threads.
+     * 
+     * @param numThreads
+     *            The number of threads to allocate.
+     * @param useVirtualThreads
+     *            If true, use virtual threads, if they are available in the running JDK (JDK 21+). Otherwise
+     *            platform threads are used.
+     */
+    public AutoCloseableExecutorService(final int numThreads, final boolean useVirtualThreads) {
         super(numThreads, numThreads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
-                new SimpleThreadFactory("ClassGraph-worker-", true));
+                newThreadFactory(useVirtualThreads));
+    }
+
+    /**
+     * Create the thread factory for worker threads.
+     *
+     * @param useVirtualThreads
+     *            If true, try to create virtual threads.
+     * @return the thread factory
+     */
+    private static ThreadFactory newThreadFactory(final boolean useVirtualThreads) {
+        if (useVirtualThreads) {
+            final ThreadFactory virtualThreadFactory = VirtualThreadFactory.newInstance("ClassGraph-vworker-");
+            if (virtualThreadFactory != null) {
+                return virtualThreadFactory;
+            }
+        }
+        return new SimpleThreadFactory("ClassGraph-worker-", true);
+    }
+
+    /**
+     * Check whether the worker threads of this executor are virtual threads.
+     *
+     * @return true if the worker threads are virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return getThreadFactory() instanceof VirtualThreadFactory;
     }
 
     /**
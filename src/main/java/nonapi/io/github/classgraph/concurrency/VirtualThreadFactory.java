@@ -0,0 +1,121 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.concurrency;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A thread factory that creates virtual threads on JDK 21+. Virtual threads are obtained via reflection, so that
+ * ClassGraph can still be built for, and run on, earlier JDKs.
+ */
+public final class VirtualThreadFactory implements ThreadFactory {
+    /** The {@code Thread.Builder.OfVirtual#factory()} instance that threads are obtained from. */
+    private final ThreadFactory virtualThreadFactory;
+
+    /** The {@code Thread#ofVirtual()} method, or null if virtual threads are not available. */
+    private static final Method OF_VIRTUAL;
+
+    /** The {@code Thread.Builder#name(String, long)} method, or null if virtual threads are not available. */
+    private static final Method BUILDER_NAME;
+
+    /** The {@code Thread.Builder#factory()} method, or null if virtual threads are not available. */
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            // Virtual threads are a preview feature in JDK 19 and 20, so check that they can actually be created
+            ofVirtual.invoke(null);
+        } catch (final Throwable t) {
+            ofVirtual = null;
+            builderName = null;
+            builderFactory = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param virtualThreadFactory
+     *            the virtual thread factory obtained from the JDK.
+     */
+    private VirtualThreadFactory(final ThreadFactory virtualThreadFactory) {
+        this.virtualThreadFactory = virtualThreadFactory;
+    }
+
+    /**
+     * Check whether virtual threads are available in the running JDK.
+     *
+     * @return true if virtual threads are available.
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Create a new virtual thread factory.
+     *
+     * @param threadNamePrefix
+     *            prefix for created threads.
+     * @return the virtual thread factory, or null if virtual threads are not available in the running JDK.
+     */
+    static VirtualThreadFactory newInstance(final String threadNamePrefix) {
+        if (OF_VIRTUAL == null) {
+            return null;
+        }
+        try {
+            final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), threadNamePrefix, 0L);
+            return new VirtualThreadFactory((ThreadFactory) BUILDER_FACTORY.invoke(builder));
+        } catch (final Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * New thread. Virtual threads are always daemon threads.
+     *
+     * @param runnable
+     *            the runnable
+     * @return the thread
+     */
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        return virtualThreadFactory.newThread(runnable);
+    }
+}
@@ -28,15 +28,17 @@
  */
 package nonapi.io.github.classgraph.concurrency;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import nonapi.io.github.classgraph.utils.LogNode;
@@ -44,6 +46,17 @@ import nonapi.io.github.classgraph.utils.LogNode;
 /**
  * A parallel work queue.
  *
+ * <p>
+ * Each worker has its own lock-free deque of work units. The initial work units are split into contiguous batches,
+ * one per deque, and work units added by a worker are added to the tail of its own deque. A worker takes work units
+ * from the head of its own deque, and when its deque is empty, steals a batch of work units from the tail of another
+ * worker's deque, so that workers only contend with each other when work needs to be rebalanced. Workers that
+ * cannot find any work block until work units are added, or until all work has been completed.
+ *
+ * <p>
+ * A work unit processor that can split its work unit into independent parts can also submit helper tasks, using
+ * {@link #getHelperExecutor()}, which are run by idle workers of the same work queue.
+ *
  * @param <T>
  *            The work unit type.
  */
@@ -51,11 +64,32 @@ public class WorkQueue<T> implements AutoCloseable {
     /** The work unit processor. */
     private final WorkUnitProcessor<T> workUnitProcessor;
 
-    /** The queue of work units. */
-    private final BlockingQueue<WorkUnitWrapper<T>> workUnits = new LinkedBlockingQueue<>();
+    /** The deque of work units for each worker. */
+    private final List<ConcurrentLinkedDeque<T>> workerDeques;
+
+    /** The deque of the worker running on the current thread, or null if the current thread is not a worker. */
+    private final ThreadLocal<ConcurrentLinkedDeque<T>> currentWorkerDeque = new ThreadLocal<>();
+
+    /** The work queue that the current thread is a worker of, or null if the current thread is not a worker. */
+    private static final ThreadLocal<WorkQueue<?>> CURRENT_WORK_QUEUE = new ThreadLocal<>();
+
+    /** Helper tasks submitted by work unit processors, to be run by idle workers. */
+    private final ConcurrentLinkedQueue<Runnable> helperTasks = new ConcurrentLinkedQueue<>();
+
+    /** The lock that idle workers wait on until work is added or all work has been completed. */
+    private final Object idleLock = new Object();
+
+    /** Incremented whenever work is added, or the state of the queue changes, to wake up idle workers. */
+    private final AtomicInteger workVersion = new AtomicInteger();
+
+    /** The number of workers that are waiting on {@link #idleLock}. */
+    private final AtomicInteger numIdleWorkers = new AtomicInteger();
 
-    /** The number of workers. */
-    private final int numWorkers;
+    /** The index of the deque to assign to the next worker that starts. */
+    private final AtomicInteger nextWorkerDequeIdx = new AtomicInteger();
+
+    /** The index of the deque to add the next work unit to, when work units are added by a non-worker thread. */
+    private final AtomicInteger nextAddDequeIdx = new AtomicInteger();
 
     /**
      * The number of work units remaining to be processed, plus the number of currently running threads working on a
@@ -63,6 +97,9 @@ public class WorkQueue<T> implements AutoCloseable {
      */
     private final AtomicInteger numIncompleteWorkUnits = new AtomicInteger();
 
+    /** Set to true if a worker was interrupted or threw an exception, causing the other workers to stop. */
+    private volatile boolean aborted;
+
     /** The Future object added for each worker, used to detect worker completion. */
     private final ConcurrentLinkedQueue<Future<?>> workerFutures = new ConcurrentLinkedQueue<>();
 
@@ -75,27 +112,14 @@ public class WorkQueue<T> implements AutoCloseable {
     /** The log node. */
     private final LogNode log;
 
+    /** The maximum number of work units to steal from another worker at one time. */
+    private static final int MAX_STEAL_BATCH_SIZE = 16;
+
     /**
-     * A wrapper for work units (needed to send a poison pill as a null value, since BlockingQueue does not accept
-     * null values).
-     *
-     * @param <T>
-     *            the generic type
+     * The maximum time an idle worker waits before checking for interruption, in case the
+     * {@link InterruptionChecker} was triggered from outside the work queue.
      */
-    private static class WorkUnitWrapper<T> {
-        /** The work unit. */
-        final T workUnit;
-
-        /**
-         * Constructor.
-         * 
-         * @param workUnit
-         *            the work unit, or null to represent a poison pill.
-         */
-        public WorkUnitWrapper(final T workUnit) {
-            this.workUnit = workUnit;
-        }
-    }
+    private static final long IDLE_WAIT_MILLIS = 100L;
 
     /**
      * A work unit processor.
@@ -179,9 +203,13 @@ public class WorkQueue<T> implements AutoCloseable {
     private WorkQueue(final Collection<T> initialWorkUnits, final WorkUnitProcessor<T> workUnitProcessor,
             final int numWorkers, final InterruptionChecker interruptionChecker, final LogNode log) {
         this.workUnitProcessor = workUnitProcessor;
-        this.numWorkers = numWorkers;
         this.interruptionChecker = interruptionChecker;
         this.log = log;
+        final int numDeques = Math.max(1, numWorkers);
+        this.workerDeques = new ArrayList<>(numDeques);
+        for (int i = 0; i < numDeques; i++) {
+            workerDeques.add(new ConcurrentLinkedDeque<T>());
+        }
         addWorkUnits(initialWorkUnits);
     }
 
@@ -206,13 +234,106 @@ public class WorkQueue<T> implements AutoCloseable {
     }
 
     /**
-     * Send poison pills to workers.
+     * Stop all workers, after a worker was interrupted or threw an exception, by discarding all remaining work
+     * units.
+     */
+    private void abort() {
+        aborted = true;
+        for (final ConcurrentLinkedDeque<T> deque : workerDeques) {
+            deque.clear();
+        }
+        helperTasks.clear();
+        numIncompleteWorkUnits.set(0);
+        wakeIdleWorkers();
+    }
+
+    /** Wake up any idle workers, after work has been added or the state of the queue has changed. */
+    private void wakeIdleWorkers() {
+        workVersion.incrementAndGet();
+        if (numIdleWorkers.get() > 0) {
+            synchronized (idleLock) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Block an idle worker until work is added or the state of the queue changes after the given work version was
+     * read, or until {@link #IDLE_WAIT_MILLIS} has elapsed.
+     *
+     * @param prevWorkVersion
+     *            the work version read before the worker last looked for work
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    private void waitForWork(final int prevWorkVersion) throws InterruptedException {
+        synchronized (idleLock) {
+            // Increment numIdleWorkers before re-checking workVersion, so that a thread that adds work either
+            // sees this worker as idle and notifies it, or this worker sees the new work version
+            numIdleWorkers.incrementAndGet();
+            try {
+                if (workVersion.get() == prevWorkVersion && !aborted && numIncompleteWorkUnits.get() > 0) {
+                    idleLock.wait(IDLE_WAIT_MILLIS);
+                }
+            } finally {
+                numIdleWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Get an {@link Executor} that runs tasks on idle workers of the work queue that the current thread is a worker
+     * of. Tasks are not guaranteed to be run: any tasks that have not been started by the time all work units have
+     * been completed are discarded, so the submitter must be able to complete the work itself, e.g. by claiming
+     * parts of the work from a shared counter in both the submitted tasks and the current thread.
+     *
+     * @return the executor, or null if the current thread is not a worker of a work queue.
+     */
+    public static Executor getHelperExecutor() {
+        final WorkQueue<?> workQueue = CURRENT_WORK_QUEUE.get();
+        return workQueue == null ? null : new Executor() {
+            @Override
+            public void execute(final Runnable task) {
+                workQueue.helperTasks.add(task);
+                workQueue.wakeIdleWorkers();
+            }
+        };
+    }
+
+    /**
+     * Steal a batch of work units from the tail of another worker's deque, moving all but the first of them to the
+     * head of this worker's deque, in their original order.
+     *
+     * @param ownDequeIdx
+     *            the index of this worker's deque
+     * @return the first stolen work unit, or null if there was no work to steal.
      */
-    @SuppressWarnings("null")
-    private void sendPoisonPills() {
-        for (int i = 0; i < numWorkers; i++) {
-            workUnits.add(new WorkUnitWrapper<T>(null));
+    private T steal(final int ownDequeIdx) {
+        final int numDeques = workerDeques.size();
+        final ConcurrentLinkedDeque<T> ownDeque = workerDeques.get(ownDequeIdx);
+        for (int i = 1; i < numDeques; i++) {
+            final ConcurrentLinkedDeque<T> victimDeque = workerDeques.get((ownDequeIdx + i) % numDeques);
+            T workUnit = victimDeque.pollLast();
+            if (workUnit != null) {
+                boolean movedWorkUnits = false;
+                for (int j = 1; j < MAX_STEAL_BATCH_SIZE; j++) {
+                    final T nextWorkUnit = victimDeque.pollLast();
+                    if (nextWorkUnit == null) {
+                        break;
+                    }
+                    ownDeque.addFirst(workUnit);
+                    movedWorkUnits = true;
+                    workUnit = nextWorkUnit;
+                }
+                if (movedWorkUnits) {
+                    // The moved work units can be stolen from this worker's deque, so wake up idle workers that
+                    // found no work to steal while the work units were being moved
+                    wakeIdleWorkers();
+                }
+                return workUnit;
+            }
         }
+        return null;
     }
 
     /**
@@ -227,46 +348,85 @@ public class WorkQueue<T> implements AutoCloseable {
      *             if a worker thread throws an uncaught exception
      */
     private void runWorkLoop() throws InterruptedException, ExecutionException {
-        // Get next work unit from queue
-        for (;;) {
-            // Process the work unit
-            try {
-                // Check for interruption
-                interruptionChecker.check();
+        final int ownDequeIdx = nextWorkerDequeIdx.getAndIncrement() % workerDeques.size();
+        final ConcurrentLinkedDeque<T> ownDeque = workerDeques.get(ownDequeIdx);
+        currentWorkerDeque.set(ownDeque);
+        final WorkQueue<?> prevWorkQueue = CURRENT_WORK_QUEUE.get();
+        CURRENT_WORK_QUEUE.set(this);
+        try {
+            for (;;) {
+                // Process the work unit
+                try {
+                    // Check for interruption
+                    interruptionChecker.check();
 
-                // Get next work unit
-                final WorkUnitWrapper<T> workUnitWrapper = workUnits.take();
-
-                if (workUnitWrapper.workUnit == null) {
-                    // Received poison pill
-                    break;
-                }
+                    if (aborted || numIncompleteWorkUnits.get() == 0) {
+                        // All work has been completed, or another worker stopped the work
+                        break;
+                    }
 
-                // Process the work unit (may throw InterruptedException) 
-                workUnitProcessor.processWorkUnit(workUnitWrapper.workUnit, this, log);
+                    // Get next work unit from own deque, or if empty, run a helper task, or steal work from
+                    // another worker
+                    final int prevWorkVersion = workVersion.get();
+                    final T workUnit = ownDeque.pollFirst();
+                    if (workUnit == null) {
+                        final Runnable helperTask = helperTasks.poll();
+                        if (helperTask != null) {
+                            // Helper tasks are part of another worker's work unit, so are not counted separately
+                            helperTask.run();
+                            continue;
+                        }
+                        final T stolenWorkUnit = steal(ownDequeIdx);
+                        if (stolenWorkUnit == null) {
+                            // No work is available, but other workers are still processing work units, and may
+                            // add more work units -- wait until work is added, or all work has been completed
+                            waitForWork(prevWorkVersion);
+                            continue;
+                        }
+                        workUnitProcessor.processWorkUnit(stolenWorkUnit, this, log);
+                    } else {
+                        // Process the work unit (may throw InterruptedException)
+                        workUnitProcessor.processWorkUnit(workUnit, this, log);
+                    }
 
-            } catch (InterruptedException | Error e) {
-                // On InterruptedException or OutOfMemoryError, drain work queue, send poison pills, and re-throw
-                workUnits.clear();
-                numIncompleteWorkUnits.set(0);
-                sendPoisonPills();
-                throw e;
+                } catch (InterruptedException | Error e) {
+                    // On InterruptedException or OutOfMemoryError, stop other workers, and re-throw
+                    abort();
+                    throw e;
 
-            } catch (final RuntimeException e) {
-                // On unchecked exception, drain work queue, send poison pills, and throw ExecutionException
-                workUnits.clear();
-                numIncompleteWorkUnits.set(0);
-                sendPoisonPills();
-                throw new ExecutionException("Worker thread threw unchecked exception", e);
+                } catch (final RuntimeException e) {
+                    // On unchecked exception, stop other workers, and throw ExecutionException
+                    abort();
+                    throw new ExecutionException("Worker thread threw unchecked exception", e);
 
+                }
+                if (numIncompleteWorkUnits.decrementAndGet() == 0) {
+                    // Wake up idle workers so that they can stop
+                    wakeIdleWorkers();
+                }
             }
-            if (numIncompleteWorkUnits.decrementAndGet() == 0) {
-                // No more work units -- send poison pills
-                sendPoisonPills();
+        } finally {
+            currentWorkerDeque.remove();
+            if (prevWorkQueue == null) {
+                CURRENT_WORK_QUEUE.remove();
+            } else {
+                CURRENT_WORK_QUEUE.set(prevWorkQueue);
             }
         }
     }
 
+    /**
+     * Get the deque to add work units to: the deque of the current worker, if called by a worker, otherwise the
+     * next deque in round-robin order.
+     *
+     * @return the deque
+     */
+    private ConcurrentLinkedDeque<T> getDequeForAdding() {
+        final ConcurrentLinkedDeque<T> ownDeque = currentWorkerDeque.get();
+        return ownDeque != null ? ownDeque
+                : workerDeques.get((nextAddDequeIdx.getAndIncrement() & Integer.MAX_VALUE) % workerDeques.size());
+    }
+
     /**
      * Add a unit of work. May be called by workers to add more work units to the tail of the queue.
      *
@@ -280,11 +440,14 @@ public class WorkQueue<T> implements AutoCloseable {
             throw new NullPointerException("workUnit cannot be null");
         }
         numIncompleteWorkUnits.incrementAndGet();
-        workUnits.add(new WorkUnitWrapper<>(workUnit));
+        getDequeForAdding().addLast(workUnit);
+        wakeIdleWorkers();
     }
 
     /**
-     * Add multiple units of work. May be called by workers to add more work units to the tail of the queue.
+     * Add multiple units of work. May be called by workers to add more work units to the tail of the queue. If
+     * called by a worker, the work units are added to the worker's own deque (where they can be stolen by idle
+     * workers), otherwise they are split into contiguous batches, one per worker.
      * 
      * @param workUnits
      *            The work units to add to the tail of the queue.
@@ -293,8 +456,28 @@ public class WorkQueue<T> implements AutoCloseable {
      */
     public void addWorkUnits(final Collection<T> workUnits) {
         for (final T workUnit : workUnits) {
-            addWorkUnit(workUnit);
+            if (workUnit == null) {
+                throw new NullPointerException("workUnit cannot be null");
+            }
+        }
+        if (workUnits.isEmpty()) {
+            return;
+        }
+        // Increment the number of incomplete work units before adding the work units, so that workers cannot
+        // see zero incomplete work units and stop while work units are still being added
+        numIncompleteWorkUnits.addAndGet(workUnits.size());
+        final ConcurrentLinkedDeque<T> ownDeque = currentWorkerDeque.get();
+        if (ownDeque != null) {
+            ownDeque.addAll(workUnits);
+        } else {
+            final int numDeques = workerDeques.size();
+            final int batchSize = (workUnits.size() + numDeques - 1) / numDeques;
+            int i = 0;
+            for (final T workUnit : workUnits) {
+                workerDeques.get(i++ / batchSize).addLast(workUnit);
+            }
         }
+        wakeIdleWorkers();
     }
 
     /**
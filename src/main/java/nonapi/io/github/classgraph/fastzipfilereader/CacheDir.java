@@ -0,0 +1,314 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A directory of cached jarfiles that may be shared by multiple processes, used by {@link ExtractedJarCache} and
+ * {@link RemoteJarCache}. Each cached jarfile is named after a hex SHA-256 key, and may have sidecar files with the
+ * same key and a different extension.
+ *
+ * <p>
+ * New files are written to temporary files in the cache directory, which are then atomically renamed into place
+ * while holding a lock on a lock file in the cache directory, so a cached file is always complete, and can be used
+ * without locking. The cache is limited to a maximum total size by evicting the least recently used jarfiles (along
+ * with their sidecar files), where the last modified time of a cached jarfile is updated each time it is used.
+ */
+final class CacheDir {
+    /** The cache directory. */
+    private final Path dir;
+
+    /** The maximum total size of the cached jarfiles in the cache directory. */
+    private final long maxSize;
+
+    /** The extensions of the sidecar files of each cached jarfile, which are deleted along with the jarfile. */
+    private final String[] sidecarExtensions;
+
+    /** A description of the cached jarfiles, for logging. */
+    private final String description;
+
+    /** The cache file extension. */
+    private static final String CACHE_FILE_EXTENSION = ".jar";
+
+    /** The extension of files that are being written. */
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    /** The name of the lock file. */
+    private static final String LOCK_FILENAME = ".lock";
+
+    /** The age after which a temporary file is assumed to have been abandoned by a process that died. */
+    private static final long ABANDONED_TEMP_FILE_AGE_MILLIS = 60L * 60L * 1000L;
+
+    /**
+     * The lock held by a thread while it holds the file lock, since a {@link FileLock} is held on behalf of the
+     * whole JVM, and cannot be acquired twice by the same JVM.
+     */
+    private static final Object JVM_LOCK = new Object();
+
+    /** An action that moves temporary files into place, called while holding the lock. */
+    interface InstallAction {
+        /**
+         * Move temporary files into place.
+         *
+         * @throws IOException
+         *             if the files could not be moved
+         */
+        void install() throws IOException;
+    }
+
+    /** A cached file, with its size and last modified time at the time the cache directory was listed. */
+    private static class CachedFile {
+        /** The file. */
+        final File file;
+
+        /** The size. */
+        final long size;
+
+        /** The last modified time. */
+        final long lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the file
+         */
+        CachedFile(final File file) {
+            this.file = file;
+            this.size = file.length();
+            this.lastModified = file.lastModified();
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param dir
+     *            the cache directory
+     * @param maxSize
+     *            the maximum total size of the cached jarfiles in the cache directory
+     * @param description
+     *            a description of the cached jarfiles, for logging
+     * @param sidecarExtensions
+     *            the extensions of the sidecar files of each cached jarfile
+     */
+    CacheDir(final Path dir, final long maxSize, final String description, final String... sidecarExtensions) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+        this.description = description;
+        this.sidecarExtensions = sidecarExtensions;
+    }
+
+    /**
+     * Get the hex SHA-256 hash of a string, for use as a cache key.
+     *
+     * @param keyStr
+     *            the string to hash
+     * @return the hex SHA-256 hash of the UTF-8 encoding of the string
+     */
+    static String sha256Hex(final String keyStr) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(keyStr.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder buf = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+                buf.append(Character.forDigit(b & 0xf, 16));
+            }
+            return buf.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // Every JRE is required to support SHA-256
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the path of a cached jarfile.
+     *
+     * @param key
+     *            the cache key
+     * @return the path of the cached jarfile
+     */
+    Path getCacheFile(final String key) {
+        return dir.resolve(key + CACHE_FILE_EXTENSION);
+    }
+
+    /**
+     * Get the path of a sidecar file of a cached jarfile.
+     *
+     * @param key
+     *            the cache key
+     * @param sidecarExtension
+     *            the extension of the sidecar file
+     * @return the path of the sidecar file
+     */
+    Path getSidecarFile(final String key, final String sidecarExtension) {
+        return dir.resolve(key + sidecarExtension);
+    }
+
+    /**
+     * Create a temporary file in the cache directory, creating the cache directory if needed.
+     *
+     * @param key
+     *            the cache key
+     * @return the temporary file
+     * @throws IOException
+     *             if the temporary file could not be created
+     */
+    Path createTempFile(final String key) throws IOException {
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, key, TEMP_FILE_EXTENSION);
+    }
+
+    /**
+     * Mark a cached jarfile as recently used.
+     *
+     * @param file
+     *            the cached jarfile
+     */
+    static void markUsed(final File file) {
+        // Ignore failure
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Atomically move a temporary file into place, replacing any existing file.
+     *
+     * @param tempFile
+     *            the temporary file
+     * @param file
+     *            the destination
+     * @throws IOException
+     *             if the file could not be moved
+     */
+    static void moveIntoPlace(final Path tempFile, final Path file) throws IOException {
+        Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Move temporary files into place while holding the lock, then evict least recently used jarfiles.
+     *
+     * @param installAction
+     *            the action that moves the temporary files into place
+     * @param fileToKeep
+     *            a cached jarfile that should not be evicted
+     * @param log
+     *            the log
+     * @throws IOException
+     *             if the files could not be moved, or the cache directory could not be read
+     */
+    void install(final InstallAction installAction, final Path fileToKeep, final LogNode log) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel lockChannel = FileChannel.open(dir.resolve(LOCK_FILENAME), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                final FileLock lock = lockChannel.lock();
+                try {
+                    installAction.install();
+                    evict(fileToKeep, log);
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the least recently used jarfiles (and their sidecar files) until the total size of the cache is no
+     * more than the maximum size, and delete abandoned temporary files. Must be called while holding the lock.
+     *
+     * @param fileToKeep
+     *            a file that should not be evicted
+     * @param log
+     *            the log
+     * @throws IOException
+     *             if the cache directory could not be read
+     */
+    private void evict(final Path fileToKeep, final LogNode log) throws IOException {
+        final long now = System.currentTimeMillis();
+        final List<CachedFile> cachedFiles = new ArrayList<>();
+        long totalSize = 0L;
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(dir)) {
+            for (final Path path : dirStream) {
+                final String filename = path.getFileName().toString();
+                final File file = path.toFile();
+                if (filename.endsWith(CACHE_FILE_EXTENSION)) {
+                    final CachedFile cachedFile = new CachedFile(file);
+                    cachedFiles.add(cachedFile);
+                    totalSize += cachedFile.size;
+                } else if (filename.endsWith(TEMP_FILE_EXTENSION)
+                        && now - file.lastModified() > ABANDONED_TEMP_FILE_AGE_MILLIS) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+        Collections.sort(cachedFiles, new Comparator<CachedFile>() {
+            @Override
+            public int compare(final CachedFile f1, final CachedFile f2) {
+                return Long.compare(f1.lastModified, f2.lastModified);
+            }
+        });
+        final File keep = fileToKeep.toFile();
+        for (int i = 0; i < cachedFiles.size() && totalSize > maxSize; i++) {
+            final CachedFile cachedFile = cachedFiles.get(i);
+            // On Windows, files that are open in another process cannot be deleted
+            if (!cachedFile.file.equals(keep) && cachedFile.file.delete()) {
+                totalSize -= cachedFile.size;
+                final String filename = cachedFile.file.getName();
+                final String key = filename.substring(0, filename.length() - CACHE_FILE_EXTENSION.length());
+                for (final String sidecarExtension : sidecarExtensions) {
+                    Files.deleteIfExists(getSidecarFile(key, sidecarExtension));
+                }
+                if (log != null) {
+                    log.log("Evicted " + description + " from cache: " + cachedFile.file);
+                }
+            }
+        }
+    }
+}
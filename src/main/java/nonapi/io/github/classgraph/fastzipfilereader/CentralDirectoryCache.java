@@ -0,0 +1,315 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import io.github.classgraph.ClassGraph;
+import nonapi.io.github.classgraph.fileslice.FileSlice;
+
+/**
+ * A JVM-wide cache of the parsed central directories of jarfiles, shared between scans (see
+ * {@link ClassGraph#enableSharedJarMetadataCache()}). Entries are keyed by canonical file, file size, last
+ * modified time and the position of the zipfile within the file (for stored nested jars), so that modified
+ * jarfiles are reparsed. Entries are reference counted by the {@link NestedJarHandler} instances that use them,
+ * and entries that are not in use are evicted in least recently used order once the estimated size of all
+ * entries exceeds {@link ClassGraph#SHARED_JAR_METADATA_CACHE_MAX_SIZE}.
+ */
+final class CentralDirectoryCache {
+    /** The cached central directories, in least recently used order. Guarded by the class monitor. */
+    private static final Map<Key, CentralDirectory> CACHE = new LinkedHashMap<>(16, 0.75f,
+            /* accessOrder = */ true);
+
+    /** The estimated total size of the cached central directories, in bytes. Guarded by the class monitor. */
+    private static long totalSize;
+
+    /** Estimated size in bytes of a cached central directory, not counting the size of its entries. */
+    private static final int ENTRY_TABLE_OVERHEAD_SIZE = 256;
+
+    /** Constructor. */
+    private CentralDirectoryCache() {
+        // Cannot be constructed
+    }
+
+    /** A cache key. */
+    static final class Key {
+        /** The canonical path of the file. */
+        private final String canonicalPath;
+
+        /** The length of the file. */
+        private final long fileLength;
+
+        /** The last modified time of the file. */
+        private final long lastModified;
+
+        /** The start position of the zipfile within the file. */
+        private final long sliceStartPos;
+
+        /** The length of the zipfile within the file. */
+        private final long sliceLength;
+
+        /** Whether multi-release versions were enabled when the central directory was parsed. */
+        private final boolean enableMultiReleaseVersions;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the canonical file
+         * @param sliceStartPos
+         *            the start position of the zipfile within the file
+         * @param sliceLength
+         *            the length of the zipfile within the file
+         * @param enableMultiReleaseVersions
+         *            whether multi-release versions are enabled
+         */
+        private Key(final File file, final long sliceStartPos, final long sliceLength,
+                final boolean enableMultiReleaseVersions) {
+            this.canonicalPath = file.getPath();
+            this.fileLength = file.length();
+            this.lastModified = file.lastModified();
+            this.sliceStartPos = sliceStartPos;
+            this.sliceLength = sliceLength;
+            this.enableMultiReleaseVersions = enableMultiReleaseVersions;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (o == this) {
+                return true;
+            } else if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return canonicalPath.equals(other.canonicalPath) && fileLength == other.fileLength
+                    && lastModified == other.lastModified && sliceStartPos == other.sliceStartPos
+                    && sliceLength == other.sliceLength
+                    && enableMultiReleaseVersions == other.enableMultiReleaseVersions;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(canonicalPath, fileLength, lastModified, sliceStartPos, sliceLength,
+                    enableMultiReleaseVersions);
+        }
+
+        @Override
+        public String toString() {
+            return canonicalPath + " [" + sliceStartPos + ", " + (sliceStartPos + sliceLength) + ")";
+        }
+    }
+
+    /**
+     * The parsed central directory and manifest values of a {@link LogicalZipFile}, which can be used to
+     * initialize other {@link LogicalZipFile} instances for the same zipfile without reading the file.
+     */
+    static final class CentralDirectory {
+        /** The zipfile entries. */
+        private final ZipEntryTable entryTable;
+
+        /** The package paths of the entries. */
+        private final ZipPackageIndex packageIndex;
+
+        /** The value of the "Class-Path" manifest entry, or null. */
+        private final String classPathManifestEntryValue;
+
+        /** The value of the "Bundle-ClassPath" manifest entry, or null. */
+        private final String bundleClassPathManifestEntryValue;
+
+        /** The value of the "Add-Exports" manifest entry, or null. */
+        private final String addExportsManifestEntryValue;
+
+        /** The value of the "Add-Opens" manifest entry, or null. */
+        private final String addOpensManifestEntryValue;
+
+        /** The value of the "Automatic-Module-Name" manifest entry, or null. */
+        private final String automaticModuleNameManifestEntryValue;
+
+        /** True if the jarfile is a JRE jar. */
+        private final boolean isJREJar;
+
+        /** True if the jarfile is a multi-release jar. */
+        private final boolean isMultiReleaseJar;
+
+        /** The estimated size of this object, in bytes. */
+        private final long estimatedSize;
+
+        /** The number of {@link NestedJarHandler} instances using this object. Guarded by the class monitor. */
+        private int refCount;
+
+        /**
+         * Capture the central directory of a {@link LogicalZipFile} that has just been read.
+         *
+         * @param logicalZipFile
+         *            the logical zipfile
+         * @param isMultiReleaseJar
+         *            true if the jarfile is a multi-release jar
+         */
+        CentralDirectory(final LogicalZipFile logicalZipFile, final boolean isMultiReleaseJar) {
+            entryTable = logicalZipFile.entryTable;
+            packageIndex = logicalZipFile.packageIndex;
+            classPathManifestEntryValue = logicalZipFile.classPathManifestEntryValue;
+            bundleClassPathManifestEntryValue = logicalZipFile.bundleClassPathManifestEntryValue;
+            addExportsManifestEntryValue = logicalZipFile.addExportsManifestEntryValue;
+            addOpensManifestEntryValue = logicalZipFile.addOpensManifestEntryValue;
+            automaticModuleNameManifestEntryValue = logicalZipFile.automaticModuleNameManifestEntryValue;
+            isJREJar = logicalZipFile.isJREJar;
+            this.isMultiReleaseJar = isMultiReleaseJar;
+            estimatedSize = ENTRY_TABLE_OVERHEAD_SIZE + entryTable.estimatedSize();
+        }
+
+        /**
+         * Initialize the entries and manifest values of a {@link LogicalZipFile} from this central directory.
+         *
+         * @param logicalZipFile
+         *            the logical zipfile
+         * @param enableMultiReleaseVersions
+         *            whether multi-release versions are enabled
+         * @return true if the jarfile is a multi-release jar
+         */
+        boolean initialize(final LogicalZipFile logicalZipFile, final boolean enableMultiReleaseVersions) {
+            logicalZipFile.setEntryTable(entryTable);
+            logicalZipFile.packageIndex = packageIndex;
+            logicalZipFile.classPathManifestEntryValue = classPathManifestEntryValue;
+            logicalZipFile.bundleClassPathManifestEntryValue = bundleClassPathManifestEntryValue;
+            logicalZipFile.addExportsManifestEntryValue = addExportsManifestEntryValue;
+            logicalZipFile.addOpensManifestEntryValue = addOpensManifestEntryValue;
+            logicalZipFile.automaticModuleNameManifestEntryValue = automaticModuleNameManifestEntryValue;
+            logicalZipFile.isJREJar = isJREJar;
+            return isMultiReleaseJar;
+        }
+    }
+
+    /**
+     * Get the cache key for a zipfile slice, if its central directory can be cached.
+     *
+     * @param zipFileSlice
+     *            the zipfile slice
+     * @param enableMultiReleaseVersions
+     *            whether multi-release versions are enabled
+     * @return the cache key, or null if the zipfile slice is not a toplevel jarfile on disk or a stored jar
+     *         nested within one.
+     */
+    static Key getKey(final ZipFileSlice zipFileSlice, final boolean enableMultiReleaseVersions) {
+        final PhysicalZipFile physicalZipFile = zipFileSlice.physicalZipFile;
+        if (!physicalZipFile.isOpenedFromFile || !(zipFileSlice.slice instanceof FileSlice)) {
+            // Don't cache in-memory jars, or temporary files for inflated nested jars or downloaded jars
+            return null;
+        }
+        return new Key(physicalZipFile.getFile(), zipFileSlice.slice.sliceStartPos,
+                zipFileSlice.slice.sliceLength, enableMultiReleaseVersions);
+    }
+
+    /**
+     * Get a cached central directory, and increment its reference count. Evicts unused central directories if the
+     * cache is over its maximum size.
+     *
+     * @param key
+     *            the cache key
+     * @return the cached central directory, or null if none is cached for the key.
+     */
+    static synchronized CentralDirectory acquire(final Key key) {
+        final CentralDirectory centralDirectory = CACHE.get(key);
+        if (centralDirectory != null) {
+            centralDirectory.refCount++;
+            evict();
+        }
+        return centralDirectory;
+    }
+
+    /**
+     * Add a central directory to the cache with a reference count of one, unless another central directory was
+     * already added for the same key, in which case the reference count of that central directory is incremented
+     * instead. Evicts unused central directories if the cache is over its maximum size.
+     *
+     * @param key
+     *            the cache key
+     * @param centralDirectory
+     *            the central directory
+     * @return the central directory that is cached for the key.
+     */
+    static synchronized CentralDirectory add(final Key key, final CentralDirectory centralDirectory) {
+        final CentralDirectory existing = CACHE.get(key);
+        if (existing != null) {
+            existing.refCount++;
+            return existing;
+        }
+        centralDirectory.refCount = 1;
+        CACHE.put(key, centralDirectory);
+        totalSize += centralDirectory.estimatedSize;
+        evict();
+        return centralDirectory;
+    }
+
+    /**
+     * Decrement the reference count of a central directory, and evict unused central directories if the cache is
+     * over its maximum size.
+     *
+     * @param centralDirectory
+     *            the central directory
+     */
+    static synchronized void release(final CentralDirectory centralDirectory) {
+        if (centralDirectory.refCount > 0) {
+            centralDirectory.refCount--;
+        }
+        evict();
+    }
+
+    /** Evict unused central directories, least recently used first, until the cache is within its size limit. */
+    private static void evict() {
+        final long maxSize = ClassGraph.SHARED_JAR_METADATA_CACHE_MAX_SIZE;
+        for (final Iterator<CentralDirectory> iter = CACHE.values().iterator(); totalSize > maxSize
+                && iter.hasNext();) {
+            final CentralDirectory centralDirectory = iter.next();
+            if (centralDirectory.refCount == 0) {
+                iter.remove();
+                totalSize -= centralDirectory.estimatedSize;
+            }
+        }
+    }
+
+    /**
+     * Get the number of cached central directories.
+     *
+     * @return the number of cached central directories.
+     */
+    static synchronized int size() {
+        return CACHE.size();
+    }
+
+    /** Remove all central directories from the cache. */
+    static synchronized void clear() {
+        CACHE.clear();
+        totalSize = 0L;
+    }
+}
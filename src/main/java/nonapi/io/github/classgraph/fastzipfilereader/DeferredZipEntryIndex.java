@@ -0,0 +1,211 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+
+/**
+ * An index of the zip entries of a {@link LogicalZipFile} that were not materialized when its central directory
+ * was read, because they could not match a {@link ZipEntryNameFilter}. The central directory bytes are retained,
+ * and the central directory offsets of the skipped entries are hashed by entry name, so that individual entries
+ * can still be looked up by name (e.g. when scanning is extended upwards to a superclass in a non-accepted
+ * package). Only entries with plain ASCII names are deferred, so the hash of the name bytes is the same as the
+ * {@link String#hashCode()} of the entry name.
+ */
+final class DeferredZipEntryIndex {
+    /** The central directory. */
+    final byte[] cen;
+
+    /** A reader for the central directory. */
+    final RandomAccessReader cenReader;
+
+    /** The position of the first local file header. */
+    final long locPos;
+
+    /** The central directory offsets of the deferred entries. */
+    private int[] entryOffsets = new int[64];
+
+    /** The hashcodes of the names of the deferred entries. */
+    private int[] nameHashes = new int[64];
+
+    /** The number of deferred entries. */
+    private int numEntries;
+
+    /** Open addressing hashtable of entry index plus one, or zero for empty slots. Built by {@link #finish()}. */
+    private int[] hashTable;
+
+    /**
+     * Constructor.
+     *
+     * @param cen
+     *            the central directory
+     * @param cenReader
+     *            a reader for the central directory
+     * @param locPos
+     *            the position of the first local file header
+     */
+    DeferredZipEntryIndex(final byte[] cen, final RandomAccessReader cenReader, final long locPos) {
+        this.cen = cen;
+        this.cenReader = cenReader;
+        this.locPos = locPos;
+    }
+
+    /**
+     * Get the length of the name of the entry at a given central directory offset.
+     *
+     * @param entOff
+     *            the central directory offset of the entry
+     * @return the length of the entry name
+     */
+    private int nameLen(final int entOff) {
+        return (cen[entOff + 28] & 0xff) | (cen[entOff + 29] & 0xff) << 8;
+    }
+
+    /**
+     * Add a deferred entry.
+     *
+     * @param entOff
+     *            the central directory offset of the entry
+     */
+    void add(final int entOff) {
+        int hash = 0;
+        for (int i = entOff + 46, ii = i + nameLen(entOff); i < ii; i++) {
+            hash = 31 * hash + cen[i];
+        }
+        if (numEntries == entryOffsets.length) {
+            entryOffsets = Arrays.copyOf(entryOffsets, numEntries * 2);
+            nameHashes = Arrays.copyOf(nameHashes, numEntries * 2);
+        }
+        entryOffsets[numEntries] = entOff;
+        nameHashes[numEntries] = hash;
+        numEntries++;
+    }
+
+    /** Build the hashtable, once all deferred entries have been added. */
+    void finish() {
+        // Size the hashtable to be at least twice the number of entries
+        hashTable = new int[Integer.highestOneBit(Math.max(numEntries, 1)) << 2];
+        for (int i = 0; i < numEntries; i++) {
+            int slot = nameHashes[i] & (hashTable.length - 1);
+            while (hashTable[slot] != 0) {
+                slot = (slot + 1) & (hashTable.length - 1);
+            }
+            hashTable[slot] = i + 1;
+        }
+    }
+
+    /**
+     * Get the number of deferred entries.
+     *
+     * @return the number of deferred entries
+     */
+    int size() {
+        return numEntries;
+    }
+
+    /**
+     * Update a digest with the name, CRC-32 value, sizes and extra field of each deferred entry, as stored in the
+     * central directory. Zip64 sizes are stored in the extra field.
+     *
+     * @param digest
+     *            the digest
+     */
+    void updateDigest(final MessageDigest digest) {
+        for (int i = 0; i < numEntries; i++) {
+            final int entOff = entryOffsets[i];
+            final int nameLen = nameLen(entOff);
+            final int extraFieldLen = (cen[entOff + 30] & 0xff) | (cen[entOff + 31] & 0xff) << 8;
+            // CRC-32, compressed size and uncompressed size
+            digest.update(cen, entOff + 16, 12);
+            digest.update(cen, entOff + 46, nameLen + extraFieldLen);
+        }
+    }
+
+    /**
+     * Check if the name of the entry at a given central directory offset starts with the given string.
+     *
+     * @param entOff
+     *            the central directory offset of the entry
+     * @param str
+     *            the string
+     * @param wholeString
+     *            if true, the whole entry name must match
+     * @return true if the entry name matches
+     */
+    private boolean nameMatches(final int entOff, final String str, final boolean wholeString) {
+        final int nameLen = nameLen(entOff);
+        if (wholeString ? nameLen != str.length() : nameLen < str.length()) {
+            return false;
+        }
+        for (int i = 0, nameOff = entOff + 46; i < str.length(); i++) {
+            if (cen[nameOff + i] != str.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find a deferred entry by name.
+     *
+     * @param entryName
+     *            the entry name
+     * @return the central directory offset of the entry, or -1 if there is no deferred entry with this name
+     */
+    int find(final String entryName) {
+        final int hash = entryName.hashCode();
+        for (int slot = hash & (hashTable.length - 1);; slot = (slot + 1) & (hashTable.length - 1)) {
+            final int idx = hashTable[slot] - 1;
+            if (idx < 0) {
+                return -1;
+            } else if (nameHashes[idx] == hash && nameMatches(entryOffsets[idx], entryName, true)) {
+                return entryOffsets[idx];
+            }
+        }
+    }
+
+    /**
+     * Check if the name of any deferred entry starts with the given prefix.
+     *
+     * @param prefix
+     *            the prefix
+     * @return true if the name of a deferred entry starts with the prefix
+     */
+    boolean hasEntryWithPrefix(final String prefix) {
+        for (int i = 0; i < numEntries; i++) {
+            if (nameMatches(entryOffsets[i], prefix, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A bounded pool of direct {@link ByteBuffer} instances, used to hold inflated classfiles, inflated nested jarfiles
+ * and large resources off-heap, rather than in {@code byte[]} arrays that put pressure on the garbage collector.
+ * Classfiles are inflated into buffers of the smallest size class.
+ *
+ * <p>
+ * Buffer capacities are rounded up to a size class (a multiple of a quarter of a power of two, so that no more than
+ * a quarter of a buffer is wasted), so that released buffers can be reused for content of a similar size. The total
+ * capacity of all buffers allocated by the pool, whether in use or free, is limited to a maximum size. When an
+ * allocation would exceed the maximum size, free buffers are released to make room, and if that is not enough, the
+ * allocation fails, so that the caller can fall back to another storage method. All buffers are freed immediately
+ * once the pool is closed, rather than waiting for them to be garbage collected.
+ */
+final class DirectBufferPool {
+    /** The smallest buffer capacity. */
+    static final int MIN_BUFFER_SIZE = 64 * 1024;
+
+    /** The largest buffer capacity. */
+    private static final int MAX_BUFFER_SIZE = 1 << 30;
+
+    /** The maximum total capacity of all buffers allocated by the pool. */
+    private final long maxTotalSize;
+
+    /** The total capacity of all buffers allocated by the pool that have not been freed. */
+    private long totalSize;
+
+    /** Free buffers, indexed by capacity. */
+    private final Map<Integer, ArrayDeque<ByteBuffer>> freeBuffers = new HashMap<>();
+
+    /** True if the pool has been closed. */
+    private boolean closed;
+
+    /** The nested jar handler, used to free buffers. */
+    private final NestedJarHandler nestedJarHandler;
+
+    /**
+     * Constructor.
+     *
+     * @param maxTotalSize
+     *            the maximum total capacity of all buffers allocated by the pool
+     * @param nestedJarHandler
+     *            the nested jar handler, used to free buffers
+     */
+    DirectBufferPool(final long maxTotalSize, final NestedJarHandler nestedJarHandler) {
+        this.maxTotalSize = maxTotalSize;
+        this.nestedJarHandler = nestedJarHandler;
+    }
+
+    /**
+     * Round a size up to the capacity of its size class.
+     *
+     * @param size
+     *            the size
+     * @return the capacity
+     */
+    static int getCapacity(final int size) {
+        if (size <= MIN_BUFFER_SIZE) {
+            return MIN_BUFFER_SIZE;
+        }
+        final int step = Integer.highestOneBit(size - 1) >>> 2;
+        return (size + step - 1) / step * step;
+    }
+
+    /**
+     * Get a buffer from the pool.
+     *
+     * @param size
+     *            the required size
+     * @return a buffer with position 0 and limit equal to the required size, or null if the pool is closed, or the
+     *         buffer cannot be allocated without exceeding the maximum total size.
+     */
+    synchronized ByteBuffer allocate(final int size) {
+        if (closed || size < 0 || size > MAX_BUFFER_SIZE) {
+            return null;
+        }
+        final int capacity = getCapacity(size);
+        final ArrayDeque<ByteBuffer> freeBuffersForCapacity = freeBuffers.get(capacity);
+        ByteBuffer buf = freeBuffersForCapacity == null ? null : freeBuffersForCapacity.poll();
+        if (buf == null) {
+            // Free buffers of other sizes until there is room for the new buffer
+            for (final Iterator<ArrayDeque<ByteBuffer>> iter = freeBuffers.values().iterator(); iter.hasNext()
+                    && totalSize + capacity > maxTotalSize;) {
+                final ArrayDeque<ByteBuffer> bufs = iter.next();
+                while (!bufs.isEmpty() && totalSize + capacity > maxTotalSize) {
+                    free(bufs.poll());
+                }
+            }
+            if (totalSize + capacity > maxTotalSize) {
+                return null;
+            }
+            try {
+                buf = ByteBuffer.allocateDirect(capacity);
+            } catch (final OutOfMemoryError e) {
+                // Direct memory limit (-XX:MaxDirectMemorySize) reached
+                return null;
+            }
+            totalSize += capacity;
+        }
+        ((Buffer) buf).clear();
+        ((Buffer) buf).limit(size);
+        return buf;
+    }
+
+    /**
+     * Return a buffer to the pool, or free it if the pool has been closed.
+     *
+     * @param buf
+     *            a buffer obtained from {@link #allocate(int)}
+     */
+    synchronized void release(final ByteBuffer buf) {
+        if (closed) {
+            free(buf);
+        } else {
+            ArrayDeque<ByteBuffer> freeBuffersForCapacity = freeBuffers.get(buf.capacity());
+            if (freeBuffersForCapacity == null) {
+                freeBuffers.put(buf.capacity(), freeBuffersForCapacity = new ArrayDeque<>());
+            }
+            freeBuffersForCapacity.add(buf);
+        }
+    }
+
+    /**
+     * Free a buffer.
+     *
+     * @param buf
+     *            the buffer
+     */
+    private void free(final ByteBuffer buf) {
+        totalSize -= buf.capacity();
+        nestedJarHandler.closeDirectByteBuffer(buf);
+    }
+
+    /**
+     * Get the total capacity of all buffers allocated by the pool that have not been freed.
+     *
+     * @return the total capacity
+     */
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Free all free buffers, and free buffers that are still in use as soon as they are released.
+     */
+    synchronized void close() {
+        closed = true;
+        for (final ArrayDeque<ByteBuffer> bufs : freeBuffers.values()) {
+            for (ByteBuffer buf; (buf = bufs.poll()) != null;) {
+                free(buf);
+            }
+        }
+        freeBuffers.clear();
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A persistent on-disk cache of deflated nested jarfiles that have been extracted, so that they do not need to be
+ * inflated again by later scans, including scans in other processes. Each extracted jarfile is keyed by the path of
+ * its zip entry (which includes the path of the outer jarfile), and by the CRC-32 and size of the zip entry, and is
+ * verified against the CRC-32 both when it is extracted and when it is reused, so that a cached file that was
+ * truncated or modified on disk is extracted again.
+ *
+ * <p>
+ * Locking, atomic installation of extracted files and eviction of the least recently used files are handled by
+ * {@link CacheDir}.
+ */
+final class ExtractedJarCache {
+    /** The cache directory. */
+    private final CacheDir cacheDir;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param maxSize
+     *            the maximum total size of the extracted jarfiles in the cache directory
+     */
+    ExtractedJarCache(final Path cacheDir, final long maxSize) {
+        this.cacheDir = new CacheDir(cacheDir, maxSize, "extracted nested jar");
+    }
+
+    /**
+     * Get the cache key for a zip entry, as the hex SHA-256 hash of the zip entry path, CRC-32 and size.
+     *
+     * @param zipEntry
+     *            the zip entry
+     * @return the cache key
+     */
+    private static String getKey(final FastZipEntry zipEntry) {
+        return CacheDir.sha256Hex(zipEntry.getPath() + "\n" + Integer.toHexString(zipEntry.crc) + "\n"
+                + zipEntry.compressedSize + "\n" + zipEntry.uncompressedSize);
+    }
+
+    /**
+     * Check whether a cached file holds the extracted content of a zip entry, by comparing its size and CRC-32 with
+     * the size and CRC-32 recorded in the central directory.
+     *
+     * @param file
+     *            the cached file
+     * @param zipEntry
+     *            the zip entry
+     * @return true if the file exists and has the size and CRC-32 of the zip entry
+     */
+    private static boolean isExtracted(final File file, final FastZipEntry zipEntry) {
+        if (!file.isFile() || file.length() != zipEntry.uncompressedSize) {
+            return false;
+        }
+        final CRC32 crc32 = new CRC32();
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            final byte[] buf = new byte[8192];
+            for (int bytesRead; (bytesRead = inputStream.read(buf)) > 0;) {
+                crc32.update(buf, 0, bytesRead);
+            }
+        } catch (final IOException | SecurityException e) {
+            return false;
+        }
+        return (int) crc32.getValue() == zipEntry.crc;
+    }
+
+    /**
+     * Get the extracted content of a deflated zip entry from the cache, or extract the zip entry into the cache if
+     * it is not already cached.
+     *
+     * @param zipEntry
+     *            the zip entry
+     * @param log
+     *            the log
+     * @return the extracted file
+     * @throws IOException
+     *             if the zip entry could not be extracted, or its content does not match its CRC-32 or size
+     */
+    File getOrExtract(final FastZipEntry zipEntry, final LogNode log) throws IOException {
+        final String key = getKey(zipEntry);
+        final Path cacheFile = cacheDir.getCacheFile(key);
+        final File file = cacheFile.toFile();
+        if (isExtracted(file, zipEntry)) {
+            CacheDir.markUsed(file);
+            if (log != null) {
+                log.log("Using previously extracted nested jar " + zipEntry + " : " + file);
+            }
+            return file;
+        } else if (file.isFile() && log != null) {
+            log.log("Previously extracted nested jar does not match CRC-32 or size of zip entry " + zipEntry
+                    + " -- extracting again : " + file);
+        }
+
+        // Extract into a temporary file, and check CRC-32 and size
+        final Path tempFile = cacheDir.createTempFile(key);
+        try {
+            final CRC32 crc32 = new CRC32();
+            long size = 0L;
+            try (InputStream inputStream = zipEntry.getSlice().open();
+                    OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                final byte[] buf = new byte[8192];
+                for (int bytesRead; (bytesRead = inputStream.read(buf)) > 0;) {
+                    crc32.update(buf, 0, bytesRead);
+                    outputStream.write(buf, 0, bytesRead);
+                    size += bytesRead;
+                }
+            }
+            if (size != zipEntry.uncompressedSize || (int) crc32.getValue() != zipEntry.crc) {
+                throw new IOException("Extracted content does not match CRC-32 or size of zip entry " + zipEntry);
+            }
+
+            // Move the extracted file into place, then evict least recently used files
+            cacheDir.install(new CacheDir.InstallAction() {
+                @Override
+                public void install() throws IOException {
+                    if (isExtracted(file, zipEntry)) {
+                        // Another process extracted the same zip entry concurrently
+                        Files.delete(tempFile);
+                    } else {
+                        CacheDir.moveIntoPlace(tempFile, cacheFile);
+                    }
+                }
+            }, cacheFile, log);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        if (log != null) {
+            log.log("Extracted nested jar " + zipEntry + " to " + file);
+        }
+        return file;
+    }
+}
@@ -42,7 +42,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
     final LogicalZipFile parentLogicalZipFile;
 
     /** The offset of the entry's local header, as an offset relative to the parent logical zipfile. */
-    private final long locHeaderPos;
+    final long locHeaderPos;
 
     /** The zip entry path. */
     public final String entryName;
@@ -56,14 +56,17 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
     /** The uncompressed size of the zip entry, in bytes. */
     public final long uncompressedSize;
 
+    /** The CRC-32 of the uncompressed content of the zip entry. */
+    final int crc;
+
     /** The last modified millis since the epoch, or 0L if it is unknown */
-    private long lastModifiedTimeMillis;
+    long lastModifiedTimeMillis;
 
     /** The last modified time in MSDOS format, if {@link FastZipEntry#lastModifiedTimeMillis} is 0L. */
-    private final int lastModifiedTimeMSDOS;
+    final int lastModifiedTimeMSDOS;
 
     /** The last modified date in MSDOS format, if {@link FastZipEntry#lastModifiedTimeMillis} is 0L. */
-    private final int lastModifiedDateMSDOS;
+    final int lastModifiedDateMSDOS;
 
     /** The file attributes for this resource, or 0 if unknown. */
     public final int fileAttributes;
@@ -98,6 +101,8 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
      *            The compressed size of the entry.
      * @param uncompressedSize
      *            The uncompressed size of the entry.
+     * @param crc
+     *            The CRC-32 of the uncompressed content of the entry.
      * @param lastModifiedTimeMillis
      *            The last modified date/time in millis since the epoch, or 0L if unknown (in which case, the MSDOS
      *            time and date fields will be provided).
@@ -109,7 +114,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
      *            The POSIX file attribute bits from the zip entry.
      */
     FastZipEntry(final LogicalZipFile parentLogicalZipFile, final long locHeaderPos, final String entryName,
-            final boolean isDeflated, final long compressedSize, final long uncompressedSize,
+            final boolean isDeflated, final long compressedSize, final long uncompressedSize, final int crc,
             final long lastModifiedTimeMillis, final int lastModifiedTimeMSDOS, final int lastModifiedDateMSDOS,
             final int fileAttributes, final boolean enableMultiReleaseVersions) {
         this.parentLogicalZipFile = parentLogicalZipFile;
@@ -118,6 +123,7 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
         this.isDeflated = isDeflated;
         this.compressedSize = compressedSize;
         this.uncompressedSize = !isDeflated && uncompressedSize < 0 ? compressedSize : uncompressedSize;
+        this.crc = crc;
         this.lastModifiedTimeMillis = lastModifiedTimeMillis;
         this.lastModifiedTimeMSDOS = lastModifiedTimeMSDOS;
         this.lastModifiedDateMSDOS = lastModifiedDateMSDOS;
@@ -275,6 +281,25 @@ public class FastZipEntry implements Comparable<FastZipEntry> {
         return diff3 < 0L ? -1 : diff3 > 0L ? 1 : 0;
     }
 
+    /**
+     * Get the {@link PhysicalZipFile} that this entry's data is read from. (Stored nested jars are read directly
+     * from the physical zipfile of their parent, so their entries share its physical zipfile.)
+     *
+     * @return an opaque key identifying the physical zipfile.
+     */
+    public Object getPhysicalZipFileKey() {
+        return parentLogicalZipFile.physicalZipFile;
+    }
+
+    /**
+     * Get the offset of the entry's local header within its physical zipfile.
+     *
+     * @return the offset of the entry's local header within its physical zipfile.
+     */
+    public long getPhysicalLocHeaderPos() {
+        return parentLogicalZipFile.slice.sliceStartPos + locHeaderPos;
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
      */
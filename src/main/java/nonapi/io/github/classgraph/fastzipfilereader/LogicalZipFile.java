@@ -32,9 +32,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,7 +48,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import nonapi.io.github.classgraph.concurrency.WorkQueue;
 import nonapi.io.github.classgraph.fileslice.ArraySlice;
 import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
 import nonapi.io.github.classgraph.utils.CollectionUtils;
@@ -56,9 +66,15 @@ import nonapi.io.github.classgraph.utils.VersionFinder;
  * A logical zipfile, which represents a zipfile contained within a ZipFileSlice of a PhysicalZipFile.
  */
 public class LogicalZipFile extends ZipFileSlice {
-    /** The zipfile entries. */
+    /**
+     * The zipfile entries. This is an unmodifiable view of {@link #entryTable}, so a new {@link FastZipEntry} is
+     * returned each time an entry is accessed.
+     */
     public List<FastZipEntry> entries;
 
+    /** The zipfile entries, in compact form. */
+    ZipEntryTable entryTable;
+
     /** If true, this is a multi-release jar. */
     private boolean isMultiReleaseJar;
 
@@ -86,6 +102,18 @@ public class LogicalZipFile extends ZipFileSlice {
     /** If true, multi-release versions should not be stripped in resource names. */
     private final boolean enableMultiReleaseVersions;
 
+    /**
+     * The entries that were not read from the central directory because they cannot be accepted by the scan, or
+     * null if all entries were read.
+     */
+    private DeferredZipEntryIndex deferredEntries;
+
+    /** The package paths of the entries. */
+    ZipPackageIndex packageIndex;
+
+    /** The content fingerprint, or null if not yet computed. */
+    private String contentFingerprint;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** {@code "META_INF/"}. */
@@ -94,6 +122,15 @@ public class LogicalZipFile extends ZipFileSlice {
     /** {@code "META-INF/MANIFEST.MF"}. */
     private static final String MANIFEST_PATH = META_INF_PATH_PREFIX + "MANIFEST.MF";
 
+    /** {@code "META-INF/INDEX.LIST"}. */
+    private static final String INDEX_LIST_PATH = META_INF_PATH_PREFIX + "INDEX.LIST";
+
+    /** The minimum number of entries for the central directory to be read in parallel, if enabled. */
+    static final int MIN_ENTRIES_FOR_PARALLEL_PARSING = 16384;
+
+    /** The number of central directory records read per parallel task. */
+    private static final int PARALLEL_PARSING_CHUNK_SIZE = 4096;
+
     /** {@code "META-INF/versions/"}. */
     public static final String MULTI_RELEASE_PATH_PREFIX = META_INF_PATH_PREFIX + "versions/";
 
@@ -155,7 +192,28 @@ public class LogicalZipFile extends ZipFileSlice {
             final boolean enableMultiReleaseVersions) throws IOException, InterruptedException {
         super(zipFileSlice);
         this.enableMultiReleaseVersions = enableMultiReleaseVersions;
-        readCentralDirectory(nestedJarHandler, log);
+        final CentralDirectoryCache.Key cacheKey = nestedJarHandler.scanSpec.enableSharedJarMetadataCache
+                ? CentralDirectoryCache.getKey(zipFileSlice, enableMultiReleaseVersions)
+                : null;
+        CentralDirectoryCache.CentralDirectory centralDirectory = cacheKey == null ? null
+                : CentralDirectoryCache.acquire(cacheKey);
+        if (centralDirectory != null) {
+            // Reuse the central directory parsed by a previous or concurrent scan
+            isMultiReleaseJar = centralDirectory.initialize(this, enableMultiReleaseVersions);
+            if (log != null) {
+                log.log("Reusing cached central directory for " + cacheKey);
+            }
+        } else {
+            readCentralDirectory(nestedJarHandler, log);
+            if (cacheKey != null) {
+                centralDirectory = CentralDirectoryCache.add(cacheKey,
+                        new CentralDirectoryCache.CentralDirectory(this, isMultiReleaseJar));
+            }
+        }
+        if (centralDirectory != null) {
+            // Release the reference to the cached central directory when the scan is closed
+            nestedJarHandler.addCentralDirectoryCacheRef(centralDirectory);
+        }
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -425,6 +483,314 @@ public class LogicalZipFile extends ZipFileSlice {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /**
+     * Read a central directory entry.
+     *
+     * @param cenReader
+     *            the central directory reader
+     * @param entOff
+     *            the offset of the entry within the central directory
+     * @param locPos
+     *            the position of the first local file header
+     * @param log
+     *            the log
+     * @return the zip entry, or null if the entry should be skipped
+     * @throws IOException
+     *             If an I/O exception occurs.
+     */
+    private FastZipEntry readCentralDirectoryEntry(final RandomAccessReader cenReader, final long entOff,
+            final long locPos, final LogNode log) throws IOException {
+        final int filenameLen = cenReader.readUnsignedShort(entOff + 28);
+        final int extraFieldLen = cenReader.readUnsignedShort(entOff + 30);
+        final long filenameStartOff = entOff + 46;
+        final long filenameEndOff = filenameStartOff + filenameLen;
+        final String entryName = cenReader.readString(filenameStartOff, filenameLen);
+        String entryNameSanitized = FileUtils.sanitizeEntryPath(entryName, /* removeInitialSlash = */ true,
+                /* removeFinalSlash = */ false);
+        if (entryNameSanitized.isEmpty() || entryName.endsWith("/")) {
+            // Skip directory entries
+            return null;
+        }
+
+        // Check entry flag bits
+        final int flags = cenReader.readUnsignedShort(entOff + 8);
+        if ((flags & 1) != 0) {
+            if (log != null) {
+                log.log("Skipping encrypted zip entry: " + entryNameSanitized);
+            }
+            return null;
+        }
+
+        // Check compression method
+        final int compressionMethod = cenReader.readUnsignedShort(entOff + 10);
+        if (compressionMethod != /* stored */ 0 && compressionMethod != /* deflated */ 8) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid compression method " + compressionMethod + ": "
+                        + entryNameSanitized);
+            }
+            return null;
+        }
+        final boolean isDeflated = compressionMethod == /* deflated */ 8;
+
+        // Get compressed and uncompressed size
+        long compressedSize = (cenReader.readUnsignedInt(entOff + 20));
+        long uncompressedSize = (cenReader.readUnsignedInt(entOff + 24));
+
+        // Get external file attributes
+        final int fileAttributes = cenReader.readUnsignedShort(entOff + 40);
+
+        long pos = cenReader.readUnsignedInt(entOff + 42);
+
+        // Check for Zip64 header in extra fields
+        // See:
+        // https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT
+        // https://github.com/LuaDist/zip/blob/master/proginfo/extrafld.txt
+        long lastModifiedMillis = 0L;
+        if (extraFieldLen > 0) {
+            for (int extraFieldOff = 0; extraFieldOff + 4 < extraFieldLen;) {
+                final long tagOff = filenameEndOff + extraFieldOff;
+                final int tag = cenReader.readUnsignedShort(tagOff);
+                final int size = cenReader.readUnsignedShort(tagOff + 2);
+                if (extraFieldOff + 4 + size > extraFieldLen) {
+                    // Invalid size
+                    if (log != null) {
+                        log.log("Skipping zip entry with invalid extra field size: " + entryNameSanitized);
+                    }
+                    break;
+                }
+                if (tag == 1 && size >= 20) {
+                    // Zip64 extended information extra field
+                    final long uncompressedSize64 = cenReader.readLong(tagOff + 4 + 0);
+                    if (uncompressedSize == 0xffffffffL) {
+                        uncompressedSize = uncompressedSize64;
+                    } else if (uncompressedSize != uncompressedSize64) {
+                        throw new IOException("Mismatch in uncompressed size: " + uncompressedSize + " vs. "
+                                + uncompressedSize64 + ": " + entryNameSanitized);
+                    }
+                    final long compressedSize64 = cenReader.readLong(tagOff + 4 + 8);
+                    if (compressedSize == 0xffffffffL) {
+                        compressedSize = compressedSize64;
+                    } else if (compressedSize != compressedSize64) {
+                        throw new IOException("Mismatch in compressed size: " + compressedSize + " vs. "
+                                + compressedSize64 + ": " + entryNameSanitized);
+                    }
+                    // Only compressed size and uncompressed size are required fields
+                    if (size >= 28) {
+                        final long pos64 = cenReader.readLong(tagOff + 4 + 16);
+                        if (pos == 0xffffffffL) {
+                            pos = pos64;
+                        } else if (pos != pos64) {
+                            throw new IOException("Mismatch in entry pos: " + pos + " vs. " + pos64 + ": "
+                                    + entryNameSanitized);
+                        }
+                    }
+                    break;
+
+                } else if (tag == 0x5455 && size >= 5) {
+                    // Extended Unix timestamp
+                    final int bits = cenReader.readUnsignedByte(tagOff + 4 + 0);
+                    if ((bits & 1) == 1 && size >= 5 + 8) {
+                        lastModifiedMillis = cenReader.readLong(tagOff + 4 + 1) * 1000L;
+                    }
+
+                } else if (tag == 0x5855 && size >= 20) {
+                    // Unix extra field (deprecated)
+                    lastModifiedMillis = cenReader.readLong(tagOff + 4 + 8) * 1000L;
+                    // There are also optional UID and GID fields in this extra field (currently ignored)
+
+                } else if (tag == 0x7855) {
+                    // Info-ZIP Unix UID and GID fields (currently ignored)
+
+                } else if (tag == 0x7075) {
+                    // Info-ZIP Unicode path extra field
+                    final int version = cenReader.readUnsignedByte(tagOff + 4 + 0);
+                    if (version != 1) {
+                        throw new IOException("Unknown Unicode entry name format " + version
+                                + " in extra field: " + entryNameSanitized);
+                    } else if (size > 9) {
+                        // Replace non-Unicode entry name with Unicode version
+                        try {
+                            entryNameSanitized = cenReader.readString(tagOff + 9, size - 9);
+                        } catch (final IllegalArgumentException e) {
+                            throw new IOException("Malformed extended Unicode entry name for entry: "
+                                    + entryNameSanitized);
+                        }
+                    }
+                }
+                extraFieldOff += 4 + size;
+            }
+        }
+
+        int lastModifiedTimeMSDOS = 0;
+        int lastModifiedDateMSDOS = 0;
+        if (lastModifiedMillis == 0L) {
+            // If Unix timestamp was not provided, convert zip entry timestamp from MS-DOS format
+            lastModifiedTimeMSDOS = cenReader.readUnsignedShort(entOff + 12);
+            lastModifiedDateMSDOS = cenReader.readUnsignedShort(entOff + 14);
+        }
+
+        if (compressedSize < 0) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid compressed size (" + compressedSize + "): "
+                        + entryNameSanitized);
+            }
+            return null;
+        }
+        if (uncompressedSize < 0) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid uncompressed size (" + uncompressedSize + "): "
+                        + entryNameSanitized);
+            }
+            return null;
+        }
+        if (pos < 0) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid pos (" + pos + "): " + entryNameSanitized);
+            }
+            return null;
+        }
+
+        final long locHeaderPos = locPos + pos;
+        if (locHeaderPos < 0) {
+            if (log != null) {
+                log.log("Skipping zip entry with invalid loc header position (" + locHeaderPos + "): "
+                        + entryNameSanitized);
+            }
+            return null;
+        }
+        if (locHeaderPos + 4 >= slice.sliceLength) {
+            if (log != null) {
+                log.log("Unexpected EOF when trying to read LOC header: " + entryNameSanitized);
+            }
+            return null;
+        }
+
+        final int crc = cenReader.readInt(entOff + 16);
+
+        return new FastZipEntry(this, locHeaderPos, entryNameSanitized, isDeflated, compressedSize, uncompressedSize,
+                crc, lastModifiedMillis, lastModifiedTimeMSDOS, lastModifiedDateMSDOS, fileAttributes,
+                enableMultiReleaseVersions);
+    }
+
+    /**
+     * Get the executor to read central directory records in parallel with: the idle workers of the work queue
+     * that the current thread is a worker of, since during a scan all threads of the executor service of the scan
+     * are occupied by work queue workers; otherwise the executor service of the scan, if any.
+     *
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @return the executor, or null if there is none.
+     */
+    private static Executor getParallelParsingExecutor(final NestedJarHandler nestedJarHandler) {
+        if (nestedJarHandler.numParallelTasks < 2) {
+            return null;
+        }
+        final Executor helperExecutor = WorkQueue.getHelperExecutor();
+        return helperExecutor != null ? helperExecutor : nestedJarHandler.executorService;
+    }
+
+    /**
+     * Read central directory entries in parallel, and add them to {@link #entries} in the order of the given record
+     * offsets.
+     *
+     * @param cenReader
+     *            the central directory reader
+     * @param recordOffsets
+     *            the offsets of the central directory records to read
+     * @param numRecords
+     *            the number of valid offsets in recordOffsets
+     * @param locPos
+     *            the position of the first local file header
+     * @param executor
+     *            the executor to run chunk readers on, in addition to the current thread
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @param log
+     *            the log
+     * @return the manifest entry, or null if there is none
+     * @throws IOException
+     *             If an I/O exception occurs.
+     * @throws InterruptedException
+     *             if the thread was interrupted.
+     */
+    private FastZipEntry readCentralDirectoryEntriesInParallel(final RandomAccessReader cenReader,
+            final int[] recordOffsets, final int numRecords, final long locPos, final Executor executor,
+            final NestedJarHandler nestedJarHandler, final LogNode log) throws IOException, InterruptedException {
+        final FastZipEntry[] recordEntries = new FastZipEntry[numRecords];
+        final int numChunks = (numRecords + PARALLEL_PARSING_CHUNK_SIZE - 1) / PARALLEL_PARSING_CHUNK_SIZE;
+        final Exception[] chunkFailures = new Exception[numChunks];
+        final int[] chunkFailureIndices = new int[numChunks];
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch chunksDone = new CountDownLatch(numChunks);
+        final Set<Thread> readerThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+        final Runnable chunkReader = new Runnable() {
+            @Override
+            public void run() {
+                for (int chunk; (chunk = nextChunk.getAndIncrement()) < numChunks;) {
+                    readerThreads.add(Thread.currentThread());
+                    int i = chunk * PARALLEL_PARSING_CHUNK_SIZE;
+                    final int end = Math.min(numRecords, i + PARALLEL_PARSING_CHUNK_SIZE);
+                    try {
+                        for (; i < end; i++) {
+                            recordEntries[i] = readCentralDirectoryEntry(cenReader, recordOffsets[i], locPos, log);
+                        }
+                    } catch (final IOException | RuntimeException e) {
+                        chunkFailures[chunk] = e;
+                        chunkFailureIndices[chunk] = i;
+                    } finally {
+                        chunksDone.countDown();
+                    }
+                }
+            }
+        };
+
+        // The current thread reads chunks too, and only waits for chunks that other threads have started reading,
+        // so this cannot deadlock if all worker threads are busy
+        try {
+            for (int i = 1, n = Math.min(nestedJarHandler.numParallelTasks, numChunks); i < n; i++) {
+                executor.execute(chunkReader);
+            }
+        } catch (final RejectedExecutionException e) {
+            // Read the remaining chunks in the current thread
+        }
+        chunkReader.run();
+        chunksDone.await();
+
+        // Add entries in central directory order, stopping at the first failure
+        FastZipEntry manifestZipEntry = null;
+        for (int chunk = 0; chunk < numChunks; chunk++) {
+            final Exception failure = chunkFailures[chunk];
+            final int end = failure != null ? chunkFailureIndices[chunk]
+                    : Math.min(numRecords, (chunk + 1) * PARALLEL_PARSING_CHUNK_SIZE);
+            for (int i = chunk * PARALLEL_PARSING_CHUNK_SIZE; i < end; i++) {
+                final FastZipEntry entry = recordEntries[i];
+                if (entry != null) {
+                    entries.add(entry);
+                    if (entry.entryName.equals(MANIFEST_PATH)) {
+                        manifestZipEntry = entry;
+                    }
+                }
+            }
+            if (failure instanceof EOFException || failure instanceof IndexOutOfBoundsException) {
+                // Stop reading entries if any entry is not within file
+                if (log != null) {
+                    log.log("Reached premature EOF" + (entries.isEmpty() ? ""
+                            : " after reading zip entry " + entries.get(entries.size() - 1)));
+                }
+                break;
+            } else if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+        }
+        if (log != null) {
+            log.log("Read " + numRecords + " central directory entries in " + numChunks + " chunks using "
+                    + readerThreads.size() + " threads");
+        }
+        return manifestZipEntry;
+    }
+
     /**
      * Read the central directory of the zipfile.
      * 
@@ -546,6 +912,7 @@ public class LogicalZipFile extends ZipFileSlice {
         // Read entries into a byte array, if central directory is smaller than 2GB. If central directory
         // is larger than 2GB, need to read each entry field from the file directly using ZipFileSliceReader.
         RandomAccessReader cenReader;
+        byte[] cenBytes = null;
         if (cenSize > FileUtils.MAX_BUFFER_SIZE) {
             // Create a slice that covers the central directory (this allows a central directory larger than
             // 2GB to be accessed using the slower FileSlice API, which reads the file directly, but also
@@ -564,6 +931,7 @@ public class LogicalZipFile extends ZipFileSlice {
             }
             cenReader = new ArraySlice(entryBytes, /* isDeflatedZipEntry = */ false, /* inflatedSizeHint = */ 0L,
                     nestedJarHandler).randomAccessReader();
+            cenBytes = entryBytes;
         }
 
         if (numEnt == -1L) {
@@ -596,6 +964,25 @@ public class LogicalZipFile extends ZipFileSlice {
                     + " based on central directory size)");
         }
 
+        // If the scan has narrow accept criteria, only materialize entries that can match the accepted paths
+        // (only possible when the central directory is read into RAM, since its bytes are retained for lookups)
+        final ZipEntryNameFilter entryNameFilter = cenBytes == null ? null
+                : ZipEntryNameFilter.forScanSpec(nestedJarHandler.scanSpec);
+        final DeferredZipEntryIndex deferredEntryIndex = entryNameFilter == null ? null
+                : new DeferredZipEntryIndex(cenBytes, cenReader, locPos);
+
+        // For jarfiles with a very large number of entries, only locate the record boundaries while enumerating
+        // entries, then decode the records in parallel
+        final Executor parallelParsingExecutor = cenBytes != null && numEnt >= MIN_ENTRIES_FOR_PARALLEL_PARSING
+                && nestedJarHandler.scanSpec.enableParallelCentralDirectoryParsing
+                        ? getParallelParsingExecutor(nestedJarHandler)
+                        : null;
+        int[] recordOffsets = parallelParsingExecutor != null ? new int[(int) numEnt] : null;
+        int numRecords = 0;
+
+        // Index the package paths of all entries, including entries that are not decoded
+        final ZipPackageIndex entryPackageIndex = new ZipPackageIndex();
+
         // Enumerate entries
         entries = new ArrayList<>((int) numEnt);
         FastZipEntry manifestZipEntry = null;
@@ -612,7 +999,7 @@ public class LogicalZipFile extends ZipFileSlice {
                 final int commentLen = cenReader.readUnsignedShort(entOff + 32);
                 entSize = 46 + filenameLen + extraFieldLen + commentLen;
 
-                // Get and sanitize entry name
+                // Check entry name bounds
                 final long filenameStartOff = entOff + 46;
                 final long filenameEndOff = filenameStartOff + filenameLen;
                 if (filenameEndOff > cenSize) {
@@ -621,171 +1008,32 @@ public class LogicalZipFile extends ZipFileSlice {
                     }
                     break;
                 }
-                final String entryName = cenReader.readString(filenameStartOff, filenameLen);
-                String entryNameSanitized = FileUtils.sanitizeEntryPath(entryName, /* removeInitialSlash = */ true,
-                        /* removeFinalSlash = */ false);
-                if (entryNameSanitized.isEmpty() || entryName.endsWith("/")) {
-                    // Skip directory entries
-                    continue;
-                }
-
-                // Check entry flag bits
-                final int flags = cenReader.readUnsignedShort(entOff + 8);
-                if ((flags & 1) != 0) {
-                    if (log != null) {
-                        log.log("Skipping encrypted zip entry: " + entryNameSanitized);
-                    }
-                    continue;
-                }
-
-                // Check compression method
-                final int compressionMethod = cenReader.readUnsignedShort(entOff + 10);
-                if (compressionMethod != /* stored */ 0 && compressionMethod != /* deflated */ 8) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid compression method " + compressionMethod + ": "
-                                + entryNameSanitized);
+                if (entryNameFilter != null) {
+                    if (filenameLen > 0 && cenBytes[(int) filenameEndOff - 1] == '/') {
+                        // Skip directory entries
+                        continue;
                     }
-                    continue;
-                }
-                final boolean isDeflated = compressionMethod == /* deflated */ 8;
-
-                // Get compressed and uncompressed size
-                long compressedSize = (cenReader.readUnsignedInt(entOff + 20));
-                long uncompressedSize = (cenReader.readUnsignedInt(entOff + 24));
-
-                // Get external file attributes
-                final int fileAttributes = cenReader.readUnsignedShort(entOff + 40);
-
-                long pos = cenReader.readUnsignedInt(entOff + 42);
-
-                // Check for Zip64 header in extra fields
-                // See:
-                // https://pkware.cachefly.net/webdocs/casestudies/APPNOTE.TXT
-                // https://github.com/LuaDist/zip/blob/master/proginfo/extrafld.txt
-                long lastModifiedMillis = 0L;
-                if (extraFieldLen > 0) {
-                    for (int extraFieldOff = 0; extraFieldOff + 4 < extraFieldLen;) {
-                        final long tagOff = filenameEndOff + extraFieldOff;
-                        final int tag = cenReader.readUnsignedShort(tagOff);
-                        final int size = cenReader.readUnsignedShort(tagOff + 2);
-                        if (extraFieldOff + 4 + size > extraFieldLen) {
-                            // Invalid size
-                            if (log != null) {
-                                log.log("Skipping zip entry with invalid extra field size: " + entryNameSanitized);
-                            }
-                            break;
-                        }
-                        if (tag == 1 && size >= 20) {
-                            // Zip64 extended information extra field
-                            final long uncompressedSize64 = cenReader.readLong(tagOff + 4 + 0);
-                            if (uncompressedSize == 0xffffffffL) {
-                                uncompressedSize = uncompressedSize64;
-                            } else if (uncompressedSize != uncompressedSize64) {
-                                throw new IOException("Mismatch in uncompressed size: " + uncompressedSize + " vs. "
-                                        + uncompressedSize64 + ": " + entryNameSanitized);
-                            }
-                            final long compressedSize64 = cenReader.readLong(tagOff + 4 + 8);
-                            if (compressedSize == 0xffffffffL) {
-                                compressedSize = compressedSize64;
-                            } else if (compressedSize != compressedSize64) {
-                                throw new IOException("Mismatch in compressed size: " + compressedSize + " vs. "
-                                        + compressedSize64 + ": " + entryNameSanitized);
-                            }
-                            // Only compressed size and uncompressed size are required fields
-                            if (size >= 28) {
-                                final long pos64 = cenReader.readLong(tagOff + 4 + 16);
-                                if (pos == 0xffffffffL) {
-                                    pos = pos64;
-                                } else if (pos != pos64) {
-                                    throw new IOException("Mismatch in entry pos: " + pos + " vs. " + pos64 + ": "
-                                            + entryNameSanitized);
-                                }
-                            }
-                            break;
-
-                        } else if (tag == 0x5455 && size >= 5) {
-                            // Extended Unix timestamp
-                            final int bits = cenReader.readUnsignedByte(tagOff + 4 + 0);
-                            if ((bits & 1) == 1 && size >= 5 + 8) {
-                                lastModifiedMillis = cenReader.readLong(tagOff + 4 + 1) * 1000L;
-                            }
-
-                        } else if (tag == 0x5855 && size >= 20) {
-                            // Unix extra field (deprecated)
-                            lastModifiedMillis = cenReader.readLong(tagOff + 4 + 8) * 1000L;
-                            // There are also optional UID and GID fields in this extra field (currently ignored)
-
-                        } else if (tag == 0x7855) {
-                            // Info-ZIP Unix UID and GID fields (currently ignored)
-
-                        } else if (tag == 0x7075) {
-                            // Info-ZIP Unicode path extra field
-                            final int version = cenReader.readUnsignedByte(tagOff + 4 + 0);
-                            if (version != 1) {
-                                throw new IOException("Unknown Unicode entry name format " + version
-                                        + " in extra field: " + entryNameSanitized);
-                            } else if (size > 9) {
-                                // Replace non-Unicode entry name with Unicode version
-                                try {
-                                    entryNameSanitized = cenReader.readString(tagOff + 9, size - 9);
-                                } catch (final IllegalArgumentException e) {
-                                    throw new IOException("Malformed extended Unicode entry name for entry: "
-                                            + entryNameSanitized);
-                                }
-                            }
-                        }
-                        extraFieldOff += 4 + size;
-                    }
-                }
-
-                int lastModifiedTimeMSDOS = 0;
-                int lastModifiedDateMSDOS = 0;
-                if (lastModifiedMillis == 0L) {
-                    // If Unix timestamp was not provided, convert zip entry timestamp from MS-DOS format
-                    lastModifiedTimeMSDOS = cenReader.readUnsignedShort(entOff + 12);
-                    lastModifiedDateMSDOS = cenReader.readUnsignedShort(entOff + 14);
-                }
-
-                if (compressedSize < 0) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid compressed size (" + compressedSize + "): "
-                                + entryNameSanitized);
-                    }
-                    continue;
-                }
-                if (uncompressedSize < 0) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid uncompressed size (" + uncompressedSize + "): "
-                                + entryNameSanitized);
+                    if (!entryNameFilter.canMatch(cenBytes, (int) filenameStartOff, filenameLen, extraFieldLen)) {
+                        // Entry cannot be accepted -- defer decoding the entry name until the entry is looked up
+                        entryPackageIndex.add(cenBytes, (int) filenameStartOff, filenameLen);
+                        deferredEntryIndex.add((int) entOff);
+                        continue;
                     }
-                    continue;
                 }
-                if (pos < 0) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid pos (" + pos + "): " + entryNameSanitized);
+                if (recordOffsets != null) {
+                    if (numRecords == recordOffsets.length) {
+                        // numEnt was smaller than the actual number of records
+                        recordOffsets = Arrays.copyOf(recordOffsets, numRecords * 2);
                     }
+                    recordOffsets[numRecords++] = (int) entOff;
                     continue;
                 }
 
-                final long locHeaderPos = locPos + pos;
-                if (locHeaderPos < 0) {
-                    if (log != null) {
-                        log.log("Skipping zip entry with invalid loc header position (" + locHeaderPos + "): "
-                                + entryNameSanitized);
-                    }
-                    continue;
-                }
-                if (locHeaderPos + 4 >= slice.sliceLength) {
-                    if (log != null) {
-                        log.log("Unexpected EOF when trying to read LOC header: " + entryNameSanitized);
-                    }
+                // Add zip entry
+                final FastZipEntry entry = readCentralDirectoryEntry(cenReader, entOff, locPos, log);
+                if (entry == null) {
                     continue;
                 }
-
-                // Add zip entry
-                final FastZipEntry entry = new FastZipEntry(this, locHeaderPos, entryNameSanitized, isDeflated,
-                        compressedSize, uncompressedSize, lastModifiedMillis, lastModifiedTimeMSDOS,
-                        lastModifiedDateMSDOS, fileAttributes, enableMultiReleaseVersions);
                 entries.add(entry);
 
                 // Record manifest entry
@@ -800,12 +1048,50 @@ public class LogicalZipFile extends ZipFileSlice {
                         + (entries.isEmpty() ? "" : " after reading zip entry " + entries.get(entries.size() - 1)));
             }
         }
+        if (recordOffsets != null) {
+            manifestZipEntry = readCentralDirectoryEntriesInParallel(cenReader, recordOffsets, numRecords, locPos,
+                    parallelParsingExecutor, nestedJarHandler, log);
+        }
+        if (deferredEntryIndex != null && deferredEntryIndex.size() > 0) {
+            deferredEntryIndex.finish();
+            deferredEntries = deferredEntryIndex;
+            if (log != null) {
+                log.log("Skipped reading " + deferredEntryIndex.size()
+                        + " zip entries that are not within an accepted path");
+            }
+        }
+
+        // Index the package paths of the decoded entries (both versioned and unversioned), and find any JarIndex
+        FastZipEntry indexListZipEntry = null;
+        for (final FastZipEntry entry : entries) {
+            entryPackageIndex.add(entry.entryName);
+            if (entry.version > 8) {
+                entryPackageIndex.add(entry.entryNameUnversioned);
+            } else if (entry.entryName.equals(INDEX_LIST_PATH)) {
+                indexListZipEntry = entry;
+            }
+        }
 
         // Parse manifest file, if present
         if (manifestZipEntry != null) {
             parseManifest(manifestZipEntry, log);
         }
 
+        // Add the package paths listed in the JarIndex, if present
+        if (indexListZipEntry != null) {
+            try {
+                if (!entryPackageIndex.addIndexList(indexListZipEntry.getSlice().load()) && log != null) {
+                    log.log("Ignoring " + INDEX_LIST_PATH + " in unknown format");
+                }
+            } catch (final IOException e) {
+                if (log != null) {
+                    log.log("Could not read " + INDEX_LIST_PATH, e);
+                }
+            }
+        }
+        entryPackageIndex.finish();
+        packageIndex = entryPackageIndex;
+
         // For multi-release jars, drop any older or non-versioned entries that are masked by the most recent
         // version-specific entry
         if (isMultiReleaseJar) {
@@ -852,6 +1138,146 @@ public class LogicalZipFile extends ZipFileSlice {
                 entries = unversionedZipEntriesMasked;
             }
         }
+
+        // Store the entries in compact form, so that FastZipEntry objects are not retained for every entry
+        setEntryTable(new ZipEntryTable(entries));
+    }
+
+    /**
+     * Set the zipfile entries.
+     *
+     * @param entryTable
+     *            the zipfile entries, in compact form
+     */
+    void setEntryTable(final ZipEntryTable entryTable) {
+        this.entryTable = entryTable;
+        this.entries = entryTable.asList(this, enableMultiReleaseVersions);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get the number of zipfile entries that were not added to {@link #entries}, because their names could not
+     * match any accepted path of the scan.
+     *
+     * @return the number of entries that were not read
+     */
+    public int getNumDeferredEntries() {
+        return deferredEntries == null ? 0 : deferredEntries.size();
+    }
+
+    /**
+     * Look up an entry that was not added to {@link #entries}, because its name could not match any accepted path
+     * of the scan.
+     *
+     * @param entryName
+     *            the entry name
+     * @return the entry, or null if there is no entry with this name that was not read
+     */
+    public FastZipEntry getDeferredEntry(final String entryName) {
+        if (deferredEntries == null) {
+            return null;
+        }
+        final int entOff = deferredEntries.find(entryName);
+        if (entOff < 0) {
+            return null;
+        }
+        try {
+            final FastZipEntry entry = readCentralDirectoryEntry(deferredEntries.cenReader, entOff,
+                    deferredEntries.locPos, /* log = */ null);
+            return entry != null && entry.entryName.equals(entryName) ? entry : null;
+        } catch (final IOException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get an entry by name, whether or not the entry was added to {@link #entries}. This is an O(N) operation.
+     *
+     * @param entryName
+     *            the entry name
+     * @return the entry, or null if there is no entry with this name
+     */
+    public FastZipEntry getEntry(final String entryName) {
+        final int idx = entryTable.indexOf(entryName);
+        return idx >= 0 ? entries.get(idx) : getDeferredEntry(entryName);
+    }
+
+    /**
+     * Check if the name of any entry starts with the given prefix, whether or not the entry was added to
+     * {@link #entries}. This is an O(N) operation.
+     *
+     * @param prefix
+     *            the prefix
+     * @return true if there is an entry whose name starts with the prefix
+     */
+    public boolean hasEntryWithPrefix(final String prefix) {
+        return entryTable.hasEntryWithPrefix(prefix)
+                || deferredEntries != null && deferredEntries.hasEntryWithPrefix(prefix);
+    }
+
+    /**
+     * Get the package paths of all entries of this zipfile, including entries that were not added to
+     * {@link #entries}, and any package paths listed for this zipfile in {@code META-INF/INDEX.LIST}. Package paths
+     * do not have a final '/', and the root package path is "". For multi-release jars, both the versioned and the
+     * unversioned package paths of versioned entries are included.
+     *
+     * @return the package paths
+     */
+    public Set<String> getPackagePaths() {
+        return packageIndex.getPackagePaths();
+    }
+
+    /**
+     * Check whether this zipfile may contain an entry in the package of the given entry name. This is an O(1)
+     * operation.
+     *
+     * @param entryName
+     *            the entry name
+     * @return false if there is no entry in the package of the given entry name
+     */
+    public boolean containsPackageOf(final String entryName) {
+        return packageIndex.containsPackageOf(entryName);
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Get a fingerprint of the content of this zipfile, from the zipfile size and the SHA-256 hash of the names,
+     * CRC-32 values and sizes of the entries in the central directory. Entries that were not materialized because
+     * they are outside the accepted paths are included, from their raw central directory records. Zipfiles with the
+     * same fingerprint can be assumed to have the same content, without reading the content of any entries.
+     *
+     * @return the fingerprint, as a hex string
+     */
+    public synchronized String getContentFingerprint() {
+        if (contentFingerprint == null) {
+            try {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                final ByteBuffer entryFields = ByteBuffer.allocate(21);
+                for (final FastZipEntry entry : entries) {
+                    digest.update(entry.entryName.getBytes(StandardCharsets.UTF_8));
+                    ((Buffer) entryFields).clear();
+                    entryFields.put((byte) 0).putInt(entry.crc).putLong(entry.compressedSize)
+                            .putLong(entry.uncompressedSize);
+                    digest.update(entryFields.array());
+                }
+                if (deferredEntries != null) {
+                    deferredEntries.updateDigest(digest);
+                }
+                final StringBuilder buf = new StringBuilder();
+                buf.append(slice.sliceLength).append(':').append(getNumDeferredEntries()).append(':');
+                for (final byte b : digest.digest()) {
+                    buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+                    buf.append(Character.forDigit(b & 0xf, 16));
+                }
+                contentFingerprint = buf.toString();
+            } catch (final NoSuchAlgorithmException e) {
+                // Every JRE is required to support SHA-256
+                throw new RuntimeException(e);
+            }
+        }
+        return contentFingerprint;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
@@ -42,6 +43,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.FileSystem;
@@ -53,9 +55,11 @@ import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
@@ -68,7 +72,10 @@ import io.github.classgraph.ScanResult;
 import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
 import nonapi.io.github.classgraph.concurrency.SingletonMap;
 import nonapi.io.github.classgraph.fileslice.ArraySlice;
+import nonapi.io.github.classgraph.fileslice.ByteBufferSlice;
 import nonapi.io.github.classgraph.fileslice.FileSlice;
+import nonapi.io.github.classgraph.fileslice.HttpRangeSlice;
+import nonapi.io.github.classgraph.fileslice.IndexedInflateSlice;
 import nonapi.io.github.classgraph.fileslice.Slice;
 import nonapi.io.github.classgraph.recycler.Recycler;
 import nonapi.io.github.classgraph.recycler.Resettable;
@@ -124,14 +131,55 @@ public class NestedJarHandler {
                             + childZipEntry.uncompressedSize);
                 }
 
-                // Read the InputStream for the child zip entry to a RAM buffer, or spill to
-                // disk if it's too large
-                final PhysicalZipFile physicalZipFile = new PhysicalZipFile(childZipEntry.getSlice().open(),
-                        childZipEntry.uncompressedSize >= 0L
-                                && childZipEntry.uncompressedSize <= FileUtils.MAX_BUFFER_SIZE
-                                        ? (int) childZipEntry.uncompressedSize
-                                        : -1,
-                        childZipEntry.entryName, NestedJarHandler.this, log);
+                PhysicalZipFile physicalZipFile = null;
+                if (extractedJarCache != null
+                        && childZipEntry.uncompressedSize > scanSpec.maxBufferedJarRAMSize) {
+                    // The child zip entry would be spilled to disk -- instead, extract it into the
+                    // persistent cache, or reuse a previous extraction
+                    try {
+                        physicalZipFile = new PhysicalZipFile(
+                                new FileSlice(extractedJarCache.getOrExtract(childZipEntry, log),
+                                        NestedJarHandler.this, log),
+                                childZipEntry.entryName, NestedJarHandler.this);
+                    } catch (final IOException e) {
+                        if (log != null) {
+                            log.log("Could not use extraction cache for nested zip entry " + childZipEntry
+                                    + " : " + e);
+                        }
+                    }
+                }
+                if (physicalZipFile == null && scanSpec.enableInflateCheckpoints
+                        && (childZipEntry.uncompressedSize < 0L
+                                || childZipEntry.uncompressedSize > scanSpec.maxBufferedJarRAMSize)) {
+                    // The child zip entry would be spilled to disk -- instead, index the deflated
+                    // stream, so that the child zipfile can be read by resuming inflation from the
+                    // nearest checkpoint
+                    try {
+                        final IndexedInflateSlice indexedInflateSlice = new IndexedInflateSlice(
+                                childZipEntry.getSlice(), NestedJarHandler.this);
+                        if (log != null) {
+                            log.log("Indexed deflated nested zip entry " + childZipEntry + " with "
+                                    + indexedInflateSlice.getNumCheckpoints() + " inflate checkpoints");
+                        }
+                        physicalZipFile = new PhysicalZipFile(indexedInflateSlice, childZipEntry.entryName,
+                                NestedJarHandler.this);
+                    } catch (final IOException e) {
+                        if (log != null) {
+                            log.log("Could not index deflated nested zip entry " + childZipEntry
+                                    + " -- extracting instead: " + e);
+                        }
+                    }
+                }
+                if (physicalZipFile == null) {
+                    // Read the InputStream for the child zip entry to a RAM buffer, or spill to
+                    // disk if it's too large
+                    physicalZipFile = new PhysicalZipFile(childZipEntry.getSlice().open(),
+                            childZipEntry.uncompressedSize >= 0L
+                                    && childZipEntry.uncompressedSize <= FileUtils.MAX_BUFFER_SIZE
+                                            ? (int) childZipEntry.uncompressedSize
+                                            : -1,
+                            childZipEntry.entryName, NestedJarHandler.this, log);
+                }
 
                 // Create a new logical slice of the extracted inner zipfile
                 childZipEntrySlice = new ZipFileSlice(physicalZipFile, childZipEntry);
@@ -190,7 +238,8 @@ public class NestedJarHandler {
                             }
 
                             // Download jar from URL to a ByteBuffer in RAM, or to a temp file on disk
-                            physicalZipFile = downloadJarFromURL(nestedJarPath, log);
+                            physicalZipFile = downloadJarFromURL(nestedJarPath,
+                                    scanSpec.enableHttpRangeRequests, /* useDownloadCache = */ true, log);
 
                         } else {
                             // Jarfile should be a local file -- wrap in a PhysicalZipFile instance
@@ -275,24 +324,14 @@ public class NestedJarHandler {
                             // every jarfile would generally be more expensive than performing this linear
                             // search, and unless the classpath is enormous, the overall time performance
                             // will not tend towards O(N^2).
-                            for (final FastZipEntry entry : parentLogicalZipFile.entries) {
-                                if (entry.entryName.equals(childPath)) {
-                                    childZipEntry = entry;
-                                    break;
-                                }
-                            }
+                            childZipEntry = parentLogicalZipFile.getEntry(childPath);
                         }
                         if (childZipEntry == null) {
                             // If there is no non-directory zipfile entry with a name matching the child
                             // path,
                             // test to see if any entries in the zipfile have the child path as a dir prefix
                             final String childPathPrefix = childPath + "/";
-                            for (final FastZipEntry entry : parentLogicalZipFile.entries) {
-                                if (entry.entryName.startsWith(childPathPrefix)) {
-                                    isDirectory = true;
-                                    break;
-                                }
-                            }
+                            isDirectory = parentLogicalZipFile.hasEntryWithPrefix(childPathPrefix);
                         }
                         // At this point, either isDirectory is true, or childZipEntry is non-null
 
@@ -393,6 +432,23 @@ public class NestedJarHandler {
         }
     };
 
+    /** The cached central directories used by this {@link NestedJarHandler}, released on close. */
+    private List<CentralDirectoryCache.CentralDirectory> centralDirectoryCacheRefs = Collections
+            .synchronizedList(new ArrayList<CentralDirectoryCache.CentralDirectory>());
+
+    /**
+     * The pool of off-heap buffers. Holds the buffers that small deflated zip entries are inflated into by
+     * {@link #inflateToPooledBuffer(ByteBuffer, int)}, and also large inflated or downloaded content if
+     * {@link ScanSpec#maxOffHeapBufferSize} is positive.
+     */
+    private final DirectBufferPool offHeapBufferPool;
+
+    /** The cache of extracted nested jarfiles, or null if not enabled. */
+    private final ExtractedJarCache extractedJarCache;
+
+    /** The cache of jarfiles downloaded from http(s) URLs, or null if not enabled. */
+    private final RemoteJarCache remoteJarCache;
+
     /** {@link FileSlice} instances that are currently open. */
     private Set<Slice> openSlices = Collections.newSetFromMap(new ConcurrentHashMap<Slice, Boolean>());
 
@@ -408,12 +464,40 @@ public class NestedJarHandler {
     /** The interruption checker. */
     public InterruptionChecker interruptionChecker;
 
+    /**
+     * The executor service of the scan, or null if not set. Only used to parallelize work within a single jarfile
+     * when the jarfile is not opened by a work queue worker (otherwise the idle workers of the work queue
+     * are used instead, since the threads of the executor service are all occupied by workers).
+     */
+    ExecutorService executorService;
+
+    /** The number of parallel tasks that may be used to parallelize work within a single jarfile. */
+    int numParallelTasks = 1;
+
+    /**
+     * The number of parallel tasks that may be used for I/O-bound work within a single classpath element. This is
+     * higher than {@link #numParallelTasks} if the worker threads are virtual threads.
+     */
+    private int numIOParallelTasks = 1;
+
     /** The default size of a file buffer. */
     private static final int DEFAULT_BUFFER_SIZE = 16384;
 
     /** The maximum initial buffer size. */
     private static final int MAX_INITIAL_BUFFER_SIZE = 16 * 1024 * 1024;
 
+    /**
+     * The size of the pooled direct buffers that deflated zip entries are inflated into. Entries that are larger
+     * than this when inflated (which is rare for classfiles) are inflated through an {@link InputStream}.
+     */
+    public static final int INFLATED_BUFFER_SIZE = DirectBufferPool.MIN_BUFFER_SIZE;
+
+    /**
+     * The maximum total size of the off-heap buffers that small deflated zip entries are inflated into, if
+     * {@link ScanSpec#maxOffHeapBufferSize} is not positive.
+     */
+    private static final long DEFAULT_MAX_INFLATED_BUFFER_POOL_SIZE = 256L * INFLATED_BUFFER_SIZE;
+
     /** HTTP(S) timeout, ms. */
     private static final int HTTP_TIMEOUT = 5000;
 
@@ -432,6 +516,57 @@ public class NestedJarHandler {
         this.scanSpec = scanSpec;
         this.interruptionChecker = interruptionChecker;
         this.reflectionUtils = reflectionUtils;
+        this.extractedJarCache = scanSpec.nestedJarExtractionCacheDir == null ? null
+                : new ExtractedJarCache(scanSpec.nestedJarExtractionCacheDir,
+                        scanSpec.nestedJarExtractionCacheMaxSize);
+        this.remoteJarCache = scanSpec.remoteJarCacheDir == null ? null
+                : new RemoteJarCache(scanSpec.remoteJarCacheDir, scanSpec.remoteJarCacheMaxSize);
+        this.offHeapBufferPool = new DirectBufferPool(scanSpec.maxOffHeapBufferSize > 0L
+                ? scanSpec.maxOffHeapBufferSize
+                : DEFAULT_MAX_INFLATED_BUFFER_POOL_SIZE, this);
+    }
+
+    /**
+     * Set the executor service of the scan, which is used to parallelize work within a single jarfile.
+     *
+     * @param executorService
+     *            the executor service
+     * @param numParallelTasks
+     *            the number of parallel tasks that may be run using the executor service
+     */
+    public void setExecutorService(final ExecutorService executorService, final int numParallelTasks) {
+        this.executorService = executorService;
+        this.numParallelTasks = numParallelTasks;
+        this.numIOParallelTasks = numParallelTasks;
+    }
+
+    /**
+     * Set the number of parallel tasks that may be used for I/O-bound work, if it is higher than the number of
+     * parallel tasks passed to {@link #setExecutorService(ExecutorService, int)}.
+     *
+     * @param numIOParallelTasks
+     *            the number of parallel tasks for I/O-bound work
+     */
+    public void setNumIOParallelTasks(final int numIOParallelTasks) {
+        this.numIOParallelTasks = numIOParallelTasks;
+    }
+
+    /**
+     * Get the number of parallel tasks of the scan.
+     *
+     * @return the number of parallel tasks that may be used to parallelize work within a single classpath element
+     */
+    public int getNumParallelTasks() {
+        return numParallelTasks;
+    }
+
+    /**
+     * Get the number of parallel tasks of the scan for I/O-bound work, such as walking a directory tree.
+     *
+     * @return the number of parallel tasks that may be used for I/O-bound work within a single classpath element
+     */
+    public int getNumIOParallelTasks() {
+        return numIOParallelTasks;
     }
 
     // -------------------------------------------------------------------------------------------------------------
@@ -522,12 +657,26 @@ public class NestedJarHandler {
      * Download a jar from a URL to a temporary file, or to a ByteBuffer if the temporary directory is not writeable
      * or full. The downloaded jar is returned wrapped in a {@link PhysicalZipFile} instance.
      *
+     * <p>
+     * If tryRangeRequests is true and the server supports HTTP {@code Range} requests, the jar is not downloaded;
+     * instead it is wrapped in an {@link HttpRangeSlice}, which only fetches the parts of the jar that are read.
+     *
+     * <p>
+     * If useDownloadCache is true and the download cache is enabled, the jar is downloaded into the download cache
+     * (if the server returns an {@code ETag} or {@code Last-Modified} header), or if the jar is already in the
+     * download cache, a conditional request is sent, and the cached copy is used if the jar has not changed. The
+     * download cache takes precedence over range requests.
+     *
      * @param jarURL
      *            the jar URL
+     * @param tryRangeRequests
+     *            if true, try reading an http(s) jar using range requests before falling back to downloading it.
+     * @param useDownloadCache
+     *            if true, use the download cache for http(s) jars, if it is enabled.
      * @param log
      *            the log
-     * @return the temporary file or {@link ByteBuffer} the jar was downloaded to, wrapped in a
-     *         {@link PhysicalZipFile} instance.
+     * @return the temporary file or {@link ByteBuffer} the jar was downloaded to, or the {@link HttpRangeSlice}
+     *         the jar is read through, wrapped in a {@link PhysicalZipFile} instance.
      * @throws IOException
      *             If the jar could not be downloaded, or the jar URL is malformed.
      * @throws InterruptedException
@@ -537,7 +686,8 @@ public class NestedJarHandler {
      *             as a separate exception from IOException, so that the case of an unwriteable temp dir can be
      *             handled separately, by downloading the jar to a ByteBuffer in RAM.)
      */
-    private PhysicalZipFile downloadJarFromURL(final String jarURL, final LogNode log)
+    private PhysicalZipFile downloadJarFromURL(final String jarURL, final boolean tryRangeRequests,
+            final boolean useDownloadCache, final LogNode log)
             throws IOException, InterruptedException {
         URL url = null;
         try {
@@ -573,8 +723,50 @@ public class NestedJarHandler {
         try (final CloseableUrlConnection urlConn = new CloseableUrlConnection(url)) {
             long contentLengthHint = -1L;
             urlConn.conn.setConnectTimeout(HTTP_TIMEOUT);
+            final boolean useRemoteJarCache = useDownloadCache && remoteJarCache != null
+                    && urlConn.httpConn != null;
+            final RemoteJarCache.CachedJar cachedJar = useRemoteJarCache ? remoteJarCache.get(jarURL) : null;
+            if (cachedJar != null) {
+                // Only download the jar if it has changed since it was cached
+                if (cachedJar.eTag != null) {
+                    urlConn.conn.setRequestProperty("If-None-Match", cachedJar.eTag);
+                }
+                if (cachedJar.lastModified != null) {
+                    urlConn.conn.setRequestProperty("If-Modified-Since", cachedJar.lastModified);
+                }
+            }
+            final boolean sendRangeRequest = tryRangeRequests && urlConn.httpConn != null && !useRemoteJarCache;
+            if (sendRangeRequest) {
+                // Request only the first block -- if the server ignores the Range header, the whole jar is
+                // returned with response code 200, and is downloaded below
+                urlConn.conn.setRequestProperty("Range", "bytes=0-" + (HttpRangeSlice.BLOCK_SIZE - 1));
+            }
             urlConn.conn.connect();
             if (urlConn.httpConn != null) {
+                if (cachedJar != null
+                        && urlConn.httpConn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    remoteJarCache.markUsed(cachedJar);
+                    if (log != null) {
+                        log.log("Jar at URL " + jarURL + " has not changed, using cached copy " + cachedJar.file);
+                    }
+                    return new PhysicalZipFile(new FileSlice(cachedJar.file, this, log), jarURL, this);
+                }
+                if (sendRangeRequest
+                        && urlConn.httpConn.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                    final HttpRangeSlice rangeSlice = HttpRangeSlice.fromPartialResponse(urlConn.httpConn, this);
+                    if (rangeSlice == null) {
+                        // Total length of jar or validator is unknown -- download the whole jar instead
+                        if (log != null) {
+                            log.log("Server did not return the length or an ETag or Last-Modified header for "
+                                    + jarURL + " -- falling back to downloading the whole jar");
+                        }
+                        return downloadJarFromURL(jarURL, /* tryRangeRequests = */ false, useDownloadCache, log);
+                    }
+                    if (log != null) {
+                        log.log("Reading jar from URL " + jarURL + " using HTTP range requests");
+                    }
+                    return new PhysicalZipFile(rangeSlice, jarURL, this);
+                }
                 // Get content length from HTTP headers, if available
                 if (urlConn.httpConn.getResponseCode() != HttpURLConnection.HTTP_OK) {
                     throw new IOException(
@@ -603,6 +795,25 @@ public class NestedJarHandler {
             }
             // Fetch content from URL
             final LogNode subLog = log == null ? null : log.log("Downloading jar from URL " + jarURL);
+            if (useRemoteJarCache) {
+                final String eTag = urlConn.httpConn.getHeaderField("ETag");
+                final String lastModified = urlConn.httpConn.getHeaderField("Last-Modified");
+                if (eTag != null || lastModified != null) {
+                    // Download the jar into the download cache, so that later scans can send a conditional request
+                    File file;
+                    try (InputStream inputStream = urlConn.conn.getInputStream()) {
+                        file = remoteJarCache.put(jarURL, inputStream, contentLengthHint, eTag, lastModified,
+                                subLog);
+                    } catch (final IOException e) {
+                        if (subLog != null) {
+                            subLog.log("Could not download jar into download cache, downloading again without"
+                                    + " the cache : " + e);
+                        }
+                        return downloadJarFromURL(jarURL, tryRangeRequests, /* useDownloadCache = */ false, log);
+                    }
+                    return new PhysicalZipFile(new FileSlice(file, this, log), jarURL, this);
+                }
+            }
             try (InputStream inputStream = urlConn.conn.getInputStream()) {
                 // Fetch the jar contents from the URL's InputStream. If it doesn't fit in RAM,
                 // spill over to disk.
@@ -641,6 +852,26 @@ public class NestedJarHandler {
 
     // -------------------------------------------------------------------------------------------------------------
 
+    /** The {@code Inflater#setInput(ByteBuffer)} method (JDK 11+), or null if not available. */
+    private static final Method INFLATER_SET_INPUT_BYTE_BUFFER;
+
+    /** The {@code Inflater#inflate(ByteBuffer)} method (JDK 11+), or null if not available. */
+    private static final Method INFLATER_INFLATE_BYTE_BUFFER;
+
+    static {
+        Method setInput = null;
+        Method inflate = null;
+        try {
+            setInput = Inflater.class.getMethod("setInput", ByteBuffer.class);
+            inflate = Inflater.class.getMethod("inflate", ByteBuffer.class);
+        } catch (final ReflectiveOperationException | SecurityException e) {
+            setInput = null;
+            inflate = null;
+        }
+        INFLATER_SET_INPUT_BYTE_BUFFER = setInput;
+        INFLATER_INFLATE_BYTE_BUFFER = inflate;
+    }
+
     /**
      * Wrapper class that allows an {@link Inflater} instance to be reset for reuse and then recycled by a
      * {@link Recycler}.
@@ -827,6 +1058,182 @@ public class NestedJarHandler {
         };
     }
 
+    /**
+     * Check whether {@link Inflater} can read from and inflate into {@link ByteBuffer} instances (JDK 11+).
+     *
+     * @return true if {@link #inflateToPooledBuffer(ByteBuffer, int)} is supported.
+     */
+    public static boolean canInflateByteBuffers() {
+        return INFLATER_INFLATE_BYTE_BUFFER != null;
+    }
+
+    /**
+     * Inflate deflated zip entry data straight from a {@link ByteBuffer} (typically a view of a memory mapped or
+     * in-memory jarfile) into a pooled direct buffer, using a recycled {@link Inflater}. This avoids the
+     * {@link InputStream} wrapper and the intermediate arrays of {@link #openInflaterInputStream(InputStream)}.
+     * The returned buffer must be released by calling {@link #recycleInflatedBuffer(ByteBuffer)} once it is no
+     * longer needed.
+     *
+     * @param deflatedBuf
+     *            the deflated data, from its position to its limit. The position of the buffer is not changed.
+     * @param inflatedLength
+     *            the inflated length of the data, which must be no greater than {@link #INFLATED_BUFFER_SIZE}.
+     * @return the inflated data, with position 0 and limit equal to the inflated length, or null if
+     *         {@link #canInflateByteBuffers()} is false, the maximum total size of the off-heap buffers would be
+     *         exceeded, or the deflated data is truncated or does not inflate
+     *         to exactly the inflated length (in which case the caller should fall back to inflating the data
+     *         through an {@link InputStream}, which does not depend upon the inflated length).
+     * @throws IOException
+     *             if the data could not be inflated.
+     */
+    public ByteBuffer inflateToPooledBuffer(final ByteBuffer deflatedBuf, final int inflatedLength)
+            throws IOException {
+        if (!canInflateByteBuffers()) {
+            return null;
+        } else if (inflatedLength < 0 || inflatedLength > INFLATED_BUFFER_SIZE) {
+            throw new IllegalArgumentException("inflatedLength out of range");
+        }
+        final ByteBuffer inflatedBuf = offHeapBufferPool.allocate(inflatedLength);
+        if (inflatedBuf == null) {
+            return null;
+        }
+        final RecyclableInflater recyclableInflater = inflaterRecycler.acquire();
+        boolean succeeded = false;
+        try {
+            final Inflater inflater = recyclableInflater.getInflater();
+            INFLATER_SET_INPUT_BYTE_BUFFER.invoke(inflater, deflatedBuf.duplicate());
+            // Inflate into the whole capacity of the buffer, so that an underestimated inflated length is detected
+            // without depending on whether the inflater reads the end of the deflated data once the buffer is full
+            ((Buffer) inflatedBuf).limit(inflatedBuf.capacity());
+            boolean addedDummyByte = false;
+            while (!inflater.finished()) {
+                final int numInflatedBytes = (Integer) INFLATER_INFLATE_BYTE_BUFFER.invoke(inflater, inflatedBuf);
+                if (numInflatedBytes == 0 && !inflater.finished()) {
+                    if (inflater.needsDictionary()) {
+                        // Should not happen for jarfiles
+                        throw new IOException("Inflater needs preset dictionary");
+                    } else if (inflater.needsInput()) {
+                        if (addedDummyByte) {
+                            // Deflated data is truncated
+                            return null;
+                        }
+                        // An extra dummy byte is needed at the end of the input when using the "nowrap"
+                        // Inflater option. See: ZipFile.ZipFileInflaterInputStream.fill()
+                        INFLATER_SET_INPUT_BYTE_BUFFER.invoke(inflater, ByteBuffer.wrap(new byte[1]));
+                        addedDummyByte = true;
+                    } else if (!inflatedBuf.hasRemaining()) {
+                        // The inflated data does not fit in the buffer
+                        return null;
+                    }
+                }
+            }
+            if (!inflater.finished() || inflatedBuf.position() != inflatedLength) {
+                // The inflated length was overestimated or underestimated (the buffer is recycled in finally)
+                return null;
+            }
+            ((Buffer) inflatedBuf).flip();
+            succeeded = true;
+            return inflatedBuf;
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof DataFormatException) {
+                throw new ZipException(
+                        cause.getMessage() != null ? cause.getMessage() : "Invalid deflated zip entry data");
+            }
+            throw new IOException("Could not inflate zip entry data", cause);
+        } catch (final IllegalAccessException e) {
+            throw new IOException("Could not inflate zip entry data", e);
+        } finally {
+            inflaterRecycler.recycle(recyclableInflater);
+            if (!succeeded) {
+                recycleInflatedBuffer(inflatedBuf);
+            }
+        }
+    }
+
+    /**
+     * Return a buffer obtained from {@link #inflateToPooledBuffer(ByteBuffer, int)} to the pool.
+     *
+     * @param inflatedBuf
+     *            the buffer to recycle.
+     */
+    public void recycleInflatedBuffer(final ByteBuffer inflatedBuf) {
+        offHeapBufferPool.release(inflatedBuf);
+    }
+
+    /**
+     * Inflate a large deflated zip entry into a pooled off-heap buffer. The returned buffer must be released by
+     * calling {@link #releaseOffHeapBuffer(ByteBuffer)} once it is no longer needed.
+     *
+     * @param slice
+     *            the slice for the zip entry
+     * @return the inflated content, with position 0 and limit equal to the inflated length, or null if off-heap
+     *         buffers are not enabled, the zip entry is not deflated, its inflated length is unknown, no larger than
+     *         {@link #INFLATED_BUFFER_SIZE} or larger than {@link ScanSpec#maxBufferedJarRAMSize}, or its inflated
+     *         length does not match the inflated length in the zip entry, or the maximum total size of the
+     *         off-heap buffers would be exceeded.
+     * @throws IOException
+     *             if the zip entry could not be inflated.
+     */
+    public ByteBuffer inflateToOffHeapBuffer(final Slice slice) throws IOException {
+        if (scanSpec.maxOffHeapBufferSize <= 0L || !slice.isDeflatedZipEntry
+                || slice.inflatedLengthHint <= INFLATED_BUFFER_SIZE
+                || slice.inflatedLengthHint > scanSpec.maxBufferedJarRAMSize) {
+            return null;
+        }
+        final ByteBuffer buf = offHeapBufferPool.allocate((int) slice.inflatedLengthHint);
+        if (buf == null) {
+            return null;
+        }
+        boolean succeeded = false;
+        try (InputStream inputStream = slice.open()) {
+            if (readIntoBuffer(inputStream, buf) < 0) {
+                ((Buffer) buf).flip();
+                succeeded = true;
+                return buf;
+            }
+            return null;
+        } finally {
+            if (!succeeded) {
+                offHeapBufferPool.release(buf);
+            }
+        }
+    }
+
+    /**
+     * Read from an {@link InputStream} into a buffer, until the buffer is full or the end of the stream is
+     * reached.
+     *
+     * @param inputStream
+     *            the input stream
+     * @param buf
+     *            the buffer, which is filled from its position to its limit
+     * @return -1 if the end of the stream was reached, otherwise the stream contains more bytes than the buffer can
+     *         hold, and the first of these bytes (which has been consumed) is returned.
+     * @throws IOException
+     *             if the stream could not be read
+     */
+    private static int readIntoBuffer(final InputStream inputStream, final ByteBuffer buf)
+            throws IOException {
+        final byte[] copyBuf = new byte[8192];
+        for (int bytesRead; buf.hasRemaining()
+                && (bytesRead = inputStream.read(copyBuf, 0, Math.min(copyBuf.length, buf.remaining()))) > 0;) {
+            buf.put(copyBuf, 0, bytesRead);
+        }
+        return inputStream.read();
+    }
+
+    /**
+     * Return a buffer obtained from {@link #inflateToOffHeapBuffer(Slice)}, or wrapped by a
+     * {@link ByteBufferSlice}, to the off-heap buffer pool.
+     *
+     * @param buf
+     *            the buffer to release.
+     */
+    public void releaseOffHeapBuffer(final ByteBuffer buf) {
+        offHeapBufferPool.release(buf);
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -842,9 +1249,10 @@ public class NestedJarHandler {
      *            the length of inputStream if known, else -1L.
      * @param log
      *            the log.
-     * @return if the {@link InputStream} could be read into a byte array, an {@link ArraySlice} will be returned.
-     *         If this fails and the {@link InputStream} is spilled over to disk, a {@link FileSlice} will be
-     *         returned.
+     * @return if the {@link InputStream} could be read into a byte array, an {@link ArraySlice} will be returned,
+     *         or if off-heap buffers are enabled and the length of the {@link InputStream} is known, a
+     *         {@link ByteBufferSlice}. If this fails and the {@link InputStream} is spilled over to disk, a
+     *         {@link FileSlice} will be returned.
      * 
      * @throws IOException
      *             If the contents could not be read.
@@ -853,7 +1261,11 @@ public class NestedJarHandler {
             final long inputStreamLengthHint, final LogNode log) throws IOException {
         // Open an InflaterInputStream on the slice
         try (InputStream inptStream = inputStream) {
-            if (inputStreamLengthHint <= scanSpec.maxBufferedJarRAMSize) {
+            if (scanSpec.maxOffHeapBufferSize > 0L && inputStreamLengthHint > 0L
+                    && inputStreamLengthHint <= scanSpec.maxBufferedJarRAMSize) {
+                return readAllBytesToOffHeapBufferWithSpilloverToDisk(inptStream, tempFileBaseName,
+                        (int) inputStreamLengthHint, log);
+            } else if (inputStreamLengthHint <= scanSpec.maxBufferedJarRAMSize) {
                 // inputStreamLengthHint is unknown (-1) or shorter than
                 // scanSpec.maxBufferedJarRAMSize,
                 // so try reading from the InputStream into an array of size
@@ -909,6 +1321,54 @@ public class NestedJarHandler {
         }
     }
 
+    /**
+     * Read all the bytes in an {@link InputStream} into a pooled off-heap buffer, with spillover to a temporary file
+     * on disk if the pool is exhausted, or if the stream is longer than expected.
+     *
+     * @param inputStream
+     *            the {@link InputStream} to read from.
+     * @param tempFileBaseName
+     *            the source URL or zip entry that inputStream was opened from (used to name temporary file, if
+     *            needed).
+     * @param inputStreamLengthHint
+     *            the length of inputStream.
+     * @param log
+     *            the log.
+     * @return a {@link ByteBufferSlice}, or a {@link FileSlice} if the {@link InputStream} is spilled over to disk.
+     * @throws IOException
+     *             If the contents could not be read.
+     */
+    private Slice readAllBytesToOffHeapBufferWithSpilloverToDisk(final InputStream inputStream,
+            final String tempFileBaseName, final int inputStreamLengthHint, final LogNode log) throws IOException {
+        final ByteBuffer buf = offHeapBufferPool.allocate(inputStreamLengthHint);
+        if (buf == null) {
+            if (log != null) {
+                log.log("Off-heap buffer limit reached, saving to temporary file: " + tempFileBaseName);
+            }
+            return spillToDisk(inputStream, tempFileBaseName, /* buf = */ null, /* overflowBuf = */ null, log);
+        }
+        boolean succeeded = false;
+        try {
+            final int overflowByte = readIntoBuffer(inputStream, buf);
+            if (overflowByte >= 0) {
+                // inputStreamLengthHint underestimated the length of the stream -- copy the buffer and the
+                // byte that was read past the end of the buffer to disk, followed by the rest of the stream
+                final byte[] arr = new byte[inputStreamLengthHint];
+                ((Buffer) buf).flip();
+                buf.get(arr);
+                return spillToDisk(inputStream, tempFileBaseName, arr, new byte[] { (byte) overflowByte }, log);
+            }
+            ((Buffer) buf).flip();
+            final ByteBufferSlice slice = new ByteBufferSlice(buf, this);
+            succeeded = true;
+            return slice;
+        } finally {
+            if (!succeeded) {
+                offHeapBufferPool.release(buf);
+            }
+        }
+    }
+
     /**
      * Spill an {@link InputStream} to disk if the stream is too large to fit in RAM.
      *
@@ -1066,6 +1526,9 @@ public class NestedJarHandler {
                 fastZipEntryToZipFileSliceMap = null;
             }
             if (openSlices != null) {
+                if (log != null && scanSpec.enableAdaptiveMemoryMapping && !scanSpec.enableMemoryMapping) {
+                    logFileAccessMethods(log);
+                }
                 while (!openSlices.isEmpty()) {
                     for (final Slice slice : new ArrayList<>(openSlices)) {
                         try {
@@ -1083,6 +1546,17 @@ public class NestedJarHandler {
                 inflaterRecycler.forceClose();
                 inflaterRecycler = null;
             }
+            if (centralDirectoryCacheRefs != null) {
+                synchronized (centralDirectoryCacheRefs) {
+                    for (final CentralDirectoryCache.CentralDirectory centralDirectory : centralDirectoryCacheRefs) {
+                        CentralDirectoryCache.release(centralDirectory);
+                    }
+                    centralDirectoryCacheRefs.clear();
+                }
+                centralDirectoryCacheRefs = null;
+            }
+            // Free pooled buffers (buffers still in use by open resources are freed when released)
+            offHeapBufferPool.close();
             // Temp files have to be deleted last, after all PhysicalZipFiles are closed and
             // files are unmapped
             if (tempFiles != null) {
@@ -1107,6 +1581,48 @@ public class NestedJarHandler {
         }
     }
 
+    /**
+     * Record that a cached central directory is used by this {@link NestedJarHandler}, so that it is not evicted
+     * from the shared cache until this {@link NestedJarHandler} is closed.
+     *
+     * @param centralDirectory
+     *            the cached central directory, whose reference count has already been incremented.
+     */
+    void addCentralDirectoryCacheRef(final CentralDirectoryCache.CentralDirectory centralDirectory) {
+        final List<CentralDirectoryCache.CentralDirectory> refs = centralDirectoryCacheRefs;
+        if (refs != null && !closed.get()) {
+            refs.add(centralDirectory);
+        } else {
+            CentralDirectoryCache.release(centralDirectory);
+        }
+    }
+
+    /**
+     * Log whether each open jarfile was memory mapped or accessed using the {@link FileChannel} API, and how many
+     * times it was accessed each way.
+     *
+     * @param log
+     *            the log
+     */
+    private void logFileAccessMethods(final LogNode log) {
+        final List<String> lines = new ArrayList<>();
+        for (final Slice slice : openSlices) {
+            if (slice instanceof FileSlice) {
+                final FileSlice fileSlice = (FileSlice) slice;
+                lines.add(fileSlice.file + " : " + (fileSlice.isMemoryMapped() ? "memory mapped" : "FileChannel")
+                        + " (FileChannel accesses: " + fileSlice.getNumFileChannelAccesses()
+                        + ", memory mapped accesses: " + fileSlice.getNumMappedAccesses() + ")");
+            }
+        }
+        if (!lines.isEmpty()) {
+            Collections.sort(lines);
+            final LogNode subLog = log.log("File access methods chosen by adaptive memory mapping");
+            for (final String line : lines) {
+                subLog.log(line);
+            }
+        }
+    }
+
     /**
      * System.runFinalization() -- deprecated in JDK 18, so accessed by reflection.
      */
@@ -60,6 +60,12 @@ class PhysicalZipFile {
     /** The nested jar handler. */
     NestedJarHandler nestedJarHandler;
 
+    /**
+     * True if this {@link PhysicalZipFile} was opened from a file on the classpath, rather than from a temporary
+     * file, a {@link Path} or a byte array.
+     */
+    final boolean isOpenedFromFile;
+
     /** The cached hashCode. */
     private int hashCode;
 
@@ -81,6 +87,7 @@ class PhysicalZipFile {
         this.file = file;
         this.pathStr = FastPathResolver.resolve(FileUtils.currDirPath(), file.getPath());
         this.slice = new FileSlice(file, nestedJarHandler, log);
+        this.isOpenedFromFile = true;
     }
 
     /**
@@ -101,6 +108,7 @@ class PhysicalZipFile {
         this.path = path;
         this.pathStr = FastPathResolver.resolve(FileUtils.currDirPath(), path.toString());
         this.slice = new PathSlice(path, nestedJarHandler);
+        this.isOpenedFromFile = false;
     }
 
     /**
@@ -124,6 +132,26 @@ class PhysicalZipFile {
         this.pathStr = pathStr;
         this.slice = new ArraySlice(arr, /* isDeflatedZipEntry = */ false, /* inflatedSizeHint = */ 0L,
                 nestedJarHandler);
+        this.isOpenedFromFile = false;
+    }
+
+    /**
+     * Construct a {@link PhysicalZipFile} from a {@link Slice} that is not a file on the classpath, such as the
+     * inflated content of a deflated nested zipfile.
+     *
+     * @param slice
+     *            the slice containing the zipfile.
+     * @param pathStr
+     *            the zip entry path of this entry in the parent zipfile
+     * @param nestedJarHandler
+     *            the nested jar handler
+     */
+    PhysicalZipFile(final Slice slice, final String pathStr, final NestedJarHandler nestedJarHandler) {
+        this.nestedJarHandler = nestedJarHandler;
+        this.pathStr = pathStr;
+        this.slice = slice;
+        this.file = slice instanceof FileSlice ? ((FileSlice) slice).file : null;
+        this.isOpenedFromFile = false;
     }
 
     /**
@@ -153,6 +181,7 @@ class PhysicalZipFile {
         this.slice = nestedJarHandler.readAllBytesWithSpilloverToDisk(inputStream, /* tempFileBaseName = */ pathStr,
                 inputStreamLengthHint, log);
         this.file = this.slice instanceof FileSlice ? ((FileSlice) this.slice).file : null;
+        this.isOpenedFromFile = false;
     }
 
     /**
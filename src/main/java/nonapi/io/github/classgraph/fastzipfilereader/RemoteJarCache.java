@@ -0,0 +1,222 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * A persistent on-disk cache of jarfiles downloaded from http(s) URLs, so that later scans (including scans in
+ * other processes) only need to send a conditional request to check that a jarfile has not changed, rather than
+ * downloading it again. Each downloaded jarfile is keyed by its URL, and is stored along with a metadata file
+ * containing the {@code ETag} and {@code Last-Modified} response headers it was served with, which are sent back
+ * to the server in the {@code If-None-Match} and {@code If-Modified-Since} request headers. Jarfiles that were
+ * served without either header are not cached.
+ *
+ * <p>
+ * As with {@link ExtractedJarCache}, locking, atomic installation of downloaded files and eviction of the least
+ * recently used jarfiles (along with their metadata files) are handled by {@link CacheDir}.
+ */
+final class RemoteJarCache {
+    /** The cache directory. */
+    private final CacheDir cacheDir;
+
+    /** The metadata file extension. */
+    private static final String METADATA_FILE_EXTENSION = ".properties";
+
+    /** The metadata key for the URL. */
+    private static final String URL_KEY = "url";
+
+    /** The metadata key for the size of the jarfile. */
+    private static final String SIZE_KEY = "size";
+
+    /** The metadata key for the {@code ETag} response header. */
+    private static final String ETAG_KEY = "etag";
+
+    /** The metadata key for the {@code Last-Modified} response header. */
+    private static final String LAST_MODIFIED_KEY = "lastModified";
+
+    /** A jarfile in the cache, with the validators it was served with. */
+    static class CachedJar {
+        /** The file. */
+        final File file;
+
+        /** The {@code ETag} response header, or null if none. */
+        final String eTag;
+
+        /** The {@code Last-Modified} response header, or null if none. */
+        final String lastModified;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            the file
+         * @param eTag
+         *            the {@code ETag} response header, or null if none
+         * @param lastModified
+         *            the {@code Last-Modified} response header, or null if none
+         */
+        CachedJar(final File file, final String eTag, final String lastModified) {
+            this.file = file;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param maxSize
+     *            the maximum total size of the downloaded jarfiles in the cache directory
+     */
+    RemoteJarCache(final Path cacheDir, final long maxSize) {
+        this.cacheDir = new CacheDir(cacheDir, maxSize, "downloaded jar", METADATA_FILE_EXTENSION);
+    }
+
+    /**
+     * Get the cached copy of the jarfile at a URL.
+     *
+     * @param url
+     *            the URL
+     * @return the cached jarfile, or null if the jarfile at the URL is not cached
+     */
+    CachedJar get(final String url) {
+        final String key = CacheDir.sha256Hex(url);
+        final File file = cacheDir.getCacheFile(key).toFile();
+        final Path metadataFile = cacheDir.getSidecarFile(key, METADATA_FILE_EXTENSION);
+        if (!file.isFile() || !Files.isRegularFile(metadataFile)) {
+            return null;
+        }
+        final Properties metadata = new Properties();
+        try (InputStream inputStream = Files.newInputStream(metadataFile)) {
+            metadata.load(inputStream);
+        } catch (final IOException | IllegalArgumentException e) {
+            return null;
+        }
+        // Check that the metadata matches the jarfile, since the two files are not renamed atomically together
+        if (!url.equals(metadata.getProperty(URL_KEY))
+                || !String.valueOf(file.length()).equals(metadata.getProperty(SIZE_KEY))) {
+            return null;
+        }
+        final String eTag = metadata.getProperty(ETAG_KEY);
+        final String lastModified = metadata.getProperty(LAST_MODIFIED_KEY);
+        return eTag == null && lastModified == null ? null : new CachedJar(file, eTag, lastModified);
+    }
+
+    /**
+     * Mark a cached jarfile as recently used, after the server has confirmed that it has not changed.
+     *
+     * @param cachedJar
+     *            the cached jarfile
+     */
+    void markUsed(final CachedJar cachedJar) {
+        CacheDir.markUsed(cachedJar.file);
+    }
+
+    /**
+     * Download a jarfile into the cache, replacing any previously cached copy.
+     *
+     * @param url
+     *            the URL the jarfile was downloaded from
+     * @param inputStream
+     *            the response body
+     * @param contentLengthHint
+     *            the value of the {@code Content-Length} response header, or -1 if unknown
+     * @param eTag
+     *            the {@code ETag} response header, or null if none
+     * @param lastModified
+     *            the {@code Last-Modified} response header, or null if none
+     * @param log
+     *            the log
+     * @return the downloaded file
+     * @throws IOException
+     *             if the jarfile could not be downloaded, or was truncated
+     */
+    File put(final String url, final InputStream inputStream, final long contentLengthHint, final String eTag,
+            final String lastModified, final LogNode log) throws IOException {
+        final String key = CacheDir.sha256Hex(url);
+        final Path cacheFile = cacheDir.getCacheFile(key);
+        final Path metadataFile = cacheDir.getSidecarFile(key, METADATA_FILE_EXTENSION);
+
+        // Download into a temporary file, and check the size against the content length
+        final Path tempFile = cacheDir.createTempFile(key);
+        final Path tempMetadataFile = cacheDir.createTempFile(key);
+        try {
+            long size = 0L;
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                final byte[] buf = new byte[8192];
+                for (int bytesRead; (bytesRead = inputStream.read(buf)) > 0;) {
+                    outputStream.write(buf, 0, bytesRead);
+                    size += bytesRead;
+                }
+            }
+            if (contentLengthHint >= 0L && size != contentLengthHint) {
+                throw new IOException("Downloaded " + size + " bytes, expected " + contentLengthHint + " : " + url);
+            }
+            final Properties metadata = new Properties();
+            metadata.setProperty(URL_KEY, url);
+            metadata.setProperty(SIZE_KEY, String.valueOf(size));
+            if (eTag != null) {
+                metadata.setProperty(ETAG_KEY, eTag);
+            }
+            if (lastModified != null) {
+                metadata.setProperty(LAST_MODIFIED_KEY, lastModified);
+            }
+            try (OutputStream outputStream = Files.newOutputStream(tempMetadataFile)) {
+                metadata.store(outputStream, null);
+            }
+
+            // Move the downloaded file and its metadata into place, then evict least recently used files
+            cacheDir.install(new CacheDir.InstallAction() {
+                @Override
+                public void install() throws IOException {
+                    CacheDir.moveIntoPlace(tempFile, cacheFile);
+                    CacheDir.moveIntoPlace(tempMetadataFile, metadataFile);
+                }
+            }, cacheFile, log);
+        } finally {
+            Files.deleteIfExists(tempFile);
+            Files.deleteIfExists(tempMetadataFile);
+        }
+        if (log != null) {
+            log.log("Downloaded jar from URL " + url + " to " + cacheFile);
+        }
+        return cacheFile.toFile();
+    }
+}
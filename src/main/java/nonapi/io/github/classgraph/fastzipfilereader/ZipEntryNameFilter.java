@@ -0,0 +1,249 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * Matches the raw UTF-8 bytes of entry names in the central directory of a zipfile against the accepted path
+ * prefixes of a {@link ScanSpec}, so that entries that cannot be accepted are not decoded into a String or a
+ * {@link FastZipEntry} when the central directory is read.
+ *
+ * <p>
+ * Matching is conservative. The package root of a zipfile is not known when its central directory is read, so an
+ * accepted path prefix may match at the start of the name or after any '/'. Entries that may be needed for some
+ * purpose other than scanning an accepted package (the manifest and other {@code META-INF/} entries, module
+ * descriptors and nested jars) always match, as do entries whose names are not plain relative ASCII paths, and
+ * entries with a Unicode path extra field.
+ */
+final class ZipEntryNameFilter {
+    /** The UTF-8 bytes of the accepted path prefixes. */
+    private final byte[][] acceptedPathPrefixes;
+
+    /** {@code "META-INF/"}. */
+    private static final byte[] META_INF_PATH_PREFIX = toBytes(LogicalZipFile.META_INF_PATH_PREFIX);
+
+    /** {@code "module-info.class"}. */
+    private static final byte[] MODULE_INFO_CLASS = toBytes("module-info.class");
+
+    /**
+     * Constructor.
+     *
+     * @param acceptedPathPrefixes
+     *            the accepted path prefixes
+     */
+    private ZipEntryNameFilter(final List<String> acceptedPathPrefixes) {
+        this.acceptedPathPrefixes = new byte[acceptedPathPrefixes.size()][];
+        for (int i = 0; i < this.acceptedPathPrefixes.length; i++) {
+            this.acceptedPathPrefixes[i] = toBytes(acceptedPathPrefixes.get(i));
+        }
+    }
+
+    /**
+     * Get a filter for the accepted path prefixes of a {@link ScanSpec}.
+     *
+     * @param scanSpec
+     *            the scan spec
+     * @return the filter, or null if all entries need to be read, because any path may be accepted, because
+     *         classpath elements are accepted or rejected based on the resource paths they contain, or because the
+     *         central directory will be shared with other scans (see {@link ScanSpec#enableSharedJarMetadataCache}).
+     */
+    static ZipEntryNameFilter forScanSpec(final ScanSpec scanSpec) {
+        if (scanSpec.enableSharedJarMetadataCache
+                || !scanSpec.classpathElementResourcePathAcceptReject.acceptAndRejectAreEmpty()) {
+            return null;
+        }
+        final List<String> acceptedPathPrefixes = scanSpec.getAcceptedPathPrefixes();
+        return acceptedPathPrefixes == null ? null : new ZipEntryNameFilter(acceptedPathPrefixes);
+    }
+
+    /**
+     * Convert a string to UTF-8 bytes.
+     *
+     * @param str
+     *            the string
+     * @return the bytes
+     */
+    private static byte[] toBytes(final String str) {
+        return str.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check if a region of an array matches the given bytes.
+     *
+     * @param arr
+     *            the array
+     * @param off
+     *            the start of the region
+     * @param end
+     *            the end of the array (exclusive)
+     * @param bytes
+     *            the bytes to match
+     * @return true if the bytes occur at the given offset
+     */
+    private static boolean regionMatches(final byte[] arr, final int off, final int end, final byte[] bytes) {
+        if (off < 0 || off + bytes.length > end) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (arr[off + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the name of a zip entry ends with the given ASCII suffix, ignoring case.
+     *
+     * @param cen
+     *            the central directory
+     * @param nameOff
+     *            the offset of the entry name
+     * @param nameEnd
+     *            the end of the entry name
+     * @param lowerCaseSuffix
+     *            the suffix, in lower case
+     * @return true if the entry name ends with the suffix
+     */
+    private static boolean endsWithIgnoreCase(final byte[] cen, final int nameOff, final int nameEnd,
+            final String lowerCaseSuffix) {
+        final int suffixOff = nameEnd - lowerCaseSuffix.length();
+        if (suffixOff < nameOff) {
+            return false;
+        }
+        for (int i = 0; i < lowerCaseSuffix.length(); i++) {
+            if (Character.toLowerCase((char) cen[suffixOff + i]) != lowerCaseSuffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if a zip entry name is a plain relative ASCII path, with no initial slash, no empty, "." or ".."
+     * segments, and no characters that would be changed by path sanitization.
+     *
+     * @param cen
+     *            the central directory
+     * @param nameOff
+     *            the offset of the entry name
+     * @param nameEnd
+     *            the end of the entry name
+     * @return true if the entry name is a plain relative path
+     */
+    private static boolean isPlainRelativePath(final byte[] cen, final int nameOff, final int nameEnd) {
+        int segmentStart = nameOff;
+        for (int i = nameOff; i <= nameEnd; i++) {
+            final int b = i == nameEnd ? '/' : cen[i];
+            if (b < 0x20 || b >= 0x7f || b == '\\' || b == '!') {
+                // Negative bytes are the start or continuation of a multibyte UTF-8 character
+                return false;
+            }
+            if (b == '/') {
+                final int segmentLen = i - segmentStart;
+                if (segmentLen == 0 || (segmentLen == 1 && cen[segmentStart] == '.')
+                        || (segmentLen == 2 && cen[segmentStart] == '.' && cen[segmentStart + 1] == '.')) {
+                    return false;
+                }
+                segmentStart = i + 1;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check if the extra fields of a zip entry include an Info-ZIP Unicode path extra field, which overrides the
+     * entry name.
+     *
+     * @param cen
+     *            the central directory
+     * @param extraFieldOff
+     *            the offset of the extra fields
+     * @param extraFieldLen
+     *            the length of the extra fields
+     * @return true if there is a Unicode path extra field
+     */
+    private static boolean hasUnicodePathExtraField(final byte[] cen, final int extraFieldOff,
+            final int extraFieldLen) {
+        for (int off = 0; off + 4 <= extraFieldLen && extraFieldOff + off + 4 <= cen.length;) {
+            final int tagOff = extraFieldOff + off;
+            final int tag = (cen[tagOff] & 0xff) | (cen[tagOff + 1] & 0xff) << 8;
+            final int size = (cen[tagOff + 2] & 0xff) | (cen[tagOff + 3] & 0xff) << 8;
+            if (tag == 0x7075) {
+                return true;
+            }
+            off += 4 + size;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a zip entry could match the accepted path prefixes, or may otherwise be needed.
+     *
+     * @param cen
+     *            the central directory
+     * @param nameOff
+     *            the offset of the entry name
+     * @param nameLen
+     *            the length of the entry name
+     * @param extraFieldLen
+     *            the length of the extra fields, which follow the entry name
+     * @return true if the entry should be materialized, or false if it cannot be accepted
+     */
+    boolean canMatch(final byte[] cen, final int nameOff, final int nameLen, final int extraFieldLen) {
+        final int nameEnd = nameOff + nameLen;
+        if (nameLen == 0 || !isPlainRelativePath(cen, nameOff, nameEnd)
+                || regionMatches(cen, nameOff, nameEnd, META_INF_PATH_PREFIX)
+                || endsWithIgnoreCase(cen, nameOff, nameEnd, ".jar")
+                || endsWithIgnoreCase(cen, nameOff, nameEnd, ".zip")
+                || hasUnicodePathExtraField(cen, nameEnd, extraFieldLen)) {
+            return true;
+        }
+        final int moduleInfoOff = nameEnd - MODULE_INFO_CLASS.length;
+        if ((moduleInfoOff == nameOff || moduleInfoOff > nameOff && cen[moduleInfoOff - 1] == '/')
+                && regionMatches(cen, moduleInfoOff, nameEnd, MODULE_INFO_CLASS)) {
+            return true;
+        }
+        // Try matching accepted path prefixes at the start of each path segment
+        for (int segmentOff = nameOff; segmentOff < nameEnd; segmentOff++) {
+            if (segmentOff == nameOff || cen[segmentOff - 1] == '/') {
+                for (final byte[] prefix : acceptedPathPrefixes) {
+                    if (regionMatches(cen, segmentOff, nameEnd, prefix)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+}
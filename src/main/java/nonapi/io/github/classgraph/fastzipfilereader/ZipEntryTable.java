@@ -0,0 +1,274 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Compact storage for the entries of a {@link LogicalZipFile}, as parallel primitive arrays, with the UTF-8 bytes
+ * of all entry names stored in a single shared array. {@link FastZipEntry} objects are only created on demand, as
+ * views of a row of the table, so that the entries of a zipfile do not need to be held as objects for the
+ * lifetime of the scan. Instances are immutable once constructed, so they can be shared between
+ * {@link LogicalZipFile} instances for the same zipfile.
+ */
+final class ZipEntryTable {
+    /** The UTF-8 bytes of the entry names, concatenated. */
+    private final byte[] nameBytes;
+
+    /** The start offset of each entry name within {@link #nameBytes}, followed by the end offset of the last. */
+    private final int[] nameOffsets;
+
+    /** The local header positions. */
+    private final long[] locHeaderPositions;
+
+    /** The compressed sizes. */
+    private final long[] compressedSizes;
+
+    /** The uncompressed sizes. */
+    private final long[] uncompressedSizes;
+
+    /** The CRC-32 values. */
+    private final int[] crcs;
+
+    /** The last modified times, or 0 if the MSDOS date and time are used. */
+    private final long[] lastModifiedTimesMillis;
+
+    /** The last modified date (high 16 bits) and time (low 16 bits) in MSDOS format. */
+    private final int[] lastModifiedDateTimesMSDOS;
+
+    /** The file attributes (low 16 bits), and whether the entry is deflated ({@link #DEFLATED_FLAG}). */
+    private final int[] fileAttributesAndFlags;
+
+    /** Flag bit in {@link #fileAttributesAndFlags} that is set for deflated entries. */
+    private static final int DEFLATED_FLAG = 1 << 16;
+
+    /** Estimated size in bytes of each row of the table, not counting the entry name bytes. */
+    private static final int ROW_SIZE = 4 + 4 * 8 + 3 * 4;
+
+    /**
+     * Copy entries into a table.
+     *
+     * @param entries
+     *            the entries
+     */
+    ZipEntryTable(final List<FastZipEntry> entries) {
+        final int numEntries = entries.size();
+        final byte[][] entryNameBytes = new byte[numEntries][];
+        nameOffsets = new int[numEntries + 1];
+        locHeaderPositions = new long[numEntries];
+        compressedSizes = new long[numEntries];
+        uncompressedSizes = new long[numEntries];
+        crcs = new int[numEntries];
+        lastModifiedTimesMillis = new long[numEntries];
+        lastModifiedDateTimesMSDOS = new int[numEntries];
+        fileAttributesAndFlags = new int[numEntries];
+        int totNameBytes = 0;
+        for (int i = 0; i < numEntries; i++) {
+            final FastZipEntry entry = entries.get(i);
+            entryNameBytes[i] = entry.entryName.getBytes(StandardCharsets.UTF_8);
+            nameOffsets[i] = totNameBytes;
+            totNameBytes += entryNameBytes[i].length;
+            locHeaderPositions[i] = entry.locHeaderPos;
+            compressedSizes[i] = entry.compressedSize;
+            uncompressedSizes[i] = entry.uncompressedSize;
+            crcs[i] = entry.crc;
+            lastModifiedTimesMillis[i] = entry.lastModifiedTimeMillis;
+            lastModifiedDateTimesMSDOS[i] = entry.lastModifiedDateMSDOS << 16
+                    | (entry.lastModifiedTimeMSDOS & 0xffff);
+            fileAttributesAndFlags[i] = (entry.fileAttributes & 0xffff) | (entry.isDeflated ? DEFLATED_FLAG : 0);
+        }
+        nameOffsets[numEntries] = totNameBytes;
+        nameBytes = new byte[totNameBytes];
+        for (int i = 0; i < numEntries; i++) {
+            System.arraycopy(entryNameBytes[i], 0, nameBytes, nameOffsets[i], entryNameBytes[i].length);
+        }
+    }
+
+    /**
+     * Get the number of entries.
+     *
+     * @return the number of entries
+     */
+    int size() {
+        return locHeaderPositions.length;
+    }
+
+    /**
+     * Get the estimated size of the table in memory.
+     *
+     * @return the estimated size of the table, in bytes
+     */
+    long estimatedSize() {
+        return (long) size() * ROW_SIZE + nameBytes.length;
+    }
+
+    /**
+     * Get the name of an entry.
+     *
+     * @param idx
+     *            the index of the entry
+     * @return the entry name
+     */
+    String getEntryName(final int idx) {
+        return new String(nameBytes, nameOffsets[idx], nameOffsets[idx + 1] - nameOffsets[idx],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Create a {@link FastZipEntry} for an entry.
+     *
+     * @param logicalZipFile
+     *            the logical zipfile that contains the entry
+     * @param idx
+     *            the index of the entry
+     * @param enableMultiReleaseVersions
+     *            whether multi-release versions are enabled
+     * @return the {@link FastZipEntry}
+     */
+    FastZipEntry getEntry(final LogicalZipFile logicalZipFile, final int idx,
+            final boolean enableMultiReleaseVersions) {
+        final int dateTimeMSDOS = lastModifiedDateTimesMSDOS[idx];
+        final int fileAttributesAndFlag = fileAttributesAndFlags[idx];
+        return new FastZipEntry(logicalZipFile, locHeaderPositions[idx], getEntryName(idx),
+                (fileAttributesAndFlag & DEFLATED_FLAG) != 0, compressedSizes[idx], uncompressedSizes[idx],
+                crcs[idx], lastModifiedTimesMillis[idx], dateTimeMSDOS & 0xffff, dateTimeMSDOS >>> 16,
+                fileAttributesAndFlag & 0xffff, enableMultiReleaseVersions);
+    }
+
+    /**
+     * Check if the name of an entry starts with the given bytes.
+     *
+     * @param idx
+     *            the index of the entry
+     * @param bytes
+     *            the bytes to match
+     * @param wholeName
+     *            if true, the whole entry name must match
+     * @return true if the entry name matches
+     */
+    private boolean nameMatches(final int idx, final byte[] bytes, final boolean wholeName) {
+        final int nameStart = nameOffsets[idx];
+        final int nameLen = nameOffsets[idx + 1] - nameStart;
+        if (wholeName ? nameLen != bytes.length : nameLen < bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (nameBytes[nameStart + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first entry with the given name. This is an O(N) operation.
+     *
+     * @param entryName
+     *            the entry name
+     * @return the index of the entry, or -1 if there is no entry with this name
+     */
+    int indexOf(final String entryName) {
+        final byte[] bytes = entryName.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0, n = size(); i < n; i++) {
+            if (nameMatches(i, bytes, true)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if the name of any entry starts with the given prefix. This is an O(N) operation.
+     *
+     * @param prefix
+     *            the prefix
+     * @return true if there is an entry whose name starts with the prefix
+     */
+    boolean hasEntryWithPrefix(final String prefix) {
+        final byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0, n = size(); i < n; i++) {
+            if (nameMatches(i, bytes, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get an unmodifiable list view of the table, which creates a new {@link FastZipEntry} each time an entry is
+     * accessed.
+     *
+     * @param logicalZipFile
+     *            the logical zipfile that contains the entries
+     * @param enableMultiReleaseVersions
+     *            whether multi-release versions are enabled
+     * @return the list view
+     */
+    List<FastZipEntry> asList(final LogicalZipFile logicalZipFile, final boolean enableMultiReleaseVersions) {
+        return new EntryList(logicalZipFile, enableMultiReleaseVersions);
+    }
+
+    /** A list view of the table. */
+    private final class EntryList extends AbstractList<FastZipEntry> implements RandomAccess {
+        /** The logical zipfile that contains the entries. */
+        private final LogicalZipFile logicalZipFile;
+
+        /** Whether multi-release versions are enabled. */
+        private final boolean enableMultiReleaseVersions;
+
+        /**
+         * Constructor.
+         *
+         * @param logicalZipFile
+         *            the logical zipfile that contains the entries
+         * @param enableMultiReleaseVersions
+         *            whether multi-release versions are enabled
+         */
+        EntryList(final LogicalZipFile logicalZipFile, final boolean enableMultiReleaseVersions) {
+            this.logicalZipFile = logicalZipFile;
+            this.enableMultiReleaseVersions = enableMultiReleaseVersions;
+        }
+
+        @Override
+        public FastZipEntry get(final int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            return getEntry(logicalZipFile, index, enableMultiReleaseVersions);
+        }
+
+        @Override
+        public int size() {
+            return ZipEntryTable.this.size();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import nonapi.io.github.classgraph.utils.FileUtils;
+
+/**
+ * The set of package paths (directory paths that contain at least one entry, without a final '/', or "" for the
+ * root) of a zipfile, built while the central directory is read, including for entries that were not decoded.
+ * Package paths listed in {@code META-INF/INDEX.LIST} can be added too.
+ */
+final class ZipPackageIndex {
+    /** The package paths. */
+    private final Set<String> packagePaths = new HashSet<>();
+
+    /** The bytes containing the most recently added raw entry name, or null. */
+    private byte[] prevNameBytes;
+
+    /** The start offset of the most recently added raw package path within {@link #prevNameBytes}. */
+    private int prevPackagePathStart;
+
+    /** The length of the most recently added raw package path. */
+    private int prevPackagePathLen = -1;
+
+    /** The most recently added package path of an entry name string, or null. */
+    private String prevPackagePath;
+
+    /**
+     * Add the package path of an entry name, given as UTF-8 bytes. Consecutive entries are usually in the same
+     * package, so the package path is only decoded when it differs from the package path of the previous entry.
+     *
+     * @param nameBytes
+     *            the bytes containing the entry name
+     * @param nameStart
+     *            the start offset of the entry name
+     * @param nameLen
+     *            the length of the entry name
+     */
+    void add(final byte[] nameBytes, final int nameStart, final int nameLen) {
+        int packagePathLen = nameLen - 1;
+        while (packagePathLen >= 0 && nameBytes[nameStart + packagePathLen] != '/') {
+            packagePathLen--;
+        }
+        if (packagePathLen < 0) {
+            packagePathLen = 0;
+        }
+        if (nameBytes == prevNameBytes && packagePathLen == prevPackagePathLen) {
+            boolean samePackagePath = true;
+            for (int i = 0; i < packagePathLen; i++) {
+                if (nameBytes[nameStart + i] != nameBytes[prevPackagePathStart + i]) {
+                    samePackagePath = false;
+                    break;
+                }
+            }
+            if (samePackagePath) {
+                return;
+            }
+        }
+        prevNameBytes = nameBytes;
+        prevPackagePathStart = nameStart;
+        prevPackagePathLen = packagePathLen;
+        addPackagePath(new String(nameBytes, nameStart, packagePathLen, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Add the package path of an entry name.
+     *
+     * @param entryName
+     *            the entry name
+     */
+    void add(final String entryName) {
+        final int lastSlashIdx = entryName.lastIndexOf('/');
+        final int packagePathLen = lastSlashIdx < 0 ? 0 : lastSlashIdx;
+        if (prevPackagePath != null && prevPackagePath.length() == packagePathLen
+                && entryName.startsWith(prevPackagePath)) {
+            return;
+        }
+        prevPackagePath = entryName.substring(0, packagePathLen);
+        packagePaths.add(prevPackagePath);
+    }
+
+    /**
+     * Add a package path.
+     *
+     * @param packagePath
+     *            the package path
+     */
+    private void addPackagePath(final String packagePath) {
+        packagePaths.add(FileUtils.sanitizeEntryPath(packagePath, /* removeInitialSlash = */ true,
+                /* removeFinalSlash = */ true));
+    }
+
+    /**
+     * Add the package paths listed for the first jarfile in the content of a {@code META-INF/INDEX.LIST} file,
+     * which by convention is the jarfile containing the index. Lines without a '/' may be either a toplevel
+     * directory or a file in the root directory, so both are added.
+     *
+     * @param indexList
+     *            the content of the {@code META-INF/INDEX.LIST} file
+     * @return true if the index was in a recognized format
+     */
+    boolean addIndexList(final byte[] indexList) {
+        final String[] lines = new String(indexList, StandardCharsets.UTF_8).split("\r\n|\r|\n");
+        if (lines.length == 0 || !lines[0].startsWith("JarIndex-Version:")) {
+            return false;
+        }
+        // Skip the header, then the jarfile name at the start of the first section
+        int i = 1;
+        while (i < lines.length && !lines[i].trim().isEmpty()) {
+            i++;
+        }
+        while (i < lines.length && lines[i].trim().isEmpty()) {
+            i++;
+        }
+        if (i >= lines.length) {
+            return false;
+        }
+        for (i++; i < lines.length; i++) {
+            final String line = lines[i].trim();
+            if (line.isEmpty()) {
+                // End of the first section
+                break;
+            }
+            addPackagePath(line);
+            if (line.indexOf('/') < 0) {
+                packagePaths.add("");
+            }
+        }
+        return true;
+    }
+
+    /** Release the state used for adding entry names, once all entries have been added. */
+    void finish() {
+        prevNameBytes = null;
+        prevPackagePath = null;
+    }
+
+    /**
+     * Get the package paths.
+     *
+     * @return the package paths
+     */
+    Set<String> getPackagePaths() {
+        return Collections.unmodifiableSet(packagePaths);
+    }
+
+    /**
+     * Check whether an entry may exist in the package of the given entry name.
+     *
+     * @param entryName
+     *            the entry name
+     * @return false if no entry exists in the package of the entry name
+     */
+    boolean containsPackageOf(final String entryName) {
+        final int lastSlashIdx = entryName.lastIndexOf('/');
+        return packagePaths.contains(lastSlashIdx < 0 ? "" : entryName.substring(0, lastSlashIdx));
+    }
+}
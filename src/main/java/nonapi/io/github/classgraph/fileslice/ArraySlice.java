@@ -30,6 +30,8 @@ package nonapi.io.github.classgraph.fileslice;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
@@ -140,6 +142,16 @@ public class ArraySlice extends Slice {
         return new RandomAccessArrayReader(arr, (int) sliceStartPos, (int) sliceLength);
     }
 
+    /**
+     * Wrap the slice of the array in a {@link ByteBuffer}.
+     *
+     * @return the byte buffer view
+     */
+    @Override
+    protected ByteBuffer rawByteBufferView() {
+        return ByteBuffer.wrap(arr, (int) sliceStartPos, (int) sliceLength).slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
     @Override
     public boolean equals(final Object o) {
         return super.equals(o);
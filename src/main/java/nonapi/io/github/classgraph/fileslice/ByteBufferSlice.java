@@ -0,0 +1,190 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fileslice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessByteBufferReader;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+
+/**
+ * A slice of a pooled off-heap {@link ByteBuffer} (see {@link NestedJarHandler#releaseOffHeapBuffer(ByteBuffer)}),
+ * which is returned to the pool when the toplevel slice is closed.
+ */
+public class ByteBufferSlice extends Slice {
+    /** The wrapped buffer, with position 0 and limit equal to the length of the toplevel slice. */
+    private final ByteBuffer byteBuffer;
+
+    /** True if this is a toplevel slice. */
+    private final boolean isTopLevelSlice;
+
+    /** True if {@link #close} has been called. */
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+
+    /**
+     * Constructor for treating a range of a buffer as a slice.
+     *
+     * @param parentSlice
+     *            the parent slice
+     * @param offset
+     *            the offset of the sub-slice within the parent slice
+     * @param length
+     *            the length of the sub-slice
+     * @param isDeflatedZipEntry
+     *            true if this is a deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @param nestedJarHandler
+     *            the nested jar handler
+     */
+    private ByteBufferSlice(final ByteBufferSlice parentSlice, final long offset, final long length,
+            final boolean isDeflatedZipEntry, final long inflatedLengthHint,
+            final NestedJarHandler nestedJarHandler) {
+        super(parentSlice, offset, length, isDeflatedZipEntry, inflatedLengthHint, nestedJarHandler);
+        this.byteBuffer = parentSlice.byteBuffer;
+        this.isTopLevelSlice = false;
+    }
+
+    /**
+     * Constructor for treating a whole pooled buffer as a slice. The buffer is returned to the pool when the slice
+     * is closed.
+     *
+     * @param byteBuffer
+     *            the pooled buffer, with position 0 and limit equal to the length of the content.
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @throws IOException
+     *             if the nested jar handler has been closed
+     */
+    public ByteBufferSlice(final ByteBuffer byteBuffer, final NestedJarHandler nestedJarHandler)
+            throws IOException {
+        super(byteBuffer.limit(), /* isDeflatedZipEntry = */ false, /* inflatedLengthHint = */ 0L,
+                nestedJarHandler);
+        this.byteBuffer = byteBuffer;
+        this.isTopLevelSlice = true;
+
+        // Mark toplevel slice as open, so that the buffer is released when the nested jar handler is closed
+        nestedJarHandler.markSliceAsOpen(this);
+    }
+
+    /**
+     * Slice this slice to form a sub-slice.
+     *
+     * @param offset
+     *            the offset relative to the start of this slice to use as the start of the sub-slice.
+     * @param length
+     *            the length of the sub-slice.
+     * @param isDeflatedZipEntry
+     *            the is deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @return the slice
+     */
+    @Override
+    public Slice slice(final long offset, final long length, final boolean isDeflatedZipEntry,
+            final long inflatedLengthHint) {
+        if (this.isDeflatedZipEntry) {
+            throw new IllegalArgumentException("Cannot slice a deflated zip entry");
+        }
+        return new ByteBufferSlice(this, offset, length, isDeflatedZipEntry, inflatedLengthHint,
+                nestedJarHandler);
+    }
+
+    /**
+     * Load the slice as a byte array.
+     *
+     * @return the byte[]
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Override
+    public byte[] load() throws IOException {
+        if (isDeflatedZipEntry) {
+            // Inflate into RAM if deflated
+            try (InputStream inputStream = open()) {
+                return NestedJarHandler.readAllBytesAsArray(inputStream, inflatedLengthHint);
+            }
+        } else {
+            final byte[] content = new byte[(int) sliceLength];
+            rawByteBufferView().get(content);
+            return content;
+        }
+    }
+
+    /**
+     * Return a new random access reader.
+     *
+     * @return the random access reader
+     */
+    @Override
+    public RandomAccessReader randomAccessReader() {
+        return new RandomAccessByteBufferReader(byteBuffer, sliceStartPos, sliceLength);
+    }
+
+    /**
+     * Get a view of the slice within the buffer.
+     *
+     * @return the byte buffer view
+     */
+    @Override
+    protected ByteBuffer rawByteBufferView() {
+        final ByteBuffer dup = byteBuffer.duplicate();
+        ((Buffer) dup).position((int) sliceStartPos);
+        ((Buffer) dup).limit((int) (sliceStartPos + sliceLength));
+        return dup.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        // Toplevel slices of the same length are only equal if they wrap the same buffer
+        return o instanceof ByteBufferSlice && super.equals(o) && ((ByteBufferSlice) o).byteBuffer == byteBuffer;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /** Close the slice. Returns the buffer to the pool, if this is a toplevel slice. */
+    @Override
+    public void close() {
+        if (!isClosed.getAndSet(true) && isTopLevelSlice) {
+            nestedJarHandler.releaseOffHeapBuffer(byteBuffer);
+            nestedJarHandler.markSliceAsClosed(this);
+        }
+    }
+}
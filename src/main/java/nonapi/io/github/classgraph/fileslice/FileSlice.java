@@ -34,16 +34,19 @@ import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.github.classgraph.ClassGraph;
 import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
 import nonapi.io.github.classgraph.fileslice.reader.RandomAccessByteBufferReader;
 import nonapi.io.github.classgraph.fileslice.reader.RandomAccessFileChannelReader;
 import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
 import nonapi.io.github.classgraph.utils.FileUtils;
 import nonapi.io.github.classgraph.utils.LogNode;
 
@@ -61,12 +64,51 @@ public class FileSlice extends Slice {
     /** The file channel. */
     private FileChannel fileChannel;
 
-    /** The backing byte buffer, if any. */
-    private ByteBuffer backingByteBuffer;
+    /**
+     * The backing byte buffer, if any. For slices of a file that is memory mapped after the slices were created
+     * (see {@link ScanSpec#enableAdaptiveMemoryMapping}), this is derived from the backing byte buffer of the
+     * toplevel slice when first needed.
+     */
+    private volatile ByteBuffer backingByteBuffer;
 
     /** True if this is a top level file slice. */
     private final boolean isTopLevelFileSlice;
 
+    /** The toplevel slice of the file (this slice, if this is a toplevel slice). */
+    private final FileSlice topLevelSlice;
+
+    /**
+     * The number of times the file was accessed using the {@link FileChannel} API (only counted in the toplevel
+     * slice).
+     */
+    private final AtomicInteger numFileChannelAccesses = new AtomicInteger();
+
+    /**
+     * The number of times the file was accessed through the backing byte buffer (only counted in the toplevel
+     * slice).
+     */
+    private final AtomicInteger numMappedAccesses = new AtomicInteger();
+
+    /**
+     * Files smaller than this are never memory mapped if {@link ScanSpec#enableAdaptiveMemoryMapping} is true,
+     * since they can be read with a small number of system calls.
+     */
+    public static final long ADAPTIVE_MAPPING_MIN_FILE_SIZE = 1024L * 1024L;
+
+    /**
+     * Files at least this large are memory mapped as soon as they are opened if
+     * {@link ScanSpec#enableAdaptiveMemoryMapping} is true, since reading them using the {@link FileChannel} API
+     * would require a large number of system calls.
+     */
+    public static final long ADAPTIVE_MAPPING_EAGER_FILE_SIZE = 64L * 1024L * 1024L;
+
+    /**
+     * If {@link ScanSpec#enableAdaptiveMemoryMapping} is true, files with a size between
+     * {@link #ADAPTIVE_MAPPING_MIN_FILE_SIZE} and {@link #ADAPTIVE_MAPPING_EAGER_FILE_SIZE} are memory mapped once
+     * they have been accessed this many times using the {@link FileChannel} API.
+     */
+    public static final int ADAPTIVE_MAPPING_ACCESS_THRESHOLD = 256;
+
     /** True if {@link #close} has been called. */
     private final AtomicBoolean isClosed = new AtomicBoolean();
 
@@ -96,13 +138,10 @@ public class FileSlice extends Slice {
         this.fileChannel = parentSlice.fileChannel;
         this.fileLength = parentSlice.fileLength;
         this.isTopLevelFileSlice = false;
+        this.topLevelSlice = parentSlice.topLevelSlice;
 
-        if (parentSlice.backingByteBuffer != null) {
-            // Duplicate and slice the backing byte buffer, if there is one
-            this.backingByteBuffer = parentSlice.backingByteBuffer.duplicate();
-            ((Buffer) this.backingByteBuffer).position((int) sliceStartPos);
-            ((Buffer) this.backingByteBuffer).limit((int) (sliceStartPos + sliceLength));
-        }
+        // Duplicate and slice the backing byte buffer, if there is one
+        getBackingByteBuffer();
 
         // Only mark toplevel file slices as open (sub slices don't need to be marked as open since
         // they don't need to be closed, they just copy the resource references of the toplevel slice) 
@@ -135,26 +174,11 @@ public class FileSlice extends Slice {
         this.fileChannel = raf.getChannel();
         this.fileLength = file.length();
         this.isTopLevelFileSlice = true;
+        this.topLevelSlice = this;
 
-        if (nestedJarHandler.scanSpec.enableMemoryMapping) {
-            try {
-                // Try mapping file (some operating systems throw OutOfMemoryError if file
-                // can't be mapped, some throw IOException)
-                backingByteBuffer = fileChannel.map(MapMode.READ_ONLY, 0L, fileLength);
-            } catch (IOException | OutOfMemoryError e) {
-                // Try running garbage collection then try mapping the file again
-                System.gc();
-                nestedJarHandler.runFinalizationMethod();
-                try {
-                    backingByteBuffer = fileChannel.map(MapMode.READ_ONLY, 0L, fileLength);
-                } catch (IOException | OutOfMemoryError e2) {
-                    if (log != null) {
-                        log.log("File " + file + " cannot be memory mapped: " + e2
-                                + " (using RandomAccessFile API instead)");
-                    }
-                    // Fall through -- RandomAccessFile API will be used instead
-                }
-            }
+        if (nestedJarHandler.scanSpec.enableMemoryMapping || (isAdaptivelyMapped()
+                && fileLength >= ADAPTIVE_MAPPING_EAGER_FILE_SIZE && fileLength <= FileUtils.MAX_BUFFER_SIZE)) {
+            mapFile(log);
         }
 
         // Mark toplevel slice as open
@@ -178,6 +202,118 @@ public class FileSlice extends Slice {
         this(file, /* isDeflatedZipEntry = */ false, /* inflatedSizeHint = */ 0L, nestedJarHandler, log);
     }
 
+    /**
+     * Check whether the decision to memory map the file is made adaptively.
+     *
+     * @return true if {@link ScanSpec#enableAdaptiveMemoryMapping} is true and {@link ScanSpec#enableMemoryMapping}
+     *         is false.
+     */
+    private boolean isAdaptivelyMapped() {
+        return nestedJarHandler.scanSpec.enableAdaptiveMemoryMapping
+                && !nestedJarHandler.scanSpec.enableMemoryMapping;
+    }
+
+    /**
+     * Memory map the file, if it has not already been mapped. Must only be called on the toplevel slice. If the
+     * file cannot be mapped, the {@link FileChannel} API continues to be used.
+     *
+     * @param log
+     *            the log
+     */
+    private synchronized void mapFile(final LogNode log) {
+        if (backingByteBuffer != null || isClosed.get()) {
+            return;
+        }
+        try {
+            // Try mapping file (some operating systems throw OutOfMemoryError if file
+            // can't be mapped, some throw IOException)
+            backingByteBuffer = fileChannel.map(MapMode.READ_ONLY, 0L, fileLength);
+        } catch (IOException | OutOfMemoryError e) {
+            // Try running garbage collection then try mapping the file again
+            System.gc();
+            nestedJarHandler.runFinalizationMethod();
+            try {
+                backingByteBuffer = fileChannel.map(MapMode.READ_ONLY, 0L, fileLength);
+            } catch (IOException | OutOfMemoryError e2) {
+                if (log != null) {
+                    log.log("File " + file + " cannot be memory mapped: " + e2
+                            + " (using RandomAccessFile API instead)");
+                }
+                // Fall through -- RandomAccessFile API will be used instead
+            }
+        }
+    }
+
+    /**
+     * Get the backing byte buffer, if the file is memory mapped, deriving it from the backing byte buffer of the
+     * toplevel slice if the file was mapped after this slice was created.
+     *
+     * @return the backing byte buffer, or null if the file is not memory mapped.
+     */
+    private ByteBuffer getBackingByteBuffer() {
+        ByteBuffer buf = backingByteBuffer;
+        if (buf == null && !isTopLevelFileSlice) {
+            final ByteBuffer topLevelBuf = topLevelSlice.backingByteBuffer;
+            if (topLevelBuf != null) {
+                buf = topLevelBuf.duplicate();
+                ((Buffer) buf).position((int) sliceStartPos);
+                ((Buffer) buf).limit((int) (sliceStartPos + sliceLength));
+                backingByteBuffer = buf;
+            }
+        }
+        return buf;
+    }
+
+    /**
+     * Record an access to the file, and get the backing byte buffer to use for the access. If the file is not
+     * memory mapped, and the access threshold for adaptive memory mapping is reached, the file is mapped.
+     *
+     * @return the backing byte buffer, or null if the {@link FileChannel} API should be used for the access.
+     */
+    private ByteBuffer accessBackingByteBuffer() {
+        ByteBuffer buf = getBackingByteBuffer();
+        if (buf == null) {
+            final int numAccesses = topLevelSlice.numFileChannelAccesses.incrementAndGet();
+            if (numAccesses == ADAPTIVE_MAPPING_ACCESS_THRESHOLD && isAdaptivelyMapped()
+                    && fileLength >= ADAPTIVE_MAPPING_MIN_FILE_SIZE && fileLength <= FileUtils.MAX_BUFFER_SIZE) {
+                // The file is being accessed often enough that mapping it is worthwhile
+                topLevelSlice.mapFile(/* log = */ null);
+                buf = getBackingByteBuffer();
+            }
+        } else {
+            topLevelSlice.numMappedAccesses.incrementAndGet();
+        }
+        return buf;
+    }
+
+    /**
+     * Check whether the file is memory mapped.
+     *
+     * @return true if the file is memory mapped.
+     */
+    public boolean isMemoryMapped() {
+        return topLevelSlice.backingByteBuffer != null;
+    }
+
+    /**
+     * Get the number of times the file has been accessed using the {@link FileChannel} API (including the access
+     * that caused the file to be mapped, if it was mapped adaptively).
+     *
+     * @return the number of accesses.
+     */
+    public int getNumFileChannelAccesses() {
+        return topLevelSlice.numFileChannelAccesses.get();
+    }
+
+    /**
+     * Get the number of times the file has been accessed through its memory mapping.
+     *
+     * @return the number of accesses.
+     */
+    public int getNumMappedAccesses() {
+        return topLevelSlice.numMappedAccesses.get();
+    }
+
     /**
      * Slice the file.
      *
@@ -208,12 +344,13 @@ public class FileSlice extends Slice {
      */
     @Override
     public RandomAccessReader randomAccessReader() {
-        if (backingByteBuffer == null) {
+        final ByteBuffer buf = accessBackingByteBuffer();
+        if (buf == null) {
             // If file was not mmap'd, return a RandomAccessReader that uses the FileChannel
             return new RandomAccessFileChannelReader(fileChannel, sliceStartPos, sliceLength);
         } else {
             // If file was mmap'd, return a RandomAccessReader that uses the ByteBuffer
-            return new RandomAccessByteBufferReader(backingByteBuffer, sliceStartPos, sliceLength);
+            return new RandomAccessByteBufferReader(buf, sliceStartPos, sliceLength);
         }
     }
 
@@ -266,7 +403,9 @@ public class FileSlice extends Slice {
                 throw new IOException("Uncompressed size is larger than 2GB");
             }
             return ByteBuffer.wrap(load());
-        } else if (backingByteBuffer == null) {
+        }
+        final ByteBuffer buf = getBackingByteBuffer();
+        if (buf == null) {
             // Copy from RandomAccessFile to byte array, then wrap in a ByteBuffer
             if (sliceLength > FileUtils.MAX_BUFFER_SIZE) {
                 throw new IOException("File is larger than 2GB");
@@ -274,7 +413,8 @@ public class FileSlice extends Slice {
             return ByteBuffer.wrap(load());
         } else {
             // FileSlice is backed with a MappedByteBuffer -- duplicate it and return it (low-cost operation)
-            return backingByteBuffer.duplicate();
+            topLevelSlice.numMappedAccesses.incrementAndGet();
+            return buf.duplicate();
         }
     }
 
@@ -288,16 +428,40 @@ public class FileSlice extends Slice {
         return super.hashCode();
     }
 
+    /**
+     * Get a view of the slice within the {@link MappedByteBuffer}, if the file was memory mapped.
+     *
+     * @return the byte buffer view, or null if the file was not memory mapped
+     */
+    @Override
+    protected ByteBuffer rawByteBufferView() {
+        final ByteBuffer buf = getBackingByteBuffer();
+        if (buf == null) {
+            return null;
+        }
+        topLevelSlice.numMappedAccesses.incrementAndGet();
+        final ByteBuffer dup = buf.duplicate();
+        ((Buffer) dup).position((int) sliceStartPos);
+        ((Buffer) dup).limit((int) (sliceStartPos + sliceLength));
+        return dup.slice().order(ByteOrder.BIG_ENDIAN);
+    }
+
     /** Close the slice. Unmaps any backing {@link MappedByteBuffer}. */
     @Override
     public void close() {
         if (!isClosed.getAndSet(true)) {
-            if (isTopLevelFileSlice && backingByteBuffer != null) {
-                // Only close ByteBuffer in toplevel file slice, so that ByteBuffer is only closed once
-                // (also duplicates of MappedByteBuffers cannot be closed by the cleaner API)
-                nestedJarHandler.closeDirectByteBuffer(backingByteBuffer);
+            if (isTopLevelFileSlice) {
+                synchronized (this) {
+                    if (backingByteBuffer != null) {
+                        // Only close ByteBuffer in toplevel file slice, so that ByteBuffer is only closed once
+                        // (also duplicates of MappedByteBuffers cannot be closed by the cleaner API)
+                        nestedJarHandler.closeDirectByteBuffer(backingByteBuffer);
+                    }
+                    backingByteBuffer = null;
+                }
+            } else {
+                backingByteBuffer = null;
             }
-            backingByteBuffer = null;
             fileChannel = null;
             try {
                 // Closing raf will also close the associated FileChannel
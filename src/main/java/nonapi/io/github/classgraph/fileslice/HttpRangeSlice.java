@@ -0,0 +1,673 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fileslice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+import nonapi.io.github.classgraph.utils.FileUtils;
+import nonapi.io.github.classgraph.utils.StringUtils;
+
+/**
+ * A slice of a remote file that is read on demand using HTTP {@code Range} requests, rather than by downloading the
+ * whole file. The file is fetched in fixed-size blocks, and the most recently used blocks are cached in RAM, so that
+ * the end of central directory record, the central directory, and the local headers and data of the zip entries
+ * that are actually read can each be fetched with a small number of requests. Every range request is sent with an
+ * {@code If-Range} header containing the {@code ETag} or {@code Last-Modified} value of the first response, so that
+ * reading fails rather than mixing the content of two versions of the file if the file changes on the server.
+ */
+public class HttpRangeSlice extends Slice {
+    /** The size of the blocks that the remote file is fetched in. */
+    public static final int BLOCK_SIZE = 64 * 1024;
+
+    /** The maximum number of blocks to keep in the block cache. */
+    private static final int MAX_CACHED_BLOCKS = 256;
+
+    /** The maximum number of consecutive blocks to fetch with a single range request. */
+    private static final int MAX_BLOCKS_PER_REQUEST = 16;
+
+    /** The HTTP connection and read timeout. */
+    private static final int HTTP_TIMEOUT = 5000;
+
+    /** The block cache. */
+    private final BlockCache blockCache;
+
+    /** True if this is a toplevel slice. */
+    private final boolean isTopLevelSlice;
+
+    /** True if {@link #close} has been called. */
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+
+    /**
+     * Constructor for treating a range of the remote file as a slice.
+     *
+     * @param parentSlice
+     *            the parent slice
+     * @param offset
+     *            the offset of the sub-slice within the parent slice
+     * @param length
+     *            the length of the sub-slice
+     * @param isDeflatedZipEntry
+     *            true if this is a deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @param nestedJarHandler
+     *            the nested jar handler
+     */
+    private HttpRangeSlice(final HttpRangeSlice parentSlice, final long offset, final long length,
+            final boolean isDeflatedZipEntry, final long inflatedLengthHint,
+            final NestedJarHandler nestedJarHandler) {
+        super(parentSlice, offset, length, isDeflatedZipEntry, inflatedLengthHint, nestedJarHandler);
+        this.blockCache = parentSlice.blockCache;
+        this.isTopLevelSlice = false;
+    }
+
+    /**
+     * Constructor for a toplevel slice.
+     *
+     * @param url
+     *            the URL of the remote file
+     * @param length
+     *            the length of the remote file
+     * @param eTag
+     *            the strong {@code ETag} of the remote file, or null if unknown
+     * @param lastModified
+     *            the {@code Last-Modified} date of the remote file, or null if unknown
+     * @param firstBlock
+     *            the content of the first block of the remote file, which was fetched while checking whether the
+     *            server supports range requests
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @throws IOException
+     *             if the nested jar handler has been closed
+     */
+    private HttpRangeSlice(final URL url, final long length, final String eTag, final String lastModified,
+            final byte[] firstBlock, final NestedJarHandler nestedJarHandler) throws IOException {
+        super(length, /* isDeflatedZipEntry = */ false, /* inflatedLengthHint = */ 0L, nestedJarHandler);
+        this.blockCache = new BlockCache(url, length, eTag, lastModified);
+        this.blockCache.put(0L, firstBlock);
+        this.isTopLevelSlice = true;
+
+        // Mark toplevel slice as open, so that the block cache is freed when the nested jar handler is closed
+        nestedJarHandler.markSliceAsOpen(this);
+    }
+
+    /**
+     * Create a slice for a remote file from the response to a request for the first {@link #BLOCK_SIZE} bytes of
+     * the file, sent with the header {@code Range: bytes=0-}<i>{@code (BLOCK_SIZE - 1)}</i>.
+     *
+     * @param httpConn
+     *            the connection, which must have returned the response code {@code 206 Partial Content}.
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @return the slice, or null if the response did not specify the total length of the file, did not start at
+     *         the beginning of the file, or did not include a strong {@code ETag} or a {@code Last-Modified} header
+     *         (in which case range requests cannot be used, since there is no way to detect whether the file
+     *         changes between requests).
+     * @throws IOException
+     *             if the response could not be read.
+     */
+    public static HttpRangeSlice fromPartialResponse(final HttpURLConnection httpConn,
+            final NestedJarHandler nestedJarHandler) throws IOException {
+        // Content-Range: bytes <first>-<last>/<total>
+        final String contentRange = httpConn.getHeaderField("Content-Range");
+        if (contentRange == null || !contentRange.startsWith("bytes 0-")) {
+            return null;
+        }
+        final int slashIdx = contentRange.indexOf('/');
+        long length;
+        try {
+            length = slashIdx < 0 ? -1L : Long.parseLong(contentRange.substring(slashIdx + 1).trim());
+        } catch (final NumberFormatException e) {
+            length = -1L;
+        }
+        if (length <= 0L) {
+            return null;
+        }
+        final String eTag = getStrongETag(httpConn);
+        final String lastModified = httpConn.getHeaderField("Last-Modified");
+        if (eTag == null && lastModified == null) {
+            return null;
+        }
+        final byte[] firstBlock = new byte[(int) Math.min(length, BLOCK_SIZE)];
+        try (InputStream inputStream = httpConn.getInputStream()) {
+            readFully(inputStream, firstBlock, 0, firstBlock.length);
+        }
+        return new HttpRangeSlice(httpConn.getURL(), length, eTag, lastModified, firstBlock, nestedJarHandler);
+    }
+
+    /**
+     * Get the {@code ETag} header of a response, if it is a strong validator (weak validators cannot be used in
+     * an {@code If-Range} header).
+     *
+     * @param httpConn
+     *            the connection
+     * @return the {@code ETag}, or null if there is no {@code ETag} header, or if it is a weak validator.
+     */
+    private static String getStrongETag(final HttpURLConnection httpConn) {
+        final String eTag = httpConn.getHeaderField("ETag");
+        return eTag == null || eTag.startsWith("W/") ? null : eTag;
+    }
+
+    /**
+     * Read the requested number of bytes from an {@link InputStream}.
+     *
+     * @param inputStream
+     *            the input stream
+     * @param buf
+     *            the buffer to read into
+     * @param off
+     *            the start offset within the buffer
+     * @param len
+     *            the number of bytes to read
+     * @throws IOException
+     *             if the stream ended before the requested number of bytes was read.
+     */
+    private static void readFully(final InputStream inputStream, final byte[] buf, final int off, final int len)
+            throws IOException {
+        for (int numBytesRead = 0; numBytesRead < len;) {
+            final int n = inputStream.read(buf, off + numBytesRead, len - numBytesRead);
+            if (n < 0) {
+                throw new IOException("Range response was truncated");
+            }
+            numBytesRead += n;
+        }
+    }
+
+    /**
+     * Get the total number of bytes fetched from the server so far.
+     *
+     * @return the number of bytes fetched
+     */
+    public long getNumBytesFetched() {
+        return blockCache.numBytesFetched.get();
+    }
+
+    /**
+     * Slice this slice to form a sub-slice.
+     *
+     * @param offset
+     *            the offset relative to the start of this slice to use as the start of the sub-slice.
+     * @param length
+     *            the length of the sub-slice.
+     * @param isDeflatedZipEntry
+     *            the is deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @return the slice
+     */
+    @Override
+    public Slice slice(final long offset, final long length, final boolean isDeflatedZipEntry,
+            final long inflatedLengthHint) {
+        if (this.isDeflatedZipEntry) {
+            throw new IllegalArgumentException("Cannot slice a deflated zip entry");
+        }
+        return new HttpRangeSlice(this, offset, length, isDeflatedZipEntry, inflatedLengthHint, nestedJarHandler);
+    }
+
+    /**
+     * Load the slice as a byte array.
+     *
+     * @return the byte[]
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Override
+    public byte[] load() throws IOException {
+        if (isDeflatedZipEntry) {
+            // Inflate into RAM if deflated
+            if (inflatedLengthHint > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("Uncompressed size is larger than 2GB");
+            }
+            try (InputStream inputStream = open()) {
+                return NestedJarHandler.readAllBytesAsArray(inputStream, inflatedLengthHint);
+            }
+        } else {
+            if (sliceLength > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("File is larger than 2GB");
+            }
+            final byte[] content = new byte[(int) sliceLength];
+            blockCache.read(sliceStartPos, content, 0, content.length);
+            return content;
+        }
+    }
+
+    /**
+     * Return a new random access reader.
+     *
+     * @return the random access reader
+     */
+    @Override
+    public RandomAccessReader randomAccessReader() {
+        return new RandomAccessHttpRangeReader(blockCache, sliceStartPos, sliceLength);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        // Toplevel slices of the same length are only equal if they read from the same block cache
+        return o instanceof HttpRangeSlice && super.equals(o) && ((HttpRangeSlice) o).blockCache == blockCache;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /** Close the slice. Frees the block cache, if this is a toplevel slice. */
+    @Override
+    public void close() {
+        if (!isClosed.getAndSet(true) && isTopLevelSlice) {
+            blockCache.close();
+            nestedJarHandler.markSliceAsClosed(this);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** A cache of the most recently used blocks of a remote file, which fetches missing blocks on demand. */
+    private static class BlockCache {
+        /** The URL of the remote file. */
+        private final URL url;
+
+        /** The length of the remote file. */
+        private final long length;
+
+        /** The strong {@code ETag} of the remote file, or null if unknown. */
+        private final String eTag;
+
+        /** The {@code Last-Modified} date of the remote file, or null if unknown. */
+        private final String lastModified;
+
+        /** Map from block index to block content, in least-recently-used order. */
+        private final Map<Long, byte[]> blocks = new LinkedHashMap<>(16, 0.75f, /* accessOrder = */ true);
+
+        /** The total number of bytes fetched from the server. */
+        private final AtomicLong numBytesFetched = new AtomicLong();
+
+        /** True if the cache has been closed. */
+        private volatile boolean closed;
+
+        /**
+         * Constructor.
+         *
+         * @param url
+         *            the URL of the remote file
+         * @param length
+         *            the length of the remote file
+         * @param eTag
+         *            the strong {@code ETag} of the remote file, or null if unknown
+         * @param lastModified
+         *            the {@code Last-Modified} date of the remote file, or null if unknown
+         */
+        BlockCache(final URL url, final long length, final String eTag, final String lastModified) {
+            this.url = url;
+            this.length = length;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Add a block to the cache, evicting the least recently used block if the cache is full.
+         *
+         * @param blockIdx
+         *            the block index
+         * @param block
+         *            the block content
+         */
+        void put(final long blockIdx, final byte[] block) {
+            synchronized (blocks) {
+                if (closed) {
+                    return;
+                }
+                blocks.put(blockIdx, block);
+                if (blocks.size() > MAX_CACHED_BLOCKS) {
+                    final Iterator<byte[]> iter = blocks.values().iterator();
+                    iter.next();
+                    iter.remove();
+                }
+            }
+        }
+
+        /**
+         * Read a range of the remote file.
+         *
+         * @param pos
+         *            the start position within the remote file
+         * @param dstArr
+         *            the array to read into
+         * @param dstArrStart
+         *            the start offset within the array
+         * @param numBytes
+         *            the number of bytes to read
+         * @throws IOException
+         *             if the range could not be fetched.
+         */
+        void read(final long pos, final byte[] dstArr, final int dstArrStart, final int numBytes)
+                throws IOException {
+            final long lastBlockIdx = (pos + numBytes - 1) / BLOCK_SIZE;
+            for (int numBytesRead = 0; numBytesRead < numBytes;) {
+                final long currPos = pos + numBytesRead;
+                final long blockIdx = currPos / BLOCK_SIZE;
+                final byte[] block = getBlock(blockIdx, lastBlockIdx);
+                final int blockOff = (int) (currPos - blockIdx * BLOCK_SIZE);
+                final int n = Math.min(numBytes - numBytesRead, block.length - blockOff);
+                if (n <= 0) {
+                    throw new IOException("Read index out of bounds");
+                }
+                System.arraycopy(block, blockOff, dstArr, dstArrStart + numBytesRead, n);
+                numBytesRead += n;
+            }
+        }
+
+        /**
+         * Get a block from the cache, or fetch it from the server if it is not cached, along with any following
+         * uncached blocks up to and including the last block needed by the current read.
+         *
+         * @param blockIdx
+         *            the index of the block
+         * @param lastBlockIdx
+         *            the index of the last block needed by the current read
+         * @return the block content
+         * @throws IOException
+         *             if the block could not be fetched.
+         */
+        private byte[] getBlock(final long blockIdx, final long lastBlockIdx) throws IOException {
+            int numBlocksToFetch = 1;
+            synchronized (blocks) {
+                if (closed) {
+                    throw new IOException("Slice is closed");
+                }
+                final byte[] block = blocks.get(blockIdx);
+                if (block != null) {
+                    return block;
+                }
+                while (numBlocksToFetch < MAX_BLOCKS_PER_REQUEST && blockIdx + numBlocksToFetch <= lastBlockIdx
+                        && !blocks.containsKey(blockIdx + numBlocksToFetch)) {
+                    numBlocksToFetch++;
+                }
+            }
+            // Fetch outside the lock, so that other threads can read cached blocks in the meantime. Two threads
+            // may occasionally fetch the same block, which is harmless.
+            final long startPos = blockIdx * BLOCK_SIZE;
+            final long endPos = Math.min(length, (blockIdx + numBlocksToFetch) * BLOCK_SIZE);
+            if (startPos >= endPos) {
+                throw new IOException("Read index out of bounds");
+            }
+            final byte[] content = fetch(startPos, (int) (endPos - startPos));
+            byte[] firstBlock = null;
+            for (int i = 0; i < numBlocksToFetch; i++) {
+                final int blockStart = i * BLOCK_SIZE;
+                final int blockLen = Math.min(BLOCK_SIZE, content.length - blockStart);
+                final byte[] block;
+                if (blockStart == 0 && blockLen == content.length) {
+                    block = content;
+                } else {
+                    block = new byte[blockLen];
+                    System.arraycopy(content, blockStart, block, 0, blockLen);
+                }
+                put(blockIdx + i, block);
+                if (i == 0) {
+                    firstBlock = block;
+                }
+            }
+            return firstBlock;
+        }
+
+        /**
+         * Fetch a range of the remote file from the server.
+         *
+         * @param startPos
+         *            the start position
+         * @param len
+         *            the number of bytes to fetch
+         * @return the content of the range
+         * @throws IOException
+         *             if the range could not be fetched, the server did not honor the range request, or the remote
+         *             file has changed since the first range was fetched.
+         */
+        private byte[] fetch(final long startPos, final int len) throws IOException {
+            final HttpURLConnection httpConn = (HttpURLConnection) url.openConnection();
+            try {
+                httpConn.setConnectTimeout(HTTP_TIMEOUT);
+                httpConn.setReadTimeout(HTTP_TIMEOUT);
+                httpConn.setRequestProperty("Range", "bytes=" + startPos + "-" + (startPos + len - 1));
+                // If the file has changed, the server ignores the Range header and returns the whole file
+                httpConn.setRequestProperty("If-Range", eTag != null ? eTag : lastModified);
+                final int responseCode = httpConn.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Remote file changed while reading it using range requests: " + url);
+                } else if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new IOException("Got response code " + responseCode + " for range request to URL " + url);
+                }
+                final String contentRange = httpConn.getHeaderField("Content-Range");
+                if (contentRange == null || !contentRange.startsWith("bytes " + startPos + "-")
+                        || !contentRange.endsWith("/" + length)) {
+                    throw new IOException("Got unexpected Content-Range " + contentRange
+                            + " for range request to URL " + url);
+                }
+                // Also check the validator of the response, in case the server does not support If-Range
+                final String responseETag = getStrongETag(httpConn);
+                final String responseLastModified = httpConn.getHeaderField("Last-Modified");
+                if (eTag != null ? responseETag != null && !responseETag.equals(eTag)
+                        : responseLastModified != null && !responseLastModified.equals(lastModified)) {
+                    throw new IOException("Remote file changed while reading it using range requests: " + url);
+                }
+                final byte[] content = new byte[len];
+                try (InputStream inputStream = httpConn.getInputStream()) {
+                    readFully(inputStream, content, 0, len);
+                }
+                numBytesFetched.addAndGet(len);
+                return content;
+            } finally {
+                httpConn.disconnect();
+            }
+        }
+
+        /** Close the cache, and free the cached blocks. */
+        void close() {
+            synchronized (blocks) {
+                closed = true;
+                blocks.clear();
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@link RandomAccessReader} for an {@link HttpRangeSlice}. Reads in <b>little endian</b> order, as required by
+     * the zipfile format.
+     */
+    private static class RandomAccessHttpRangeReader implements RandomAccessReader {
+        /** The block cache. */
+        private final BlockCache blockCache;
+
+        /** The slice start pos. */
+        private final long sliceStartPos;
+
+        /** The slice length. */
+        private final long sliceLength;
+
+        /** The scratch arr. */
+        private final byte[] scratchArr = new byte[8];
+
+        /** The buffer used for reading into a {@link ByteBuffer} that is not backed by an array. */
+        private byte[] transferArr;
+
+        /** The utf 8 bytes. */
+        private byte[] utf8Bytes;
+
+        /**
+         * Constructor.
+         *
+         * @param blockCache
+         *            the block cache
+         * @param sliceStartPos
+         *            the slice start pos
+         * @param sliceLength
+         *            the slice length
+         */
+        RandomAccessHttpRangeReader(final BlockCache blockCache, final long sliceStartPos,
+                final long sliceLength) {
+            this.blockCache = blockCache;
+            this.sliceStartPos = sliceStartPos;
+            this.sliceLength = sliceLength;
+        }
+
+        @Override
+        public int read(final long srcOffset, final ByteBuffer dstBuf, final int dstBufStart, final int numBytes)
+                throws IOException {
+            if (numBytes == 0) {
+                return 0;
+            }
+            try {
+                if (srcOffset < 0L || numBytes < 0 || numBytes > sliceLength - srcOffset) {
+                    throw new IOException("Read index out of bounds");
+                }
+                if (dstBuf.hasArray() && !dstBuf.isReadOnly()) {
+                    blockCache.read(sliceStartPos + srcOffset, dstBuf.array(), dstBuf.arrayOffset() + dstBufStart,
+                            numBytes);
+                    ((Buffer) dstBuf).position(dstBufStart + numBytes);
+                } else {
+                    if (transferArr == null) {
+                        transferArr = new byte[8192];
+                    }
+                    ((Buffer) dstBuf).position(dstBufStart);
+                    for (int numBytesRead = 0; numBytesRead < numBytes;) {
+                        final int n = Math.min(numBytes - numBytesRead, transferArr.length);
+                        blockCache.read(sliceStartPos + srcOffset + numBytesRead, transferArr, 0, n);
+                        dstBuf.put(transferArr, 0, n);
+                        numBytesRead += n;
+                    }
+                }
+                return numBytes;
+
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Read index out of bounds");
+            }
+        }
+
+        @Override
+        public int read(final long srcOffset, final byte[] dstArr, final int dstArrStart, final int numBytes)
+                throws IOException {
+            if (numBytes == 0) {
+                return 0;
+            }
+            if (srcOffset < 0L || numBytes < 0 || numBytes > sliceLength - srcOffset) {
+                throw new IOException("Read index out of bounds");
+            }
+            if (dstArrStart < 0 || dstArrStart > dstArr.length - numBytes) {
+                throw new IOException("Read index out of bounds");
+            }
+            blockCache.read(sliceStartPos + srcOffset, dstArr, dstArrStart, numBytes);
+            return numBytes;
+        }
+
+        @Override
+        public byte readByte(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 1);
+            return scratchArr[0];
+        }
+
+        @Override
+        public int readUnsignedByte(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 1);
+            return scratchArr[0] & 0xff;
+        }
+
+        @Override
+        public short readShort(final long offset) throws IOException {
+            return (short) readUnsignedShort(offset);
+        }
+
+        @Override
+        public int readUnsignedShort(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 2);
+            return ((scratchArr[1] & 0xff) << 8) //
+                    | (scratchArr[0] & 0xff);
+        }
+
+        @Override
+        public int readInt(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 4);
+            return ((scratchArr[3] & 0xff) << 24) //
+                    | ((scratchArr[2] & 0xff) << 16) //
+                    | ((scratchArr[1] & 0xff) << 8) //
+                    | (scratchArr[0] & 0xff);
+        }
+
+        @Override
+        public long readUnsignedInt(final long offset) throws IOException {
+            return readInt(offset) & 0xffffffffL;
+        }
+
+        @Override
+        public long readLong(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 8);
+            return ((scratchArr[7] & 0xffL) << 56) //
+                    | ((scratchArr[6] & 0xffL) << 48) //
+                    | ((scratchArr[5] & 0xffL) << 40) //
+                    | ((scratchArr[4] & 0xffL) << 32) //
+                    | ((scratchArr[3] & 0xffL) << 24) //
+                    | ((scratchArr[2] & 0xffL) << 16) //
+                    | ((scratchArr[1] & 0xffL) << 8) //
+                    | (scratchArr[0] & 0xffL);
+        }
+
+        @Override
+        public String readString(final long offset, final int numBytes, final boolean replaceSlashWithDot,
+                final boolean stripLSemicolon) throws IOException {
+            // Reuse UTF8 buffer array if it's non-null from a previous call, and if it's big enough
+            if (utf8Bytes == null || utf8Bytes.length < numBytes) {
+                utf8Bytes = new byte[numBytes];
+            }
+            read(offset, utf8Bytes, 0, numBytes);
+            return StringUtils.readString(utf8Bytes, 0, numBytes, replaceSlashWithDot, stripLSemicolon);
+        }
+
+        @Override
+        public String readString(final long offset, final int numBytes) throws IOException {
+            return readString(offset, numBytes, false, false);
+        }
+    }
+}
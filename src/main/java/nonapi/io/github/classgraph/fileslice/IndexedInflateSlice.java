@@ -0,0 +1,376 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fileslice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+import nonapi.io.github.classgraph.utils.FileUtils;
+import nonapi.io.github.classgraph.utils.StringUtils;
+
+/**
+ * A slice of the inflated content of a deflated zip entry, which is read by resuming inflation from checkpoints in
+ * an {@link InflateCheckpointIndex}, rather than by extracting the zip entry to RAM or to a temporary file.
+ */
+public class IndexedInflateSlice extends Slice {
+    /** The checkpoint index. */
+    private final InflateCheckpointIndex index;
+
+    /** True if this is a toplevel slice. */
+    private final boolean isTopLevelSlice;
+
+    /** True if {@link #close} has been called. */
+    private final AtomicBoolean isClosed = new AtomicBoolean();
+
+    /**
+     * Constructor for treating a range of the inflated content as a slice.
+     *
+     * @param parentSlice
+     *            the parent slice
+     * @param offset
+     *            the offset of the sub-slice within the parent slice
+     * @param length
+     *            the length of the sub-slice
+     * @param isDeflatedZipEntry
+     *            true if this is a deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @param nestedJarHandler
+     *            the nested jar handler
+     */
+    private IndexedInflateSlice(final IndexedInflateSlice parentSlice, final long offset, final long length,
+            final boolean isDeflatedZipEntry, final long inflatedLengthHint,
+            final NestedJarHandler nestedJarHandler) {
+        super(parentSlice, offset, length, isDeflatedZipEntry, inflatedLengthHint, nestedJarHandler);
+        this.index = parentSlice.index;
+        this.isTopLevelSlice = false;
+    }
+
+    /**
+     * Constructor for a toplevel slice.
+     *
+     * @param index
+     *            the checkpoint index
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @throws IOException
+     *             if the nested jar handler has been closed
+     */
+    private IndexedInflateSlice(final InflateCheckpointIndex index, final NestedJarHandler nestedJarHandler)
+            throws IOException {
+        super(index.inflatedLength, /* isDeflatedZipEntry = */ false, /* inflatedLengthHint = */ 0L,
+                nestedJarHandler);
+        this.index = index;
+        this.isTopLevelSlice = true;
+
+        // Mark toplevel slice as open, so that the checkpoint index is freed when the nested jar handler is closed
+        try {
+            nestedJarHandler.markSliceAsOpen(this);
+        } catch (final IOException e) {
+            index.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Constructor for the inflated content of a deflated zip entry. Decodes the whole deflated stream once, to find
+     * the checkpoints.
+     *
+     * @param deflatedSlice
+     *            the deflated zip entry
+     * @param nestedJarHandler
+     *            the nested jar handler
+     * @throws IOException
+     *             if the zip entry could not be read, or is not valid DEFLATE data
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    public IndexedInflateSlice(final Slice deflatedSlice, final NestedJarHandler nestedJarHandler)
+            throws IOException, InterruptedException {
+        this(new InflateCheckpointIndex(deflatedSlice.randomAccessReader(), deflatedSlice.sliceLength,
+                deflatedSlice.inflatedLengthHint, InflateCheckpointIndex.DEFAULT_CHECKPOINT_SPAN,
+                nestedJarHandler.interruptionChecker), nestedJarHandler);
+    }
+
+    /**
+     * Get the number of checkpoints in the index.
+     *
+     * @return the number of checkpoints
+     */
+    public int getNumCheckpoints() {
+        return index.getNumCheckpoints();
+    }
+
+    /**
+     * Slice this slice to form a sub-slice.
+     *
+     * @param offset
+     *            the offset relative to the start of this slice to use as the start of the sub-slice.
+     * @param length
+     *            the length of the sub-slice.
+     * @param isDeflatedZipEntry
+     *            the is deflated zip entry
+     * @param inflatedLengthHint
+     *            the uncompressed size of a deflated zip entry, or -1 if unknown, or 0 of this is not a deflated
+     *            zip entry.
+     * @return the slice
+     */
+    @Override
+    public Slice slice(final long offset, final long length, final boolean isDeflatedZipEntry,
+            final long inflatedLengthHint) {
+        if (this.isDeflatedZipEntry) {
+            throw new IllegalArgumentException("Cannot slice a deflated zip entry");
+        }
+        return new IndexedInflateSlice(this, offset, length, isDeflatedZipEntry, inflatedLengthHint,
+                nestedJarHandler);
+    }
+
+    /**
+     * Load the slice as a byte array.
+     *
+     * @return the byte[]
+     * @throws IOException
+     *             Signals that an I/O exception has occurred.
+     */
+    @Override
+    public byte[] load() throws IOException {
+        if (isDeflatedZipEntry) {
+            // Inflate into RAM if deflated
+            if (inflatedLengthHint > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("Uncompressed size is larger than 2GB");
+            }
+            try (InputStream inputStream = open()) {
+                return NestedJarHandler.readAllBytesAsArray(inputStream, inflatedLengthHint);
+            }
+        } else {
+            if (sliceLength > FileUtils.MAX_BUFFER_SIZE) {
+                throw new IOException("File is larger than 2GB");
+            }
+            final byte[] content = new byte[(int) sliceLength];
+            index.read(sliceStartPos, content, 0, content.length);
+            return content;
+        }
+    }
+
+    /**
+     * Return a new random access reader.
+     *
+     * @return the random access reader
+     */
+    @Override
+    public RandomAccessReader randomAccessReader() {
+        return new RandomAccessIndexedInflateReader(index, sliceStartPos, sliceLength);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        // Toplevel slices of the same length are only equal if they read from the same index
+        return o instanceof IndexedInflateSlice && super.equals(o) && ((IndexedInflateSlice) o).index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /** Close the slice. Frees the checkpoint index, if this is a toplevel slice. */
+    @Override
+    public void close() {
+        if (!isClosed.getAndSet(true) && isTopLevelSlice) {
+            index.close();
+            nestedJarHandler.markSliceAsClosed(this);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * {@link RandomAccessReader} for an {@link IndexedInflateSlice}. Reads in <b>little endian</b> order, as
+     * required by the zipfile format.
+     */
+    private static class RandomAccessIndexedInflateReader implements RandomAccessReader {
+        /** The checkpoint index. */
+        private final InflateCheckpointIndex index;
+
+        /** The slice start pos. */
+        private final long sliceStartPos;
+
+        /** The slice length. */
+        private final long sliceLength;
+
+        /** The scratch arr. */
+        private final byte[] scratchArr = new byte[8];
+
+        /** The buffer used for reading into a {@link ByteBuffer} that is not backed by an array. */
+        private byte[] transferArr;
+
+        /** The utf 8 bytes. */
+        private byte[] utf8Bytes;
+
+        /**
+         * Constructor.
+         *
+         * @param index
+         *            the checkpoint index
+         * @param sliceStartPos
+         *            the slice start pos
+         * @param sliceLength
+         *            the slice length
+         */
+        RandomAccessIndexedInflateReader(final InflateCheckpointIndex index, final long sliceStartPos,
+                final long sliceLength) {
+            this.index = index;
+            this.sliceStartPos = sliceStartPos;
+            this.sliceLength = sliceLength;
+        }
+
+        @Override
+        public int read(final long srcOffset, final ByteBuffer dstBuf, final int dstBufStart, final int numBytes)
+                throws IOException {
+            if (numBytes == 0) {
+                return 0;
+            }
+            try {
+                if (srcOffset < 0L || numBytes < 0 || numBytes > sliceLength - srcOffset) {
+                    throw new IOException("Read index out of bounds");
+                }
+                if (dstBuf.hasArray() && !dstBuf.isReadOnly()) {
+                    index.read(sliceStartPos + srcOffset, dstBuf.array(), dstBuf.arrayOffset() + dstBufStart,
+                            numBytes);
+                    ((Buffer) dstBuf).position(dstBufStart + numBytes);
+                } else {
+                    if (transferArr == null) {
+                        transferArr = new byte[8192];
+                    }
+                    ((Buffer) dstBuf).position(dstBufStart);
+                    for (int numBytesRead = 0; numBytesRead < numBytes;) {
+                        final int n = Math.min(numBytes - numBytesRead, transferArr.length);
+                        index.read(sliceStartPos + srcOffset + numBytesRead, transferArr, 0, n);
+                        dstBuf.put(transferArr, 0, n);
+                        numBytesRead += n;
+                    }
+                }
+                return numBytes;
+
+            } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+                throw new IOException("Read index out of bounds");
+            }
+        }
+
+        @Override
+        public int read(final long srcOffset, final byte[] dstArr, final int dstArrStart, final int numBytes)
+                throws IOException {
+            if (numBytes == 0) {
+                return 0;
+            }
+            if (srcOffset < 0L || numBytes < 0 || numBytes > sliceLength - srcOffset) {
+                throw new IOException("Read index out of bounds");
+            }
+            if (dstArrStart < 0 || dstArrStart > dstArr.length - numBytes) {
+                throw new IOException("Read index out of bounds");
+            }
+            index.read(sliceStartPos + srcOffset, dstArr, dstArrStart, numBytes);
+            return numBytes;
+        }
+
+        @Override
+        public byte readByte(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 1);
+            return scratchArr[0];
+        }
+
+        @Override
+        public int readUnsignedByte(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 1);
+            return scratchArr[0] & 0xff;
+        }
+
+        @Override
+        public short readShort(final long offset) throws IOException {
+            return (short) readUnsignedShort(offset);
+        }
+
+        @Override
+        public int readUnsignedShort(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 2);
+            return ((scratchArr[1] & 0xff) << 8) //
+                    | (scratchArr[0] & 0xff);
+        }
+
+        @Override
+        public int readInt(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 4);
+            return ((scratchArr[3] & 0xff) << 24) //
+                    | ((scratchArr[2] & 0xff) << 16) //
+                    | ((scratchArr[1] & 0xff) << 8) //
+                    | (scratchArr[0] & 0xff);
+        }
+
+        @Override
+        public long readUnsignedInt(final long offset) throws IOException {
+            return readInt(offset) & 0xffffffffL;
+        }
+
+        @Override
+        public long readLong(final long offset) throws IOException {
+            read(offset, scratchArr, 0, 8);
+            return ((scratchArr[7] & 0xffL) << 56) //
+                    | ((scratchArr[6] & 0xffL) << 48) //
+                    | ((scratchArr[5] & 0xffL) << 40) //
+                    | ((scratchArr[4] & 0xffL) << 32) //
+                    | ((scratchArr[3] & 0xffL) << 24) //
+                    | ((scratchArr[2] & 0xffL) << 16) //
+                    | ((scratchArr[1] & 0xffL) << 8) //
+                    | (scratchArr[0] & 0xffL);
+        }
+
+        @Override
+        public String readString(final long offset, final int numBytes, final boolean replaceSlashWithDot,
+                final boolean stripLSemicolon) throws IOException {
+            // Reuse UTF8 buffer array if it's non-null from a previous call, and if it's big enough
+            if (utf8Bytes == null || utf8Bytes.length < numBytes) {
+                utf8Bytes = new byte[numBytes];
+            }
+            read(offset, utf8Bytes, 0, numBytes);
+            return StringUtils.readString(utf8Bytes, 0, numBytes, replaceSlashWithDot, stripLSemicolon);
+        }
+
+        @Override
+        public String readString(final long offset, final int numBytes) throws IOException {
+            return readString(offset, numBytes, false, false);
+        }
+    }
+}
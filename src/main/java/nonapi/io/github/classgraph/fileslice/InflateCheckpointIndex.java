@@ -0,0 +1,866 @@
+/*
+ * This file is part of ClassGraph.
+ *
+ * Author: Luke Hutchison
+ *
+ * Hosted at: https://github.com/classgraph/classgraph
+ *
+ * --
+ *
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2021 Luke Hutchison
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without
+ * limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN
+ * AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE
+ * OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package nonapi.io.github.classgraph.fileslice;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+
+/**
+ * An index of checkpoints into a raw DEFLATE stream, which allows the inflated content to be read at any offset by
+ * resuming inflation from the nearest preceding checkpoint, rather than by inflating the whole stream from the
+ * start (the approach taken by the zran.c example in the zlib distribution).
+ *
+ * <p>
+ * A checkpoint is recorded at a DEFLATE block boundary, and consists of the offset of the block header in the
+ * deflated stream, the corresponding offset in the inflated stream, and the (up to) 32kB of inflated content that
+ * precedes that offset, which back-references within the following blocks may refer to. {@link Inflater} does not
+ * report block boundaries, so the checkpoints are found in a single pass over the deflated stream by a minimal
+ * DEFLATE decoder. To resume inflation at a checkpoint, a raw {@link Inflater} is given the 32kB window as a preset
+ * dictionary, and is then fed the deflated stream from the checkpoint onwards.
+ *
+ * <p>
+ * Unlike zlib's {@code inflatePrime}, {@link Inflater} cannot be primed with a partial byte, and shifting the
+ * deflated stream to start at bit 0 would change the byte alignment of any following stored blocks. Therefore
+ * checkpoints are only recorded at block boundaries that fall on a byte boundary. These occur after every stored
+ * block (and nested jarfiles consist mostly of already-compressed content, which is deflated as stored blocks),
+ * and after one in eight other blocks on average.
+ */
+final class InflateCheckpointIndex implements Closeable {
+    /** The DEFLATE window size. */
+    private static final int WINDOW_SIZE = 32 * 1024;
+
+    /** The default minimum number of inflated bytes between checkpoints. */
+    static final int DEFAULT_CHECKPOINT_SPAN = 1024 * 1024;
+
+    /** The maximum number of idle cursors to keep for reuse. */
+    private static final int MAX_IDLE_CURSORS = 4;
+
+    /** The size of the buffers used to read the deflated stream. */
+    private static final int INPUT_CHUNK_SIZE = 16 * 1024;
+
+    /** The size of the buffers that inflated content is read into. */
+    private static final int OUTPUT_CHUNK_SIZE = 16 * 1024;
+
+    /** The number of bits in the Huffman code lookup tables. */
+    private static final int LOOKUP_BITS = 9;
+
+    /** The order in which code length code lengths are stored in a dynamic Huffman block header. */
+    private static final int[] CODE_LENGTH_ORDER = { 16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1,
+            15 };
+
+    /** The base lengths for length symbols 257 to 285. */
+    private static final int[] LENGTH_BASE = { 3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51,
+            59, 67, 83, 99, 115, 131, 163, 195, 227, 258 };
+
+    /** The number of extra bits for length symbols 257 to 285. */
+    private static final int[] LENGTH_EXTRA_BITS = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4,
+            4, 4, 4, 5, 5, 5, 5, 0 };
+
+    /** The base distances for distance symbols 0 to 29. */
+    private static final int[] DISTANCE_BASE = { 1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257,
+            385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577 };
+
+    /** The number of extra bits for distance symbols 0 to 29. */
+    private static final int[] DISTANCE_EXTRA_BITS = { 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8,
+            9, 9, 10, 10, 11, 11, 12, 12, 13, 13 };
+
+    /** The literal/length code for fixed Huffman blocks. */
+    private static final HuffmanCode FIXED_LITERAL_LENGTH_CODE;
+
+    /** The distance code for fixed Huffman blocks. */
+    private static final HuffmanCode FIXED_DISTANCE_CODE;
+
+    static {
+        final int[] literalLengthCodeLengths = new int[288];
+        Arrays.fill(literalLengthCodeLengths, 0, 144, 8);
+        Arrays.fill(literalLengthCodeLengths, 144, 256, 9);
+        Arrays.fill(literalLengthCodeLengths, 256, 280, 7);
+        Arrays.fill(literalLengthCodeLengths, 280, 288, 8);
+        final int[] distanceCodeLengths = new int[30];
+        Arrays.fill(distanceCodeLengths, 5);
+        try {
+            FIXED_LITERAL_LENGTH_CODE = new HuffmanCode(literalLengthCodeLengths, 0, literalLengthCodeLengths.length);
+            FIXED_DISTANCE_CODE = new HuffmanCode(distanceCodeLengths, 0, distanceCodeLengths.length);
+        } catch (final IOException e) {
+            // Should not happen
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** A reader for the deflated stream. */
+    private final RandomAccessReader deflatedReader;
+
+    /** The length of the deflated stream. */
+    private final long deflatedLength;
+
+    /** The length of the inflated stream. */
+    final long inflatedLength;
+
+    /** The offset of each checkpoint in the deflated stream. */
+    private final long[] checkpointDeflatedOffsets;
+
+    /** The offset of each checkpoint in the inflated stream. */
+    private final long[] checkpointInflatedOffsets;
+
+    /** The inflated content preceding each checkpoint, up to the size of the DEFLATE window. */
+    private final byte[][] checkpointWindows;
+
+    /** Cursors that are not currently in use. */
+    private final List<Cursor> idleCursors = new ArrayList<>();
+
+    /** True if {@link #close()} has been called. */
+    private boolean closed;
+
+    /**
+     * Build a checkpoint index by decoding a raw DEFLATE stream.
+     *
+     * @param deflatedReader
+     *            a reader for the deflated stream
+     * @param deflatedLength
+     *            the length of the deflated stream
+     * @param inflatedLengthHint
+     *            the expected length of the inflated stream, or -1 if unknown
+     * @param checkpointSpan
+     *            the minimum number of inflated bytes between checkpoints
+     * @param interruptionChecker
+     *            the interruption checker
+     * @throws IOException
+     *             if the deflated stream could not be read, or is not valid DEFLATE data
+     * @throws InterruptedException
+     *             if the thread was interrupted
+     */
+    InflateCheckpointIndex(final RandomAccessReader deflatedReader, final long deflatedLength,
+            final long inflatedLengthHint, final int checkpointSpan, final InterruptionChecker interruptionChecker)
+            throws IOException, InterruptedException {
+        this.deflatedReader = deflatedReader;
+        this.deflatedLength = deflatedLength;
+        final Decoder decoder = new Decoder(deflatedReader, deflatedLength);
+        final List<Long> deflatedOffsets = new ArrayList<>();
+        final List<Long> inflatedOffsets = new ArrayList<>();
+        final List<byte[]> windows = new ArrayList<>();
+        long lastCheckpointInflatedOffset = -1L;
+        for (boolean isFinalBlock = false; !isFinalBlock;) {
+            final long bitOffset = decoder.getBitOffset();
+            if (lastCheckpointInflatedOffset < 0L
+                    || (decoder.inflatedOffset - lastCheckpointInflatedOffset >= checkpointSpan
+                            && (bitOffset & 7) == 0)) {
+                if (interruptionChecker != null && interruptionChecker.checkAndReturn()) {
+                    throw new InterruptedException();
+                }
+                deflatedOffsets.add(bitOffset >>> 3);
+                inflatedOffsets.add(decoder.inflatedOffset);
+                windows.add(decoder.getWindow());
+                lastCheckpointInflatedOffset = decoder.inflatedOffset;
+            }
+            isFinalBlock = decoder.decodeBlock();
+        }
+        this.inflatedLength = decoder.inflatedOffset;
+        if (inflatedLengthHint >= 0L && inflatedLengthHint != inflatedLength) {
+            throw new IOException("Inflated length " + inflatedLength + " does not match expected length "
+                    + inflatedLengthHint);
+        }
+        final int numCheckpoints = deflatedOffsets.size();
+        this.checkpointDeflatedOffsets = new long[numCheckpoints];
+        this.checkpointInflatedOffsets = new long[numCheckpoints];
+        for (int i = 0; i < numCheckpoints; i++) {
+            checkpointDeflatedOffsets[i] = deflatedOffsets.get(i);
+            checkpointInflatedOffsets[i] = inflatedOffsets.get(i);
+        }
+        this.checkpointWindows = windows.toArray(new byte[numCheckpoints][]);
+    }
+
+    /**
+     * Get the number of checkpoints.
+     *
+     * @return the number of checkpoints
+     */
+    int getNumCheckpoints() {
+        return checkpointDeflatedOffsets.length;
+    }
+
+    /**
+     * Get the index of the last checkpoint at or before an inflated offset.
+     *
+     * @param inflatedOffset
+     *            the inflated offset
+     * @return the checkpoint index
+     */
+    private int findCheckpoint(final long inflatedOffset) {
+        final int idx = Arrays.binarySearch(checkpointInflatedOffsets, inflatedOffset);
+        // There is always a checkpoint at offset 0, so idx can only be -1 if inflatedOffset < 0
+        return idx >= 0 ? idx : Math.max(0, -idx - 2);
+    }
+
+    /**
+     * Read a range of the inflated stream.
+     *
+     * @param inflatedOffset
+     *            the offset in the inflated stream to start reading from
+     * @param dstArr
+     *            the array to read into
+     * @param dstArrStart
+     *            the start index within the array
+     * @param numBytes
+     *            the number of bytes to read
+     * @throws IOException
+     *             if the range is out of bounds, or the deflated stream could not be read or inflated
+     */
+    void read(final long inflatedOffset, final byte[] dstArr, final int dstArrStart, final int numBytes)
+            throws IOException {
+        if (inflatedOffset < 0L || numBytes < 0 || numBytes > inflatedLength - inflatedOffset) {
+            throw new IOException("Read index out of bounds");
+        }
+        final Cursor cursor = acquireCursor(inflatedOffset);
+        boolean reusable = false;
+        try {
+            cursor.read(inflatedOffset, dstArr, dstArrStart, numBytes);
+            reusable = true;
+        } finally {
+            releaseCursor(cursor, reusable);
+        }
+    }
+
+    /**
+     * Get a cursor that can read from the requested offset, reusing an idle cursor if one is positioned at or past
+     * the nearest checkpoint before the offset, otherwise starting a new cursor at that checkpoint.
+     *
+     * @param inflatedOffset
+     *            the inflated offset
+     * @return the cursor
+     * @throws IOException
+     *             if the index has been closed
+     */
+    private Cursor acquireCursor(final long inflatedOffset) throws IOException {
+        final int checkpointIdx = findCheckpoint(inflatedOffset);
+        synchronized (idleCursors) {
+            if (closed) {
+                throw new IOException("Already closed");
+            }
+            int bestIdx = -1;
+            for (int i = 0; i < idleCursors.size(); i++) {
+                final Cursor cursor = idleCursors.get(i);
+                if (cursor.bufStart <= inflatedOffset
+                        && cursor.bufStart + cursor.bufLen >= checkpointInflatedOffsets[checkpointIdx]
+                        && (bestIdx < 0 || cursor.bufStart > idleCursors.get(bestIdx).bufStart)) {
+                    bestIdx = i;
+                }
+            }
+            if (bestIdx >= 0) {
+                return idleCursors.remove(bestIdx);
+            }
+        }
+        return new Cursor(checkpointIdx);
+    }
+
+    /**
+     * Return a cursor to the idle list, or end its {@link Inflater}.
+     *
+     * @param cursor
+     *            the cursor
+     * @param reusable
+     *            false if the cursor is in an inconsistent state
+     */
+    private void releaseCursor(final Cursor cursor, final boolean reusable) {
+        synchronized (idleCursors) {
+            if (reusable && !closed && idleCursors.size() < MAX_IDLE_CURSORS) {
+                idleCursors.add(cursor);
+                return;
+            }
+        }
+        cursor.inflater.end();
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() {
+        synchronized (idleCursors) {
+            closed = true;
+            for (final Cursor cursor : idleCursors) {
+                cursor.inflater.end();
+            }
+            idleCursors.clear();
+        }
+    }
+
+    /**
+     * Read bytes from a {@link RandomAccessReader} until the requested number of bytes have been read.
+     *
+     * @param reader
+     *            the reader
+     * @param srcOffset
+     *            the offset to read from
+     * @param dstArr
+     *            the array to read into
+     * @param dstArrStart
+     *            the start index within the array
+     * @param numBytes
+     *            the number of bytes to read
+     * @throws IOException
+     *             if the bytes could not be read
+     */
+    private static void readFully(final RandomAccessReader reader, final long srcOffset, final byte[] dstArr,
+            final int dstArrStart, final int numBytes) throws IOException {
+        for (int numBytesRead = 0; numBytesRead < numBytes;) {
+            final int n = reader.read(srcOffset + numBytesRead, dstArr, dstArrStart + numBytesRead,
+                    numBytes - numBytesRead);
+            if (n < 1) {
+                throw new IOException("Premature EOF");
+            }
+            numBytesRead += n;
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * An {@link Inflater} resumed from a checkpoint, along with the most recently inflated chunk of content, so that
+     * a sequence of reads at increasing offsets (or within the same chunk) does not need to go back to a
+     * checkpoint.
+     */
+    private final class Cursor {
+        /** The inflater. */
+        final Inflater inflater = new Inflater(/* nowrap = */ true);
+
+        /** The offset in the deflated stream of the next byte to feed to the inflater. */
+        private long nextDeflatedOffset;
+
+        /** True if the single dummy byte that may follow the end of the deflated stream has been fed. */
+        private boolean fedDummyByte;
+
+        /** The buffer of input for the inflater. */
+        private final byte[] inBuf = new byte[INPUT_CHUNK_SIZE];
+
+        /** The most recently inflated chunk. */
+        private final byte[] buf = new byte[OUTPUT_CHUNK_SIZE];
+
+        /** The inflated offset of the start of {@link #buf}. */
+        long bufStart;
+
+        /** The number of valid bytes in {@link #buf}. */
+        int bufLen;
+
+        /**
+         * Constructor.
+         *
+         * @param checkpointIdx
+         *            the index of the checkpoint to resume from
+         */
+        Cursor(final int checkpointIdx) {
+            this.nextDeflatedOffset = checkpointDeflatedOffsets[checkpointIdx];
+            this.bufStart = checkpointInflatedOffsets[checkpointIdx];
+            final byte[] window = checkpointWindows[checkpointIdx];
+            if (window.length > 0) {
+                inflater.setDictionary(window);
+            }
+        }
+
+        /**
+         * Read a range of the inflated stream, starting at or after {@link #bufStart}.
+         *
+         * @param inflatedOffset
+         *            the offset in the inflated stream to start reading from
+         * @param dstArr
+         *            the array to read into
+         * @param dstArrStart
+         *            the start index within the array
+         * @param numBytes
+         *            the number of bytes to read
+         * @throws IOException
+         *             if the deflated stream could not be read or inflated
+         */
+        void read(final long inflatedOffset, final byte[] dstArr, final int dstArrStart, final int numBytes)
+                throws IOException {
+            long off = inflatedOffset;
+            int dstIdx = dstArrStart;
+            int remaining = numBytes;
+            while (remaining > 0) {
+                final long bufEnd = bufStart + bufLen;
+                if (off >= bufEnd) {
+                    inflateNextChunk();
+                } else {
+                    final int n = (int) Math.min(remaining, bufEnd - off);
+                    System.arraycopy(buf, (int) (off - bufStart), dstArr, dstIdx, n);
+                    off += n;
+                    dstIdx += n;
+                    remaining -= n;
+                }
+            }
+        }
+
+        /**
+         * Replace {@link #buf} with the next chunk of inflated content.
+         *
+         * @throws IOException
+         *             if the deflated stream could not be read or inflated, or ended prematurely
+         */
+        private void inflateNextChunk() throws IOException {
+            bufStart += bufLen;
+            bufLen = 0;
+            try {
+                while (bufLen == 0) {
+                    if (inflater.finished() || inflater.needsDictionary()) {
+                        throw new IOException("Premature EOF in deflated stream");
+                    } else if (inflater.needsInput()) {
+                        feedInput();
+                    }
+                    bufLen = inflater.inflate(buf, 0, buf.length);
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException("Invalid deflated data: " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Feed the next chunk of the deflated stream to the inflater.
+         *
+         * @throws IOException
+         *             if the deflated stream could not be read, or has been completely consumed
+         */
+        private void feedInput() throws IOException {
+            final long remaining = deflatedLength - nextDeflatedOffset;
+            if (remaining <= 0L) {
+                if (fedDummyByte) {
+                    throw new IOException("Premature EOF in deflated stream");
+                }
+                // Raw inflation may need one byte past the end of the deflated stream
+                fedDummyByte = true;
+                inBuf[0] = 0;
+                inflater.setInput(inBuf, 0, 1);
+                return;
+            }
+            final int n = (int) Math.min(INPUT_CHUNK_SIZE, remaining);
+            readFully(deflatedReader, nextDeflatedOffset, inBuf, 0, n);
+            nextDeflatedOffset += n;
+            inflater.setInput(inBuf, 0, n);
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /**
+     * A canonical Huffman code, decoded using a lookup table for codes of up to {@link #LOOKUP_BITS} bits, and
+     * bit by bit for longer codes.
+     */
+    private static final class HuffmanCode {
+        /** The number of codes of each length. */
+        final int[] lengthCounts = new int[16];
+
+        /** The symbols, ordered by code. */
+        final int[] symbols;
+
+        /**
+         * The lookup table, indexed by the next {@link #LOOKUP_BITS} bits of input (which hold the code in reverse
+         * bit order), with entries of the form {@code (symbol << 4) | codeLength}, or 0 for codes longer than
+         * {@link #LOOKUP_BITS} bits.
+         */
+        final int[] lookupTable = new int[1 << LOOKUP_BITS];
+
+        /**
+         * Constructor.
+         *
+         * @param codeLengths
+         *            the code length of each symbol (0 if the symbol is unused)
+         * @param start
+         *            the index of the first symbol's code length
+         * @param numSymbols
+         *            the number of symbols
+         * @throws IOException
+         *             if the code lengths are over-subscribed
+         */
+        HuffmanCode(final int[] codeLengths, final int start, final int numSymbols) throws IOException {
+            for (int i = 0; i < numSymbols; i++) {
+                lengthCounts[codeLengths[start + i]]++;
+            }
+            int left = 1;
+            for (int len = 1; len < 16; len++) {
+                left = (left << 1) - lengthCounts[len];
+                if (left < 0) {
+                    throw new IOException("Over-subscribed Huffman code");
+                }
+            }
+            final int[] offsets = new int[16];
+            for (int len = 1; len < 15; len++) {
+                offsets[len + 1] = offsets[len] + lengthCounts[len];
+            }
+            symbols = new int[numSymbols];
+            for (int i = 0; i < numSymbols; i++) {
+                final int len = codeLengths[start + i];
+                if (len != 0) {
+                    symbols[offsets[len]++] = i;
+                }
+            }
+            // Assign canonical codes in symbol order, and fill in the lookup table for short codes
+            int code = 0;
+            int symbolIdx = 0;
+            for (int len = 1; len <= LOOKUP_BITS; len++) {
+                for (int i = 0; i < lengthCounts[len]; i++) {
+                    final int reversedCode = Integer.reverse(code) >>> (32 - len);
+                    final int entry = (symbols[symbolIdx++] << 4) | len;
+                    for (int j = reversedCode; j < lookupTable.length; j += 1 << len) {
+                        lookupTable[j] = entry;
+                    }
+                    code++;
+                }
+                code <<= 1;
+            }
+        }
+    }
+
+    // -------------------------------------------------------------------------------------------------------------
+
+    /** A minimal raw DEFLATE decoder, which only keeps the most recent 32kB of inflated content. */
+    private static final class Decoder {
+        /** A reader for the deflated stream. */
+        private final RandomAccessReader reader;
+
+        /** The length of the deflated stream. */
+        private final long length;
+
+        /** The buffer of deflated input. */
+        private final byte[] inBuf = new byte[INPUT_CHUNK_SIZE];
+
+        /** The offset in the deflated stream of the start of {@link #inBuf}. */
+        private long inBufStart;
+
+        /** The index of the next unread byte in {@link #inBuf}. */
+        private int inBufIdx;
+
+        /** The number of valid bytes in {@link #inBuf}. */
+        private int inBufLen;
+
+        /** The bit buffer. */
+        private long bitBuf;
+
+        /** The number of valid bits in {@link #bitBuf}. */
+        private int bitCount;
+
+        /** The circular window of the most recent inflated content. */
+        private final byte[] window = new byte[WINDOW_SIZE];
+
+        /** The number of bytes inflated so far. */
+        long inflatedOffset;
+
+        /** Code lengths for dynamic Huffman blocks. */
+        private final int[] codeLengths = new int[288 + 32];
+
+        /**
+         * Constructor.
+         *
+         * @param reader
+         *            a reader for the deflated stream
+         * @param length
+         *            the length of the deflated stream
+         */
+        Decoder(final RandomAccessReader reader, final long length) {
+            this.reader = reader;
+            this.length = length;
+        }
+
+        /**
+         * Get the bit offset of the next unconsumed bit in the deflated stream.
+         *
+         * @return the bit offset
+         */
+        long getBitOffset() {
+            return ((inBufStart + inBufIdx) << 3) - bitCount;
+        }
+
+        /**
+         * Get a copy of the inflated content preceding the current position, up to the size of the window.
+         *
+         * @return the window content
+         */
+        byte[] getWindow() {
+            final int len = (int) Math.min(inflatedOffset, WINDOW_SIZE);
+            final byte[] content = new byte[len];
+            final int end = (int) (inflatedOffset & (WINDOW_SIZE - 1));
+            if (len <= end) {
+                System.arraycopy(window, end - len, content, 0, len);
+            } else {
+                final int tailLen = len - end;
+                System.arraycopy(window, WINDOW_SIZE - tailLen, content, 0, tailLen);
+                System.arraycopy(window, 0, content, tailLen, end);
+            }
+            return content;
+        }
+
+        /**
+         * Try to add one byte of input to the bit buffer.
+         *
+         * @return false if the end of the deflated stream has been reached
+         * @throws IOException
+         *             if the deflated stream could not be read
+         */
+        private boolean addByte() throws IOException {
+            if (inBufIdx == inBufLen) {
+                inBufStart += inBufLen;
+                inBufIdx = 0;
+                inBufLen = (int) Math.min(inBuf.length, length - inBufStart);
+                if (inBufLen <= 0) {
+                    inBufLen = 0;
+                    return false;
+                }
+                readFully(reader, inBufStart, inBuf, 0, inBufLen);
+            }
+            bitBuf |= (inBuf[inBufIdx++] & 0xffL) << bitCount;
+            bitCount += 8;
+            return true;
+        }
+
+        /**
+         * Consume bits from the deflated stream.
+         *
+         * @param numBits
+         *            the number of bits to consume (at most 16)
+         * @return the bits
+         * @throws IOException
+         *             if the deflated stream ended prematurely
+         */
+        private int bits(final int numBits) throws IOException {
+            while (bitCount < numBits) {
+                if (!addByte()) {
+                    throw new IOException("Premature EOF in deflated stream");
+                }
+            }
+            final int val = (int) (bitBuf & ((1L << numBits) - 1));
+            bitBuf >>>= numBits;
+            bitCount -= numBits;
+            return val;
+        }
+
+        /**
+         * Decode a symbol.
+         *
+         * @param code
+         *            the Huffman code
+         * @return the symbol
+         * @throws IOException
+         *             if the deflated stream ended prematurely, or contains an invalid code
+         */
+        private int decode(final HuffmanCode code) throws IOException {
+            while (bitCount < LOOKUP_BITS && addByte()) {
+                // Fill the bit buffer
+            }
+            final int entry = code.lookupTable[(int) (bitBuf & ((1 << LOOKUP_BITS) - 1))];
+            final int len = entry & 0xf;
+            if (entry != 0 && len <= bitCount) {
+                bitBuf >>>= len;
+                bitCount -= len;
+                return entry >>> 4;
+            }
+            // Decode long codes bit by bit
+            int codeVal = 0;
+            int first = 0;
+            int idx = 0;
+            for (int l = 1; l < 16; l++) {
+                codeVal |= bits(1);
+                final int count = code.lengthCounts[l];
+                if (codeVal - count < first) {
+                    return code.symbols[idx + codeVal - first];
+                }
+                idx += count;
+                first = (first + count) << 1;
+                codeVal <<= 1;
+            }
+            throw new IOException("Invalid Huffman code in deflated stream");
+        }
+
+        /**
+         * Decode one DEFLATE block.
+         *
+         * @return true if this was the final block
+         * @throws IOException
+         *             if the deflated stream could not be read or is invalid
+         */
+        boolean decodeBlock() throws IOException {
+            final boolean isFinalBlock = bits(1) == 1;
+            switch (bits(2)) {
+            case 0:
+                decodeStoredBlock();
+                break;
+            case 1:
+                decodeHuffmanBlock(FIXED_LITERAL_LENGTH_CODE, FIXED_DISTANCE_CODE);
+                break;
+            case 2:
+                decodeDynamicBlock();
+                break;
+            default:
+                throw new IOException("Invalid block type in deflated stream");
+            }
+            return isFinalBlock;
+        }
+
+        /**
+         * Decode a stored block.
+         *
+         * @throws IOException
+         *             if the deflated stream could not be read or is invalid
+         */
+        private void decodeStoredBlock() throws IOException {
+            // Skip to byte boundary
+            bits(bitCount & 7);
+            final int len = bits(16);
+            if (bits(16) != (~len & 0xffff)) {
+                throw new IOException("Invalid stored block length in deflated stream");
+            }
+            int remaining = len;
+            // Drain the bit buffer, then copy directly from the input buffer
+            while (remaining > 0 && bitCount > 0) {
+                output((byte) bits(8));
+                remaining--;
+            }
+            while (remaining > 0) {
+                if (inBufIdx == inBufLen) {
+                    if (!addByte()) {
+                        throw new IOException("Premature EOF in deflated stream");
+                    }
+                    output((byte) bits(8));
+                    remaining--;
+                } else {
+                    final int n = Math.min(remaining, inBufLen - inBufIdx);
+                    for (int i = 0; i < n; i++) {
+                        output(inBuf[inBufIdx + i]);
+                    }
+                    inBufIdx += n;
+                    remaining -= n;
+                }
+            }
+        }
+
+        /**
+         * Decode a dynamic Huffman block.
+         *
+         * @throws IOException
+         *             if the deflated stream could not be read or is invalid
+         */
+        private void decodeDynamicBlock() throws IOException {
+            final int numLiteralLengthCodes = bits(5) + 257;
+            final int numDistanceCodes = bits(5) + 1;
+            final int numCodeLengthCodes = bits(4) + 4;
+            if (numLiteralLengthCodes > 286 || numDistanceCodes > 30) {
+                throw new IOException("Invalid dynamic block header in deflated stream");
+            }
+            final int[] codeLengthCodeLengths = new int[19];
+            for (int i = 0; i < numCodeLengthCodes; i++) {
+                codeLengthCodeLengths[CODE_LENGTH_ORDER[i]] = bits(3);
+            }
+            final HuffmanCode codeLengthCode = new HuffmanCode(codeLengthCodeLengths, 0, 19);
+            final int numCodeLengths = numLiteralLengthCodes + numDistanceCodes;
+            for (int i = 0; i < numCodeLengths;) {
+                final int symbol = decode(codeLengthCode);
+                if (symbol < 16) {
+                    codeLengths[i++] = symbol;
+                } else {
+                    int repeatedLength = 0;
+                    int repeatCount;
+                    if (symbol == 16) {
+                        if (i == 0) {
+                            throw new IOException("Invalid code length repeat in deflated stream");
+                        }
+                        repeatedLength = codeLengths[i - 1];
+                        repeatCount = 3 + bits(2);
+                    } else if (symbol == 17) {
+                        repeatCount = 3 + bits(3);
+                    } else {
+                        repeatCount = 11 + bits(7);
+                    }
+                    if (i + repeatCount > numCodeLengths) {
+                        throw new IOException("Invalid code length repeat in deflated stream");
+                    }
+                    Arrays.fill(codeLengths, i, i + repeatCount, repeatedLength);
+                    i += repeatCount;
+                }
+            }
+            if (codeLengths[256] == 0) {
+                throw new IOException("Missing end-of-block code in deflated stream");
+            }
+            decodeHuffmanBlock(new HuffmanCode(codeLengths, 0, numLiteralLengthCodes),
+                    new HuffmanCode(codeLengths, numLiteralLengthCodes, numDistanceCodes));
+        }
+
+        /**
+         * Decode the compressed data of a fixed or dynamic Huffman block.
+         *
+         * @param literalLengthCode
+         *            the literal/length code
+         * @param distanceCode
+         *            the distance code
+         * @throws IOException
+         *             if the deflated stream could not be read or is invalid
+         */
+        private void decodeHuffmanBlock(final HuffmanCode literalLengthCode, final HuffmanCode distanceCode)
+                throws IOException {
+            for (;;) {
+                final int symbol = decode(literalLengthCode);
+                if (symbol < 256) {
+                    output((byte) symbol);
+                } else if (symbol == 256) {
+                    return;
+                } else {
+                    final int lengthIdx = symbol - 257;
+                    if (lengthIdx >= LENGTH_BASE.length) {
+                        throw new IOException("Invalid length symbol in deflated stream");
+                    }
+                    final int len = LENGTH_BASE[lengthIdx] + bits(LENGTH_EXTRA_BITS[lengthIdx]);
+                    final int distanceIdx = decode(distanceCode);
+                    if (distanceIdx >= DISTANCE_BASE.length) {
+                        throw new IOException("Invalid distance symbol in deflated stream");
+                    }
+                    final int distance = DISTANCE_BASE[distanceIdx] + bits(DISTANCE_EXTRA_BITS[distanceIdx]);
+                    if (distance > inflatedOffset) {
+                        throw new IOException("Invalid distance in deflated stream");
+                    }
+                    for (int i = 0; i < len; i++) {
+                        output(window[(int) ((inflatedOffset - distance) & (WINDOW_SIZE - 1))]);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Append a byte to the inflated content.
+         *
+         * @param b
+         *            the byte
+         */
+        private void output(final byte b) {
+            window[(int) (inflatedOffset++ & (WINDOW_SIZE - 1))] = b;
+        }
+    }
+}
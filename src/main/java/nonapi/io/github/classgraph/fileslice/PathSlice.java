@@ -31,8 +31,10 @@ package nonapi.io.github.classgraph.fileslice;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -60,6 +62,9 @@ public class PathSlice extends Slice {
     /** True if {@link #close} has been called. */
     private final AtomicBoolean isClosed = new AtomicBoolean();
 
+    /** The {@link MappedByteBuffer} returned by {@link #rawByteBufferView()}, if any. */
+    private MappedByteBuffer mappedByteBuffer;
+
     /**
      * Constructor for treating a range of a file as a slice.
      *
@@ -269,6 +274,26 @@ public class PathSlice extends Slice {
         return super.hashCode();
     }
 
+    /**
+     * Memory map the slice, if {@link ClassGraph#enableMemoryMapping()} was called. The mapping is unmapped when
+     * the slice is closed.
+     *
+     * @return the {@link MappedByteBuffer}, or null if memory mapping is not enabled
+     * @throws IOException
+     *             if the slice could not be memory mapped.
+     */
+    @Override
+    protected ByteBuffer rawByteBufferView() throws IOException {
+        if (!nestedJarHandler.scanSpec.enableMemoryMapping || fileChannel == null
+                || sliceLength > FileUtils.MAX_BUFFER_SIZE) {
+            return null;
+        }
+        if (mappedByteBuffer == null) {
+            mappedByteBuffer = fileChannel.map(MapMode.READ_ONLY, sliceStartPos, sliceLength);
+        }
+        return ((ByteBuffer) mappedByteBuffer).duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
     /** Close the slice. Unmaps any backing {@link MappedByteBuffer}. */
     @Override
     public void close() {
@@ -285,6 +310,10 @@ public class PathSlice extends Slice {
                 fileChannel = null;
             }
             fileChannel = null;
+            if (mappedByteBuffer != null) {
+                nestedJarHandler.closeDirectByteBuffer(mappedByteBuffer);
+                mappedByteBuffer = null;
+            }
             nestedJarHandler.markSliceAsClosed(this);
         }
     }
@@ -284,6 +284,67 @@ public abstract class Slice implements Closeable {
         return ByteBuffer.wrap(load());
     }
 
+    /**
+     * Get a {@link ByteBuffer} view of the content of this slice that can be read without copying, if this slice is
+     * not deflated, and its content is already in memory or is memory mapped.
+     *
+     * @return a view of the content of this slice, with position 0 and limit equal to the length of the slice, or
+     *         null if a view is not available.
+     * @throws IOException
+     *             if the slice could not be memory mapped.
+     */
+    public ByteBuffer byteBufferView() throws IOException {
+        return isDeflatedZipEntry ? null : rawByteBufferView();
+    }
+
+    /**
+     * Get a {@link ByteBuffer} view of the raw content of this slice (which is compressed, if this slice is
+     * deflated) that can be read without copying, if the content is already in memory or is memory mapped.
+     *
+     * @return a view of the raw content of this slice, with position 0 and limit equal to the length of the slice,
+     *         or null if a view is not available.
+     * @throws IOException
+     *             if the slice could not be memory mapped.
+     */
+    protected ByteBuffer rawByteBufferView() throws IOException {
+        return null;
+    }
+
+    /**
+     * Inflate this slice, if it is deflated, from a view of its compressed content (see
+     * {@link #rawByteBufferView()}) into a pooled direct buffer, without going through an {@link InputStream}.
+     * The returned buffer must be released by calling {@link #recyclePooledBuffer(ByteBuffer)} once it is no longer
+     * needed.
+     *
+     * @return the inflated content, with position 0 and limit equal to the inflated length, or null if this slice
+     *         is not deflated, the inflated length is unknown or too large for a pooled buffer, the compressed
+     *         content is not in memory or memory mapped, the JDK does not support inflating {@link ByteBuffer}
+     *         instances (JDK 11+ is required), or the content does not inflate to exactly the inflated length (the
+     *         caller should then read the slice through {@link #open()} instead).
+     * @throws IOException
+     *             if the slice could not be memory mapped or inflated.
+     */
+    public ByteBuffer inflateToPooledBuffer() throws IOException {
+        if (!isDeflatedZipEntry || inflatedLengthHint <= 0L
+                || inflatedLengthHint > NestedJarHandler.INFLATED_BUFFER_SIZE
+                || !NestedJarHandler.canInflateByteBuffers()) {
+            return null;
+        }
+        final ByteBuffer deflatedBuf = rawByteBufferView();
+        return deflatedBuf == null ? null
+                : nestedJarHandler.inflateToPooledBuffer(deflatedBuf, (int) inflatedLengthHint);
+    }
+
+    /**
+     * Return a buffer obtained from {@link #inflateToPooledBuffer()} to the pool.
+     *
+     * @param pooledBuf
+     *            the buffer to recycle.
+     */
+    public void recyclePooledBuffer(final ByteBuffer pooledBuf) {
+        nestedJarHandler.recycleInflatedBuffer(pooledBuf);
+    }
+
     @Override
     public void close() throws IOException {
     }
@@ -33,6 +33,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.Buffer;
+import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ReadOnlyBufferException;
@@ -47,8 +48,9 @@ import nonapi.io.github.classgraph.utils.StringUtils;
 
 /**
  * A {@link Slice} reader that works as either a {@link RandomAccessReader} or a {@link SequentialReader}. The file
- * is buffered up to the point it has been read so far. Reads in <b>big endian</b> order, as required by the
- * classfile format.
+ * is buffered up to the point it has been read so far, unless the slice is not deflated and its content is already
+ * in memory or memory mapped, in which case the content is read in place, without copying. Reads in <b>big
+ * endian</b> order, as required by the classfile format.
  */
 public class ClassfileReader implements RandomAccessReader, SequentialReader, Closeable {
     /** The underlying resource to close when {@link ClassfileReader#close()} is called. */
@@ -66,6 +68,19 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
     /** Buffer. */
     private byte[] arr;
 
+    /**
+     * If the slice is not deflated and its content can be read without copying, a view of the slice content (see
+     * {@link Slice#byteBufferView()}), or if the slice is deflated and was inflated in one go, the inflated content
+     * (see {@link Slice#inflateToPooledBuffer()}), in place of {@link #arr}; otherwise null.
+     */
+    private ByteBuffer byteBuffer;
+
+    /**
+     * If {@link #byteBuffer} is a pooled buffer that the slice was inflated into, the slice to return the buffer to
+     * on {@link #close()}; otherwise null.
+     */
+    private Slice pooledBufferOwner;
+
     /** The number of bytes used in arr. */
     private int arrUsed;
 
@@ -105,29 +120,34 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
     public ClassfileReader(final Slice slice, final Resource resourceToClose) throws IOException {
         this.classfileLengthHint = (int) slice.sliceLength;
         this.resourceToClose = resourceToClose;
-        if (slice.isDeflatedZipEntry) {
+        if (slice.isDeflatedZipEntry && (byteBuffer = slice.inflateToPooledBuffer()) != null) {
+            // If the deflated content is in memory or memory mapped, inflate it into a pooled direct buffer
+            // in one go, and mark it as fully loaded
+            pooledBufferOwner = slice;
+            arrUsed = byteBuffer.remaining();
+            classfileLengthHint = arrUsed;
+        } else if (slice.isDeflatedZipEntry) {
             // If this is a deflated slice, need to read from an InflaterInputStream to fill buffer
             inflaterInputStream = slice.open();
             arr = new byte[INITIAL_BUF_SIZE];
             classfileLengthHint = (int) Math.min(slice.inflatedLengthHint, FileUtils.MAX_BUFFER_SIZE);
         } else {
-            if (slice instanceof ArraySlice) {
-                // If slice is an ArraySlice, avoid copying by simply reusing the wrapped byte array
-                // in place of the buffer array, and mark it as fully loaded
-                final ArraySlice arraySlice = (ArraySlice) slice;
-                if (arraySlice.sliceStartPos == 0 && arraySlice.sliceLength == arraySlice.arr.length) {
-                    // ArraySlice is the whole array
-                    arr = arraySlice.arr;
-                } else {
-                    // ArraySlice covers only a partial array, and this class doesn't support a starting
-                    // offset, so copy the sliced part of the array to a new buffer
-                    arr = Arrays.copyOfRange(arraySlice.arr, (int) arraySlice.sliceStartPos,
-                            (int) (arraySlice.sliceStartPos + arraySlice.sliceLength));
-                }
+            if (slice instanceof ArraySlice && slice.sliceStartPos == 0
+                    && slice.sliceLength == ((ArraySlice) slice).arr.length) {
+                // If slice is an ArraySlice that covers the whole array, avoid copying by simply reusing the
+                // wrapped byte array in place of the buffer array, and mark it as fully loaded. (An ArraySlice
+                // that covers only a partial array is read through its ByteBuffer view.)
+                arr = ((ArraySlice) slice).arr;
                 arrUsed = arr.length;
                 classfileLengthHint = arr.length;
+            } else if ((byteBuffer = slice.byteBufferView()) != null) {
+                // If the slice is memory mapped, read from the mapped region in place, and mark it as fully
+                // loaded
+                arrUsed = byteBuffer.remaining();
+                classfileLengthHint = arrUsed;
             } else {
-                // Otherwise this is a FileSlice -- need to fetch chunks of bytes using a random access reader
+                // Otherwise this is a FileSlice or PathSlice -- need to fetch chunks of bytes using a random
+                // access reader
                 randomAccessReader = slice.randomAccessReader();
                 arr = new byte[INITIAL_BUF_SIZE];
                 classfileLengthHint = (int) Math.min(slice.sliceLength, FileUtils.MAX_BUFFER_SIZE);
@@ -161,12 +181,29 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
     }
 
     /**
-     * Buf.
+     * Compare a range of bytes to an ASCII string, without copying the bytes.
      *
-     * @return the buffer.
+     * @param offset
+     *            the start of the range of bytes
+     * @param asciiStr
+     *            the ASCII string (the number of bytes compared is the length of the string)
+     * @return true if each byte in the range is equal to the corresponding character of the string
+     * @throws IOException
+     *             on EOF or if the bytes could not be read.
      */
-    public byte[] buf() {
-        return arr;
+    public boolean bytesEqualASCII(final long offset, final String asciiStr) throws IOException {
+        final int idx = (int) offset;
+        final int len = asciiStr.length();
+        if (idx + len > arrUsed) {
+            readTo(idx + len);
+        }
+        for (int i = 0; i < len; i++) {
+            final byte b = byteBuffer != null ? byteBuffer.get(idx + i) : arr[idx + i];
+            if ((char) (b & 0xff) != asciiStr.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -183,8 +220,8 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         // is an underestimate, classfile will be truncated). If -1, assume 2GB is the max size.
         final int maxArrLen = classfileLengthHint == -1 ? FileUtils.MAX_BUFFER_SIZE : classfileLengthHint;
         if (inflaterInputStream == null && randomAccessReader == null) {
-            // If neither inflaterInputStream nor randomAccessReader is set, then slice is an ArraySlice,
-            // and array is already "fully loaded" (the ArraySlice's backing array is used as the buffer).
+            // If neither inflaterInputStream nor randomAccessReader is set, then slice is an ArraySlice, or is
+            // read through a ByteBuffer view, and is already "fully loaded".
             throw new IOException("Tried to read past end of fixed array buffer");
         }
         if (targetArrUsed > FileUtils.MAX_BUFFER_SIZE || targetArrUsed < 0 || arrUsed == maxArrLen) {
@@ -261,9 +298,15 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
             return -1;
         }
         try {
-            System.arraycopy(arr, idx, dstArr, dstArrStart, numBytesToRead);
+            if (byteBuffer != null) {
+                final ByteBuffer src = byteBuffer.duplicate();
+                ((Buffer) src).position(idx);
+                src.get(dstArr, dstArrStart, numBytesToRead);
+            } else {
+                System.arraycopy(arr, idx, dstArr, dstArrStart, numBytesToRead);
+            }
             return numBytesToRead;
-        } catch (final IndexOutOfBoundsException e) {
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
             throw new IOException("Read index out of bounds");
         }
     }
@@ -285,9 +328,17 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         try {
             ((Buffer) dstBuf).position(dstBufStart);
             ((Buffer) dstBuf).limit(dstBufStart + numBytesToRead);
-            dstBuf.put(arr, idx, numBytesToRead);
+            if (byteBuffer != null) {
+                final ByteBuffer src = byteBuffer.duplicate();
+                ((Buffer) src).position(idx);
+                ((Buffer) src).limit(idx + numBytesToRead);
+                dstBuf.put(src);
+            } else {
+                dstBuf.put(arr, idx, numBytesToRead);
+            }
             return numBytesToRead;
-        } catch (BufferUnderflowException | IndexOutOfBoundsException | ReadOnlyBufferException e) {
+        } catch (BufferUnderflowException | BufferOverflowException | IndexOutOfBoundsException
+                | IllegalArgumentException | ReadOnlyBufferException e) {
             throw new IOException("Read index out of bounds");
         }
     }
@@ -298,7 +349,7 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + 1 > arrUsed) {
             readTo(idx + 1);
         }
-        return arr[idx];
+        return byteBuffer != null ? byteBuffer.get(idx) : arr[idx];
     }
 
     @Override
@@ -307,7 +358,7 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + 1 > arrUsed) {
             readTo(idx + 1);
         }
-        return arr[idx] & 0xff;
+        return (byteBuffer != null ? byteBuffer.get(idx) : arr[idx]) & 0xff;
     }
 
     @Override
@@ -321,6 +372,9 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + 2 > arrUsed) {
             readTo(idx + 2);
         }
+        if (byteBuffer != null) {
+            return byteBuffer.getShort(idx) & 0xffff;
+        }
         return ((arr[idx] & 0xff) << 8) //
                 | (arr[idx + 1] & 0xff);
     }
@@ -331,6 +385,9 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + 4 > arrUsed) {
             readTo(idx + 4);
         }
+        if (byteBuffer != null) {
+            return byteBuffer.getInt(idx);
+        }
         return ((arr[idx] & 0xff) << 24) //
                 | ((arr[idx + 1] & 0xff) << 16) //
                 | ((arr[idx + 2] & 0xff) << 8) //
@@ -348,6 +405,9 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + 8 > arrUsed) {
             readTo(idx + 8);
         }
+        if (byteBuffer != null) {
+            return byteBuffer.getLong(idx);
+        }
         return ((arr[idx] & 0xffL) << 56) //
                 | ((arr[idx + 1] & 0xffL) << 48) //
                 | ((arr[idx + 2] & 0xffL) << 40) //
@@ -426,13 +486,17 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
         if (idx + numBytes > arrUsed) {
             readTo(idx + numBytes);
         }
-        return StringUtils.readString(arr, idx, numBytes, replaceSlashWithDot, stripLSemicolon);
+        return byteBuffer != null
+                ? StringUtils.readString(byteBuffer, idx, numBytes, replaceSlashWithDot, stripLSemicolon)
+                : StringUtils.readString(arr, idx, numBytes, replaceSlashWithDot, stripLSemicolon);
     }
 
     @Override
     public String readString(final int numBytes, final boolean replaceSlashWithDot, final boolean stripLSemicolon)
             throws IOException {
-        final String val = StringUtils.readString(arr, currIdx, numBytes, replaceSlashWithDot, stripLSemicolon);
+        final String val = byteBuffer != null
+                ? StringUtils.readString(byteBuffer, currIdx, numBytes, replaceSlashWithDot, stripLSemicolon)
+                : StringUtils.readString(arr, currIdx, numBytes, replaceSlashWithDot, stripLSemicolon);
         currIdx += numBytes;
         return val;
     }
@@ -454,6 +518,11 @@ public class ClassfileReader implements RandomAccessReader, SequentialReader, Cl
                 inflaterInputStream.close();
                 inflaterInputStream = null;
             }
+            if (pooledBufferOwner != null) {
+                pooledBufferOwner.recyclePooledBuffer(byteBuffer);
+                pooledBufferOwner = null;
+            }
+            byteBuffer = null;
             if (resourceToClose != null) {
                 resourceToClose.close();
                 resourceToClose = null;
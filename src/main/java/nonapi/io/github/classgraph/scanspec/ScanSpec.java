@@ -35,6 +35,7 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -255,12 +256,104 @@ public class ScanSpec {
      */
     public int maxBufferedJarRAMSize = 64 * 1024 * 1024;
 
+    /**
+     * If positive, the maximum total size of the off-heap buffers used to hold deflated inner jars and downloaded
+     * jars that are no larger than {@link #maxBufferedJarRAMSize}, and large deflated resources, instead of
+     * on-heap arrays. If zero, off-heap buffers are not used.
+     */
+    public long maxOffHeapBufferSize;
+
     /** If true, use a {@link MappedByteBuffer} rather than the {@link FileChannel} API to access file content. */
     public boolean enableMemoryMapping;
 
+    /**
+     * If true (and {@link #enableMemoryMapping} is false), decide for each jarfile whether to use a
+     * {@link MappedByteBuffer} or the {@link FileChannel} API, based on the size of the file and the number of
+     * times it is accessed.
+     */
+    public boolean enableAdaptiveMemoryMapping;
+
+    /**
+     * If true, share the parsed central directories of jarfiles with other scans in the same JVM that also enable
+     * this option.
+     */
+    public boolean enableSharedJarMetadataCache;
+
+    /**
+     * If true, read deflated nested jarfiles that are too large to inflate into RAM by resuming inflation from
+     * checkpoints in the deflated stream, rather than by extracting them to temporary files.
+     */
+    public boolean enableInflateCheckpoints;
+
+    /**
+     * If non-null, the directory in which to cache deflated nested jarfiles that are too large to inflate into RAM
+     * once they have been extracted, so that they do not need to be extracted again by later scans.
+     */
+    public transient Path nestedJarExtractionCacheDir;
+
+    /** The maximum total size of the jarfiles in {@link #nestedJarExtractionCacheDir}. */
+    public transient long nestedJarExtractionCacheMaxSize;
+
+    /**
+     * If true, decode the central directory records of jarfiles with a very large number of entries in parallel,
+     * using the worker threads of the scan.
+     */
+    public boolean enableParallelCentralDirectoryParsing;
+
+    /**
+     * If true, only scan the paths of the first of any jarfiles on the classpath that have the same content, and
+     * share the resulting resources with the other jarfiles.
+     */
+    public boolean enableJarDeduplication;
+
+    /**
+     * If true, read jarfiles at http(s) URLs using HTTP {@code Range} requests, if the server supports them, rather
+     * than downloading the whole jarfile.
+     */
+    public boolean enableHttpRangeRequests;
+
+    /**
+     * If non-null, the directory in which to cache jarfiles downloaded from http(s) URLs, so that later scans only
+     * need to send a conditional request to check whether each jarfile has changed.
+     */
+    public transient Path remoteJarCacheDir;
+
+    /** The maximum total size of the jarfiles in {@link #remoteJarCacheDir}. */
+    public transient long remoteJarCacheMaxSize;
+
     /** If true, all multi-release versions of a resource are found. */
     public boolean enableMultiReleaseVersions;
 
+    /**
+     * If true, link classfiles into {@link ClassInfo} objects using the worker threads, rather than from a single
+     * thread.
+     */
+    public boolean enableConcurrentLinking;
+
+    /**
+     * If non-null, the directory in which to cache the parsed classfiles of jarfile classpath elements between
+     * scans.
+     */
+    public transient Path scanCacheDir;
+
+    /**
+     * If true, keep the parsed classfiles in memory after the scan, so that only changed classfiles need to be
+     * parsed by {@link ScanResult#rescanChanged()}.
+     */
+    public boolean enableIncrementalRescan;
+
+    /**
+     * If true, run the I/O-bound scanning phases on virtual threads (JDK 21+), with a higher degree of parallelism
+     * than the CPU-bound phases.
+     */
+    public boolean useVirtualThreads;
+
+    /**
+     * If true, group classfiles by the physical jarfile they are read from, and scan them in order of their offset
+     * within the jarfile.
+     */
+    public boolean enableSequentialJarReads;
+
     // -------------------------------------------------------------------------------------------------------------
 
     /** Constructor for deserialization. */
@@ -545,6 +638,38 @@ public class ScanSpec {
         return classAcceptReject.isRejected(className) || packagePrefixAcceptReject.isRejected(className);
     }
 
+    /**
+     * Get the path prefixes that the relative path of every accepted resource must start with, i.e. the accepted
+     * package paths and the paths of specifically-accepted classfiles.
+     *
+     * @return the accepted path prefixes, or null if any path may be accepted (i.e. if the accept is empty,
+     *         contains the root package, or contains glob wildcards).
+     */
+    public List<String> getAcceptedPathPrefixes() {
+        if (pathAcceptReject.acceptIsEmpty() && classPackagePathAcceptReject.acceptIsEmpty()) {
+            return null;
+        }
+        if (pathAcceptReject.acceptGlobs != null || pathPrefixAcceptReject.acceptGlobs != null
+                || classfilePathAcceptReject.acceptGlobs != null) {
+            return null;
+        }
+        final Set<String> prefixes = new HashSet<>();
+        for (final AcceptReject acceptReject : new AcceptReject[] { pathAcceptReject, classfilePathAcceptReject }) {
+            if (acceptReject.accept != null) {
+                prefixes.addAll(acceptReject.accept);
+            }
+        }
+        if (pathPrefixAcceptReject.acceptPrefixesSet != null) {
+            prefixes.addAll(pathPrefixAcceptReject.acceptPrefixesSet);
+        }
+        if (prefixes.isEmpty() || prefixes.contains("") || prefixes.contains("/")) {
+            return null;
+        }
+        final List<String> prefixesSorted = new ArrayList<>(prefixes);
+        Collections.sort(prefixesSorted);
+        return prefixesSorted;
+    }
+
     // -------------------------------------------------------------------------------------------------------------
 
     /**
@@ -28,6 +28,9 @@
  */
 package nonapi.io.github.classgraph.utils;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
 /**
  * File utilities.
  */
@@ -134,6 +137,55 @@ public final class StringUtils {
         }
     }
 
+    /**
+     * Reads the "modified UTF8" format defined in the Java classfile spec from a {@link ByteBuffer}, using absolute
+     * indexing (the position of the buffer is not changed), optionally replacing '/' with '.', and optionally
+     * removing the prefix "L" and the suffix ";".
+     *
+     * @param buf
+     *            the buffer to read the string from
+     * @param startOffset
+     *            The start offset of the string within the buffer.
+     * @param numBytes
+     *            The number of bytes of the UTF8 encoding of the string.
+     * @param replaceSlashWithDot
+     *            If true, replace '/' with '.'.
+     * @param stripLSemicolon
+     *            If true, string final ';' character.
+     * @return The string.
+     * @throws IllegalArgumentException
+     *             If string could not be parsed.
+     */
+    public static String readString(final ByteBuffer buf, final int startOffset, final int numBytes,
+            final boolean replaceSlashWithDot, final boolean stripLSemicolon) throws IllegalArgumentException {
+        if (startOffset < 0L || numBytes < 0 || startOffset + numBytes > buf.limit()) {
+            throw new IllegalArgumentException("offset or numBytes out of range");
+        }
+        // Strings in the constant pool are almost always ASCII, so decode ASCII in place
+        final char[] chars = new char[numBytes];
+        for (int byteIdx = 0; byteIdx < numBytes; byteIdx++) {
+            final int c = buf.get(startOffset + byteIdx) & 0xff;
+            if (c > 127) {
+                // Fall back to copying the bytes to an array, and decoding the array
+                final byte[] arr = new byte[numBytes];
+                final ByteBuffer dup = buf.duplicate();
+                ((Buffer) dup).position(startOffset);
+                dup.get(arr);
+                return readString(arr, 0, numBytes, replaceSlashWithDot, stripLSemicolon);
+            }
+            chars[byteIdx] = (char) (replaceSlashWithDot && c == '/' ? '.' : c);
+        }
+        if (stripLSemicolon) {
+            if (numBytes < 2 || chars[0] != 'L' || chars[numBytes - 1] != ';') {
+                throw new IllegalArgumentException(
+                        "Expected string to start with 'L' and end with ';', got \"" + new String(chars) + "\"");
+            }
+            return new String(chars, 1, numBytes - 2);
+        } else {
+            return new String(chars);
+        }
+    }
+
     /**
      * A replacement for Java 8's String.join().
      * 
@@ -0,0 +1,178 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.AnnotationParameterValueList;
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.features.AnnotationParamWithPrimitiveTypedArrayTest.AnnotatedClass;
+import io.github.classgraph.features.AnnotationParamWithPrimitiveTypedArrayTest.AnnotationWithPrimitiveArrayParams;
+import io.github.classgraph.json.JSONSerializationTest;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.external.ExternalAnnotation;
+import io.github.classgraph.test.internal.InternalAnnotatedByExternal;
+
+/**
+ * BinarySerializationTest.
+ */
+public class BinarySerializationTest {
+    /**
+     * Get the classpath base for the test classes (the classpath must be overridden, otherwise the JSON
+     * representation of the ScanResult won't be the same after deserialization).
+     *
+     * @return the classpath base
+     */
+    private static String getClasspathBase() {
+        final String classfileURL = BinarySerializationTest.class.getClassLoader()
+                .getResource(BinarySerializationTest.class.getName().replace('.', '/') + ".class").toString();
+        return classfileURL.substring(0, classfileURL.length() - (BinarySerializationTest.class.getName().length()
+                + ".class".length()));
+    }
+
+    /**
+     * Round-trip a scan result through the binary format, and compare the JSON representation of the original
+     * and the deserialized scan result.
+     */
+    @Test
+    public void binaryRoundTripMatchesJSON() throws IOException {
+        try (ScanResult scanResult1 = new ClassGraph().overrideClasspath(getClasspathBase())
+                .acceptPackages(Cls.class.getPackage().getName(), JSONSerializationTest.class.getPackage().getName())
+                .enableAllInfo().scan()) {
+            final String json1 = scanResult1.toJSON(2);
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            scanResult1.writeTo(bout);
+            final byte[] bytes = bout.toByteArray();
+            assertThat(bytes.length).isLessThan(scanResult1.toJSON().getBytes(StandardCharsets.UTF_8).length);
+            try (ScanResult scanResult2 = ScanResult.readFrom(new ByteArrayInputStream(bytes))) {
+                assertThat(scanResult2.isObtainedFromDeserialization()).isTrue();
+                assertThat(scanResult2.toJSON(2)).isEqualTo(json1);
+                assertThat(scanResult2.getSubclasses(Cls.class).getNames()).contains(ClsSub.class.getName());
+            }
+        }
+    }
+
+    /**
+     * Memory-map a prebuilt index file, and check that lazily-read members match the original scan result.
+     */
+    @Test
+    public void memoryMappedIndex(@TempDir final Path tempDir) throws IOException {
+        final Path indexFile = tempDir.resolve("classgraph.idx");
+        try (ScanResult scanResult1 = new ClassGraph().overrideClasspath(getClasspathBase())
+                .acceptPackages(Cls.class.getPackage().getName(),
+                        InternalAnnotatedByExternal.class.getPackage().getName(),
+                        ExternalAnnotation.class.getPackage().getName())
+                .enableAllInfo().scan()) {
+            try (OutputStream out = Files.newOutputStream(indexFile)) {
+                scanResult1.writeTo(out);
+            }
+            try (ScanResult scanResult2 = ScanResult.readFrom(indexFile)) {
+                // Query the class graph before any members have been read
+                assertThat(scanResult2.getClassesWithAnnotation(ExternalAnnotation.class).getNames())
+                        .containsExactly(InternalAnnotatedByExternal.class.getName());
+                assertThat(scanResult2.getClassInfo(ClsSub.class.getName()).getDeclaredMethodInfo().toString())
+                        .isEqualTo(scanResult1.getClassInfo(ClsSub.class.getName()).getDeclaredMethodInfo()
+                                .toString());
+                assertThat(scanResult2.toJSON(2)).isEqualTo(scanResult1.toJSON(2));
+            }
+        }
+    }
+
+    /**
+     * Check whether the members of a class have been read from a serialized {@link ScanResult}.
+     *
+     * @param classInfo
+     *            the class
+     * @return true if the members have been read
+     */
+    private static boolean membersHaveBeenRead(final ClassInfo classInfo) throws ReflectiveOperationException {
+        final Field memberBlobField = ClassInfo.class.getDeclaredField("memberBlob");
+        memberBlobField.setAccessible(true);
+        return memberBlobField.get(classInfo) == null;
+    }
+
+    /**
+     * The members of a class are not read from a serialized {@link ScanResult} until they are first queried, both
+     * when streaming from an {@link InputStream} and when memory-mapping a file.
+     */
+    @Test
+    public void membersAreReadLazily(@TempDir final Path tempDir) throws Exception {
+        final Path indexFile = tempDir.resolve("classgraph.idx");
+        try (ScanResult scanResult1 = new ClassGraph().overrideClasspath(getClasspathBase())
+                .acceptPackages(Cls.class.getPackage().getName()).enableAllInfo().scan()) {
+            try (OutputStream out = Files.newOutputStream(indexFile)) {
+                scanResult1.writeTo(out);
+            }
+            final String expectedMethods = scanResult1.getClassInfo(ClsSub.class.getName()).getDeclaredMethodInfo()
+                    .toString();
+            try (InputStream in = Files.newInputStream(indexFile);
+                    ScanResult streamed = ScanResult.readFrom(in);
+                    ScanResult mapped = ScanResult.readFrom(indexFile)) {
+                for (final ScanResult scanResult2 : Arrays.asList(streamed, mapped)) {
+                    final ClassInfo clsSub = scanResult2.getClassInfo(ClsSub.class.getName());
+                    assertThat(scanResult2.getSubclasses(Cls.class).getNames()).contains(ClsSub.class.getName());
+                    assertThat(membersHaveBeenRead(clsSub)).isFalse();
+                    assertThat(clsSub.getDeclaredMethodInfo().toString()).isEqualTo(expectedMethods);
+                    assertThat(membersHaveBeenRead(clsSub)).isTrue();
+                    assertThat(membersHaveBeenRead(scanResult2.getClassInfo(Cls.class.getName()))).isFalse();
+                }
+            }
+        }
+    }
+
+    /**
+     * Array-typed annotation parameters keep their primitive element type after deserialization, even though the
+     * methods of the annotation class have not been read yet when the parameter values are first queried.
+     */
+    @Test
+    public void primitiveArrayParamsAfterRoundTrip(@TempDir final Path tempDir) throws Exception {
+        final Path indexFile = tempDir.resolve("classgraph.idx");
+        try (ScanResult scanResult1 = new ClassGraph().overrideClasspath(getClasspathBase())
+                .acceptPackages(AnnotationParamWithPrimitiveTypedArrayTest.class.getPackage().getName())
+                .enableAllInfo().scan()) {
+            try (OutputStream out = Files.newOutputStream(indexFile)) {
+                scanResult1.writeTo(out);
+            }
+        }
+        try (InputStream in = Files.newInputStream(indexFile);
+                ScanResult streamed = ScanResult.readFrom(in);
+                ScanResult mapped = ScanResult.readFrom(indexFile)) {
+            for (final ScanResult scanResult2 : Arrays.asList(streamed, mapped)) {
+                assertThat(membersHaveBeenRead(
+                        scanResult2.getClassInfo(AnnotationWithPrimitiveArrayParams.class.getName()))).isFalse();
+                final AnnotationParameterValueList annotationParams = scanResult2
+                        .getClassInfo(AnnotatedClass.class.getName()).getAnnotationInfo().get(0)
+                        .getParameterValues();
+                assertThat(annotationParams.getValue("v0")).isEqualTo(new int[] { 1, 2 });
+                assertThat(annotationParams.getValue("v1")).isEqualTo(new char[] { 'a' });
+                assertThat(annotationParams.getValue("v3").getClass()).isEqualTo(int[].class);
+            }
+        }
+    }
+
+    /**
+     * Reading input that was not written by {@link ScanResult#writeTo(java.io.OutputStream)} fails.
+     */
+    @Test
+    public void readFromRejectsBadInput() {
+        final byte[] json = "{\"format\":\"10\"}".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> ScanResult.readFrom(new ByteArrayInputStream(json)))
+                .isInstanceOf(IOException.class);
+    }
+}
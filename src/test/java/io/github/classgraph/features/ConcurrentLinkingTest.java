@@ -0,0 +1,80 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ClassInfoList;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ConcurrentLinkingTest.
+ */
+public class ConcurrentLinkingTest {
+    /**
+     * Sorted class names.
+     *
+     * @param classInfoList
+     *            the class info list
+     * @return the sorted names
+     */
+    private static List<String> sortedNames(final ClassInfoList classInfoList) {
+        final List<String> names = new ArrayList<>(classInfoList.getNames());
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * Summarize the links of every class in the scan result.
+     *
+     * @param scanResult
+     *            the scan result
+     * @return the summary, indexed by class name
+     */
+    private static Map<String, String> summarize(final ScanResult scanResult) {
+        final Map<String, String> summary = new TreeMap<>();
+        for (final ClassInfo ci : scanResult.getAllClasses()) {
+            summary.put(ci.getName(), ci.getModifiers() + " " + ci.getPackageName() //
+                    + " super=" + sortedNames(ci.getSuperclasses()) //
+                    + " sub=" + sortedNames(ci.getSubclasses()) //
+                    + " ifaces=" + sortedNames(ci.getInterfaces()) //
+                    + " impl=" + sortedNames(ci.getClassesImplementing()) //
+                    + " anns=" + sortedNames(ci.getAnnotations()) //
+                    + " withAnn=" + sortedNames(ci.getClassesWithAnnotation()) //
+                    + " withMethodAnn=" + sortedNames(ci.getClassesWithMethodAnnotation()) //
+                    + " withFieldAnn=" + sortedNames(ci.getClassesWithFieldAnnotation()) //
+                    + " inner=" + sortedNames(ci.getInnerClasses()) //
+                    + " outer=" + sortedNames(ci.getOuterClasses()) //
+                    + " fields=" + ci.getDeclaredFieldInfo().size() //
+                    + " methods=" + ci.getDeclaredMethodInfo().size());
+        }
+        return summary;
+    }
+
+    /**
+     * Concurrent linking produces the same result as serial linking.
+     */
+    @Test
+    public void concurrentLinkingMatchesSerialLinking() {
+        final Map<String, String> serialSummary;
+        try (ScanResult scanResult = new ClassGraph().acceptPackages("io.github.classgraph.test", "com.xyz")
+                .enableAllInfo().ignoreClassVisibility().scan(8)) {
+            serialSummary = summarize(scanResult);
+        }
+        final Map<String, String> concurrentSummary;
+        try (ScanResult scanResult = new ClassGraph().acceptPackages("io.github.classgraph.test", "com.xyz")
+                .enableAllInfo().ignoreClassVisibility().enableConcurrentLinking().scan(8)) {
+            concurrentSummary = summarize(scanResult);
+        }
+        assertThat(serialSummary).isNotEmpty();
+        assertThat(concurrentSummary).isEqualTo(serialSummary);
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.utils.JarHttpServer;
+import io.github.classgraph.test.utils.TestJars;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.fileslice.HttpRangeSlice;
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessReader;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * HttpRangeRequestsTest.
+ */
+public class HttpRangeRequestsTest {
+    /**
+     * Create a jarfile containing the classfiles of the given classes, followed by a large stored entry in a
+     * package that is not accepted.
+     *
+     * @param fillerSeed
+     *            the random seed for the content of the large entry
+     * @param classes
+     *            the classes
+     * @return the jarfile content
+     */
+    private static byte[] createJar(final int fillerSeed, final Class<?>... classes) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(bout)) {
+            TestJars.addClassfiles(zipOut, classes);
+            final byte[] filler = new byte[4 * 1024 * 1024];
+            new Random(fillerSeed).nextBytes(filler);
+            TestJars.addStoredEntry(zipOut, "filler/filler.bin", filler);
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Scan a jar served over HTTP.
+     *
+     * @param supportRanges
+     *            if true, the server honors range requests
+     * @param expectRangeRequests
+     *            if true, expect the jar to be read using range requests
+     */
+    private static void scanJarOverHttp(final boolean supportRanges, final boolean expectRangeRequests)
+            throws IOException {
+        final byte[] jar = createJar(1, Cls.class, ClsSub.class);
+        try (JarHttpServer server = new JarHttpServer(supportRanges)) {
+            final URL jarURL = server.put("/test.jar", jar);
+            try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarURL).enableRemoteJarScanning()
+                    .enableHttpRangeRequests().acceptPackages(Cls.class.getPackage().getName()).scan()) {
+                assertThat(scanResult.getSubclasses(Cls.class).getNames()).containsExactly(ClsSub.class.getName());
+            }
+            if (expectRangeRequests) {
+                // The first block, the end of the jar, and nothing else should have been fetched
+                assertThat(server.numRequests.get()).isGreaterThan(1);
+                assertThat(server.numBytesSent.get()).isLessThan(jar.length / 4);
+            } else {
+                assertThat(server.numBytesSent.get()).isGreaterThanOrEqualTo(jar.length);
+            }
+        }
+    }
+
+    /** Only the needed parts of a jar are fetched if the server supports range requests. */
+    @Test
+    public void rangeRequests() throws IOException {
+        scanJarOverHttp(/* supportRanges = */ true, /* expectRangeRequests = */ true);
+    }
+
+    /** The whole jar is downloaded if the server does not support range requests. */
+    @Test
+    public void fallBackToDownloadIfRangesNotSupported() throws IOException {
+        scanJarOverHttp(/* supportRanges = */ false, /* expectRangeRequests = */ false);
+    }
+
+    /** Reading a range fails if the jar changes on the server after the first range was fetched. */
+    @Test
+    public void rangeRequestsFailIfJarChanges() throws IOException {
+        final byte[] jar = createJar(1, Cls.class, ClsSub.class);
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(new ScanSpec(), new InterruptionChecker(),
+                new ReflectionUtils());
+        try (JarHttpServer server = new JarHttpServer(/* supportRanges = */ true)) {
+            final URL jarURL = server.put("/test.jar", jar);
+            final HttpURLConnection httpConn = (HttpURLConnection) jarURL.openConnection();
+            httpConn.setRequestProperty("Range", "bytes=0-" + (HttpRangeSlice.BLOCK_SIZE - 1));
+            assertThat(httpConn.getResponseCode()).isEqualTo(HttpURLConnection.HTTP_PARTIAL);
+            final HttpRangeSlice slice = HttpRangeSlice.fromPartialResponse(httpConn, nestedJarHandler);
+            assertThat(slice).isNotNull();
+            final RandomAccessReader reader = slice.randomAccessReader();
+            final byte[] buf = new byte[16];
+            reader.read(jar.length - buf.length, buf, 0, buf.length);
+            assertThat(buf).isEqualTo(Arrays.copyOfRange(jar, jar.length - buf.length, jar.length));
+
+            // Replace the jar with a jar of the same length but different content
+            server.put("/test.jar", createJar(2, Cls.class, ClsSub.class));
+            assertThatThrownBy(() -> reader.read(jar.length / 2, buf, 0, buf.length))
+                    .isInstanceOf(IOException.class).hasMessageContaining("changed");
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
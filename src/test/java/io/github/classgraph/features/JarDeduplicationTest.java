@@ -0,0 +1,137 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ResourceList;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.utils.TestJars;
+
+/**
+ * JarDeduplicationTest.
+ */
+public class JarDeduplicationTest {
+    /**
+     * Scan with verbose logging, and return the log.
+     *
+     * @param classGraph
+     *            the {@link ClassGraph} instance to scan with
+     * @param checker
+     *            checks the scan result
+     * @return the log messages, one per line
+     */
+    private static String scanAndGetLog(final ClassGraph classGraph, final Consumer<ScanResult> checker) {
+        final List<String> logRecords = new ArrayList<>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                logRecords.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        final boolean useParentHandlers = logger.getUseParentHandlers();
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        try (ScanResult scanResult = classGraph.verbose().scan()) {
+            checker.accept(scanResult);
+        } finally {
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(useParentHandlers);
+        }
+        return String.join("\n", logRecords);
+    }
+
+    /**
+     * The paths of identical jarfiles are only scanned once, and the resources of the first jarfile are shared
+     * with the other jarfiles.
+     */
+    @Test
+    public void identicalJarsAreScannedOnce(@TempDir final Path tempDir) throws IOException {
+        final Path jar1 = tempDir.resolve("lib/lib.jar");
+        TestJars.createJar(jar1, Cls.class, ClsSub.class);
+        final Path jar2 = tempDir.resolve("WEB-INF/lib/lib-copy.jar");
+        Files.createDirectories(jar2.getParent());
+        Files.copy(jar1, jar2);
+        final Path jar3 = tempDir.resolve("other/lib.jar");
+        TestJars.createJar(jar3, Cls.class);
+        final String classfilePath = Cls.class.getName().replace('.', '/') + ".class";
+
+        final String log = scanAndGetLog(new ClassGraph().overrideClasspath(jar1, jar2, jar3)
+                .acceptPackages(Cls.class.getPackage().getName()).enableJarDeduplication(), scanResult -> {
+                    assertThat(scanResult.getAllClasses().getNames())
+                            .containsExactlyInAnyOrder(Cls.class.getName(), ClsSub.class.getName());
+                    assertThat(scanResult.getClassInfo(Cls.class.getName()).getClasspathElementFile())
+                            .isEqualTo(jar1.toFile());
+
+                    // Each copy of the jarfile still provides its own resources
+                    final ResourceList resources = scanResult.getResourcesWithPath(classfilePath);
+                    assertThat(resources).hasSize(3);
+                    try {
+                        final byte[] content = resources.get(0).load();
+                        for (final Resource resource : resources) {
+                            assertThat(resource.load()).isEqualTo(content);
+                        }
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    assertThat(resources.get(1).getClasspathElementFile()).isEqualTo(jar2.toFile());
+                    assertThat(resources.get(1).getURI().toString()).contains("lib-copy.jar");
+                });
+        assertThat(log).contains(jar2 + " has the same content as " + jar1)
+                .doesNotContain(jar3 + " has the same content as");
+    }
+
+    /**
+     * Jarfiles of the same size that only differ in entries outside the accepted packages are not deduplicated,
+     * even though those entries are not read when the central directory is read.
+     */
+    @Test
+    public void jarsThatDifferOutsideAcceptedPackagesAreNotDeduplicated(@TempDir final Path tempDir)
+            throws IOException {
+        final Path jar1 = tempDir.resolve("lib1.jar");
+        final Path jar2 = tempDir.resolve("lib2.jar");
+        for (final Path jar : Arrays.asList(jar1, jar2)) {
+            try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(jar))) {
+                TestJars.addClassfiles(zipOut, Cls.class, ClsSub.class);
+                TestJars.addStoredEntry(zipOut, "rejected/data.txt",
+                        jar.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(Files.size(jar2)).isEqualTo(Files.size(jar1));
+
+        final String log = scanAndGetLog(new ClassGraph().overrideClasspath(jar1, jar2)
+                .acceptPackages(Cls.class.getPackage().getName()).enableJarDeduplication(), scanResult -> {
+                    assertThat(scanResult.getResourcesWithPath(Cls.class.getName().replace('.', '/') + ".class")
+                            .get(1).getClasspathElementFile()).isEqualTo(jar2.toFile());
+                });
+        assertThat(log).doesNotContain("has the same content as");
+    }
+}
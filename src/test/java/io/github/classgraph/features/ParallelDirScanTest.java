@@ -0,0 +1,122 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.Resource;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ParallelDirScanTest.
+ */
+public class ParallelDirScanTest {
+    /**
+     * Create a file, and its parent directories.
+     *
+     * @param root
+     *            the root directory
+     * @param relativePath
+     *            the relative path of the file
+     */
+    private static void createFile(final Path root, final String relativePath) throws IOException {
+        final Path path = root.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.write(path, relativePath.getBytes());
+    }
+
+    /**
+     * Get the paths of all resources found in a directory.
+     *
+     * @param root
+     *            the root directory
+     * @return the resource paths, in the order they were found
+     */
+    private static List<String> scanResourcePaths(final Path root) {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(root.toUri()).acceptPaths("pkg").scan()) {
+            final List<String> paths = new ArrayList<>();
+            for (final Resource resource : scanResult.getAllResources()) {
+                paths.add(resource.getPath());
+            }
+            return paths;
+        }
+    }
+
+    /**
+     * Resources are found in preorder (files in a directory, then subdirectories), whatever the order in which
+     * subdirectories are scanned.
+     */
+    @Test
+    public void resourcesAreFoundInPreorder(@TempDir final Path root) throws IOException {
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            expected.add("pkg/file" + i + ".txt");
+        }
+        for (int i = 0; i < 8; i++) {
+            expected.add("pkg/sub" + i + "/file.txt");
+            for (int j = 0; j < 4; j++) {
+                expected.add("pkg/sub" + i + "/subsub" + j + "/file.txt");
+            }
+        }
+        for (final String path : expected) {
+            createFile(root, path);
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThat(scanResourcePaths(root)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    /**
+     * A directory that is reached both directly and through a symlink is only scanned once, and always through
+     * the directory itself.
+     */
+    @Test
+    public void symlinkedDirectoryIsScannedOnce(@TempDir final Path root) throws IOException {
+        createFile(root, "pkg/b/file.txt");
+        createFile(root, "pkg/a/file.txt");
+        try {
+            // "pkg/a/link" comes before "pkg/b" in preorder
+            Files.createSymbolicLink(root.resolve("pkg/a/link"), root.resolve("pkg/b"));
+            // Symlink cycle
+            Files.createSymbolicLink(root.resolve("pkg/b/cycle"), root.resolve("pkg"));
+        } catch (final IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "Symlinks are not supported");
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThat(scanResourcePaths(root)).containsExactlyElementsOf(
+                    Arrays.asList("pkg/a/file.txt", "pkg/b/file.txt"));
+        }
+    }
+
+    /**
+     * A directory outside the classpath element that is reached through two symlinks is only scanned once, through
+     * the first symlink in preorder.
+     */
+    @Test
+    public void directoryReachedThroughTwoSymlinksIsScannedOnce(@TempDir final Path root,
+            @TempDir final Path external) throws IOException {
+        createFile(external, "dir/file.txt");
+        createFile(root, "pkg/a/file.txt");
+        createFile(root, "pkg/b/file.txt");
+        try {
+            Files.createSymbolicLink(root.resolve("pkg/b/link"), external.resolve("dir"));
+            Files.createSymbolicLink(root.resolve("pkg/a/link"), external.resolve("dir"));
+        } catch (final IOException | UnsupportedOperationException e) {
+            assumeTrue(false, "Symlinks are not supported");
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThat(scanResourcePaths(root)).containsExactlyElementsOf(
+                    Arrays.asList("pkg/a/file.txt", "pkg/a/link/file.txt", "pkg/b/file.txt"));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.accepted.ClsSubSub;
+import io.github.classgraph.test.utils.JarHttpServer;
+import io.github.classgraph.test.utils.TestJars;
+
+/**
+ * RemoteJarCacheTest.
+ */
+public class RemoteJarCacheTest {
+    /**
+     * Scan jars served over HTTP, using a download cache.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @param maxSize
+     *            the maximum size of the cache
+     * @param jarURLs
+     *            the jar URLs
+     * @return the names of the subclasses of {@link Cls}
+     */
+    private static List<String> scan(final Path cacheDir, final long maxSize, final URL... jarURLs) {
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath((Object[]) jarURLs)
+                .enableRemoteJarScanning().enableRemoteJarCache(cacheDir, maxSize)
+                .acceptPackages(Cls.class.getPackage().getName()).scan()) {
+            return scanResult.getSubclasses(Cls.class).getNames();
+        }
+    }
+
+    /**
+     * List the jarfiles in the cache directory.
+     *
+     * @param cacheDir
+     *            the cache directory
+     * @return the names of the jarfiles
+     */
+    private static List<String> listCachedJars(final Path cacheDir) throws IOException {
+        try (Stream<Path> paths = Files.list(cacheDir)) {
+            return paths.map(path -> path.getFileName().toString()).filter(name -> name.endsWith(".jar"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * A downloaded jar is reused by later scans while the server responds with 304, and downloaded again once it
+     * has changed.
+     */
+    @Test
+    public void conditionalRequests(@TempDir final Path tempDir) throws IOException {
+        try (JarHttpServer server = new JarHttpServer(/* supportRanges = */ false)) {
+            final URL jarURL = server.put("/test.jar", TestJars.createJar(Cls.class, ClsSub.class));
+            final Path cacheDir = tempDir.resolve("cache");
+            assertThat(scan(cacheDir, 1024 * 1024, jarURL)).containsExactly(ClsSub.class.getName());
+            assertThat(server.numFullResponses.get()).isEqualTo(1);
+            assertThat(listCachedJars(cacheDir)).hasSize(1);
+
+            // Not modified -- the cached copy is used
+            assertThat(scan(cacheDir, 1024 * 1024, jarURL)).containsExactly(ClsSub.class.getName());
+            assertThat(server.numFullResponses.get()).isEqualTo(1);
+
+            // Modified -- the jar is downloaded again
+            server.put("/test.jar", TestJars.createJar(Cls.class, ClsSub.class, ClsSubSub.class));
+            assertThat(scan(cacheDir, 1024 * 1024, jarURL)).containsExactlyInAnyOrder(ClsSub.class.getName(),
+                    ClsSubSub.class.getName());
+            assertThat(server.numFullResponses.get()).isEqualTo(2);
+            assertThat(listCachedJars(cacheDir)).hasSize(1);
+        }
+    }
+
+    /** The least recently used jars are evicted when the cache is full. */
+    @Test
+    public void eviction(@TempDir final Path tempDir) throws IOException {
+        final byte[] jar = TestJars.createJar(Cls.class, ClsSub.class);
+        try (JarHttpServer server = new JarHttpServer(/* supportRanges = */ false)) {
+            final Path cacheDir = tempDir.resolve("cache");
+            final List<URL> jarURLs = new ArrayList<>();
+            jarURLs.add(server.put("/a.jar", jar));
+            jarURLs.add(server.put("/b.jar", jar));
+            for (final URL jarURL : jarURLs) {
+                assertThat(scan(cacheDir, jar.length, jarURL)).containsExactly(ClsSub.class.getName());
+            }
+            assertThat(listCachedJars(cacheDir)).hasSize(1);
+            assertThat(server.numFullResponses.get()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.MethodInfo;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.accepted.ClsSubSub;
+
+/**
+ * RescanChangedTest.
+ */
+public class RescanChangedTest {
+    /** The package of the test classes. */
+    private static final String PKG = "io.github.classgraph.test.accepted";
+
+    /**
+     * Copy a classfile of the test package into a classpath directory.
+     *
+     * @param classpathDir
+     *            the classpath directory
+     * @param simpleClassName
+     *            the simple class name
+     */
+    private static void copyClassfile(final Path classpathDir, final String simpleClassName)
+            throws IOException, URISyntaxException {
+        final String relativePath = PKG.replace('.', '/') + "/" + simpleClassName + ".class";
+        final Path dest = classpathDir.resolve(relativePath);
+        Files.createDirectories(dest.getParent());
+        Files.copy(Paths.get(RescanChangedTest.class.getClassLoader().getResource(relativePath).toURI()), dest);
+    }
+
+    /**
+     * Summarize the classes in a scan result.
+     *
+     * @param scanResult
+     *            the scan result
+     * @return the summary, indexed by class name
+     */
+    private static Map<String, String> summarize(final ScanResult scanResult) {
+        final Map<String, String> summary = new TreeMap<>();
+        for (final ClassInfo ci : scanResult.getAllClasses()) {
+            summary.put(ci.getName(), ci.getModifiers() + " " + ci.isExternalClass() //
+                    + " super=" + ci.getSuperclasses().getNames() //
+                    + " sub=" + ci.getSubclasses().getNames() //
+                    + " ifaces=" + ci.getInterfaces().getNames() //
+                    + " impl=" + ci.getClassesImplementing().getNames() //
+                    + " methods=" + ci.getDeclaredMethodAndConstructorInfo());
+        }
+        return summary;
+    }
+
+    /**
+     * A rescan uses the executor service of the original scan, and logs if the original scan was verbose.
+     */
+    @Test
+    public void rescanKeepsScanSettings(@TempDir final Path classpathDir) throws Exception {
+        copyClassfile(classpathDir, "Cls");
+        final AtomicInteger numTasks = new AtomicInteger();
+        final ThreadPoolExecutor executorService = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>()) {
+            @Override
+            protected void beforeExecute(final Thread thread, final Runnable task) {
+                numTasks.incrementAndGet();
+            }
+        };
+        final List<String> logRecords = Collections.synchronizedList(new ArrayList<>());
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                logRecords.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        final boolean useParentHandlers = logger.getUseParentHandlers();
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(classpathDir.toUri()).acceptPackages(PKG)
+                .enableIncrementalRescan().verbose().scan(executorService, 2)) {
+            final int numTasksAfterScan = numTasks.get();
+            assertThat(numTasksAfterScan).isPositive();
+            logRecords.clear();
+            try (ScanResult rescanResult = scanResult.rescanChanged()) {
+                assertThat(rescanResult.getClassInfo(Cls.class.getName())).isNotNull();
+            }
+            assertThat(numTasks.get()).isGreaterThan(numTasksAfterScan);
+            assertThat(logRecords).isNotEmpty();
+        } finally {
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(useParentHandlers);
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Rescan a directory after adding, removing and modifying classfiles.
+     */
+    @Test
+    public void rescanChangedMatchesFullRescan(@TempDir final Path classpathDir)
+            throws IOException, URISyntaxException {
+        for (final String simpleClassName : new String[] { "Cls", "ClsSub", "ClsSubSub", "Iface" }) {
+            copyClassfile(classpathDir, simpleClassName);
+        }
+        final ClassGraph classGraph = new ClassGraph().overrideClasspath(classpathDir.toUri()).acceptPackages(PKG)
+                .enableAllInfo().enableIncrementalRescan();
+        final MethodInfo clsConstructor;
+        final MethodInfo clsSubConstructor;
+        final ScanResult rescanResult;
+        try (ScanResult scanResult = classGraph.scan()) {
+            assertThat(scanResult.getSubclasses(Cls.class.getName()).getNames())
+                    .containsExactlyInAnyOrder(ClsSub.class.getName(), ClsSubSub.class.getName());
+            clsConstructor = scanResult.getClassInfo(Cls.class.getName()).getDeclaredConstructorInfo().get(0);
+            clsSubConstructor = scanResult.getClassInfo(ClsSub.class.getName()).getDeclaredConstructorInfo()
+                    .get(0);
+
+            // Remove one class, add another, and modify a third
+            final File clsSubFile = classpathDir.resolve(PKG.replace('.', '/') + "/ClsSub.class").toFile();
+            assertThat(clsSubFile.setLastModified(clsSubFile.lastModified() - 10000L)).isTrue();
+            Files.delete(classpathDir.resolve(PKG.replace('.', '/') + "/ClsSubSub.class"));
+            copyClassfile(classpathDir, "Impl1");
+
+            rescanResult = scanResult.rescanChanged();
+        }
+        try (ScanResult fullRescanResult = new ClassGraph().overrideClasspath(classpathDir.toUri())
+                .acceptPackages(PKG).enableAllInfo().scan()) {
+            try {
+                assertThat(summarize(rescanResult)).isEqualTo(summarize(fullRescanResult));
+                assertThat(rescanResult.getClassInfo(ClsSubSub.class.getName())).isNull();
+                assertThat(rescanResult.getSubclasses(Cls.class.getName()).getNames())
+                        .containsExactly(ClsSub.class.getName());
+
+                // The unchanged class was not reparsed, but the modified class was
+                assertThat(rescanResult.getClassInfo(Cls.class.getName()).getDeclaredConstructorInfo().get(0))
+                        .isSameAs(clsConstructor);
+                assertThat(rescanResult.getClassInfo(ClsSub.class.getName()).getDeclaredConstructorInfo().get(0))
+                        .isNotSameAs(clsSubConstructor);
+            } finally {
+                rescanResult.close();
+            }
+        }
+    }
+}
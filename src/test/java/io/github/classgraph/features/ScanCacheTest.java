@@ -0,0 +1,126 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+
+/**
+ * ScanCacheTest.
+ */
+public class ScanCacheTest {
+    /** The package to copy into the test jar. */
+    private static final String PKG = "io/github/classgraph/test/accepted";
+
+    /**
+     * Create a jar containing the classfiles of {@link #PKG}.
+     *
+     * @param jarFile
+     *            the jarfile to create
+     */
+    private static void createJar(final Path jarFile) throws IOException, URISyntaxException {
+        final Path pkgDir = Paths.get(ScanCacheTest.class.getClassLoader().getResource(PKG).toURI());
+        try (OutputStream os = Files.newOutputStream(jarFile); JarOutputStream jos = new JarOutputStream(os);
+                DirectoryStream<Path> dirStream = Files.newDirectoryStream(pkgDir, "*.class")) {
+            for (final Path classfile : dirStream) {
+                jos.putNextEntry(new JarEntry(PKG + "/" + classfile.getFileName()));
+                jos.write(Files.readAllBytes(classfile));
+                jos.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Scan the jar and summarize the classes found.
+     *
+     * @param jarFile
+     *            the jarfile
+     * @param cacheDir
+     *            the cache dir, or null to disable the scan cache
+     * @return the summary, indexed by class name
+     */
+    private static Map<String, String> scan(final Path jarFile, final Path cacheDir) {
+        final ClassGraph classGraph = new ClassGraph().overrideClasspath(jarFile.toUri()).enableAllInfo()
+                .ignoreClassVisibility();
+        if (cacheDir != null) {
+            classGraph.enableScanCache(cacheDir);
+        }
+        final Map<String, String> summary = new TreeMap<>();
+        try (ScanResult scanResult = classGraph.scan()) {
+            for (final ClassInfo ci : scanResult.getAllClasses()) {
+                summary.put(ci.getName(), ci.getModifiers() + " " + ci.isExternalClass() //
+                        + " super=" + ci.getSuperclasses().getNames() //
+                        + " ifaces=" + ci.getInterfaces().getNames() //
+                        + " anns=" + ci.getAnnotationInfo() //
+                        + " fields=" + ci.getDeclaredFieldInfo() //
+                        + " methods=" + ci.getDeclaredMethodInfo());
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * List the cache files.
+     *
+     * @param cacheDir
+     *            the cache dir
+     * @return the cache files
+     */
+    private static List<File> listCacheFiles(final Path cacheDir) throws IOException {
+        final List<File> cacheFiles = new ArrayList<>();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(cacheDir, "*.json")) {
+            for (final Path path : dirStream) {
+                cacheFiles.add(path.toFile());
+            }
+        }
+        return cacheFiles;
+    }
+
+    /**
+     * A scan that reads from the cache produces the same result as a scan without the cache.
+     */
+    @Test
+    public void cachedScanMatchesUncachedScan(@TempDir final Path tempDir) throws IOException, URISyntaxException {
+        final Path jarFile = tempDir.resolve("cached.jar");
+        createJar(jarFile);
+        final Path cacheDir = tempDir.resolve("cache");
+
+        final Map<String, String> uncachedSummary = scan(jarFile, null);
+        assertThat(uncachedSummary).isNotEmpty();
+
+        // First scan writes the cache
+        assertThat(scan(jarFile, cacheDir)).isEqualTo(uncachedSummary);
+        final List<File> cacheFiles = listCacheFiles(cacheDir);
+        assertThat(cacheFiles).hasSize(1);
+        final long cacheFileLastModified = cacheFiles.get(0).lastModified();
+
+        // Second scan reads the cache, and does not rewrite it
+        assertThat(scan(jarFile, cacheDir)).isEqualTo(uncachedSummary);
+        assertThat(listCacheFiles(cacheDir)).containsExactlyElementsOf(cacheFiles);
+        assertThat(cacheFiles.get(0).lastModified()).isEqualTo(cacheFileLastModified);
+
+        // Changing the jar invalidates the cache entry
+        assertThat(jarFile.toFile().setLastModified(jarFile.toFile().lastModified() - 10000L)).isTrue();
+        assertThat(scan(jarFile, cacheDir)).isEqualTo(uncachedSummary);
+        assertThat(listCacheFiles(cacheDir)).hasSize(1);
+    }
+}
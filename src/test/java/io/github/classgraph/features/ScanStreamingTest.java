@@ -0,0 +1,55 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassGraphException;
+import io.github.classgraph.ParsedClassfile;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.external.ExternalAnnotation;
+import io.github.classgraph.test.internal.InternalAnnotatedByExternal;
+
+/**
+ * ScanStreamingTest.
+ */
+public class ScanStreamingTest {
+    /**
+     * Streaming scan visits the same classes as a regular scan.
+     */
+    @Test
+    public void streamingScanVisitsAllClasses() {
+        final Map<String, ParsedClassfile> visited = new ConcurrentHashMap<>();
+        new ClassGraph().acceptPackages(Cls.class.getPackage().getName(),
+                InternalAnnotatedByExternal.class.getPackage().getName()).enableAnnotationInfo()
+                .scanStreaming(classfile -> visited.put(classfile.getName(), classfile));
+        try (ScanResult scanResult = new ClassGraph()
+                .acceptPackages(Cls.class.getPackage().getName(),
+                        InternalAnnotatedByExternal.class.getPackage().getName())
+                .enableAnnotationInfo().scan()) {
+            assertThat(visited.keySet()).containsExactlyInAnyOrderElementsOf(scanResult.getAllClasses().getNames());
+        }
+        assertThat(visited.get(ClsSub.class.getName()).getSuperclassName()).isEqualTo(Cls.class.getName());
+        assertThat(visited.get(InternalAnnotatedByExternal.class.getName()).getAnnotationInfo().getNames())
+                .containsExactly(ExternalAnnotation.class.getName());
+        assertThat(visited.get(InternalAnnotatedByExternal.class.getName()).getInterfaceNames()).isEmpty();
+    }
+
+    /**
+     * An exception thrown by the visitor is propagated to the caller.
+     */
+    @Test
+    public void visitorExceptionIsPropagated() {
+        assertThatThrownBy(() -> new ClassGraph().acceptPackages(Cls.class.getPackage().getName())
+                .scanStreaming(classfile -> {
+                    throw new IllegalStateException("visitor failed");
+                })).isInstanceOf(ClassGraphException.class).hasRootCauseInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.accepted.ClsSubSub;
+import io.github.classgraph.test.utils.TestJars;
+
+/**
+ * SequentialJarReadsTest.
+ */
+public class SequentialJarReadsTest {
+    /**
+     * Classfiles in stored nested jars are scanned in the order they are stored in the outer jarfile, rather than
+     * in classpath order.
+     */
+    @Test
+    public void classfilesAreScannedInJarfileOrder(@TempDir final Path tempDir) throws IOException {
+        // Store b.jar before a.jar within the outer jarfile
+        final Path outerJar = tempDir.resolve("outer.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(outerJar))) {
+            TestJars.addStoredEntry(zipOut, "b.jar", TestJars.createJar(ClsSub.class, ClsSubSub.class));
+            TestJars.addStoredEntry(zipOut, "a.jar", TestJars.createJar(Cls.class));
+        }
+        final Object[] classpath = { outerJar.toUri() + "!/a.jar", outerJar.toUri() + "!/b.jar" };
+
+        // Scan with a single thread, so that classfiles are visited in scheduling order
+        final List<String> visited = Collections.synchronizedList(new ArrayList<String>());
+        new ClassGraph().overrideClasspath(classpath).acceptPackages(Cls.class.getPackage().getName())
+                .enableSequentialJarReads().scanStreaming(1, classfile -> visited.add(classfile.getName()));
+        assertThat(visited).containsExactly(ClsSub.class.getName(), ClsSubSub.class.getName(),
+                Cls.class.getName());
+
+        // Without sequential jar reads, classfiles are scanned in classpath order
+        final List<String> visitedInClasspathOrder = Collections.synchronizedList(new ArrayList<String>());
+        new ClassGraph().overrideClasspath(classpath).acceptPackages(Cls.class.getPackage().getName())
+                .scanStreaming(1, classfile -> visitedInClasspathOrder.add(classfile.getName()));
+        assertThat(visitedInClasspathOrder).containsExactlyElementsOf(
+                Arrays.asList(Cls.class.getName(), ClsSub.class.getName(), ClsSubSub.class.getName()));
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import nonapi.io.github.classgraph.concurrency.VirtualThreadFactory;
+
+/**
+ * VirtualThreadsTest.
+ */
+public class VirtualThreadsTest {
+    /**
+     * Scanning with virtual threads (or with platform threads, on JDKs without virtual threads) gives the same
+     * result as a regular scan.
+     */
+    @Test
+    public void virtualThreadScanMatchesRegularScan() {
+        try (ScanResult scanResult1 = new ClassGraph().acceptPackages(Cls.class.getPackage().getName())
+                .enableAllInfo().scan();
+                ScanResult scanResult2 = new ClassGraph().acceptPackages(Cls.class.getPackage().getName())
+                        .enableAllInfo().useVirtualThreads().scan()) {
+            assertThat(scanResult2.getAllClasses().getNames())
+                    .containsExactlyElementsOf(scanResult1.getAllClasses().getNames());
+            assertThat(scanResult2.getSubclasses(Cls.class).getNames()).contains(ClsSub.class.getName());
+        }
+    }
+
+    /**
+     * Classfiles are parsed on virtual threads, if the JDK supports them.
+     */
+    @Test
+    public void classfilesAreParsedOnVirtualThreads() throws Exception {
+        final Set<Boolean> isVirtual = ConcurrentHashMap.newKeySet();
+        final Method isVirtualMethod = VirtualThreadFactory.isAvailable() ? Thread.class.getMethod("isVirtual")
+                : null;
+        new ClassGraph().acceptPackages(Cls.class.getPackage().getName()).useVirtualThreads()
+                .scanStreaming(classfile -> {
+                    try {
+                        isVirtual.add(isVirtualMethod != null
+                                && (Boolean) isVirtualMethod.invoke(Thread.currentThread()));
+                    } catch (final ReflectiveOperationException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+        assertThat(isVirtual).containsExactly(VirtualThreadFactory.isAvailable());
+    }
+}
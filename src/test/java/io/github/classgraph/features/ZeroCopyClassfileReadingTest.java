@@ -0,0 +1,139 @@
+package io.github.classgraph.features;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.accepted.HasFieldWithTypeCls;
+import io.github.classgraph.test.accepted.StaticField;
+
+/**
+ * ZeroCopyClassfileReadingTest.
+ */
+public class ZeroCopyClassfileReadingTest {
+    /** The classes to scan. */
+    private static final Class<?>[] CLASSES = { Cls.class, ClsSub.class, HasFieldWithTypeCls.class,
+            StaticField.class };
+
+    /**
+     * Read the classfile of a class.
+     *
+     * @param cls
+     *            the class
+     * @return the classfile content
+     */
+    private static byte[] readClassfile(final Class<?> cls) throws IOException {
+        try (InputStream in = cls.getClassLoader()
+                .getResourceAsStream(cls.getName().replace('.', '/') + ".class")) {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            for (int n; (n = in.read(buf)) > 0;) {
+                bout.write(buf, 0, n);
+            }
+            return bout.toByteArray();
+        }
+    }
+
+    /**
+     * Describe the classes found by a scan.
+     *
+     * @param scanResult
+     *            the scan result
+     * @return the description
+     */
+    private static String describe(final ScanResult scanResult) {
+        final StringBuilder buf = new StringBuilder();
+        for (final ClassInfo classInfo : scanResult.getAllClasses()) {
+            buf.append(classInfo).append('\n').append(classInfo.getFieldInfo()).append('\n')
+                    .append(classInfo.getMethodInfo()).append('\n').append(classInfo.getAnnotationInfo())
+                    .append('\n');
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Create a jarfile containing the classfiles of {@link #CLASSES}, as stored or deflated entries.
+     *
+     * @param jarPath
+     *            the path of the jarfile
+     * @param stored
+     *            if true, store the entries, otherwise deflate them
+     */
+    private static void createJar(final Path jarPath, final boolean stored) throws IOException {
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(jarPath))) {
+            for (final Class<?> cls : CLASSES) {
+                final byte[] content = readClassfile(cls);
+                final ZipEntry entry = new ZipEntry(cls.getName().replace('.', '/') + ".class");
+                if (stored) {
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.length);
+                    final CRC32 crc = new CRC32();
+                    crc.update(content);
+                    entry.setCrc(crc.getValue());
+                }
+                zipOut.putNextEntry(entry);
+                zipOut.write(content);
+                zipOut.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Classfiles read in place from memory mapped jarfiles and directories are parsed the same way as classfiles
+     * read through a buffer.
+     */
+    @Test
+    public void memoryMappedClassfilesMatchBufferedClassfiles(@TempDir final Path tempDir) throws IOException {
+        final Path storedJar = tempDir.resolve("stored.jar");
+        createJar(storedJar, /* stored = */ true);
+        final Path deflatedJar = tempDir.resolve("deflated.jar");
+        createJar(deflatedJar, /* stored = */ false);
+        final Path dir = Files.createDirectories(tempDir.resolve("dir"));
+        for (final Class<?> cls : CLASSES) {
+            final Path classfilePath = dir.resolve(cls.getName().replace('.', '/') + ".class");
+            Files.createDirectories(classfilePath.getParent());
+            Files.write(classfilePath, readClassfile(cls));
+        }
+        // Classfiles in a stored nested jar are read from an in-memory or mapped slice of the outer jar
+        final Path outerJar = tempDir.resolve("outer.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(outerJar))) {
+            final byte[] content = Files.readAllBytes(storedJar);
+            final ZipEntry entry = new ZipEntry("lib/stored.jar");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(content.length);
+            final CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setCrc(crc.getValue());
+            zipOut.putNextEntry(entry);
+            zipOut.write(content);
+            zipOut.closeEntry();
+        }
+
+        for (final Object classpathElement : new Object[] { storedJar.toUri(), deflatedJar.toUri(), dir.toUri(),
+                outerJar.toUri() + "!/lib/stored.jar" }) {
+            try (ScanResult buffered = new ClassGraph().overrideClasspath(classpathElement).enableAllInfo()
+                    .scan();
+                    ScanResult mapped = new ClassGraph().overrideClasspath(classpathElement).enableAllInfo()
+                            .enableMemoryMapping().scan()) {
+                assertThat(buffered.getAllClasses().getNames()).contains(Cls.class.getName(),
+                        StaticField.class.getName());
+                assertThat(describe(mapped)).isEqualTo(describe(buffered));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.github.classgraph.test.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An HTTP server for tests that serves jarfiles from a map from path to content. The {@code ETag} of each jarfile
+ * is derived from its content, and conditional requests ({@code If-None-Match}) are supported. Range requests
+ * (with {@code If-Range}) are supported if enabled. The content of a jarfile may be changed while the server is
+ * running.
+ */
+public final class JarHttpServer implements AutoCloseable {
+    /** The range header pattern. */
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    /** The server. */
+    private final HttpServer server;
+
+    /** Map from path to jarfile content. */
+    private final Map<String, byte[]> jars = new ConcurrentHashMap<>();
+
+    /** If true, honor range requests. */
+    private final boolean supportRanges;
+
+    /** The number of requests. */
+    public final AtomicInteger numRequests = new AtomicInteger();
+
+    /** The number of responses with response code 200. */
+    public final AtomicInteger numFullResponses = new AtomicInteger();
+
+    /** The number of bytes of jarfile content sent. */
+    public final AtomicLong numBytesSent = new AtomicLong();
+
+    /**
+     * Start a server.
+     *
+     * @param supportRanges
+     *            if true, honor range requests, otherwise always send the whole jarfile
+     */
+    public JarHttpServer(final boolean supportRanges) throws IOException {
+        this.supportRanges = supportRanges;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Serve a jarfile, or replace the content of a jarfile that is already served.
+     *
+     * @param path
+     *            the path, starting with "/"
+     * @param jar
+     *            the jarfile content
+     * @return the URL of the jarfile
+     */
+    public URL put(final String path, final byte[] jar) throws MalformedURLException {
+        jars.put(path, jar);
+        return getURL(path);
+    }
+
+    /**
+     * Get the URL for a path.
+     *
+     * @param path
+     *            the path, starting with "/"
+     * @return the URL
+     */
+    public URL getURL(final String path) throws MalformedURLException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Handle a request.
+     *
+     * @param exchange
+     *            the exchange
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        numRequests.incrementAndGet();
+        final byte[] jar = jars.get(exchange.getRequestURI().getPath());
+        if (jar == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        final String eTag = "\"" + Integer.toHexString(Arrays.hashCode(jar)) + "\"";
+        exchange.getResponseHeaders().set("ETag", eTag);
+        if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        final String range = exchange.getRequestHeaders().getFirst("Range");
+        final String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        final Matcher matcher = range == null ? null : RANGE_PATTERN.matcher(range);
+        int start = 0;
+        int end = jar.length - 1;
+        if (supportRanges && matcher != null && matcher.matches() && (ifRange == null || ifRange.equals(eTag))) {
+            start = Integer.parseInt(matcher.group(1));
+            end = Math.min(end, Integer.parseInt(matcher.group(2)));
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + jar.length);
+            exchange.sendResponseHeaders(206, end - start + 1);
+        } else {
+            numFullResponses.incrementAndGet();
+            exchange.sendResponseHeaders(200, jar.length);
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(jar, start, end - start + 1);
+        }
+        numBytesSent.addAndGet(end - start + 1);
+    }
+
+    /** Stop the server. */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
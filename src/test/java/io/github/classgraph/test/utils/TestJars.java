@@ -0,0 +1,93 @@
+package io.github.classgraph.test.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Utilities for creating jarfiles in tests.
+ */
+public final class TestJars {
+    /** Constructor. */
+    private TestJars() {
+        // Cannot be constructed
+    }
+
+    /**
+     * Create a jarfile containing the classfiles of the given classes.
+     *
+     * @param classes
+     *            the classes
+     * @return the jarfile content
+     */
+    public static byte[] createJar(final Class<?>... classes) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(bout)) {
+            addClassfiles(zipOut, classes);
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Create a jarfile containing the classfiles of the given classes, creating its parent directory if needed.
+     *
+     * @param jarPath
+     *            the path of the jarfile
+     * @param classes
+     *            the classes
+     */
+    public static void createJar(final Path jarPath, final Class<?>... classes) throws IOException {
+        Files.createDirectories(jarPath.toAbsolutePath().getParent());
+        Files.write(jarPath, createJar(classes));
+    }
+
+    /**
+     * Add the classfiles of the given classes to a zipfile, as deflated entries.
+     *
+     * @param zipOut
+     *            the zipfile
+     * @param classes
+     *            the classes
+     */
+    public static void addClassfiles(final ZipOutputStream zipOut, final Class<?>... classes) throws IOException {
+        for (final Class<?> cls : classes) {
+            final String classfilePath = cls.getName().replace('.', '/') + ".class";
+            zipOut.putNextEntry(new ZipEntry(classfilePath));
+            try (InputStream in = cls.getClassLoader().getResourceAsStream(classfilePath)) {
+                final byte[] buf = new byte[8192];
+                for (int n; (n = in.read(buf)) > 0;) {
+                    zipOut.write(buf, 0, n);
+                }
+            }
+            zipOut.closeEntry();
+        }
+    }
+
+    /**
+     * Add a stored (not deflated) entry to a zipfile.
+     *
+     * @param zipOut
+     *            the zipfile
+     * @param name
+     *            the entry name
+     * @param content
+     *            the entry content
+     */
+    public static void addStoredEntry(final ZipOutputStream zipOut, final String name, final byte[] content)
+            throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        entry.setCrc(crc.getValue());
+        zipOut.putNextEntry(entry);
+        zipOut.write(content);
+        zipOut.closeEntry();
+    }
+}
@@ -0,0 +1,151 @@
+package nonapi.io.github.classgraph.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import nonapi.io.github.classgraph.concurrency.WorkQueue.WorkUnitProcessor;
+import nonapi.io.github.classgraph.utils.LogNode;
+
+/**
+ * WorkQueueTest.
+ */
+public class WorkQueueTest {
+    /** The number of parallel tasks. */
+    private static final int NUM_PARALLEL_TASKS = 8;
+
+    /**
+     * Every work unit is processed exactly once, including work units added by workers.
+     */
+    @Test
+    public void processesAllWorkUnits() throws InterruptedException, ExecutionException {
+        final List<Integer> initialWorkUnits = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            initialWorkUnits.add(i);
+        }
+        final Set<Integer> processed = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(NUM_PARALLEL_TASKS)) {
+            WorkQueue.runWorkQueue(initialWorkUnits, executorService, new InterruptionChecker(),
+                    NUM_PARALLEL_TASKS, /* log = */ null, new WorkUnitProcessor<Integer>() {
+                        @Override
+                        public void processWorkUnit(final Integer workUnit, final WorkQueue<Integer> workQueue,
+                                final LogNode log) {
+                            assertThat(processed.add(workUnit)).isTrue();
+                            // Each initial work unit adds a batch of ten more work units
+                            if (workUnit < 1000) {
+                                final List<Integer> newWorkUnits = new ArrayList<>();
+                                for (int i = 1; i <= 10; i++) {
+                                    newWorkUnits.add(1000 + workUnit * 10 + i - 1);
+                                }
+                                workQueue.addWorkUnits(newWorkUnits);
+                            }
+                        }
+                    });
+        }
+        assertThat(processed).hasSize(11000);
+    }
+
+    /**
+     * An unchecked exception thrown by a work unit processor stops the work queue, and is reported by the
+     * {@link InterruptionChecker} (or by the work queue, if it was thrown on the calling thread).
+     */
+    @Test
+    public void workerExceptionStopsQueue() {
+        final List<Integer> initialWorkUnits = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            initialWorkUnits.add(i);
+        }
+        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(NUM_PARALLEL_TASKS)) {
+            final InterruptionChecker interruptionChecker = new InterruptionChecker();
+            assertThatThrownBy(() -> {
+                WorkQueue.runWorkQueue(initialWorkUnits, executorService, interruptionChecker,
+                        NUM_PARALLEL_TASKS, /* log = */ null, new WorkUnitProcessor<Integer>() {
+                            @Override
+                            public void processWorkUnit(final Integer workUnit,
+                                    final WorkQueue<Integer> workQueue, final LogNode log) {
+                                if (workUnit == 500) {
+                                    throw new IllegalStateException("failed");
+                                }
+                            }
+                        });
+                interruptionChecker.check();
+            }).isInstanceOf(ExecutionException.class).hasRootCauseInstanceOf(IllegalStateException.class);
+        } finally {
+            // Clear the interrupt status set by the InterruptionChecker
+            Thread.interrupted();
+        }
+    }
+
+    /**
+     * Get the worker threads of work queues, other than the current thread.
+     *
+     * @return the worker threads
+     */
+    private static List<Thread> getOtherWorkerThreads() {
+        final List<Thread> workerThreads = new ArrayList<>();
+        for (final Entry<Thread, StackTraceElement[]> ent : Thread.getAllStackTraces().entrySet()) {
+            if (ent.getKey() != Thread.currentThread()) {
+                for (final StackTraceElement elt : ent.getValue()) {
+                    if (elt.getClassName().equals(WorkQueue.class.getName())
+                            && elt.getMethodName().equals("runWorkLoop")) {
+                        workerThreads.add(ent.getKey());
+                        break;
+                    }
+                }
+            }
+        }
+        return workerThreads;
+    }
+
+    /**
+     * Workers that have no work to do block, rather than using CPU time, while another worker processes a long
+     * work unit.
+     */
+    @Test
+    public void idleWorkersBlock() throws InterruptedException, ExecutionException {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled());
+        final Map<Thread, Long> idleCpuTimeNanos = new ConcurrentHashMap<>();
+        try (AutoCloseableExecutorService executorService = new AutoCloseableExecutorService(NUM_PARALLEL_TASKS)) {
+            WorkQueue.runWorkQueue(Collections.singletonList(0), executorService, new InterruptionChecker(),
+                    NUM_PARALLEL_TASKS, /* log = */ null, new WorkUnitProcessor<Integer>() {
+                        @Override
+                        public void processWorkUnit(final Integer workUnit, final WorkQueue<Integer> workQueue,
+                                final LogNode log) throws InterruptedException {
+                            // Give the other workers time to start and go idle
+                            Thread.sleep(200);
+                            final List<Thread> otherWorkers = getOtherWorkerThreads();
+                            final Map<Thread, Long> startCpuTimeNanos = new ConcurrentHashMap<>();
+                            for (final Thread thread : otherWorkers) {
+                                startCpuTimeNanos.put(thread, threadMXBean.getThreadCpuTime(thread.getId()));
+                            }
+                            Thread.sleep(500);
+                            for (final Thread thread : otherWorkers) {
+                                idleCpuTimeNanos.put(thread, threadMXBean.getThreadCpuTime(thread.getId())
+                                        - startCpuTimeNanos.get(thread));
+                            }
+                        }
+                    });
+        }
+        assertThat(idleCpuTimeNanos).isNotEmpty();
+        long totalIdleCpuTimeNanos = 0L;
+        for (final long cpuTimeNanos : idleCpuTimeNanos.values()) {
+            totalIdleCpuTimeNanos += cpuTimeNanos;
+        }
+        assertThat(totalIdleCpuTimeNanos).isLessThan(50_000_000L);
+    }
+}
@@ -0,0 +1,91 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import io.github.classgraph.test.accepted.ClsSub;
+import io.github.classgraph.test.utils.TestJars;
+
+/**
+ * CentralDirectoryCacheTest.
+ */
+public class CentralDirectoryCacheTest {
+    /** The original maximum cache size. */
+    private long origMaxSize;
+
+    /** Save the maximum cache size, and clear the cache. */
+    @BeforeEach
+    void setUp() {
+        origMaxSize = ClassGraph.SHARED_JAR_METADATA_CACHE_MAX_SIZE;
+        CentralDirectoryCache.clear();
+    }
+
+    /** Restore the maximum cache size, and clear the cache. */
+    @AfterEach
+    void tearDown() {
+        ClassGraph.SHARED_JAR_METADATA_CACHE_MAX_SIZE = origMaxSize;
+        CentralDirectoryCache.clear();
+    }
+
+    /**
+     * Scan a jarfile using the shared cache.
+     *
+     * @param jarPath
+     *            the jarfile
+     * @return the scan result
+     */
+    private static ScanResult scan(final Path jarPath) {
+        return new ClassGraph().overrideClasspath(jarPath.toUri()).enableClassInfo().enableSharedJarMetadataCache()
+                .scan();
+    }
+
+    /**
+     * Scans share cached central directories, modified jarfiles are reparsed, and unused central directories are
+     * evicted once the cache is over its maximum size.
+     */
+    @Test
+    public void centralDirectoriesAreSharedBetweenScans(@TempDir final Path tempDir) throws IOException {
+        final Path jarPath = tempDir.resolve("test.jar");
+        TestJars.createJar(jarPath, Cls.class);
+        try (ScanResult scanResult1 = scan(jarPath); ScanResult scanResult2 = scan(jarPath)) {
+            assertThat(CentralDirectoryCache.size()).isEqualTo(1);
+            assertThat(scanResult1.getAllClasses().getNames()).containsExactly(Cls.class.getName());
+            assertThat(scanResult2.getAllClasses().getNames()).containsExactly(Cls.class.getName());
+        }
+
+        // Modify the jarfile
+        TestJars.createJar(jarPath, Cls.class, ClsSub.class);
+        Files.setLastModifiedTime(jarPath,
+                FileTime.fromMillis(Files.getLastModifiedTime(jarPath).toMillis() + 10000L));
+        try (ScanResult scanResult3 = scan(jarPath)) {
+            assertThat(CentralDirectoryCache.size()).isEqualTo(2);
+            assertThat(scanResult3.getAllClasses().getNames()).containsExactly(Cls.class.getName(),
+                    ClsSub.class.getName());
+
+            // The central directory in use by scanResult3 cannot be evicted until scanResult3 is closed
+            ClassGraph.SHARED_JAR_METADATA_CACHE_MAX_SIZE = 0L;
+            try (ScanResult scanResult4 = scan(jarPath)) {
+                assertThat(CentralDirectoryCache.size()).isEqualTo(1);
+            }
+            assertThat(CentralDirectoryCache.size()).isEqualTo(1);
+        }
+        assertThat(CentralDirectoryCache.size()).isZero();
+
+        // Without the option, the cache is not used
+        try (ScanResult scanResult5 = new ClassGraph().overrideClasspath(jarPath.toUri()).scan()) {
+            assertThat(CentralDirectoryCache.size()).isZero();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.fileslice.ByteBufferSlice;
+import nonapi.io.github.classgraph.fileslice.FileSlice;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * DirectBufferPoolTest.
+ */
+public class DirectBufferPoolTest {
+    /**
+     * Buffers are allocated in size classes, are reused once released, and are not allocated beyond the maximum
+     * total size.
+     */
+    @Test
+    public void boundedPool() {
+        assertThat(DirectBufferPool.getCapacity(1)).isEqualTo(64 * 1024);
+        assertThat(DirectBufferPool.getCapacity(64 * 1024 + 1)).isEqualTo(80 * 1024);
+        assertThat(DirectBufferPool.getCapacity(1024 * 1024)).isEqualTo(1024 * 1024);
+        assertThat(DirectBufferPool.getCapacity(1024 * 1024 + 1)).isEqualTo(1280 * 1024);
+
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(new ScanSpec(), new InterruptionChecker(),
+                new ReflectionUtils());
+        final DirectBufferPool pool = new DirectBufferPool(256 * 1024, nestedJarHandler);
+        try {
+            final ByteBuffer buf1 = pool.allocate(100 * 1024);
+            assertThat(buf1.isDirect()).isTrue();
+            assertThat(buf1.position()).isZero();
+            assertThat(buf1.limit()).isEqualTo(100 * 1024);
+            assertThat(buf1.capacity()).isEqualTo(112 * 1024);
+            final ByteBuffer buf2 = pool.allocate(100 * 1024);
+            assertThat(pool.allocate(100 * 1024)).isNull();
+            assertThat(pool.getTotalSize()).isEqualTo(224 * 1024);
+
+            // Released buffers are reused for the same size class
+            pool.release(buf1);
+            assertThat(pool.allocate(110 * 1024)).isSameAs(buf1);
+            assertThat(buf1.limit()).isEqualTo(110 * 1024);
+
+            // Free buffers of other size classes are freed to make room
+            pool.release(buf1);
+            pool.release(buf2);
+            final ByteBuffer buf3 = pool.allocate(200 * 1024);
+            assertThat(buf3).isNotNull();
+            assertThat(pool.getTotalSize()).isEqualTo(224 * 1024);
+
+            pool.release(buf3);
+        } finally {
+            pool.close();
+            nestedJarHandler.close(null);
+        }
+        assertThat(pool.getTotalSize()).isZero();
+        assertThat(pool.allocate(1)).isNull();
+    }
+
+    /**
+     * Deflated nested jars are inflated into off-heap buffers until the maximum total size is reached, after which
+     * they are spilled to disk.
+     */
+    @Test
+    public void nestedJarsAreInflatedOffHeap(@TempDir final Path tempDir) throws Exception {
+        // Incompressible content, so that the nested jars and the resource fall into the same size class
+        final byte[] content = new byte[200 * 1024];
+        new Random(1).nextBytes(content);
+        final ByteArrayOutputStream innerJar = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(innerJar)) {
+            zipOut.putNextEntry(new ZipEntry("res.txt"));
+            zipOut.write(content);
+        }
+        final Path outerJar = tempDir.resolve("outer.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(outerJar))) {
+            for (final String name : new String[] { "a.jar", "b.jar" }) {
+                zipOut.putNextEntry(new ZipEntry(name));
+                zipOut.write(innerJar.toByteArray());
+            }
+        }
+
+        final ScanSpec scanSpec = new ScanSpec();
+        // Enough room for a.jar, but not also b.jar
+        scanSpec.maxOffHeapBufferSize = DirectBufferPool.getCapacity(innerJar.size()) + 1;
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final LogicalZipFile a = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(outerJar + "!/a.jar", /* log = */ null).getKey();
+            assertThat(a.physicalZipFile.slice).isInstanceOf(ByteBufferSlice.class);
+            final FastZipEntry entry = a.entries.get(0);
+            assertThat(entry.getSlice().load()).isEqualTo(content);
+
+            final LogicalZipFile b = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(outerJar + "!/b.jar", /* log = */ null).getKey();
+            assertThat(b.physicalZipFile.slice).isInstanceOf(FileSlice.class);
+
+            // Large deflated resources can be inflated off-heap once there is room in the pool
+            assertThat(nestedJarHandler.inflateToOffHeapBuffer(entry.getSlice())).isNull();
+            a.physicalZipFile.slice.close();
+            final ByteBuffer buf = nestedJarHandler.inflateToOffHeapBuffer(entry.getSlice());
+            assertThat(buf.isDirect()).isTrue();
+            final byte[] inflated = new byte[buf.remaining()];
+            buf.get(inflated);
+            assertThat(inflated).isEqualTo(content);
+            nestedJarHandler.releaseOffHeapBuffer(buf);
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * ExtractedJarCacheTest.
+ */
+public class ExtractedJarCacheTest {
+    /**
+     * Create a jarfile containing a single resource.
+     *
+     * @param content
+     *            the resource content
+     * @return the jarfile content
+     */
+    private static byte[] createJar(final String content) throws IOException {
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(bout)) {
+            zipOut.putNextEntry(new ZipEntry("res.txt"));
+            zipOut.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Create a jarfile containing deflated nested jarfiles.
+     *
+     * @param outerJar
+     *            the path of the outer jarfile
+     * @param innerJarNames
+     *            the names of the nested jarfiles
+     */
+    private static void createOuterJar(final Path outerJar, final String... innerJarNames) throws IOException {
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(outerJar))) {
+            for (final String innerJarName : innerJarNames) {
+                zipOut.putNextEntry(new ZipEntry(innerJarName));
+                zipOut.write(createJar("Content of " + innerJarName));
+            }
+        }
+    }
+
+    /**
+     * Create a {@link NestedJarHandler} that spills all deflated nested jarfiles to disk.
+     *
+     * @param cacheDir
+     *            the extraction cache directory, or null
+     * @return the nested jar handler
+     */
+    private static NestedJarHandler createNestedJarHandler(final Path cacheDir) {
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.maxBufferedJarRAMSize = 0;
+        scanSpec.nestedJarExtractionCacheDir = cacheDir;
+        scanSpec.nestedJarExtractionCacheMaxSize = 1024 * 1024;
+        return new NestedJarHandler(scanSpec, new InterruptionChecker(), new ReflectionUtils());
+    }
+
+    /**
+     * A deflated nested jarfile is extracted into the cache directory, and the extracted file is reused, and
+     * marked as recently used, by later scans.
+     */
+    @Test
+    public void extractedJarIsReused(@TempDir final Path tempDir) throws Exception {
+        final Path outerJar = tempDir.resolve("outer.jar");
+        createOuterJar(outerJar, "lib/inner.jar");
+        final Path cacheDir = tempDir.resolve("cache");
+        final String nestedPath = outerJar + "!/lib/inner.jar";
+
+        File extractedFile;
+        final NestedJarHandler nestedJarHandler1 = createNestedJarHandler(cacheDir);
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler1.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(nestedPath, /* log = */ null).getKey();
+            extractedFile = logicalZipFile.physicalZipFile.getFile();
+            assertThat(extractedFile.getParentFile()).isEqualTo(cacheDir.toFile());
+            assertThat(new String(logicalZipFile.entries.get(0).getSlice().load(), StandardCharsets.UTF_8))
+                    .isEqualTo("Content of lib/inner.jar");
+        } finally {
+            nestedJarHandler1.close(null);
+        }
+        assertThat(extractedFile).exists();
+        assertThat(cacheDir.toFile().list()).containsExactlyInAnyOrder(extractedFile.getName(), ".lock");
+
+        final long oldLastModified = System.currentTimeMillis() - 60000L;
+        assertThat(extractedFile.setLastModified(oldLastModified)).isTrue();
+        final NestedJarHandler nestedJarHandler2 = createNestedJarHandler(cacheDir);
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler2.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(nestedPath, /* log = */ null).getKey();
+            assertThat(logicalZipFile.physicalZipFile.getFile()).isEqualTo(extractedFile);
+            assertThat(extractedFile.lastModified()).isGreaterThan(oldLastModified);
+        } finally {
+            nestedJarHandler2.close(null);
+        }
+    }
+
+    /**
+     * A cached file that has the size of the zip entry, but not its CRC-32, is extracted again.
+     */
+    @Test
+    public void corruptedExtractedJarIsReplaced(@TempDir final Path tempDir) throws Exception {
+        final Path outerJar = tempDir.resolve("outer.jar");
+        createOuterJar(outerJar, "lib/inner.jar");
+        final Path cacheDir = tempDir.resolve("cache");
+        final String nestedPath = outerJar + "!/lib/inner.jar";
+
+        File extractedFile;
+        byte[] extractedContent;
+        final NestedJarHandler nestedJarHandler1 = createNestedJarHandler(cacheDir);
+        try {
+            extractedFile = nestedJarHandler1.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(nestedPath, /* log = */ null).getKey().physicalZipFile.getFile();
+            extractedContent = Files.readAllBytes(extractedFile.toPath());
+        } finally {
+            nestedJarHandler1.close(null);
+        }
+
+        // Overwrite the cached file with content of the same size
+        Files.write(extractedFile.toPath(), new byte[extractedContent.length]);
+        final NestedJarHandler nestedJarHandler2 = createNestedJarHandler(cacheDir);
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler2.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(nestedPath, /* log = */ null).getKey();
+            assertThat(logicalZipFile.physicalZipFile.getFile()).isEqualTo(extractedFile);
+            assertThat(new String(logicalZipFile.entries.get(0).getSlice().load(), StandardCharsets.UTF_8))
+                    .isEqualTo("Content of lib/inner.jar");
+        } finally {
+            nestedJarHandler2.close(null);
+        }
+        assertThat(Files.readAllBytes(extractedFile.toPath())).isEqualTo(extractedContent);
+    }
+
+    /**
+     * When the cache exceeds its maximum size, the least recently used extracted jarfiles are evicted.
+     */
+    @Test
+    public void leastRecentlyUsedJarsAreEvicted(@TempDir final Path tempDir) throws Exception {
+        final Path outerJar = tempDir.resolve("outer.jar");
+        createOuterJar(outerJar, "a.jar", "b.jar", "c.jar");
+        final Path cacheDir = tempDir.resolve("cache");
+        final NestedJarHandler nestedJarHandler = createNestedJarHandler(/* cacheDir = */ null);
+        try {
+            final Map<String, FastZipEntry> entries = new HashMap<>();
+            for (final FastZipEntry entry : nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(outerJar.toString(), /* log = */ null).getKey().entries) {
+                entries.put(entry.entryName, entry);
+            }
+            final long jarSize = entries.get("a.jar").uncompressedSize;
+            final ExtractedJarCache cache = new ExtractedJarCache(cacheDir, jarSize * 5 / 2);
+
+            final File a = cache.getOrExtract(entries.get("a.jar"), /* log = */ null);
+            final File b = cache.getOrExtract(entries.get("b.jar"), /* log = */ null);
+            final long now = System.currentTimeMillis();
+            assertThat(a.setLastModified(now - 20000L)).isTrue();
+            assertThat(b.setLastModified(now - 10000L)).isTrue();
+            // Using a.jar makes b.jar the least recently used
+            assertThat(cache.getOrExtract(entries.get("a.jar"), /* log = */ null)).isEqualTo(a);
+            final File c = cache.getOrExtract(entries.get("c.jar"), /* log = */ null);
+            assertThat(a).exists();
+            assertThat(b).doesNotExist();
+            assertThat(c).exists();
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
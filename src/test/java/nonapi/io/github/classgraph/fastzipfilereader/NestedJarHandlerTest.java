@@ -0,0 +1,231 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.fileslice.IndexedInflateSlice;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * NestedJarHandlerTest.
+ */
+public class NestedJarHandlerTest {
+    /**
+     * Deflate data in the format used by zipfile entries.
+     *
+     * @param data
+     *            the data
+     * @return the deflated data
+     */
+    private static byte[] deflate(final byte[] data) {
+        return deflate(data, /* flushBeforeFinish = */ false);
+    }
+
+    /**
+     * Deflate data in the format used by zipfile entries.
+     *
+     * @param data
+     *            the data
+     * @param flushBeforeFinish
+     *            if true, flush all the data before finishing, so that the deflated data ends with an empty final
+     *            block
+     * @return the deflated data
+     */
+    private static byte[] deflate(final byte[] data, final boolean flushBeforeFinish) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, /* nowrap = */ true);
+        try {
+            deflater.setInput(data);
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            if (flushBeforeFinish) {
+                for (int n; (n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH)) > 0;) {
+                    bout.write(buf, 0, n);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                bout.write(buf, 0, deflater.deflate(buf));
+            }
+            return bout.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflate deflated data from a {@link ByteBuffer} into a pooled buffer, and check that buffers are reused once
+     * recycled.
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    public void inflateToPooledBuffer() throws IOException {
+        final StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buf.append("java/lang/Object").append(i);
+        }
+        final byte[] data = buf.toString().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer deflatedBuf = ByteBuffer.wrap(deflate(data));
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(new ScanSpec(), new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            assertThat(NestedJarHandler.canInflateByteBuffers()).isTrue();
+            final ByteBuffer inflatedBuf = nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length);
+            assertThat(inflatedBuf.isDirect()).isTrue();
+            assertThat(inflatedBuf.remaining()).isEqualTo(data.length);
+            final byte[] inflated = new byte[data.length];
+            inflatedBuf.get(inflated);
+            assertThat(inflated).isEqualTo(data);
+            assertThat(deflatedBuf.position()).isZero();
+            nestedJarHandler.recycleInflatedBuffer(inflatedBuf);
+
+            // An underestimated or overestimated inflated length is rejected, so that the caller can fall back
+            // to inflating through an InputStream
+            assertThat(nestedJarHandler.inflateToPooledBuffer(deflatedBuf, 100)).isNull();
+            assertThat(nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length + 1)).isNull();
+
+            // Truncated deflated data is rejected
+            final ByteBuffer truncatedDeflatedBuf = deflatedBuf.duplicate();
+            truncatedDeflatedBuf.limit(deflatedBuf.limit() / 2);
+            assertThat(nestedJarHandler.inflateToPooledBuffer(truncatedDeflatedBuf, data.length)).isNull();
+
+            // Rejected inflations recycle their buffer
+            final ByteBuffer reusedBuf = nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length);
+            assertThat(reusedBuf).isSameAs(inflatedBuf);
+            assertThat(reusedBuf.remaining()).isEqualTo(data.length);
+            nestedJarHandler.recycleInflatedBuffer(reusedBuf);
+
+            assertThatThrownBy(() -> nestedJarHandler
+                    .inflateToPooledBuffer(ByteBuffer.wrap(new byte[] { (byte) 0xff, 1, 2, 3 }), data.length))
+                            .isInstanceOf(ZipException.class);
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * Deflated data that ends with an empty final block is inflated into a pooled buffer, even though all of the
+     * inflated data has been produced before the end of the final block is reached.
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    public void inflateToPooledBufferWithEmptyFinalBlock() throws IOException {
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(new ScanSpec(), new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            // Test data that leaves room in the pooled buffer, and data that fills it exactly
+            for (final int length : new int[] { 1000, NestedJarHandler.INFLATED_BUFFER_SIZE }) {
+                final byte[] data = new byte[length];
+                for (int i = 0; i < length; i++) {
+                    data[i] = (byte) (i % 251);
+                }
+                // Leave out the last byte of the empty final block (which is zero), so that the Inflater only
+                // finishes once it has been given the extra dummy byte
+                final byte[] deflated = deflate(data, /* flushBeforeFinish = */ true);
+                assertThat(deflated[deflated.length - 1]).isZero();
+                final ByteBuffer deflatedBuf = ByteBuffer.wrap(deflated, 0, deflated.length - 1);
+                final ByteBuffer inflatedBuf = nestedJarHandler.inflateToPooledBuffer(deflatedBuf, length);
+                assertThat(inflatedBuf).isNotNull();
+                final byte[] inflated = new byte[inflatedBuf.remaining()];
+                inflatedBuf.get(inflated);
+                assertThat(inflated).isEqualTo(data);
+                nestedJarHandler.recycleInflatedBuffer(inflatedBuf);
+            }
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * Buffers that classfiles are inflated into are allocated from the off-heap buffer pool, and count towards its
+     * maximum total size.
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    public void inflatedBuffersShareOffHeapBufferLimit() throws IOException {
+        final byte[] data = "java/lang/Object".getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer deflatedBuf = ByteBuffer.wrap(deflate(data));
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.maxOffHeapBufferSize = NestedJarHandler.INFLATED_BUFFER_SIZE;
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final ByteBuffer inflatedBuf = nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length);
+            assertThat(inflatedBuf).isNotNull();
+            // The pool is full while the first buffer is in use
+            assertThat(nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length)).isNull();
+            nestedJarHandler.recycleInflatedBuffer(inflatedBuf);
+            final ByteBuffer reusedBuf = nestedJarHandler.inflateToPooledBuffer(deflatedBuf, data.length);
+            assertThat(reusedBuf).isSameAs(inflatedBuf);
+            nestedJarHandler.recycleInflatedBuffer(reusedBuf);
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * A deflated nested jar that is too large to inflate into RAM is read using inflate checkpoints, if enabled,
+     * rather than being extracted to a temporary file.
+     */
+    @Test
+    public void deflatedNestedJarIsReadUsingInflateCheckpoints(@TempDir final Path tempDir) throws Exception {
+        final Map<String, byte[]> innerEntries = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            final StringBuilder buf = new StringBuilder();
+            for (int j = 0; j < 1000; j++) {
+                buf.append("pkg/Cls").append(i * j).append('\n');
+            }
+            innerEntries.put("pkg/res" + i + ".txt", buf.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        final ByteArrayOutputStream innerJar = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOut = new ZipOutputStream(innerJar)) {
+            for (final Map.Entry<String, byte[]> ent : innerEntries.entrySet()) {
+                zipOut.putNextEntry(new ZipEntry(ent.getKey()));
+                zipOut.write(ent.getValue());
+            }
+        }
+        final Path outerJar = tempDir.resolve("outer.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(outerJar))) {
+            zipOut.putNextEntry(new ZipEntry("lib/inner.jar"));
+            zipOut.write(innerJar.toByteArray());
+        }
+
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.enableInflateCheckpoints = true;
+        scanSpec.maxBufferedJarRAMSize = 0;
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(outerJar + "!/lib/inner.jar", /* log = */ null).getKey();
+            assertThat(logicalZipFile.physicalZipFile.slice).isInstanceOf(IndexedInflateSlice.class);
+            assertThat(logicalZipFile.entries).hasSize(innerEntries.size());
+            // Read entries in reverse order, so that reads are not sequential
+            for (int i = logicalZipFile.entries.size() - 1; i >= 0; i--) {
+                final FastZipEntry entry = logicalZipFile.entries.get(i);
+                assertThat(entry.getSlice().load()).isEqualTo(innerEntries.get(entry.entryName));
+            }
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
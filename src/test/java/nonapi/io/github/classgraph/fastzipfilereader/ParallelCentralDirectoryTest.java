@@ -0,0 +1,172 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ScanResult;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.utils.VersionFinder;
+
+/**
+ * ParallelCentralDirectoryTest.
+ */
+public class ParallelCentralDirectoryTest {
+    /**
+     * Add an empty stored entry to a zipfile (which is much faster to write than a deflated entry).
+     *
+     * @param zipOut
+     *            the zipfile
+     * @param name
+     *            the entry name
+     */
+    private static void putEmptyEntry(final ZipOutputStream zipOut, final String name) throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(0);
+        entry.setCrc(0);
+        zipOut.putNextEntry(entry);
+    }
+
+    /**
+     * Read the entries of a jarfile.
+     *
+     * @param jarPath
+     *            the jarfile path
+     * @param parallel
+     *            whether to read the central directory in parallel
+     * @return the entry names and versions, in entry order
+     */
+    private static List<String> readEntries(final Path jarPath, final boolean parallel) throws Exception {
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.enableParallelCentralDirectoryParsing = parallel;
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            nestedJarHandler.setExecutorService(executorService, 4);
+            final LogicalZipFile logicalZipFile = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(jarPath.toString(), null).getKey();
+            final List<String> entries = new ArrayList<>();
+            for (final FastZipEntry entry : logicalZipFile.entries) {
+                entries.add(entry.entryName + " " + entry.version + " " + entry.locHeaderPos);
+            }
+            return entries;
+        } finally {
+            executorService.shutdown();
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * Create a Zip64 multi-release jar with more than 65535 entries.
+     *
+     * @param jarPath
+     *            the jarfile path
+     * @param numEntries
+     *            the number of unversioned entries
+     * @param extension
+     *            the extension of the entry names
+     */
+    private static void createLargeJar(final Path jarPath, final int numEntries, final String extension)
+            throws IOException {
+        try (ZipOutputStream zipOut = new ZipOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(jarPath)))) {
+            zipOut.putNextEntry(new ZipEntry(LogicalZipFile.META_INF_PATH_PREFIX + "MANIFEST.MF"));
+            zipOut.write("Manifest-Version: 1.0\nMulti-Release: true\n".getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < numEntries; i++) {
+                putEmptyEntry(zipOut, "pkg" + i % 100 + "/Cls" + i + extension);
+                if (i % 1000 == 0) {
+                    putEmptyEntry(zipOut, "META-INF/versions/9/pkg" + i % 100 + "/Cls" + i + extension);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parallel reading of the central directory of a Zip64 multi-release jar with more than 65535 entries gives
+     * the same entries, in the same order, as sequential reading.
+     */
+    @Test
+    public void parallelReadMatchesSequentialRead(@TempDir final Path tempDir) throws Exception {
+        final Path jarPath = tempDir.resolve("large.jar");
+        final int numEntries = 70000;
+        createLargeJar(jarPath, numEntries, ".class");
+        final List<String> sequentialEntries = readEntries(jarPath, false);
+        assertThat(sequentialEntries).hasSize(numEntries + (VersionFinder.JAVA_MAJOR_VERSION < 9 ? 71 : 1));
+        assertThat(numEntries).isGreaterThan(LogicalZipFile.MIN_ENTRIES_FOR_PARALLEL_PARSING);
+        assertThat(readEntries(jarPath, true)).isEqualTo(sequentialEntries);
+    }
+
+    /**
+     * During a scan, the central directory is read in parallel by the idle workers of the work queue that opens
+     * the jarfile, since the threads of the executor service of the scan are all occupied by workers.
+     */
+    @Test
+    public void parallelReadDuringScan(@TempDir final Path tempDir) throws Exception {
+        final Path jarPath = tempDir.resolve("large.jar");
+        // Use resources rather than empty classfiles, so that the entries can be scanned
+        createLargeJar(jarPath, 70000, ".txt");
+        final Pattern logPattern = Pattern.compile("central directory entries in \\d+ chunks using (\\d+) threads");
+        final List<String> logRecords = Collections.synchronizedList(new ArrayList<String>());
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                logRecords.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final Logger logger = Logger.getLogger(ClassGraph.class.getName());
+        final boolean useParentHandlers = logger.getUseParentHandlers();
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        int maxNumThreads = 0;
+        try {
+            // Retry a few times, in case the other workers are not scheduled before the current thread has read
+            // all the chunks (e.g. on a machine with a single CPU)
+            for (int attempt = 0; attempt < 5 && maxNumThreads < 2; attempt++) {
+                logRecords.clear();
+                try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarPath.toString())
+                        .enableParallelCentralDirectoryParsing().verbose().scan(4)) {
+                    assertThat(scanResult.getResourcesWithExtension("txt")).isNotEmpty();
+                }
+                final Matcher matcher = logPattern.matcher(String.join("\n", logRecords));
+                assertThat(matcher.find()).isTrue();
+                maxNumThreads = Math.max(maxNumThreads, Integer.parseInt(matcher.group(1)));
+            }
+        } finally {
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(useParentHandlers);
+        }
+        assertThat(maxNumThreads).isGreaterThan(1);
+    }
+}
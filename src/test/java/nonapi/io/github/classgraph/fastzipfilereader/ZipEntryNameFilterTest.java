@@ -0,0 +1,136 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ClassInfo;
+import io.github.classgraph.ResourceList;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.external.ExternalSuperclass;
+import io.github.classgraph.test.internal.InternalExtendsExternal;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * ZipEntryNameFilterTest.
+ */
+public class ZipEntryNameFilterTest {
+    /** The path of the accepted package. */
+    private static final String ACCEPTED_PATH = InternalExtendsExternal.class.getPackage().getName().replace('.',
+            '/') + "/";
+
+    /** The classfile path of the class in the accepted package. */
+    private static final String INTERNAL_CLASSFILE_PATH = InternalExtendsExternal.class.getName().replace('.', '/')
+            + ".class";
+
+    /** The classfile path of the superclass, which is not in an accepted package. */
+    private static final String EXTERNAL_CLASSFILE_PATH = ExternalSuperclass.class.getName().replace('.', '/')
+            + ".class";
+
+    /**
+     * Create a jarfile containing a class in the accepted package, its superclass in a non-accepted package, a
+     * non-accepted resource, and a nested lib jar.
+     *
+     * @param jarPath
+     *            the path of the jarfile
+     */
+    private static void createJar(final Path jarPath) throws IOException {
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(jarPath))) {
+            for (final String classfilePath : new String[] { INTERNAL_CLASSFILE_PATH, EXTERNAL_CLASSFILE_PATH }) {
+                zipOut.putNextEntry(new ZipEntry(classfilePath));
+                try (InputStream in = ZipEntryNameFilterTest.class.getClassLoader()
+                        .getResourceAsStream(classfilePath)) {
+                    final byte[] buf = new byte[8192];
+                    for (int n; (n = in.read(buf)) > 0;) {
+                        zipOut.write(buf, 0, n);
+                    }
+                }
+                zipOut.closeEntry();
+            }
+            zipOut.putNextEntry(new ZipEntry("other/"));
+            zipOut.closeEntry();
+            zipOut.putNextEntry(new ZipEntry("other/data.txt"));
+            zipOut.write("data".getBytes(StandardCharsets.UTF_8));
+            zipOut.closeEntry();
+            zipOut.putNextEntry(new ZipEntry("lib/nested.jar"));
+            zipOut.closeEntry();
+        }
+    }
+
+    /**
+     * Entries that cannot match an accepted path are not read from the central directory, but can still be
+     * looked up by name.
+     */
+    @Test
+    public void nonAcceptedEntriesAreDeferred(@TempDir final Path tempDir) throws Exception {
+        final Path jarPath = tempDir.resolve("test.jar");
+        createJar(jarPath);
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.pathAcceptReject.addToAccept(ACCEPTED_PATH);
+        scanSpec.pathPrefixAcceptReject.addToAccept(ACCEPTED_PATH);
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(jarPath.toString(), null).getKey();
+            final List<String> entryNames = new ArrayList<>();
+            for (final FastZipEntry entry : logicalZipFile.entries) {
+                entryNames.add(entry.entryName);
+            }
+            assertThat(entryNames).containsExactly(INTERNAL_CLASSFILE_PATH, "lib/nested.jar");
+            assertThat(logicalZipFile.getNumDeferredEntries()).isEqualTo(2);
+
+            final FastZipEntry externalEntry = logicalZipFile.getEntry(EXTERNAL_CLASSFILE_PATH);
+            assertThat(externalEntry).isNotNull();
+            assertThat(externalEntry.entryName).isEqualTo(EXTERNAL_CLASSFILE_PATH);
+            assertThat(logicalZipFile.getDeferredEntry("other/missing.txt")).isNull();
+            assertThat(logicalZipFile.hasEntryWithPrefix("other/")).isTrue();
+            assertThat(logicalZipFile.hasEntryWithPrefix("missing/")).isFalse();
+
+            // A directory that only contains deferred entries can be used as a package root
+            final Entry<LogicalZipFile, String> packageRoot = //
+                    nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap.get(jarPath + "!/other", null);
+            assertThat(packageRoot.getKey()).isSameAs(logicalZipFile);
+            assertThat(packageRoot.getValue()).isEqualTo("other");
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * A narrowly-scoped scan still finds superclasses and resources outside the accepted packages.
+     */
+    @Test
+    public void scanningExtendsToDeferredEntries(@TempDir final Path tempDir) throws IOException {
+        final Path jarPath = tempDir.resolve("test.jar");
+        createJar(jarPath);
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(jarPath.toUri())
+                .acceptPackages(InternalExtendsExternal.class.getPackage().getName()).scan()) {
+            final ClassInfo superclass = scanResult.getClassInfo(InternalExtendsExternal.class.getName())
+                    .getSuperclass();
+            assertThat(superclass.getName()).isEqualTo(ExternalSuperclass.class.getName());
+            assertThat(superclass.isExternalClass()).isTrue();
+            assertThat(superclass.getResource().getPath()).isEqualTo(EXTERNAL_CLASSFILE_PATH);
+
+            assertThat(scanResult.getAllResources().getPaths()).containsExactly(INTERNAL_CLASSFILE_PATH);
+            final ResourceList resources = scanResult.getResourcesWithPathIgnoringAccept("other/data.txt");
+            assertThat(resources).hasSize(1);
+            assertThat(new String(resources.get(0).load(), StandardCharsets.UTF_8)).isEqualTo("data");
+        }
+    }
+}
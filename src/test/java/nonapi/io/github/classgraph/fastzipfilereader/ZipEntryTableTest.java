@@ -0,0 +1,78 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * ZipEntryTableTest.
+ */
+public class ZipEntryTableTest {
+    /**
+     * Zip entries read from the compact entry table match the entries read by {@link ZipFile}.
+     */
+    @Test
+    public void entriesMatchZipFile(@TempDir final Path tempDir) throws Exception {
+        final Path jarPath = tempDir.resolve("test.jar");
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(jarPath))) {
+            zipOut.putNextEntry(new ZipEntry("a/deflated.txt"));
+            zipOut.write(content);
+            zipOut.closeEntry();
+            final ZipEntry storedEntry = new ZipEntry("a/störed.txt");
+            storedEntry.setMethod(ZipEntry.STORED);
+            storedEntry.setSize(content.length);
+            final CRC32 crc = new CRC32();
+            crc.update(content);
+            storedEntry.setCrc(crc.getValue());
+            zipOut.putNextEntry(storedEntry);
+            zipOut.write(content);
+            zipOut.closeEntry();
+        }
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(new ScanSpec(), new InterruptionChecker(),
+                new ReflectionUtils());
+        try (ZipFile zipFile = new ZipFile(jarPath.toFile())) {
+            final LogicalZipFile logicalZipFile = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(jarPath.toString(), null).getKey();
+            assertThat(logicalZipFile.entries).hasSize(2);
+            int i = 0;
+            for (final Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); i++) {
+                final ZipEntry zipEntry = e.nextElement();
+                final FastZipEntry entry = logicalZipFile.entries.get(i);
+                assertThat(entry.entryName).isEqualTo(zipEntry.getName());
+                assertThat(entry.isDeflated).isEqualTo(zipEntry.getMethod() == ZipEntry.DEFLATED);
+                assertThat(entry.compressedSize).isEqualTo(zipEntry.getCompressedSize());
+                assertThat(entry.uncompressedSize).isEqualTo(zipEntry.getSize());
+                assertThat(entry.crc & 0xffffffffL).isEqualTo(zipEntry.getCrc());
+                assertThat(entry.getLastModifiedTimeMillis()).isPositive();
+                assertThat(entry.getSlice().load()).isEqualTo(content);
+
+                // Entries are views, created on demand
+                assertThat(logicalZipFile.entries.get(i)).isNotSameAs(entry).isEqualTo(entry);
+                assertThat(logicalZipFile.getEntry(zipEntry.getName())).isEqualTo(entry);
+            }
+            assertThat(logicalZipFile.getEntry("a/missing.txt")).isNull();
+            assertThat(logicalZipFile.hasEntryWithPrefix("a/stö")).isTrue();
+            assertThatThrownBy(() -> logicalZipFile.entries.remove(0))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
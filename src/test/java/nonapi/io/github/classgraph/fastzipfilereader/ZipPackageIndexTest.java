@@ -0,0 +1,119 @@
+package nonapi.io.github.classgraph.fastzipfilereader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.classgraph.ClassGraph;
+import io.github.classgraph.ResourceList;
+import io.github.classgraph.ScanResult;
+import io.github.classgraph.test.accepted.Cls;
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+import nonapi.io.github.classgraph.utils.VersionFinder;
+
+/**
+ * ZipPackageIndexTest.
+ */
+public class ZipPackageIndexTest {
+    /**
+     * Add an entry to a zipfile.
+     *
+     * @param zipOut
+     *            the zipfile
+     * @param name
+     *            the entry name
+     * @param content
+     *            the entry content
+     */
+    private static void addEntry(final ZipOutputStream zipOut, final String name, final String content)
+            throws IOException {
+        zipOut.putNextEntry(new ZipEntry(name));
+        zipOut.write(content.getBytes(StandardCharsets.UTF_8));
+        zipOut.closeEntry();
+    }
+
+    /**
+     * The package index contains the packages of entries that were not decoded, the versioned and unversioned
+     * packages of versioned entries, and the packages listed in {@code META-INF/INDEX.LIST}.
+     */
+    @Test
+    public void packagePathsIncludeDeferredAndIndexedPackages(@TempDir final Path tempDir) throws Exception {
+        final Path jarPath = tempDir.resolve("test.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(jarPath))) {
+            addEntry(zipOut, "META-INF/INDEX.LIST", "JarIndex-Version: 1.0\n\ntest.jar\npkg/a\nindexed/pkg\n\n"
+                    + "other.jar\nother/pkg\n");
+            addEntry(zipOut, "pkg/a/A.txt", "a");
+            addEntry(zipOut, "pkg/a/B.txt", "b");
+            addEntry(zipOut, "pkg/b/C.txt", "c");
+            addEntry(zipOut, "root.txt", "root");
+            addEntry(zipOut, "META-INF/versions/9/pkg/c/D.txt", "d");
+        }
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.pathAcceptReject.addToAccept("pkg/a/");
+        scanSpec.pathPrefixAcceptReject.addToAccept("pkg/a/");
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final LogicalZipFile logicalZipFile = nestedJarHandler.nestedPathToLogicalZipFileAndPackageRootMap
+                    .get(jarPath.toString(), null).getKey();
+            assertThat(logicalZipFile.getNumDeferredEntries()).isEqualTo(2);
+            if (VersionFinder.JAVA_MAJOR_VERSION >= 9) {
+                assertThat(logicalZipFile.getPackagePaths()).containsExactlyInAnyOrder("", "META-INF", "pkg/a",
+                        "pkg/b", "META-INF/versions/9/pkg/c", "pkg/c", "indexed/pkg");
+            }
+            assertThat(logicalZipFile.containsPackageOf("pkg/b/Missing.txt")).isTrue();
+            assertThat(logicalZipFile.containsPackageOf("Missing.txt")).isTrue();
+            assertThat(logicalZipFile.containsPackageOf("other/pkg/Missing.txt")).isFalse();
+            assertThat(logicalZipFile.containsPackageOf("pkg/Missing.txt")).isFalse();
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+
+    /**
+     * The entries of a jarfile that has no accepted packages are not scanned, but its resources can still be
+     * looked up.
+     */
+    @Test
+    public void jarfilesWithoutAcceptedPackagesAreNotScanned(@TempDir final Path tempDir) throws Exception {
+        final Path acceptedJar = tempDir.resolve("accepted.jar");
+        final String classfilePath = Cls.class.getName().replace('.', '/') + ".class";
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(acceptedJar))) {
+            zipOut.putNextEntry(new ZipEntry(classfilePath));
+            try (InputStream in = Cls.class.getClassLoader().getResourceAsStream(classfilePath)) {
+                final byte[] buf = new byte[8192];
+                for (int n; (n = in.read(buf)) > 0;) {
+                    zipOut.write(buf, 0, n);
+                }
+            }
+        }
+        final Path otherJar = tempDir.resolve("other.jar");
+        try (ZipOutputStream zipOut = new ZipOutputStream(Files.newOutputStream(otherJar))) {
+            addEntry(zipOut, "other/foo.txt", "foo");
+            addEntry(zipOut, "BOOT-INF/classes/other/bar.txt", "bar");
+        }
+        try (ScanResult scanResult = new ClassGraph().overrideClasspath(acceptedJar, otherJar)
+                .acceptPackages(Cls.class.getPackage().getName()).scan()) {
+            assertThat(scanResult.getAllClasses().getNames()).containsExactly(Cls.class.getName());
+            assertThat(scanResult.getAllResources().getPaths()).containsExactly(classfilePath);
+            final ResourceList fooResources = scanResult.getResourcesWithPathIgnoringAccept("other/foo.txt");
+            assertThat(fooResources).hasSize(1);
+            assertThat(fooResources.get(0).getContentAsString()).isEqualTo("foo");
+            assertThat(scanResult.getResourcesWithPathIgnoringAccept("other/bar.txt").get(0).getContentAsString())
+                    .isEqualTo("bar");
+            assertThat(scanResult.getResourcesWithPathIgnoringAccept("other/missing.txt")).isEmpty();
+            assertThat(scanResult.getClasspathURIs().toString()).contains("other.jar!/BOOT-INF/classes");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package nonapi.io.github.classgraph.fileslice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import nonapi.io.github.classgraph.concurrency.InterruptionChecker;
+import nonapi.io.github.classgraph.fastzipfilereader.NestedJarHandler;
+import nonapi.io.github.classgraph.reflection.ReflectionUtils;
+import nonapi.io.github.classgraph.scanspec.ScanSpec;
+
+/**
+ * FileSliceTest.
+ */
+public class FileSliceTest {
+    /**
+     * Create a (sparse) file of the given length.
+     *
+     * @param file
+     *            the file
+     * @param length
+     *            the length
+     * @return the file
+     */
+    private static File createFile(final File file, final long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+        return file;
+    }
+
+    /**
+     * Adaptive memory mapping maps large files when opened, maps medium-sized files once they have been accessed
+     * often enough, and never maps small files.
+     */
+    @Test
+    public void adaptiveMemoryMapping(@TempDir final Path tempDir) throws IOException {
+        final ScanSpec scanSpec = new ScanSpec();
+        scanSpec.enableAdaptiveMemoryMapping = true;
+        final NestedJarHandler nestedJarHandler = new NestedJarHandler(scanSpec, new InterruptionChecker(),
+                new ReflectionUtils());
+        try {
+            final FileSlice small = new FileSlice(createFile(tempDir.resolve("small.jar").toFile(), 64 * 1024),
+                    nestedJarHandler, /* log = */ null);
+            final FileSlice medium = new FileSlice(
+                    createFile(tempDir.resolve("medium.jar").toFile(), FileSlice.ADAPTIVE_MAPPING_MIN_FILE_SIZE),
+                    nestedJarHandler, /* log = */ null);
+            final FileSlice large = new FileSlice(
+                    createFile(tempDir.resolve("large.jar").toFile(), FileSlice.ADAPTIVE_MAPPING_EAGER_FILE_SIZE),
+                    nestedJarHandler, /* log = */ null);
+            assertThat(small.isMemoryMapped()).isFalse();
+            assertThat(medium.isMemoryMapped()).isFalse();
+            assertThat(large.isMemoryMapped()).isTrue();
+
+            // Slices created before the file was mapped switch to the mapping once the file is mapped
+            final Slice mediumEntry = medium.slice(100L, 10L, /* isDeflatedZipEntry = */ false, 0L);
+            for (int i = 0; i < FileSlice.ADAPTIVE_MAPPING_ACCESS_THRESHOLD - 1; i++) {
+                small.randomAccessReader();
+                mediumEntry.randomAccessReader();
+            }
+            assertThat(medium.isMemoryMapped()).isFalse();
+            assertThat(mediumEntry.byteBufferView()).isNull();
+            mediumEntry.randomAccessReader();
+            small.randomAccessReader();
+            assertThat(medium.isMemoryMapped()).isTrue();
+            assertThat(mediumEntry.byteBufferView().remaining()).isEqualTo(10);
+            assertThat(medium.getNumFileChannelAccesses()).isEqualTo(FileSlice.ADAPTIVE_MAPPING_ACCESS_THRESHOLD);
+            assertThat(medium.getNumMappedAccesses()).isEqualTo(1);
+
+            assertThat(small.isMemoryMapped()).isFalse();
+            assertThat(small.getNumFileChannelAccesses()).isEqualTo(FileSlice.ADAPTIVE_MAPPING_ACCESS_THRESHOLD);
+            assertThat(small.getNumMappedAccesses()).isZero();
+
+            large.randomAccessReader();
+            assertThat(large.getNumFileChannelAccesses()).isZero();
+            assertThat(large.getNumMappedAccesses()).isEqualTo(1);
+        } finally {
+            nestedJarHandler.close(null);
+        }
+    }
+}
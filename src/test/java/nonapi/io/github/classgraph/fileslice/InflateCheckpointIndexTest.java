@@ -0,0 +1,130 @@
+package nonapi.io.github.classgraph.fileslice;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import org.junit.jupiter.api.Test;
+
+import nonapi.io.github.classgraph.fileslice.reader.RandomAccessArrayReader;
+
+/**
+ * InflateCheckpointIndexTest.
+ */
+public class InflateCheckpointIndexTest {
+    /**
+     * Create test data consisting of runs of incompressible and compressible content.
+     *
+     * @return the data
+     */
+    private static byte[] createData() {
+        final Random random = new Random(1);
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        for (int i = 0; bout.size() < 2 * 1024 * 1024; i++) {
+            if (i % 3 == 0) {
+                final byte[] incompressible = new byte[random.nextInt(100000)];
+                random.nextBytes(incompressible);
+                bout.write(incompressible, 0, incompressible.length);
+            } else {
+                final StringBuilder buf = new StringBuilder();
+                for (int j = random.nextInt(5000); j > 0; j--) {
+                    buf.append("io/github/classgraph/Cls").append(random.nextInt(1000)).append(".class\n");
+                }
+                final byte[] text = buf.toString().getBytes(StandardCharsets.UTF_8);
+                bout.write(text, 0, text.length);
+            }
+        }
+        return bout.toByteArray();
+    }
+
+    /**
+     * Deflate data, changing the compression level and flushing periodically, so that the deflated stream contains
+     * stored, fixed Huffman and dynamic Huffman blocks, some of which start at a byte boundary.
+     *
+     * @param data
+     *            the data
+     * @return the deflated data
+     */
+    private static byte[] deflate(final byte[] data) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, /* nowrap = */ true);
+        try {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            final byte[] buf = new byte[8192];
+            final int chunkSize = 100000;
+            for (int off = 0, chunkIdx = 0; off < data.length; off += chunkSize, chunkIdx++) {
+                deflater.setLevel(chunkIdx % 4 == 3 ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+                deflater.setInput(data, off, Math.min(chunkSize, data.length - off));
+                for (int n; (n = deflater.deflate(buf, 0, buf.length,
+                        chunkIdx % 2 == 0 ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH)) > 0;) {
+                    bout.write(buf, 0, n);
+                }
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                bout.write(buf, 0, deflater.deflate(buf));
+            }
+            return bout.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads at random offsets from a checkpoint index match the original data.
+     */
+    @Test
+    public void randomReadsMatchInflatedContent() throws IOException, InterruptedException {
+        final byte[] data = createData();
+        final byte[] deflated = deflate(data);
+        try (InflateCheckpointIndex index = new InflateCheckpointIndex(
+                new RandomAccessArrayReader(deflated, 0, deflated.length), deflated.length, data.length,
+                /* checkpointSpan = */ 64 * 1024, /* interruptionChecker = */ null)) {
+            assertThat(index.inflatedLength).isEqualTo(data.length);
+            assertThat(index.getNumCheckpoints()).isGreaterThan(5);
+
+            // Read the whole stream sequentially
+            final byte[] inflated = new byte[data.length];
+            for (int off = 0; off < data.length; off += 1000) {
+                index.read(off, inflated, off, Math.min(1000, data.length - off));
+            }
+            assertThat(inflated).isEqualTo(data);
+
+            // Read at random offsets, including backwards
+            final Random random = new Random(2);
+            for (int i = 0; i < 200; i++) {
+                final int off = random.nextInt(data.length);
+                final int len = Math.min(random.nextInt(70000), data.length - off);
+                final byte[] range = new byte[len];
+                index.read(off, range, 0, len);
+                assertThat(range).isEqualTo(Arrays.copyOfRange(data, off, off + len));
+            }
+
+            assertThatThrownBy(() -> index.read(data.length - 1, new byte[2], 0, 2))
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    /**
+     * Indexing fails if the deflated stream is invalid, or does not have the expected inflated length.
+     */
+    @Test
+    public void invalidDeflatedStream() throws IOException {
+        final byte[] data = "io/github/classgraph/ClassGraph.class".getBytes(StandardCharsets.UTF_8);
+        final byte[] deflated = deflate(data);
+        assertThatThrownBy(() -> new InflateCheckpointIndex(new RandomAccessArrayReader(deflated, 0, 5), 5L, -1L,
+                InflateCheckpointIndex.DEFAULT_CHECKPOINT_SPAN, null)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> new InflateCheckpointIndex(
+                new RandomAccessArrayReader(deflated, 0, deflated.length), deflated.length, data.length + 1,
+                InflateCheckpointIndex.DEFAULT_CHECKPOINT_SPAN, null)).isInstanceOf(IOException.class);
+        final byte[] invalid = { (byte) 0xff, 1, 2, 3 };
+        assertThatThrownBy(() -> new InflateCheckpointIndex(new RandomAccessArrayReader(invalid, 0, invalid.length),
+                invalid.length, -1L, InflateCheckpointIndex.DEFAULT_CHECKPOINT_SPAN, null))
+                        .isInstanceOf(IOException.class);
+    }
+}